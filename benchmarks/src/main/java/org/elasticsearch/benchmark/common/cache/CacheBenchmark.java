@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.EvictionPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hit throughput of the eviction policies of {@link Cache} with many concurrent readers. Keys are drawn from a
+ * skewed distribution so that a few entries are much hotter than the others, as is typical for the request cache.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@Threads(8)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CacheBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 16;
+    private static final int KEY_MASK = NUMBER_OF_KEYS - 1;
+
+    @Param({"lru", "tiny_lfu"})
+    private String evictionPolicy;
+
+    @Param({"10000"})
+    private int maximumWeight;
+
+    private Cache<Integer, Integer> cache;
+
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = CacheBuilder.<Integer, Integer>builder()
+            .setMaximumWeight(maximumWeight)
+            .setEvictionPolicy(EvictionPolicy.parse(evictionPolicy))
+            .build();
+        Random random = new Random(42);
+        keys = new Integer[NUMBER_OF_KEYS];
+        for (int i = 0; i < NUMBER_OF_KEYS; i++) {
+            // squaring a uniform variable skews the keys towards the low end of the range
+            double uniform = random.nextDouble();
+            keys[i] = (int) (uniform * uniform * maximumWeight);
+        }
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(i, i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int index;
+
+        @Setup
+        public void setUp() {
+            index = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        }
+    }
+
+    @Benchmark
+    public Integer get(ThreadState state) {
+        return cache.get(keys[state.index++ & KEY_MASK]);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.ingest;
+
+import org.elasticsearch.grok.Grok;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures grok matching of typical Apache access log and syslog lines, for lines that match and for lines that do not match
+ * any of the patterns, which is the case the literal prefilter speeds up.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class GrokBenchmark {
+
+    private static final String APACHE_LINE = "83.149.9.216 - - [17/May/2015:10:05:03 +0000] \"GET " +
+        "/presentations/logstash-monitorama-2013/images/kibana-search.png HTTP/1.1\" 200 203023 " +
+        "\"http://semicomplete.com/presentations/logstash-monitorama-2013/\" \"Mozilla/5.0 (Macintosh; Intel Mac OS X 10_9_1) " +
+        "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/32.0.1700.77 Safari/537.36\"";
+    private static final String SYSLOG_LINE =
+        "Mar 16 00:01:25 evita postfix/smtpd[1713]: connect from camomile.cloud9.net[168.100.1.3]";
+    private static final String UNMATCHED_LINE =
+        "java.lang.IllegalStateException: failed to obtain node locks, tried [[/var/lib/elasticsearch]] with lock id [0]";
+
+    @Param({"apache", "syslog", "apache_or_syslog", "custom"})
+    public String pattern;
+
+    @Param({"true", "false"})
+    public boolean matching;
+
+    private Grok grok;
+    private String line;
+
+    @Setup
+    public void setUp() {
+        Map<String, String> patternBank = Grok.getBuiltinPatterns();
+        String expression;
+        String matchingLine;
+        switch (pattern) {
+            case "apache":
+                expression = "%{COMBINEDAPACHELOG}";
+                matchingLine = APACHE_LINE;
+                break;
+            case "syslog":
+                expression = "%{SYSLOGLINE}";
+                matchingLine = SYSLOG_LINE;
+                break;
+            case "apache_or_syslog":
+                // what the grok processor compiles for a list of two patterns
+                expression = "(?:%{COMBINEDAPACHELOG})|(?:%{SYSLOGBASE} %{GREEDYDATA:message})";
+                matchingLine = SYSLOG_LINE;
+                break;
+            case "custom":
+                expression = "%{SYSLOGTIMESTAMP:timestamp} %{SYSLOGHOST:host} sshd\\[%{POSINT:pid}\\]: Failed password for " +
+                    "%{USERNAME:user} from %{IP:source} port %{POSINT:port}";
+                matchingLine = "Mar 16 00:01:25 evita sshd[1713]: Failed password for root from 168.100.1.3 port 22";
+                break;
+            default:
+                throw new IllegalArgumentException("unknown pattern [" + pattern + "]");
+        }
+        grok = new Grok(patternBank, expression);
+        line = matching ? matchingLine : UNMATCHED_LINE;
+    }
+
+    @Benchmark
+    public Map<String, Object> capturesToMap() {
+        return grok.captures(line);
+    }
+
+    @Benchmark
+    public boolean capturesToConsumer(Blackhole blackhole) {
+        return grok.captures(line, (field, value) -> {
+            blackhole.consume(field);
+            blackhole.consume(value);
+        });
+    }
+
+    @Benchmark
+    public boolean match() {
+        return grok.match(line);
+    }
+}
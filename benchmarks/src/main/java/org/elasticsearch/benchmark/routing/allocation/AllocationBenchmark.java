@@ -106,7 +106,14 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        "      100|      1|        1|   200",
+        "      100|     10|        1|   200",
+        "     1000|      5|        1|   200",
+        // 50k shard copies
+        "     1000|     25|        1|   200",
+        "     5000|      5|        1|   200"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -114,6 +121,7 @@ public class AllocationBenchmark {
 
     private AllocationService strategy;
     private ClusterState initialClusterState;
+    private ClusterState joinedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -149,6 +157,16 @@ public class AllocationBenchmark {
         initialClusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
             .metaData(metaData).routingTable(routingTable).nodes
                 (nb).build();
+
+        ClusterState allocatedClusterState = measureAllocation();
+        while (allocatedClusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING).isEmpty() == false) {
+            allocatedClusterState = strategy.applyStartedShards(allocatedClusterState, allocatedClusterState.getRoutingNodes()
+                    .shardsWithState(ShardRoutingState.INITIALIZING));
+        }
+        joinedClusterState = ClusterState.builder(allocatedClusterState)
+            .nodes(DiscoveryNodes.builder(allocatedClusterState.nodes())
+                .add(Allocators.newNode("node" + (numNodes + 1), Collections.singletonMap("tag", "tag_" + ((numNodes + 1) % numTags)))))
+            .build();
     }
 
     private int toInt(String v) {
@@ -165,4 +183,13 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    /**
+     * Measures a single reroute of a fully allocated cluster that a new node joined, which has to weigh all nodes for every
+     * index to find the shards to move to the new node.
+     */
+    @Benchmark
+    public ClusterState measureRebalance() {
+        return strategy.reroute(joinedClusterState, "reroute");
+    }
 }
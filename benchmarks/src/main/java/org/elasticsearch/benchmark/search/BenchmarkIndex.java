@@ -0,0 +1,159 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesModule;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.function.IntFunction;
+
+/**
+ * A single shard index held in memory together with the mapping and field data services that the search and aggregation code
+ * expects to find on a shard. Benchmarks build one of these in their trial setup and create a {@link BenchmarkSearchContext}
+ * per invocation.
+ */
+public final class BenchmarkIndex implements Closeable {
+
+    public static final String INDEX_NAME = "benchmark";
+    public static final String TYPE = "_doc";
+
+    private final Directory directory;
+    private final DirectoryReader reader;
+    private final IndexSettings indexSettings;
+    private final SimilarityService similarityService;
+    private final MapperService mapperService;
+    private final IndicesFieldDataCache indicesFieldDataCache;
+    private final IndexFieldDataService fieldDataService;
+    private final BigArrays bigArrays;
+
+    private BenchmarkIndex(String mapping, int numDocs, IntFunction<XContentBuilder> documents) throws IOException {
+        Settings settings = Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build();
+        indexSettings = new IndexSettings(IndexMetaData.builder(INDEX_NAME).settings(settings).build(), Settings.EMPTY);
+        NamedAnalyzer standard = new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer());
+        IndexAnalyzers indexAnalyzers = new IndexAnalyzers(indexSettings, standard, standard, standard,
+            Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+        similarityService = new SimilarityService(indexSettings, null, Collections.emptyMap());
+        mapperService = new MapperService(indexSettings, indexAnalyzers, NamedXContentRegistry.EMPTY, similarityService,
+            new IndicesModule(Collections.emptyList()).getMapperRegistry(), () -> null);
+        mapperService.merge(TYPE, new CompressedXContent(mapping), MapperService.MergeReason.MAPPING_UPDATE, false);
+        indicesFieldDataCache = new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {});
+        fieldDataService = new IndexFieldDataService(indexSettings, indicesFieldDataCache, new NoneCircuitBreakerService(),
+            mapperService);
+        bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService(), CircuitBreaker.REQUEST);
+
+        directory = new RAMDirectory();
+        DocumentMapper documentMapper = mapperService.documentMapper(TYPE);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(mapperService.indexAnalyzer()))) {
+            for (int i = 0; i < numDocs; i++) {
+                XContentBuilder document = documents.apply(i);
+                SourceToParse sourceToParse = SourceToParse.source(INDEX_NAME, TYPE, Integer.toString(i),
+                    BytesReference.bytes(document), document.contentType());
+                writer.addDocuments(documentMapper.parse(sourceToParse).docs());
+            }
+            writer.commit();
+        }
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(directory), new ShardId(INDEX_NAME, "_na_", 0));
+    }
+
+    /**
+     * Creates an index with the given mapping for the {@code _doc} type and indexes {@code numDocs} documents whose sources are
+     * produced by {@code documents}.
+     */
+    public static BenchmarkIndex create(String mapping, int numDocs, IntFunction<XContentBuilder> documents) throws IOException {
+        return new BenchmarkIndex(mapping, numDocs, documents);
+    }
+
+    public DirectoryReader reader() {
+        return reader;
+    }
+
+    public MapperService mapperService() {
+        return mapperService;
+    }
+
+    public SimilarityService similarityService() {
+        return similarityService;
+    }
+
+    public BigArrays bigArrays() {
+        return bigArrays;
+    }
+
+    /**
+     * Creates a new search context over the whole index. Field data, including global ordinals, is cached across contexts the
+     * same way it is on a shard, so only the first context pays for loading it.
+     */
+    public BenchmarkSearchContext newSearchContext() {
+        QueryShardContext queryShardContext = new QueryShardContext(0, indexSettings, null, fieldDataService::getForField,
+            mapperService, similarityService, null, NamedXContentRegistry.EMPTY, new NamedWriteableRegistry(Collections.emptyList()),
+            null, reader, System::currentTimeMillis, null);
+        Engine.Searcher engineSearcher = new Engine.Searcher("benchmark", new IndexSearcher(reader), () -> {});
+        ContextIndexSearcher searcher = new ContextIndexSearcher(engineSearcher, null, new UsageTrackingQueryCachingPolicy());
+        return new BenchmarkSearchContext(this, queryShardContext, searcher, bigArrays.withCircuitBreaking());
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(reader, directory, mapperService, fieldDataService::clear, indicesFieldDataCache);
+    }
+}
@@ -0,0 +1,633 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Counter;
+import org.elasticsearch.action.search.SearchTask;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.frequency.BackgroundFrequencyCache;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ObjectMapper;
+import org.elasticsearch.index.query.ParsedQuery;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesFetchCache;
+import org.elasticsearch.search.SearchExtBuilder;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.collapse.CollapseContext;
+import org.elasticsearch.search.dfs.DfsSearchResult;
+import org.elasticsearch.search.fetch.FetchPhase;
+import org.elasticsearch.search.fetch.FetchSearchResult;
+import org.elasticsearch.search.fetch.StoredFieldsContext;
+import org.elasticsearch.search.fetch.subphase.DocValueFieldsContext;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.fetch.subphase.ScriptFieldsContext;
+import org.elasticsearch.search.fetch.subphase.highlight.SearchContextHighlight;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.ScrollContext;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.profile.Profilers;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.rescore.RescoreContext;
+import org.elasticsearch.search.sort.SortAndFormats;
+import org.elasticsearch.search.suggest.SuggestionSearchContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal {@link SearchContext} over a {@link BenchmarkIndex}. It carries just enough state to run the aggregation and fetch
+ * phases against a single in-memory shard; everything that needs a real {@link IndexShard} or a search request is unsupported.
+ */
+public final class BenchmarkSearchContext extends SearchContext {
+
+    private final BenchmarkIndex index;
+    private final QueryShardContext queryShardContext;
+    private final ContextIndexSearcher searcher;
+    private final BigArrays bigArrays;
+    private final Map<Class<?>, Collector> queryCollectors = new HashMap<>();
+    private final AggregationPhase aggregationPhase = new AggregationPhase();
+    private QuerySearchResult queryResult = new QuerySearchResult();
+    private SearchContextAggregations aggregations;
+    private FetchSourceContext fetchSourceContext;
+    private ParsedQuery parsedQuery = new ParsedQuery(new MatchAllDocsQuery());
+
+    BenchmarkSearchContext(BenchmarkIndex index, QueryShardContext queryShardContext, ContextIndexSearcher searcher,
+                           BigArrays bigArrays) {
+        this.index = index;
+        this.queryShardContext = queryShardContext;
+        this.searcher = searcher;
+        this.bigArrays = bigArrays;
+    }
+
+    /**
+     * Clears the per-request state so that the context can be reused by the next benchmark invocation.
+     */
+    public void reset() {
+        clearReleasables(Lifetime.CONTEXT);
+        queryCollectors.clear();
+        queryResult = new QuerySearchResult();
+        aggregations = null;
+    }
+
+    /**
+     * Runs the given top level aggregations over every document of the index the same way the query phase does on a shard and
+     * returns the shard level results.
+     */
+    public InternalAggregations aggregate(AggregatorFactories.Builder factories) throws IOException {
+        reset();
+        aggregations(new SearchContextAggregations(factories.build(this, null), new MultiBucketConsumer(Integer.MAX_VALUE)));
+        aggregationPhase.preProcess(this);
+        Collector collector = queryCollectors.get(AggregationPhase.class);
+        if (collector != null) {
+            searcher.search(query(), collector);
+        }
+        aggregationPhase.execute(this);
+        InternalAggregations result = (InternalAggregations) queryResult.consumeAggs();
+        reset();
+        return result;
+    }
+
+    @Override
+    public void setTask(SearchTask task) {
+    }
+
+    @Override
+    public SearchTask getTask() {
+        return null;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    @Override
+    public void preProcess(boolean rewrite) {
+    }
+
+    @Override
+    public Query buildFilteredQuery(Query query) {
+        return query;
+    }
+
+    @Override
+    public long id() {
+        return 0;
+    }
+
+    @Override
+    public String source() {
+        return "benchmark";
+    }
+
+    @Override
+    public ShardSearchRequest request() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SearchType searchType() {
+        return SearchType.DEFAULT;
+    }
+
+    @Override
+    public SearchShardTarget shardTarget() {
+        return null;
+    }
+
+    @Override
+    public int numberOfShards() {
+        return 1;
+    }
+
+    @Override
+    public float queryBoost() {
+        return 1.0f;
+    }
+
+    @Override
+    public long getOriginNanoTime() {
+        return 0;
+    }
+
+    @Override
+    public ScrollContext scrollContext() {
+        return null;
+    }
+
+    @Override
+    public SearchContext scrollContext(ScrollContext scroll) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SearchContextAggregations aggregations() {
+        return aggregations;
+    }
+
+    @Override
+    public SearchContext aggregations(SearchContextAggregations aggregations) {
+        this.aggregations = aggregations;
+        return this;
+    }
+
+    @Override
+    public void addSearchExt(SearchExtBuilder searchExtBuilder) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SearchExtBuilder getSearchExt(String name) {
+        return null;
+    }
+
+    @Override
+    public SearchContextHighlight highlight() {
+        return null;
+    }
+
+    @Override
+    public void highlight(SearchContextHighlight highlight) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SuggestionSearchContext suggest() {
+        return null;
+    }
+
+    @Override
+    public void suggest(SuggestionSearchContext suggest) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<RescoreContext> rescore() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addRescore(RescoreContext rescore) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasScriptFields() {
+        return false;
+    }
+
+    @Override
+    public ScriptFieldsContext scriptFields() {
+        return null;
+    }
+
+    @Override
+    public boolean sourceRequested() {
+        return fetchSourceContext != null && fetchSourceContext.fetchSource();
+    }
+
+    @Override
+    public boolean hasFetchSourceContext() {
+        return fetchSourceContext != null;
+    }
+
+    @Override
+    public FetchSourceContext fetchSourceContext() {
+        return fetchSourceContext;
+    }
+
+    @Override
+    public SearchContext fetchSourceContext(FetchSourceContext fetchSourceContext) {
+        this.fetchSourceContext = fetchSourceContext;
+        return this;
+    }
+
+    @Override
+    public IndicesFetchCache fetchCache() {
+        return null;
+    }
+
+    @Override
+    public SearchContext fetchCache(IndicesFetchCache fetchCache) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DocValueFieldsContext docValueFieldsContext() {
+        return null;
+    }
+
+    @Override
+    public SearchContext docValueFieldsContext(DocValueFieldsContext docValueFieldsContext) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ContextIndexSearcher searcher() {
+        return searcher;
+    }
+
+    @Override
+    public IndexShard indexShard() {
+        return null;
+    }
+
+    @Override
+    public MapperService mapperService() {
+        return index.mapperService();
+    }
+
+    @Override
+    public SimilarityService similarityService() {
+        return index.similarityService();
+    }
+
+    @Override
+    public BigArrays bigArrays() {
+        return bigArrays;
+    }
+
+    @Override
+    public BitsetFilterCache bitsetFilterCache() {
+        return null;
+    }
+
+    @Override
+    public BackgroundFrequencyCache backgroundFrequencyCache() {
+        return null;
+    }
+
+    @Override
+    public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
+        return queryShardContext.getForField(fieldType);
+    }
+
+    @Override
+    public TimeValue timeout() {
+        return TimeValue.MINUS_ONE;
+    }
+
+    @Override
+    public void timeout(TimeValue timeout) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int terminateAfter() {
+        return DEFAULT_TERMINATE_AFTER;
+    }
+
+    @Override
+    public void terminateAfter(int terminateAfter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean lowLevelCancellation() {
+        return false;
+    }
+
+    @Override
+    public SearchContext minimumScore(float minimumScore) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Float minimumScore() {
+        return null;
+    }
+
+    @Override
+    public SearchContext sort(SortAndFormats sort) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SortAndFormats sort() {
+        return null;
+    }
+
+    @Override
+    public SearchContext trackScores(boolean trackScores) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean trackScores() {
+        return false;
+    }
+
+    @Override
+    public SearchContext trackTotalHits(boolean trackTotalHits) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean trackTotalHits() {
+        return true;
+    }
+
+    @Override
+    public SearchContext searchAfter(FieldDoc searchAfter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FieldDoc searchAfter() {
+        return null;
+    }
+
+    @Override
+    public SearchContext collapse(CollapseContext collapse) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CollapseContext collapse() {
+        return null;
+    }
+
+    @Override
+    public SearchContext parsedPostFilter(ParsedQuery postFilter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ParsedQuery parsedPostFilter() {
+        return null;
+    }
+
+    @Override
+    public Query aliasFilter() {
+        return null;
+    }
+
+    @Override
+    public SearchContext parsedQuery(ParsedQuery query) {
+        this.parsedQuery = query;
+        return this;
+    }
+
+    @Override
+    public ParsedQuery parsedQuery() {
+        return parsedQuery;
+    }
+
+    @Override
+    public Query query() {
+        return parsedQuery.query();
+    }
+
+    @Override
+    public int from() {
+        return 0;
+    }
+
+    @Override
+    public SearchContext from(int from) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int size() {
+        return 0;
+    }
+
+    @Override
+    public SearchContext size(int size) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasStoredFields() {
+        return false;
+    }
+
+    @Override
+    public boolean hasStoredFieldsContext() {
+        return false;
+    }
+
+    @Override
+    public boolean storedFieldsRequested() {
+        return false;
+    }
+
+    @Override
+    public StoredFieldsContext storedFieldsContext() {
+        return null;
+    }
+
+    @Override
+    public SearchContext storedFieldsContext(StoredFieldsContext storedFieldsContext) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean explain() {
+        return false;
+    }
+
+    @Override
+    public void explain(boolean explain) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> groupStats() {
+        return null;
+    }
+
+    @Override
+    public void groupStats(List<String> groupStats) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean version() {
+        return false;
+    }
+
+    @Override
+    public void version(boolean version) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean seqNoAndPrimaryTerm() {
+        return false;
+    }
+
+    @Override
+    public void seqNoAndPrimaryTerm(boolean seqNoAndPrimaryTerm) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int[] docIdsToLoad() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int docIdsToLoadFrom() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int docIdsToLoadSize() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SearchContext docIdsToLoad(int[] docIdsToLoad, int docsIdsToLoadFrom, int docsIdsToLoadSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void accessed(long accessTime) {
+    }
+
+    @Override
+    public long lastAccessTime() {
+        return 0;
+    }
+
+    @Override
+    public long keepAlive() {
+        return 0;
+    }
+
+    @Override
+    public void keepAlive(long keepAlive) {
+    }
+
+    @Override
+    public DfsSearchResult dfsResult() {
+        return null;
+    }
+
+    @Override
+    public QuerySearchResult queryResult() {
+        return queryResult;
+    }
+
+    @Override
+    public FetchPhase fetchPhase() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FetchSearchResult fetchResult() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Profilers getProfilers() {
+        return null;
+    }
+
+    @Override
+    public MappedFieldType smartNameFieldType(String name) {
+        return index.mapperService().fullName(name);
+    }
+
+    @Override
+    public ObjectMapper getObjectMapper(String name) {
+        return index.mapperService().getObjectMapper(name);
+    }
+
+    @Override
+    public Counter timeEstimateCounter() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<Class<?>, Collector> queryCollectors() {
+        return queryCollectors;
+    }
+
+    @Override
+    public QueryShardContext getQueryShardContext() {
+        return queryShardContext;
+    }
+}
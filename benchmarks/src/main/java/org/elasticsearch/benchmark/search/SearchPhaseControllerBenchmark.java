@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.search.SearchPhaseController;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.LongTerms;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SearchPhaseController#reducedQueryPhase} on the coordinating node: merging the top docs of every shard and
+ * reducing a {@code terms} aggregation whose shards return overlapping sets of buckets.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class SearchPhaseControllerBenchmark {
+
+    @Param({"10", "100"})
+    private int numShards;
+
+    @Param({"10"})
+    private int size;
+
+    @Param({"100", "1000"})
+    private int shardSize;
+
+    private SearchPhaseController controller;
+    private List<SearchPhaseResult> shardResults;
+
+    @Setup
+    public void setUp() {
+        BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService(), "request");
+        controller = new SearchPhaseController(finalReduce -> new InternalAggregation.ReduceContext(bigArrays, null, finalReduce));
+    }
+
+    /**
+     * Reducing consumes the aggregations of the shard results so they are rebuilt before every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void createShardResults() {
+        Random random = new Random(42);
+        shardResults = new ArrayList<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            SearchShardTarget target = new SearchShardTarget("node", new ShardId("benchmark", "_na_", shard), null,
+                OriginalIndices.NONE);
+            QuerySearchResult result = new QuerySearchResult(shard, target);
+            ScoreDoc[] scoreDocs = new ScoreDoc[size];
+            float score = 10 + random.nextFloat();
+            for (int i = 0; i < size; i++) {
+                score -= random.nextFloat() / size;
+                scoreDocs[i] = new ScoreDoc(random.nextInt(100000), score);
+            }
+            result.topDocs(new TopDocs(100000, scoreDocs, scoreDocs[0].score), null);
+            result.from(0);
+            result.size(size);
+            List<LongTerms.Bucket> buckets = new ArrayList<>(shardSize);
+            // the terms of the shards overlap so that most buckets need to be merged
+            int firstTerm = random.nextInt(shardSize);
+            for (int i = 0; i < shardSize; i++) {
+                long term = firstTerm + i;
+                buckets.add(new LongTerms.Bucket(term, shardSize - i, InternalAggregations.EMPTY, false, 0, DocValueFormat.RAW));
+            }
+            LongTerms terms = new LongTerms("terms", BucketOrder.count(false), size, 1, Collections.emptyList(),
+                Collections.emptyMap(), DocValueFormat.RAW, shardSize, false, 0, buckets, 0);
+            result.aggregations(new InternalAggregations(Collections.singletonList(terms)));
+            result.setShardIndex(shard);
+            shardResults.add(result);
+        }
+    }
+
+    @Benchmark
+    public SearchPhaseController.ReducedQueryPhase reduce() {
+        return controller.reducedQueryPhase(shardResults, false, true, true);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.benchmark.search.BenchmarkIndex;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the index shared by the aggregation benchmarks: a {@code keyword} and a {@code long} field with a configurable number
+ * of distinct values, a {@code date} field spread evenly over one year and a normally distributed {@code double} field.
+ */
+final class AggregationBenchmarkIndex {
+
+    static final String KEYWORD_FIELD = "keyword";
+    static final String LONG_FIELD = "long";
+    static final String DATE_FIELD = "date";
+    static final String DOUBLE_FIELD = "double";
+
+    private static final long START_MILLIS = 1546300800000L; // 2019-01-01T00:00:00Z
+    private static final long YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    private AggregationBenchmarkIndex() {}
+
+    static BenchmarkIndex create(int numDocs, int cardinality) throws IOException {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder()
+            .startObject()
+                .startObject(BenchmarkIndex.TYPE)
+                    .startObject("properties")
+                        .startObject(KEYWORD_FIELD).field("type", "keyword").endObject()
+                        .startObject(LONG_FIELD).field("type", "long").endObject()
+                        .startObject(DATE_FIELD).field("type", "date").endObject()
+                        .startObject(DOUBLE_FIELD).field("type", "double").endObject()
+                    .endObject()
+                .endObject()
+            .endObject());
+        Random random = new Random(42);
+        long step = Math.max(1, YEAR_MILLIS / numDocs);
+        return BenchmarkIndex.create(mapping, numDocs, i -> {
+            int value = random.nextInt(cardinality);
+            try {
+                XContentBuilder document = XContentFactory.jsonBuilder();
+                document.startObject()
+                    .field(KEYWORD_FIELD, "term-" + value)
+                    .field(LONG_FIELD, value)
+                    .field(DATE_FIELD, START_MILLIS + i * step)
+                    .field(DOUBLE_FIELD, 100 + random.nextGaussian() * 20)
+                    .endObject();
+                return document;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
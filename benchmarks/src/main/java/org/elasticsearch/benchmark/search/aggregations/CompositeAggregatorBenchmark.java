@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.benchmark.search.BenchmarkIndex;
+import org.elasticsearch.benchmark.search.BenchmarkSearchContext;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.DateHistogramValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.InternalComposite;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures paging through all buckets of a {@code composite} aggregation with a {@code terms} and a {@code date_histogram}
+ * source, the way a client that exports every bucket would. Each invocation runs the aggregation once per page and feeds the
+ * {@code after_key} of a page into the request for the next one.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CompositeAggregatorBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    @Param({"100"})
+    private int cardinality;
+
+    @Param({"100000"})
+    private int numDocs;
+
+    private BenchmarkIndex index;
+    private BenchmarkSearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        index = AggregationBenchmarkIndex.create(numDocs, cardinality);
+        context = index.newSearchContext();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Benchmark
+    public long pageThroughAllBuckets() throws IOException {
+        long buckets = 0;
+        Map<String, Object> afterKey = null;
+        do {
+            CompositeAggregationBuilder composite = new CompositeAggregationBuilder("composite", sources()).size(pageSize);
+            if (afterKey != null) {
+                composite.aggregateAfter(afterKey);
+            }
+            InternalComposite page = context.aggregate(AggregatorFactories.builder().addAggregator(composite)).get("composite");
+            buckets += page.getBuckets().size();
+            afterKey = page.getBuckets().size() < pageSize ? null : page.afterKey();
+        } while (afterKey != null);
+        return buckets;
+    }
+
+    private static List<CompositeValuesSourceBuilder<?>> sources() {
+        return Arrays.asList(
+            new TermsValuesSourceBuilder("term").field(AggregationBenchmarkIndex.KEYWORD_FIELD),
+            new DateHistogramValuesSourceBuilder("week").field(AggregationBenchmarkIndex.DATE_FIELD)
+                .dateHistogramInterval(DateHistogramInterval.WEEK));
+    }
+}
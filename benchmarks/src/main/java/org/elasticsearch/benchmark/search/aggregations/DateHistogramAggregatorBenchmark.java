@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.benchmark.search.BenchmarkIndex;
+import org.elasticsearch.benchmark.search.BenchmarkSearchContext;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the shard level collection of a top level {@code date_histogram} aggregation over one year of documents, with and
+ * without an {@code avg} sub-aggregation.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class DateHistogramAggregatorBenchmark {
+
+    @Param({"1h", "1d", "1M"})
+    private String interval;
+
+    @Param({"100000"})
+    private int numDocs;
+
+    private BenchmarkIndex index;
+    private BenchmarkSearchContext context;
+    private AggregatorFactories.Builder histogram;
+    private AggregatorFactories.Builder histogramWithAvg;
+
+    @Setup
+    public void setUp() throws IOException {
+        index = AggregationBenchmarkIndex.create(numDocs, 100);
+        context = index.newSearchContext();
+        histogram = AggregatorFactories.builder().addAggregator(AggregationBuilders.dateHistogram("histogram")
+            .field(AggregationBenchmarkIndex.DATE_FIELD)
+            .dateHistogramInterval(new DateHistogramInterval(interval)));
+        histogramWithAvg = AggregatorFactories.builder().addAggregator(AggregationBuilders.dateHistogram("histogram")
+            .field(AggregationBenchmarkIndex.DATE_FIELD)
+            .dateHistogramInterval(new DateHistogramInterval(interval))
+            .subAggregation(AggregationBuilders.avg("avg").field(AggregationBenchmarkIndex.DOUBLE_FIELD)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Benchmark
+    public InternalAggregations dateHistogram() throws IOException {
+        return context.aggregate(histogram);
+    }
+
+    @Benchmark
+    public InternalAggregations dateHistogramWithAvg() throws IOException {
+        return context.aggregate(histogramWithAvg);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.benchmark.search.BenchmarkIndex;
+import org.elasticsearch.benchmark.search.BenchmarkSearchContext;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the shard level collection of a top level {@code terms} aggregation. The {@code keyword} field is aggregated with
+ * both execution hints, the {@code long} field exercises the numeric terms aggregator.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class TermsAggregatorBenchmark {
+
+    @Param({"global_ordinals", "map", "numeric"})
+    private String variant;
+
+    @Param({"100", "10000"})
+    private int cardinality;
+
+    @Param({"100000"})
+    private int numDocs;
+
+    private BenchmarkIndex index;
+    private BenchmarkSearchContext context;
+    private AggregatorFactories.Builder aggregations;
+
+    @Setup
+    public void setUp() throws IOException {
+        index = AggregationBenchmarkIndex.create(numDocs, cardinality);
+        context = index.newSearchContext();
+        TermsAggregationBuilder terms = AggregationBuilders.terms("terms").size(10);
+        if ("numeric".equals(variant)) {
+            terms.field(AggregationBenchmarkIndex.LONG_FIELD);
+        } else {
+            terms.field(AggregationBenchmarkIndex.KEYWORD_FIELD).executionHint(variant);
+        }
+        aggregations = AggregatorFactories.builder().addAggregator(terms);
+        // load the field data and build global ordinals outside of the measurement
+        context.aggregate(aggregations);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Benchmark
+    public InternalAggregations terms() throws IOException {
+        return context.aggregate(aggregations);
+    }
+}
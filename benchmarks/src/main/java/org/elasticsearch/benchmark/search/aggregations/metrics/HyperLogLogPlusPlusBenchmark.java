@@ -0,0 +1,111 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link HyperLogLogPlusPlus} sketch behind the {@code cardinality} aggregation: collecting hashes into a number of
+ * buckets and merging the per shard sketches of every bucket on the coordinating node. A small number of distinct values keeps
+ * the sketch in linear counting mode, a large number switches it to HyperLogLog registers.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class HyperLogLogPlusPlusBenchmark {
+
+    @Param({"14"})
+    private int precision;
+
+    @Param({"1000", "100000"})
+    private int distinctValues;
+
+    @Param({"1", "100"})
+    private int buckets;
+
+    private BigArrays bigArrays;
+    private long[] hashes;
+    private HyperLogLogPlusPlus shardSketch;
+
+    @Setup
+    public void setUp() {
+        bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService(), "request");
+        Random random = new Random(42);
+        hashes = new long[distinctValues];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = BitMixer.mix64(random.nextLong());
+        }
+        shardSketch = collectAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        shardSketch.close();
+    }
+
+    private HyperLogLogPlusPlus collectAll() {
+        HyperLogLogPlusPlus sketch = new HyperLogLogPlusPlus(precision, bigArrays, 1);
+        for (int i = 0; i < hashes.length; i++) {
+            sketch.collect(i % buckets, hashes[i]);
+        }
+        return sketch;
+    }
+
+    @Benchmark
+    public long collect() {
+        try (HyperLogLogPlusPlus sketch = collectAll()) {
+            return sketch.cardinality(0);
+        }
+    }
+
+    @Benchmark
+    public long merge() {
+        try (HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(precision, bigArrays, 1)) {
+            for (long bucket = 0; bucket < buckets; bucket++) {
+                merged.merge(bucket, shardSketch, bucket);
+            }
+            return merged.cardinality(0);
+        }
+    }
+}
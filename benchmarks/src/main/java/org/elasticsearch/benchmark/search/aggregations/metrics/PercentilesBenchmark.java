@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import org.HdrHistogram.DoubleHistogram;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sketches behind the {@code percentiles} aggregation: recording the values of a shard into a {@link TDigestState}
+ * or an HDR {@link DoubleHistogram}, and merging the sketches of many shards the way the reduce phase does.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class PercentilesBenchmark {
+
+    @Param({"100000"})
+    private int numValues;
+
+    @Param({"20"})
+    private int numShards;
+
+    @Param({"100"})
+    private double compression;
+
+    @Param({"3"})
+    private int numberOfSignificantValueDigits;
+
+    private double[] values;
+    private TDigestState[] shardDigests;
+    private DoubleHistogram[] shardHistograms;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = new double[numValues];
+        for (int i = 0; i < values.length; i++) {
+            // latency like values: log-normally distributed with a long tail
+            values[i] = Math.exp(3 + random.nextGaussian());
+        }
+        shardDigests = new TDigestState[numShards];
+        shardHistograms = new DoubleHistogram[numShards];
+        for (int shard = 0; shard < numShards; shard++) {
+            shardDigests[shard] = new TDigestState(compression);
+            shardHistograms[shard] = newHistogram();
+            for (int i = shard; i < values.length; i += numShards) {
+                shardDigests[shard].add(values[i]);
+                shardHistograms[shard].recordValue(values[i]);
+            }
+        }
+    }
+
+    private DoubleHistogram newHistogram() {
+        DoubleHistogram histogram = new DoubleHistogram(numberOfSignificantValueDigits);
+        histogram.setAutoResize(true);
+        return histogram;
+    }
+
+    @Benchmark
+    public double recordTDigest() {
+        TDigestState state = new TDigestState(compression);
+        for (double value : values) {
+            state.add(value);
+        }
+        return state.quantile(0.99);
+    }
+
+    @Benchmark
+    public double recordHdr() {
+        DoubleHistogram state = newHistogram();
+        for (double value : values) {
+            state.recordValue(value);
+        }
+        return state.getValueAtPercentile(99);
+    }
+
+    @Benchmark
+    public double mergeTDigest() {
+        TDigestState merged = new TDigestState(compression);
+        for (TDigestState digest : shardDigests) {
+            merged.add(digest);
+        }
+        return merged.quantile(0.99);
+    }
+
+    @Benchmark
+    public double mergeHdr() {
+        DoubleHistogram merged = new DoubleHistogram(shardHistograms[0]);
+        merged.setAutoResize(true);
+        for (int shard = 1; shard < shardHistograms.length; shard++) {
+            merged.add(shardHistograms[shard]);
+        }
+        return merged.getValueAtPercentile(99);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.fetch;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.elasticsearch.benchmark.search.BenchmarkIndex;
+import org.elasticsearch.benchmark.search.BenchmarkSearchContext;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.fetch.subphase.FetchSourceSubPhase;
+import org.elasticsearch.search.lookup.SourceLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the source filtering done by the fetch phase: loading the {@code _source} of every hit of a page the same way
+ * {@link org.elasticsearch.search.fetch.FetchPhase} does and, unless the whole source is requested, filtering it with the
+ * includes and excludes of the request and serializing the result again.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class FetchSourceBenchmark {
+
+    private static final int NUM_DOCS = 10000;
+
+    @Param({"none", "includes", "excludes", "includes_excludes"})
+    private String filter;
+
+    @Param({"100"})
+    private int hits;
+
+    private BenchmarkIndex index;
+    private BenchmarkSearchContext context;
+    private FetchSourceSubPhase fetchSourceSubPhase;
+    private int[] docIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder()
+            .startObject()
+                .startObject(BenchmarkIndex.TYPE)
+                    .startObject("properties")
+                        .startObject("@timestamp").field("type", "date").endObject()
+                    .endObject()
+                .endObject()
+            .endObject());
+        Random random = new Random(42);
+        index = BenchmarkIndex.create(mapping, NUM_DOCS, i -> {
+            try {
+                return document(random, i);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        context = index.newSearchContext();
+        fetchSourceSubPhase = new FetchSourceSubPhase();
+        docIds = new int[hits];
+        for (int i = 0; i < hits; i++) {
+            docIds[i] = random.nextInt(NUM_DOCS);
+        }
+    }
+
+    private static XContentBuilder document(Random random, int i) throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        builder.field("@timestamp", 1546300800000L + i * 1000L);
+        builder.field("message", "GET /api/v1/items/" + random.nextInt(100000) + " HTTP/1.1 served in " + random.nextInt(500)
+            + "ms by backend " + random.nextInt(20) + " after a cache miss on the edge proxy");
+        builder.startObject("host")
+            .field("name", "host-" + random.nextInt(50))
+            .field("ip", "10.0." + random.nextInt(256) + "." + random.nextInt(256))
+            .startObject("os").field("name", "linux").field("version", "4." + random.nextInt(20)).endObject()
+            .endObject();
+        builder.startObject("http")
+            .startObject("request").field("method", "GET").field("bytes", random.nextInt(2048)).endObject()
+            .startObject("response").field("status_code", 200 + random.nextInt(4) * 100).field("bytes", random.nextInt(65536))
+            .endObject()
+            .endObject();
+        builder.startObject("user_agent").field("original", "Mozilla/5.0 (X11; Linux x86_64) Gecko/20100101 Firefox/65.0")
+            .endObject();
+        builder.array("tags", "production", "edge", "region-" + random.nextInt(5));
+        builder.startObject("labels");
+        for (int label = 0; label < 10; label++) {
+            builder.field("label_" + label, "value-" + random.nextInt(1000));
+        }
+        builder.endObject();
+        return builder.endObject();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    private FetchSourceContext fetchSourceContext() {
+        switch (filter) {
+            case "none":
+                return new FetchSourceContext(true);
+            case "includes":
+                return new FetchSourceContext(true, new String[] {"@timestamp", "host.*", "http.response.status_code"}, null);
+            case "excludes":
+                return new FetchSourceContext(true, null, new String[] {"message", "labels.*"});
+            case "includes_excludes":
+                return new FetchSourceContext(true, new String[] {"host.*", "http.*", "labels.*"},
+                    new String[] {"host.os.*", "labels.label_1*"});
+            default:
+                throw new IllegalArgumentException("unknown filter [" + filter + "]");
+        }
+    }
+
+    @Benchmark
+    public long fetchSource() throws IOException {
+        // every request compiles its own source filter, so does every invocation
+        context.fetchSourceContext(fetchSourceContext());
+        SourceLookup sourceLookup = context.lookup().source();
+        List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        FieldsVisitor fieldsVisitor = new FieldsVisitor(true);
+        FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
+        Text type = new Text(BenchmarkIndex.TYPE);
+        long bytes = 0;
+        for (int docId : docIds) {
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+            int segmentDocId = docId - leaf.docBase;
+            fieldsVisitor.reset();
+            leaf.reader().document(segmentDocId, fieldsVisitor);
+            fieldsVisitor.postProcess(context.mapperService());
+            SearchHit hit = new SearchHit(docId, fieldsVisitor.uid().id(), type, Collections.emptyMap());
+            sourceLookup.setSegmentAndDocument(leaf, segmentDocId);
+            sourceLookup.setSource(fieldsVisitor.source());
+            hitContext.reset(hit, leaf, segmentDocId, context.searcher());
+            fetchSourceSubPhase.hitExecute(context, hitContext);
+            BytesReference source = hit.getSourceRef();
+            bytes += source.length();
+        }
+        return bytes;
+    }
+}
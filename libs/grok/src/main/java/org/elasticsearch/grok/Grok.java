@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Collections;
+import java.util.function.BiConsumer;
 
 public final class Grok {
 
@@ -76,6 +77,8 @@ public final class Grok {
     private final Map<String, String> patternBank;
     private final boolean namedCaptures;
     private final Regex compiledExpression;
+    private final GrokMatchGroup[] matchGroups;
+    private final GrokLiteralPrefilter prefilter;
     private final ThreadWatchdog threadWatchdog;
 
     public Grok(Map<String, String> patternBank, String grokPattern) {
@@ -104,6 +107,20 @@ public final class Grok {
         String expression = toRegex(grokPattern);
         byte[] expressionBytes = expression.getBytes(StandardCharsets.UTF_8);
         this.compiledExpression = new Regex(expressionBytes, 0, expressionBytes.length, Option.DEFAULT, UTF8Encoding.INSTANCE);
+        this.matchGroups = matchGroups(compiledExpression);
+        this.prefilter = GrokLiteralPrefilter.build(expression);
+    }
+
+    private static GrokMatchGroup[] matchGroups(Regex compiledExpression) {
+        List<GrokMatchGroup> matchGroups = new ArrayList<>(compiledExpression.numberOfNames());
+        if (compiledExpression.numberOfNames() > 0) {
+            for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
+                NameEntry e = entry.next();
+                String groupName = new String(e.name, e.nameP, e.nameEnd - e.nameP, StandardCharsets.UTF_8);
+                matchGroups.add(new GrokMatchGroup(groupName, e.getBackRefs()));
+            }
+        }
+        return matchGroups.toArray(new GrokMatchGroup[0]);
     }
 
     /**
@@ -219,11 +236,15 @@ public final class Grok {
      * @return true if grok expression matches text, false otherwise.
      */
     public boolean match(String text) {
-        Matcher matcher = compiledExpression.matcher(text.getBytes(StandardCharsets.UTF_8));
+        if (prefilter != null && prefilter.mightMatch(text) == false) {
+            return false;
+        }
+        byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
+        Matcher matcher = compiledExpression.matcher(textAsBytes);
         int result;
         try {
             threadWatchdog.register();
-            result = matcher.search(0, text.length(), Option.DEFAULT);
+            result = matcher.search(0, textAsBytes.length, Option.DEFAULT);
         } finally {
             threadWatchdog.unregister();
         }
@@ -238,8 +259,28 @@ public final class Grok {
      * @return a map containing field names and their respective coerced values that matched.
      */
     public Map<String, Object> captures(String text) {
-        byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
         Map<String, Object> fields = new HashMap<>();
+        if (captures(text, fields::put) == false) {
+            // TODO: I think we should throw an error here?
+            return null;
+        }
+        return fields;
+    }
+
+    /**
+     * Matches the provided text and passes the named captures of the compiled grok expression that matched within it
+     * to the given consumer, without collecting them first. Values are only passed on once all of them have been coerced
+     * successfully.
+     *
+     * @param text the text to match and extract values from.
+     * @param captureConsumer receives the field name and the coerced value of every named capture that matched.
+     * @return true if grok expression matches text, false otherwise.
+     */
+    public boolean captures(String text, BiConsumer<String, Object> captureConsumer) {
+        if (prefilter != null && prefilter.mightMatch(text) == false) {
+            return false;
+        }
+        byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
         Matcher matcher = compiledExpression.matcher(textAsBytes);
         int result;
         try {
@@ -252,25 +293,27 @@ public final class Grok {
             throw new RuntimeException("grok pattern matching was interrupted after [" +
                 threadWatchdog.maxExecutionTimeInMillis() + "] ms");
         } else if (result == Matcher.FAILED) {
-            // TODO: I think we should throw an error here?
-            return null;
-        } else if (compiledExpression.numberOfNames() > 0) {
+            return false;
+        } else if (matchGroups.length > 0) {
             Region region = matcher.getEagerRegion();
-            for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
-                NameEntry e = entry.next();
-                String groupName = new String(e.name, e.nameP, e.nameEnd - e.nameP, StandardCharsets.UTF_8);
-                for (int number : e.getBackRefs()) {
+            Object[] values = new Object[matchGroups.length];
+            for (int i = 0; i < matchGroups.length; i++) {
+                for (int number : matchGroups[i].getBackRefs()) {
                     if (region.beg[number] >= 0) {
                         String matchValue = new String(textAsBytes, region.beg[number], region.end[number] - region.beg[number],
                             StandardCharsets.UTF_8);
-                        GrokMatchGroup match = new GrokMatchGroup(groupName, matchValue);
-                        fields.put(match.getName(), match.getValue());
+                        values[i] = matchGroups[i].getValue(matchValue);
                         break;
                     }
                 }
             }
+            for (int i = 0; i < matchGroups.length; i++) {
+                if (values[i] != null) {
+                    captureConsumer.accept(matchGroups[i].getName(), values[i]);
+                }
+            }
         }
-        return fields;
+        return true;
     }
 
     public static Map<String, String> getBuiltinPatterns() {
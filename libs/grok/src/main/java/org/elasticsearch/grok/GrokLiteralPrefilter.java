@@ -0,0 +1,404 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.grok;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cheaply rules out texts that a grok expression cannot possibly match, before the expression itself runs.
+ * <p>
+ * The literal strings that every match of each top level alternative of the expression must contain are extracted from the
+ * regex, and texts are scanned for all of them at once with an Aho-Corasick automaton. If the text is missing at least one
+ * literal of every alternative then the expression can not match it. Texts that do not match are the expensive case for the
+ * regex engine because it has to backtrack through every alternative at every position of the text.
+ * <p>
+ * Extraction is conservative: literals inside optional or alternating parts of the expression are ignored, and expressions
+ * using constructs the extractor does not understand, like inline options or back references, get no prefilter at all.
+ */
+final class GrokLiteralPrefilter {
+
+    private static final String BREAKING_ESCAPES = "dDwWsShHbBAzZGntrfeav";
+
+    // the automaton: per state the sorted chars it has transitions for and the target states
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failure;
+    // the ids of the literals that end in each state, including those reached through failure links
+    private final int[][] outputs;
+    // for each literal the alternatives that require it and for each alternative the number of distinct literals it requires
+    private final int[][] alternativesByLiteral;
+    private final int[] literalsPerAlternative;
+
+    private GrokLiteralPrefilter(List<List<String>> requiredLiterals) {
+        Map<String, List<Integer>> literals = new LinkedHashMap<>();
+        literalsPerAlternative = new int[requiredLiterals.size()];
+        for (int alternative = 0; alternative < requiredLiterals.size(); alternative++) {
+            for (String literal : requiredLiterals.get(alternative)) {
+                List<Integer> alternatives = literals.computeIfAbsent(literal, l -> new ArrayList<>());
+                if (alternatives.contains(alternative) == false) {
+                    alternatives.add(alternative);
+                    literalsPerAlternative[alternative]++;
+                }
+            }
+        }
+        alternativesByLiteral = new int[literals.size()][];
+
+        // build the trie
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(new HashMap<>());
+        trieOutputs.add(new ArrayList<>());
+        int literalId = 0;
+        for (Map.Entry<String, List<Integer>> entry : literals.entrySet()) {
+            alternativesByLiteral[literalId] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            int state = 0;
+            for (char c : entry.getKey().toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<>());
+                    trieOutputs.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            trieOutputs.get(state).add(literalId++);
+        }
+
+        // compute the failure links breadth first, which also makes every output list include the outputs of its suffixes
+        int numStates = trie.size();
+        failure = new int[numStates];
+        List<Integer> queue = new ArrayList<>(trie.get(0).values());
+        for (int head = 0; head < queue.size(); head++) {
+            int state = queue.get(head);
+            for (Map.Entry<Character, Integer> transition : trie.get(state).entrySet()) {
+                int next = transition.getValue();
+                int fallback = failure[state];
+                while (fallback != 0 && trie.get(fallback).containsKey(transition.getKey()) == false) {
+                    fallback = failure[fallback];
+                }
+                Integer target = trie.get(fallback).get(transition.getKey());
+                failure[next] = target == null || target == next ? 0 : target;
+                trieOutputs.get(next).addAll(trieOutputs.get(failure[next]));
+                queue.add(next);
+            }
+        }
+
+        transitionChars = new char[numStates][];
+        transitionTargets = new int[numStates][];
+        outputs = new int[numStates][];
+        for (int state = 0; state < numStates; state++) {
+            List<Character> chars = new ArrayList<>(trie.get(state).keySet());
+            Collections.sort(chars);
+            transitionChars[state] = new char[chars.size()];
+            transitionTargets[state] = new int[chars.size()];
+            for (int i = 0; i < chars.size(); i++) {
+                transitionChars[state][i] = chars.get(i);
+                transitionTargets[state][i] = trie.get(state).get(chars.get(i));
+            }
+            outputs[state] = trieOutputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Builds a prefilter for the given regex, or returns <code>null</code> if no useful prefilter can be built because the regex
+     * uses constructs that are not understood or one of its alternatives does not require any literal.
+     */
+    static GrokLiteralPrefilter build(String regex) {
+        List<List<String>> requiredLiterals = requiredLiterals(regex);
+        if (requiredLiterals == null) {
+            return null;
+        }
+        for (List<String> literals : requiredLiterals) {
+            if (literals.isEmpty()) {
+                return null;
+            }
+        }
+        return new GrokLiteralPrefilter(requiredLiterals);
+    }
+
+    /**
+     * Returns whether the text contains all required literals of at least one alternative, that is whether the expression
+     * might match it.
+     */
+    boolean mightMatch(String text) {
+        final boolean[] found = new boolean[alternativesByLiteral.length];
+        final int[] missing = literalsPerAlternative.clone();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            int next;
+            while ((next = transition(state, c)) == -1 && state != 0) {
+                state = failure[state];
+            }
+            state = next == -1 ? 0 : next;
+            for (int literal : outputs[state]) {
+                if (found[literal] == false) {
+                    found[literal] = true;
+                    for (int alternative : alternativesByLiteral[literal]) {
+                        if (--missing[alternative] == 0) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(transitionChars[state], c);
+        return index < 0 ? -1 : transitionTargets[state][index];
+    }
+
+    /**
+     * Extracts for each top level alternative of the regex the literals that any match of that alternative contains, or
+     * returns <code>null</code> if the regex uses constructs that the extraction does not support.
+     */
+    static List<List<String>> requiredLiterals(String regex) {
+        LiteralExtractor extractor = new LiteralExtractor(regex);
+        List<List<String>> alternatives = extractor.alternatives();
+        if (alternatives == null || extractor.pos != regex.length()) {
+            return null;
+        }
+        return alternatives;
+    }
+
+    /**
+     * A single pass over the regex. Its methods return <code>null</code>, <code>false</code> or {@link #UNSUPPORTED} as soon as
+     * they run into a construct the extraction does not support, after which the extractor must not be used any further.
+     */
+    private static final class LiteralExtractor {
+
+        private static final int UNSUPPORTED = -1;
+
+        private final String regex;
+        private int pos;
+
+        LiteralExtractor(String regex) {
+            this.regex = regex;
+        }
+
+        /**
+         * Parses a sequence of alternatives up to the end of the regex or the closing parenthesis of the current group, or returns
+         * <code>null</code> if they use unsupported constructs.
+         */
+        List<List<String>> alternatives() {
+            List<List<String>> alternatives = new ArrayList<>();
+            List<String> literals = new ArrayList<>();
+            StringBuilder run = new StringBuilder();
+            while (pos < regex.length() && regex.charAt(pos) != ')') {
+                char c = regex.charAt(pos);
+                if (c == '|') {
+                    flush(run, literals);
+                    alternatives.add(literals);
+                    literals = new ArrayList<>();
+                    pos++;
+                    continue;
+                }
+
+                Character literal = null;
+                List<String> groupLiterals = null;
+                if (c == '(') {
+                    groupLiterals = group();
+                    if (groupLiterals == null) {
+                        return null;
+                    }
+                    flush(run, literals);
+                } else if (c == '[') {
+                    if (skipCharacterClass() == false) {
+                        return null;
+                    }
+                    flush(run, literals);
+                } else if (c == '.' || c == '^' || c == '$') {
+                    pos++;
+                    flush(run, literals);
+                } else if (c == '\\') {
+                    if (pos + 1 >= regex.length()) {
+                        // a dangling escape, the regex is invalid
+                        return null;
+                    }
+                    char escaped = regex.charAt(pos + 1);
+                    pos += 2;
+                    if (Character.isLetterOrDigit(escaped)) {
+                        if (BREAKING_ESCAPES.indexOf(escaped) == -1) {
+                            // hex, unicode, property, back reference and other multi character escapes
+                            return null;
+                        }
+                        flush(run, literals);
+                    } else {
+                        literal = escaped;
+                    }
+                } else if (c == '*' || c == '+' || c == '?' || c == '{') {
+                    return null;
+                } else {
+                    literal = c;
+                    pos++;
+                }
+
+                int quantifierStart = pos;
+                int min = quantifierMinimum();
+                if (min == UNSUPPORTED) {
+                    return null;
+                }
+                boolean quantified = pos != quantifierStart;
+                if (literal != null) {
+                    if (min > 0) {
+                        run.append(literal.charValue());
+                    }
+                    if (quantified) {
+                        flush(run, literals);
+                    }
+                } else if (groupLiterals != null && min > 0) {
+                    literals.addAll(groupLiterals);
+                }
+            }
+            flush(run, literals);
+            alternatives.add(literals);
+            return alternatives;
+        }
+
+        /**
+         * Parses a group and returns the literals that any match of it contains, or <code>null</code> if it uses unsupported
+         * constructs.
+         */
+        private List<String> group() {
+            pos++;
+            boolean lookaround = false;
+            if (regex.startsWith("?:", pos) || regex.startsWith("?>", pos)) {
+                pos += 2;
+            } else if (regex.startsWith("?=", pos) || regex.startsWith("?!", pos)) {
+                lookaround = true;
+                pos += 2;
+            } else if (regex.startsWith("?<=", pos) || regex.startsWith("?<!", pos)) {
+                lookaround = true;
+                pos += 3;
+            } else if (regex.startsWith("?<", pos)) {
+                int end = regex.indexOf('>', pos);
+                if (end == -1) {
+                    return null;
+                }
+                pos = end + 1;
+            } else if (regex.startsWith("?", pos)) {
+                // inline options, comments, conditionals and the like
+                return null;
+            }
+            List<List<String>> alternatives = alternatives();
+            if (alternatives == null || pos >= regex.length()) {
+                // unsupported or unterminated
+                return null;
+            }
+            pos++;
+            if (lookaround || alternatives.size() > 1) {
+                return Collections.emptyList();
+            }
+            return alternatives.get(0);
+        }
+
+        /**
+         * Skips the character class at the current position, returns <code>false</code> if it is not terminated.
+         */
+        private boolean skipCharacterClass() {
+            int depth = 0;
+            do {
+                if (pos >= regex.length()) {
+                    return false;
+                }
+                char c = regex.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                    continue;
+                }
+                if (c == '[') {
+                    depth++;
+                    // a closing bracket right after the opening one (or its negation) is a literal
+                    if (regex.startsWith("]", pos + 1)) {
+                        pos++;
+                    } else if (regex.startsWith("^]", pos + 1)) {
+                        pos += 2;
+                    }
+                } else if (c == ']') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0);
+            return true;
+        }
+
+        /**
+         * Consumes the quantifier at the current position, if any, and returns the minimum number of repetitions it allows or
+         * {@link #UNSUPPORTED} if it can not be parsed.
+         */
+        private int quantifierMinimum() {
+            if (pos >= regex.length()) {
+                return 1;
+            }
+            int min;
+            char c = regex.charAt(pos);
+            if (c == '?' || c == '*') {
+                min = 0;
+                pos++;
+            } else if (c == '+') {
+                min = 1;
+                pos++;
+            } else if (c == '{') {
+                int end = regex.indexOf('}', pos);
+                if (end == -1) {
+                    return UNSUPPORTED;
+                }
+                String bounds = regex.substring(pos + 1, end);
+                int comma = bounds.indexOf(',');
+                String lower = comma == -1 ? bounds : bounds.substring(0, comma);
+                try {
+                    min = lower.isEmpty() ? 0 : Integer.parseInt(lower);
+                    if (comma != -1 && comma + 1 < bounds.length()) {
+                        Integer.parseInt(bounds.substring(comma + 1));
+                    }
+                } catch (NumberFormatException e) {
+                    return UNSUPPORTED;
+                }
+                if (lower.isEmpty() && comma == -1) {
+                    return UNSUPPORTED;
+                }
+                pos = end + 1;
+            } else {
+                return 1;
+            }
+            // lazy and possessive modifiers
+            if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+                pos++;
+            }
+            return min;
+        }
+
+        private static void flush(StringBuilder run, List<String> literals) {
+            if (run.length() > 0) {
+                literals.add(run.toString());
+                run.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.grok;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class GrokLiteralPrefilterTests extends ESTestCase {
+
+    public void testLiteralRuns() {
+        assertThat(GrokLiteralPrefilter.requiredLiterals("foo bar"), equalTo(literals(Collections.singletonList("foo bar"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("foo\\d+bar"), equalTo(literals(Arrays.asList("foo", "bar"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("a\\[b\\]"), equalTo(literals(Collections.singletonList("a[b]"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("ab?c"), equalTo(literals(Arrays.asList("a", "c"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("ab+c"), equalTo(literals(Arrays.asList("ab", "c"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("ab{0,2}c"), equalTo(literals(Arrays.asList("a", "c"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("ab{2}c"), equalTo(literals(Arrays.asList("ab", "c"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("a[xyz\\]]b"), equalTo(literals(Arrays.asList("a", "b"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("a[[:alnum:]_]+b"), equalTo(literals(Arrays.asList("a", "b"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("a.b"), equalTo(literals(Arrays.asList("a", "b"))));
+    }
+
+    public void testGroups() {
+        assertThat(GrokLiteralPrefilter.requiredLiterals("x(?<name>foo)y"), equalTo(literals(Arrays.asList("x", "foo", "y"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("x(?:foo)?y"), equalTo(literals(Arrays.asList("x", "y"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("x(?:foo|bar)y"), equalTo(literals(Arrays.asList("x", "y"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("x(?<!foo)y"), equalTo(literals(Arrays.asList("x", "y"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("x(?>foo)+y"), equalTo(literals(Arrays.asList("x", "foo", "y"))));
+        assertThat(GrokLiteralPrefilter.requiredLiterals("(?:foo)|(?:bar\\sbaz)"),
+            equalTo(Arrays.asList(Collections.singletonList("foo"), Arrays.asList("bar", "baz"))));
+    }
+
+    public void testUnsupported() {
+        assertThat(GrokLiteralPrefilter.requiredLiterals("(?i)foo"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("(?<a>x)\\k<a>"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("\\x41"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("foo)"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("(foo"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("foo\\"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("foo[ab\\"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("foo[ab"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("foo(?<name"), nullValue());
+        assertThat(GrokLiteralPrefilter.requiredLiterals("fo{1o"), nullValue());
+        assertThat(GrokLiteralPrefilter.build("foo|\\d+"), nullValue());
+    }
+
+    public void testMightMatch() {
+        GrokLiteralPrefilter prefilter = GrokLiteralPrefilter.build("(?:GET \\S+ HTTP)|(?:ERROR:\\s+.*)");
+        assertThat(prefilter, notNullValue());
+        assertTrue(prefilter.mightMatch("GET /index.html HTTP/1.1"));
+        assertTrue(prefilter.mightMatch("2019 ERROR: disk full"));
+        assertFalse(prefilter.mightMatch("GET /index.html"));
+        assertFalse(prefilter.mightMatch("WARN: disk almost full"));
+        assertFalse(prefilter.mightMatch(""));
+    }
+
+    public void testMightMatchOverlappingLiterals() {
+        GrokLiteralPrefilter prefilter = GrokLiteralPrefilter.build("(?:abcd\\d)|(?:bc\\de)|(?:c)");
+        assertThat(prefilter, notNullValue());
+        assertTrue(prefilter.mightMatch("xxabcxx"));
+        prefilter = GrokLiteralPrefilter.build("(?:abcd\\d)|(?:bc\\de)");
+        assertTrue(prefilter.mightMatch("abce"));
+        assertFalse(prefilter.mightMatch("abcx"));
+    }
+
+    public void testBuiltinPatterns() {
+        Map<String, String> patterns = Grok.getBuiltinPatterns();
+        Map<String, String> matchingLines = new HashMap<>();
+        matchingLines.put("%{COMBINEDAPACHELOG}", "83.149.9.216 - - [17/May/2015:10:05:03 +0000] \"GET /presentations/logstash.png " +
+            "HTTP/1.1\" 200 203023 \"http://semicomplete.com/presentations/\" \"Mozilla/5.0\"");
+        matchingLines.put("%{SYSLOGLINE}", "Mar 16 00:01:25 evita postfix/smtpd[1713]: connect from camomile.cloud9.net[168.100.1.3]");
+        matchingLines.put("%{IP:client} \\[%{HTTPDATE:timestamp}\\]", "10.0.0.1 [17/May/2015:10:05:03 +0000]");
+        for (Map.Entry<String, String> entry : matchingLines.entrySet()) {
+            Grok grok = new Grok(patterns, entry.getKey());
+            GrokLiteralPrefilter prefilter = GrokLiteralPrefilter.build(grok.toRegex(entry.getKey()));
+            assertThat(prefilter, notNullValue());
+            assertTrue(prefilter.mightMatch(entry.getValue()));
+            assertFalse(prefilter.mightMatch("nothing"));
+            assertThat(grok.captures(entry.getValue()), notNullValue());
+        }
+    }
+
+    private static List<List<String>> literals(List<String> literals) {
+        return Collections.singletonList(literals);
+    }
+}
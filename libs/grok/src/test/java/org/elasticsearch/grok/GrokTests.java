@@ -46,6 +46,27 @@ public class GrokTests extends ESTestCase {
         assertEquals(0, matches.size());
     }
 
+    public void testCapturesToConsumer() {
+        Grok grok = new Grok(basePatterns, "%{WORD:verb} %{NUMBER:bytes:int}( %{WORD:optional})?");
+        Map<String, Object> captured = new TreeMap<>();
+        assertTrue(grok.captures("GET 1234", captured::put));
+        assertThat(captured, equalTo(new TreeMap<>(grok.captures("GET 1234"))));
+        assertThat(captured.get("verb"), equalTo("GET"));
+        assertThat(captured.get("bytes"), equalTo(1234));
+        assertThat(captured.containsKey("optional"), is(false));
+
+        captured.clear();
+        assertFalse(grok.captures("nothing here", captured::put));
+        assertThat(captured.isEmpty(), is(true));
+    }
+
+    public void testCapturesToConsumerCoercionFailure() {
+        Grok grok = new Grok(basePatterns, "%{WORD:verb} %{NUMBER:bytes:int}");
+        Map<String, Object> captured = new HashMap<>();
+        expectThrows(NumberFormatException.class, () -> grok.captures("GET 12.5", captured::put));
+        assertThat(captured.isEmpty(), is(true));
+    }
+
     public void testNoMatchingPatternInDictionary() {
         Exception e = expectThrows(IllegalArgumentException.class, () -> new Grok(Collections.emptyMap(), "%{NOTFOUND}"));
         assertThat(e.getMessage(), equalTo("Unable to find pattern [NOTFOUND] in Grok's pattern dictionary"));
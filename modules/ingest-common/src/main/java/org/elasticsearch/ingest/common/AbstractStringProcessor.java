@@ -22,6 +22,7 @@ package org.elasticsearch.ingest.common;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestDocument.FieldPath;
 import org.elasticsearch.ingest.Processor;
 
 import java.util.Map;
@@ -33,19 +34,19 @@ import java.util.Map;
  * @param <T> The resultant type for the target field
  */
 abstract class AbstractStringProcessor<T> extends AbstractProcessor {
-    private final String field;
+    private final FieldPath field;
     private final boolean ignoreMissing;
-    private final String targetField;
+    private final FieldPath targetField;
 
     AbstractStringProcessor(String tag, String field, boolean ignoreMissing, String targetField) {
         super(tag);
-        this.field = field;
+        this.field = new FieldPath(field);
         this.ignoreMissing = ignoreMissing;
-        this.targetField = targetField;
+        this.targetField = new FieldPath(targetField);
     }
 
     public String getField() {
-        return field;
+        return field.getPath();
     }
 
     boolean isIgnoreMissing() {
@@ -53,7 +54,7 @@ abstract class AbstractStringProcessor<T> extends AbstractProcessor {
     }
 
     String getTargetField() {
-        return targetField;
+        return targetField.getPath();
     }
 
     @Override
@@ -63,7 +64,7 @@ abstract class AbstractStringProcessor<T> extends AbstractProcessor {
         if (val == null && ignoreMissing) {
             return document;
         } else if (val == null) {
-            throw new IllegalArgumentException("field [" + field + "] is null, cannot process it.");
+            throw new IllegalArgumentException("field [" + field.getPath() + "] is null, cannot process it.");
         }
 
         document.setFieldValue(targetField, process(val));
@@ -22,6 +22,7 @@ package org.elasticsearch.ingest.common;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestDocument.FieldPath;
 import org.elasticsearch.ingest.Processor;
 
 import java.util.ArrayList;
@@ -143,25 +144,25 @@ public final class ConvertProcessor extends AbstractProcessor {
 
     public static final String TYPE = "convert";
 
-    private final String field;
-    private final String targetField;
+    private final FieldPath field;
+    private final FieldPath targetField;
     private final Type convertType;
     private final boolean ignoreMissing;
 
     ConvertProcessor(String tag, String field, String targetField, Type convertType, boolean ignoreMissing) {
         super(tag);
-        this.field = field;
-        this.targetField = targetField;
+        this.field = new FieldPath(field);
+        this.targetField = new FieldPath(targetField);
         this.convertType = convertType;
         this.ignoreMissing = ignoreMissing;
     }
 
     String getField() {
-        return field;
+        return field.getPath();
     }
 
     String getTargetField() {
-        return targetField;
+        return targetField.getPath();
     }
 
     Type getConvertType() {
@@ -180,7 +181,8 @@ public final class ConvertProcessor extends AbstractProcessor {
         if (oldValue == null && ignoreMissing) {
             return document;
         } else if (oldValue == null) {
-            throw new IllegalArgumentException("Field [" + field + "] is null, cannot be converted to type [" + convertType + "]");
+            throw new IllegalArgumentException("Field [" + field.getPath() + "] is null, cannot be converted to type [" +
+                convertType + "]");
         }
 
         if (oldValue instanceof List) {
@@ -25,6 +25,7 @@ import org.elasticsearch.common.util.LocaleUtils;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestDocument.FieldPath;
 import org.elasticsearch.ingest.Processor;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.TemplateScript;
@@ -45,8 +46,8 @@ public final class DateProcessor extends AbstractProcessor {
 
     private final TemplateScript.Factory timezone;
     private final TemplateScript.Factory locale;
-    private final String field;
-    private final String targetField;
+    private final FieldPath field;
+    private final FieldPath targetField;
     private final List<String> formats;
     private final List<Function<Map<String, Object>, Function<String, DateTime>>> dateParsers;
 
@@ -55,8 +56,8 @@ public final class DateProcessor extends AbstractProcessor {
         super(tag);
         this.timezone = timezone;
         this.locale = locale;
-        this.field = field;
-        this.targetField = targetField;
+        this.field = new FieldPath(field);
+        this.targetField = new FieldPath(targetField);
         this.formats = formats;
         this.dateParsers = new ArrayList<>(this.formats.size());
         for (String format : formats) {
@@ -115,11 +116,11 @@ public final class DateProcessor extends AbstractProcessor {
     }
 
     String getField() {
-        return field;
+        return field.getPath();
     }
 
     String getTargetField() {
-        return targetField;
+        return targetField.getPath();
     }
 
     List<String> getFormats() {
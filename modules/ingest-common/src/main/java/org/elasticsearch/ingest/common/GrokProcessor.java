@@ -24,6 +24,7 @@ import org.elasticsearch.grok.ThreadWatchdog;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestDocument.FieldPath;
 import org.elasticsearch.ingest.Processor;
 
 import java.util.HashMap;
@@ -37,7 +38,7 @@ public final class GrokProcessor extends AbstractProcessor {
     public static final String TYPE = "grok";
     private static final String PATTERN_MATCH_KEY = "_ingest._grok_match_index";
 
-    private final String matchField;
+    private final FieldPath matchField;
     private final List<String> matchPatterns;
     private final Grok grok;
     private final boolean traceMatch;
@@ -46,7 +47,7 @@ public final class GrokProcessor extends AbstractProcessor {
     GrokProcessor(String tag, Map<String, String> patternBank, List<String> matchPatterns, String matchField,
                   boolean traceMatch, boolean ignoreMissing, ThreadWatchdog threadWatchdog) {
         super(tag);
-        this.matchField = matchField;
+        this.matchField = new FieldPath(matchField);
         this.matchPatterns = matchPatterns;
         this.grok = new Grok(patternBank, combinePatterns(matchPatterns, traceMatch), threadWatchdog);
         this.traceMatch = traceMatch;
@@ -60,16 +61,13 @@ public final class GrokProcessor extends AbstractProcessor {
         if (fieldValue == null && ignoreMissing) {
             return ingestDocument;
         } else if (fieldValue == null) {
-            throw new IllegalArgumentException("field [" + matchField + "] is null, cannot process it.");
+            throw new IllegalArgumentException("field [" + matchField.getPath() + "] is null, cannot process it.");
         }
 
-        Map<String, Object> matches = grok.captures(fieldValue);
-        if (matches == null) {
+        if (grok.captures(fieldValue, ingestDocument::setFieldValue) == false) {
             throw new IllegalArgumentException("Provided Grok expressions do not match field value: [" + fieldValue + "]");
         }
 
-        matches.forEach(ingestDocument::setFieldValue);
-
         if (traceMatch) {
             if (matchPatterns.size() > 1) {
                 @SuppressWarnings("unchecked")
@@ -98,7 +96,7 @@ public final class GrokProcessor extends AbstractProcessor {
     }
 
     String getMatchField() {
-        return matchField;
+        return matchField.getPath();
     }
 
     List<String> getMatchPatterns() {
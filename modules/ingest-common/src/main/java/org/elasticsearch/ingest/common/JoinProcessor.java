@@ -22,6 +22,7 @@ package org.elasticsearch.ingest.common;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestDocument.FieldPath;
 import org.elasticsearch.ingest.Processor;
 
 import java.util.List;
@@ -36,19 +37,19 @@ public final class JoinProcessor extends AbstractProcessor {
 
     public static final String TYPE = "join";
 
-    private final String field;
+    private final FieldPath field;
     private final String separator;
-    private final String targetField;
+    private final FieldPath targetField;
 
     JoinProcessor(String tag, String field, String separator, String targetField) {
         super(tag);
-        this.field = field;
+        this.field = new FieldPath(field);
         this.separator = separator;
-        this.targetField = targetField;
+        this.targetField = new FieldPath(targetField);
     }
 
     String getField() {
-        return field;
+        return field.getPath();
     }
 
     String getSeparator() {
@@ -56,14 +57,14 @@ public final class JoinProcessor extends AbstractProcessor {
     }
 
     String getTargetField() {
-        return targetField;
+        return targetField.getPath();
     }
 
     @Override
     public IngestDocument execute(IngestDocument document) {
         List<?> list = document.getFieldValue(field, List.class);
         if (list == null) {
-            throw new IllegalArgumentException("field [" + field + "] is null, cannot join.");
+            throw new IllegalArgumentException("field [" + field.getPath() + "] is null, cannot join.");
         }
         String joined = list.stream()
                 .map(Object::toString)
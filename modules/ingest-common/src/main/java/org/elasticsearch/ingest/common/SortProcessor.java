@@ -22,6 +22,7 @@ package org.elasticsearch.ingest.common;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestDocument.FieldPath;
 import org.elasticsearch.ingest.Processor;
 
 import java.util.ArrayList;
@@ -68,19 +69,19 @@ public final class SortProcessor extends AbstractProcessor {
         }
     }
 
-    private final String field;
+    private final FieldPath field;
     private final SortOrder order;
-    private final String targetField;
+    private final FieldPath targetField;
 
     SortProcessor(String tag, String field, SortOrder order, String targetField) {
         super(tag);
-        this.field = field;
+        this.field = new FieldPath(field);
         this.order = order;
-        this.targetField = targetField;
+        this.targetField = new FieldPath(targetField);
     }
 
     String getField() {
-        return field;
+        return field.getPath();
     }
 
     SortOrder getOrder() {
@@ -88,7 +89,7 @@ public final class SortProcessor extends AbstractProcessor {
     }
 
     String getTargetField() {
-        return targetField;
+        return targetField.getPath();
     }
 
     @Override
@@ -97,7 +98,7 @@ public final class SortProcessor extends AbstractProcessor {
         List<? extends Comparable<Object>> list = document.getFieldValue(field, List.class);
 
         if (list == null) {
-            throw new IllegalArgumentException("field [" + field + "] is null, cannot sort.");
+            throw new IllegalArgumentException("field [" + field.getPath() + "] is null, cannot sort.");
         }
 
         List<? extends Comparable> copy = new ArrayList<>(list);
@@ -22,6 +22,7 @@ package org.elasticsearch.ingest.common;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestDocument.FieldPath;
 import org.elasticsearch.ingest.Processor;
 
 import java.util.ArrayList;
@@ -38,21 +39,21 @@ public final class SplitProcessor extends AbstractProcessor {
 
     public static final String TYPE = "split";
 
-    private final String field;
+    private final FieldPath field;
     private final String separator;
     private final boolean ignoreMissing;
-    private final String targetField;
+    private final FieldPath targetField;
 
     SplitProcessor(String tag, String field, String separator, boolean ignoreMissing, String targetField) {
         super(tag);
-        this.field = field;
+        this.field = new FieldPath(field);
         this.separator = separator;
         this.ignoreMissing = ignoreMissing;
-        this.targetField = targetField;
+        this.targetField = new FieldPath(targetField);
     }
 
     String getField() {
-        return field;
+        return field.getPath();
     }
 
     String getSeparator() {
@@ -64,7 +65,7 @@ public final class SplitProcessor extends AbstractProcessor {
     }
 
     String getTargetField() {
-        return targetField;
+        return targetField.getPath();
     }
 
     @Override
@@ -74,7 +75,7 @@ public final class SplitProcessor extends AbstractProcessor {
         if (oldVal == null && ignoreMissing) {
             return document;
         } else if (oldVal == null) {
-            throw new IllegalArgumentException("field [" + field + "] is null, cannot split.");
+            throw new IllegalArgumentException("field [" + field.getPath() + "] is null, cannot split.");
         }
 
         String[] strings = oldVal.split(separator);
@@ -65,6 +65,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
     private final String field;
     private final String targetField;
     private final DatabaseReaderLazyLoader lazyLoader;
+    private final String databasePath;
     private final Set<Property> properties;
     private final boolean ignoreMissing;
     private final GeoIpCache cache;
@@ -92,6 +93,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
         this.field = field;
         this.targetField = targetField;
         this.lazyLoader = lazyLoader;
+        this.databasePath = lazyLoader.getDatabasePath().toString();
         this.properties = properties;
         this.ignoreMissing = ignoreMissing;
         this.cache = cache;
@@ -168,7 +170,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
     private Map<String, Object> retrieveCityGeoData(InetAddress ipAddress) {
         SpecialPermission.check();
         CityResponse response = AccessController.doPrivileged((PrivilegedAction<CityResponse>) () ->
-            cache.putIfAbsent(ipAddress, CityResponse.class, ip -> {
+            cache.putIfAbsent(ipAddress, databasePath, CityResponse.class, ip -> {
                 try {
                     return lazyLoader.get().city(ip);
                 } catch (AddressNotFoundException e) {
@@ -254,7 +256,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
     private Map<String, Object> retrieveCountryGeoData(InetAddress ipAddress) {
         SpecialPermission.check();
         CountryResponse response = AccessController.doPrivileged((PrivilegedAction<CountryResponse>) () ->
-            cache.putIfAbsent(ipAddress, CountryResponse.class, ip -> {
+            cache.putIfAbsent(ipAddress, databasePath, CountryResponse.class, ip -> {
                 try {
                     return lazyLoader.get().country(ip);
                 } catch (AddressNotFoundException e) {
@@ -299,7 +301,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
     private Map<String, Object> retrieveAsnGeoData(InetAddress ipAddress) {
         SpecialPermission.check();
         AsnResponse response = AccessController.doPrivileged((PrivilegedAction<AsnResponse>) () ->
-            cache.putIfAbsent(ipAddress, AsnResponse.class, ip -> {
+            cache.putIfAbsent(ipAddress, databasePath, AsnResponse.class, ip -> {
                 try {
                     return lazyLoader.get().asn(ip);
                 } catch (AddressNotFoundException e) {
@@ -0,0 +1,267 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest.geoip;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeRequest;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.action.support.nodes.NodesOperationRequestBuilder;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.client.ElasticsearchClient;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.ingest.geoip.IngestGeoIpPlugin.GeoIpCache;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestActions;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+/**
+ * Retrieves the hit and miss counts of the geoip lookup cache of each node.
+ */
+public class GeoIpStatsAction extends Action<GeoIpStatsAction.Request, GeoIpStatsAction.Response, GeoIpStatsAction.RequestBuilder> {
+
+    public static final GeoIpStatsAction INSTANCE = new GeoIpStatsAction();
+    public static final String NAME = "cluster:monitor/ingest/geoip/stats";
+
+    private GeoIpStatsAction() {
+        super(NAME);
+    }
+
+    @Override
+    public RequestBuilder newRequestBuilder(ElasticsearchClient client) {
+        return new RequestBuilder(client);
+    }
+
+    @Override
+    public Response newResponse() {
+        return new Response();
+    }
+
+    public static class Request extends BaseNodesRequest<Request> {
+
+        public Request(String... nodesIds) {
+            super(nodesIds);
+        }
+    }
+
+    public static class RequestBuilder extends NodesOperationRequestBuilder<Request, Response, RequestBuilder> {
+
+        public RequestBuilder(ElasticsearchClient client) {
+            super(client, GeoIpStatsAction.INSTANCE, new Request());
+        }
+    }
+
+    public static class NodeRequest extends BaseNodeRequest {
+
+        public NodeRequest() {
+        }
+
+        NodeRequest(String nodeId) {
+            super(nodeId);
+        }
+    }
+
+    public static class NodeResponse extends BaseNodeResponse implements ToXContentFragment {
+
+        private long count;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        public NodeResponse() {
+        }
+
+        NodeResponse(DiscoveryNode node, long count, long hits, long misses, long evictions) {
+            super(node);
+            this.count = count;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        /**
+         * The number of lookup results held in the cache.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            count = in.readVLong();
+            hits = in.readVLong();
+            misses = in.readVLong();
+            evictions = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVLong(count);
+            out.writeVLong(hits);
+            out.writeVLong(misses);
+            out.writeVLong(evictions);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("cache");
+            builder.field("count", count);
+            builder.field("hits", hits);
+            builder.field("misses", misses);
+            builder.field("evictions", evictions);
+            builder.endObject();
+            return builder;
+        }
+
+        static NodeResponse readNodeResponse(StreamInput in) throws IOException {
+            NodeResponse nodeResponse = new NodeResponse();
+            nodeResponse.readFrom(in);
+            return nodeResponse;
+        }
+    }
+
+    public static class Response extends BaseNodesResponse<NodeResponse> implements ToXContentFragment {
+
+        Response() {
+        }
+
+        public Response(ClusterName clusterName, List<NodeResponse> nodes, List<FailedNodeException> failures) {
+            super(clusterName, nodes, failures);
+        }
+
+        @Override
+        protected List<NodeResponse> readNodesFrom(StreamInput in) throws IOException {
+            return in.readList(NodeResponse::readNodeResponse);
+        }
+
+        @Override
+        protected void writeNodesTo(StreamOutput out, List<NodeResponse> nodes) throws IOException {
+            out.writeStreamableList(nodes);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("nodes");
+            for (NodeResponse node : getNodes()) {
+                builder.startObject(node.getNode().getId());
+                node.toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+            return builder;
+        }
+    }
+
+    public static class TransportAction extends TransportNodesAction<Request, Response, NodeRequest, NodeResponse> {
+
+        private final GeoIpCache cache;
+
+        @Inject
+        public TransportAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
+                               TransportService transportService, ActionFilters actionFilters,
+                               IndexNameExpressionResolver indexNameExpressionResolver, GeoIpCache cache) {
+            super(settings, NAME, threadPool, clusterService, transportService, actionFilters, indexNameExpressionResolver,
+                Request::new, NodeRequest::new, ThreadPool.Names.MANAGEMENT, NodeResponse.class);
+            this.cache = cache;
+        }
+
+        @Override
+        protected Response newResponse(Request request, List<NodeResponse> responses, List<FailedNodeException> failures) {
+            return new Response(clusterService.getClusterName(), responses, failures);
+        }
+
+        @Override
+        protected NodeRequest newNodeRequest(String nodeId, Request request) {
+            return new NodeRequest(nodeId);
+        }
+
+        @Override
+        protected NodeResponse newNodeResponse() {
+            return new NodeResponse();
+        }
+
+        @Override
+        protected NodeResponse nodeOperation(NodeRequest request) {
+            return cache.stats(clusterService.localNode());
+        }
+    }
+
+    public static class RestAction extends BaseRestHandler {
+
+        public RestAction(Settings settings, RestController controller) {
+            super(settings);
+            controller.registerHandler(GET, "/_ingest/geoip/stats", this);
+            controller.registerHandler(GET, "/_ingest/geoip/stats/{node_id}", this);
+        }
+
+        @Override
+        public String getName() {
+            return "ingest_geoip_stats";
+        }
+
+        @Override
+        protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+            Request statsRequest = new Request(Strings.splitStringByCommaToArray(request.param("node_id")));
+            statsRequest.timeout(request.param("timeout"));
+            return channel -> client.execute(INSTANCE, statsRequest, new RestActions.NodesResponseRestListener<>(channel));
+        }
+
+        @Override
+        public boolean canTripCircuitBreaker() {
+            return false;
+        }
+    }
+}
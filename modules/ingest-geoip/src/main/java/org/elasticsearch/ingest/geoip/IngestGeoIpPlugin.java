@@ -24,16 +24,37 @@ import com.maxmind.db.NodeCache;
 import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
 import com.maxmind.geoip2.model.AbstractResponse;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.SuppressForbidden;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.io.PathUtils;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.ingest.Processor;
+import org.elasticsearch.plugins.ActionPlugin;
 import org.elasticsearch.plugins.IngestPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestHandler;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.ResourceWatcherService;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -42,6 +63,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -49,15 +71,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
-public class IngestGeoIpPlugin extends Plugin implements IngestPlugin, Closeable {
+public class IngestGeoIpPlugin extends Plugin implements ActionPlugin, IngestPlugin, Closeable {
     public static final Setting<Long> CACHE_SIZE =
         Setting.longSetting("ingest.geoip.cache_size", 1000, 0, Setting.Property.NodeScope);
 
     static String[] DEFAULT_DATABASE_FILENAMES = new String[]{"GeoLite2-ASN.mmdb", "GeoLite2-City.mmdb", "GeoLite2-Country.mmdb"};
 
     private Map<String, DatabaseReaderLazyLoader> databaseReaders;
+    private GeoIpCache cache;
 
     @Override
     public List<Setting<?>> getSettings() {
@@ -71,13 +95,41 @@ public class IngestGeoIpPlugin extends Plugin implements IngestPlugin, Closeable
         }
         final Path geoIpDirectory = getGeoIpDirectory(parameters);
         final Path geoIpConfigDirectory = parameters.env.configFile().resolve("ingest-geoip");
-        long cacheSize = CACHE_SIZE.get(parameters.env.settings());
         try {
             databaseReaders = loadDatabaseReaders(geoIpDirectory, geoIpConfigDirectory);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return Collections.singletonMap(GeoIpProcessor.TYPE, new GeoIpProcessor.Factory(databaseReaders, new GeoIpCache(cacheSize)));
+        return Collections.singletonMap(GeoIpProcessor.TYPE, new GeoIpProcessor.Factory(databaseReaders, getCache(parameters.env)));
+    }
+
+    @Override
+    public Collection<Object> createComponents(Client client, ClusterService clusterService, ThreadPool threadPool,
+                                               ResourceWatcherService resourceWatcherService, ScriptService scriptService,
+                                               NamedXContentRegistry xContentRegistry, Environment environment,
+                                               NodeEnvironment nodeEnvironment, NamedWriteableRegistry namedWriteableRegistry) {
+        return Collections.singletonList(getCache(environment));
+    }
+
+    private synchronized GeoIpCache getCache(Environment environment) {
+        // the processors and the stats action share the cache, whichever asks first creates it
+        if (cache == null) {
+            cache = new GeoIpCache(CACHE_SIZE.get(environment.settings()));
+        }
+        return cache;
+    }
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return Collections.singletonList(new ActionHandler<>(GeoIpStatsAction.INSTANCE, GeoIpStatsAction.TransportAction.class));
+    }
+
+    @Override
+    public List<RestHandler> getRestHandlers(Settings settings, RestController restController, ClusterSettings clusterSettings,
+                                             IndexScopedSettings indexScopedSettings, SettingsFilter settingsFilter,
+                                             IndexNameExpressionResolver indexNameExpressionResolver,
+                                             Supplier<DiscoveryNodes> nodesInCluster) {
+        return Collections.singletonList(new GeoIpStatsAction.RestAction(settings, restController));
     }
 
     /*
@@ -165,12 +217,13 @@ public class IngestGeoIpPlugin extends Plugin implements IngestPlugin, Closeable
     }
 
     /**
-     * The in-memory cache for the geoip data. There should only be 1 instance of this class..
+     * The in-memory cache for the geoip data. There should only be 1 instance of this class, shared by all geoip processors of the
+     * node, which reports its hits and misses through the {@link GeoIpStatsAction}.
      * This cache differs from the maxmind's {@link NodeCache} such that this cache stores the deserialized Json objects to avoid the
      * cost of deserialization for each lookup (cached or not). This comes at slight expense of higher memory usage, but significant
      * reduction of CPU usage.
      */
-    static class GeoIpCache {
+    public static final class GeoIpCache {
         private final Cache<CacheKey, AbstractResponse> cache;
 
         //package private for testing
@@ -181,11 +234,11 @@ public class IngestGeoIpPlugin extends Plugin implements IngestPlugin, Closeable
             this.cache = CacheBuilder.<CacheKey, AbstractResponse>builder().setMaximumWeight(maxSize).build();
         }
 
-        <T extends AbstractResponse> T putIfAbsent(InetAddress ip, Class<T> responseType,
+        <T extends AbstractResponse> T putIfAbsent(InetAddress ip, String databasePath, Class<T> responseType,
                                                    Function<InetAddress, AbstractResponse> retrieveFunction) {
 
             //can't use cache.computeIfAbsent due to the elevated permissions for the jackson (run via the cache loader)
-            CacheKey<T> cacheKey = new CacheKey<>(ip, responseType);
+            CacheKey<T> cacheKey = new CacheKey<>(ip, databasePath, responseType);
             //intentionally non-locking for simplicity...it's OK if we re-put the same key/value in the cache during a race condition.
             AbstractResponse response = cache.get(cacheKey);
             if (response == null) {
@@ -196,25 +249,32 @@ public class IngestGeoIpPlugin extends Plugin implements IngestPlugin, Closeable
         }
 
         //only useful for testing
-        <T extends AbstractResponse> T get(InetAddress ip, Class<T> responseType) {
-            CacheKey<T> cacheKey = new CacheKey<>(ip, responseType);
+        <T extends AbstractResponse> T get(InetAddress ip, String databasePath, Class<T> responseType) {
+            CacheKey<T> cacheKey = new CacheKey<>(ip, databasePath, responseType);
             return responseType.cast(cache.get(cacheKey));
         }
 
+        GeoIpStatsAction.NodeResponse stats(DiscoveryNode node) {
+            Cache.CacheStats stats = cache.stats();
+            return new GeoIpStatsAction.NodeResponse(node, cache.count(), stats.getHits(), stats.getMisses(), stats.getEvictions());
+        }
+
          /**
-         * The key to use for the cache. Since this cache can span multiple geoip processors that all use different databases, the response
-         * type is needed to be included in the cache key. For example, if we only used the IP address as the key the City and ASN the same
-         * IP may be in both with different values and we need to cache both. The response type scopes the IP to the correct database
-         * provides a means to safely cast the return objects.
-         * @param <T> The AbstractResponse type used to scope the key and cast the result.
+         * The key to use for the cache. Since this cache can span multiple geoip processors that all use different databases, the
+         * database is needed to be included in the cache key. For example, if we only used the IP address as the key the City and ASN
+         * the same IP may be in both with different values and we need to cache both, and two custom databases of the same type may
+         * hold different values too. The response type provides a means to safely cast the return objects.
+         * @param <T> The AbstractResponse type used to cast the result.
          */
         private static class CacheKey<T extends AbstractResponse> {
 
             private final InetAddress ip;
+            private final String databasePath;
             private final Class<T> responseType;
 
-            private CacheKey(InetAddress ip, Class<T> responseType) {
+            private CacheKey(InetAddress ip, String databasePath, Class<T> responseType) {
                 this.ip = ip;
+                this.databasePath = databasePath;
                 this.responseType = responseType;
             }
 
@@ -225,13 +285,14 @@ public class IngestGeoIpPlugin extends Plugin implements IngestPlugin, Closeable
                 if (o == null || getClass() != o.getClass()) return false;
                 CacheKey<?> cacheKey = (CacheKey<?>) o;
                 return Objects.equals(ip, cacheKey.ip) &&
+                    Objects.equals(databasePath, cacheKey.databasePath) &&
                     Objects.equals(responseType, cacheKey.responseType);
             }
 
             //generated
             @Override
             public int hashCode() {
-                return Objects.hash(ip, responseType);
+                return Objects.hash(ip, databasePath, responseType);
             }
         }
     }
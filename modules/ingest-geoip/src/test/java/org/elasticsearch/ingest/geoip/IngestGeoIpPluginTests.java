@@ -20,10 +20,14 @@
 package org.elasticsearch.ingest.geoip;
 
 import com.maxmind.geoip2.model.AbstractResponse;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.network.InetAddresses;
 import org.elasticsearch.ingest.geoip.IngestGeoIpPlugin.GeoIpCache;
 import org.elasticsearch.test.ESTestCase;
 
+import java.net.InetAddress;
+
 import static org.mockito.Mockito.mock;
 
 public class IngestGeoIpPluginTests extends ESTestCase {
@@ -34,25 +38,43 @@ public class IngestGeoIpPluginTests extends ESTestCase {
         AbstractResponse response2 = mock(AbstractResponse.class);
 
         //add a key
-        AbstractResponse cachedResponse = cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), AbstractResponse.class, ip -> response1);
+        AbstractResponse cachedResponse =
+            cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "db", AbstractResponse.class, ip -> response1);
         assertSame(cachedResponse, response1);
-        assertSame(cachedResponse, cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), AbstractResponse.class, ip -> response1));
-        assertSame(cachedResponse, cache.get(InetAddresses.forString("127.0.0.1"), AbstractResponse.class));
+        assertSame(cachedResponse, cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "db", AbstractResponse.class, ip -> response1));
+        assertSame(cachedResponse, cache.get(InetAddresses.forString("127.0.0.1"), "db", AbstractResponse.class));
 
 
         // evict old key by adding another value
-        cachedResponse = cache.putIfAbsent(InetAddresses.forString("127.0.0.2"), AbstractResponse.class, ip -> response2);
+        cachedResponse = cache.putIfAbsent(InetAddresses.forString("127.0.0.2"), "db", AbstractResponse.class, ip -> response2);
         assertSame(cachedResponse, response2);
-        assertSame(cachedResponse, cache.putIfAbsent(InetAddresses.forString("127.0.0.2"), AbstractResponse.class, ip -> response2));
-        assertSame(cachedResponse, cache.get(InetAddresses.forString("127.0.0.2"), AbstractResponse.class));
+        assertSame(cachedResponse, cache.putIfAbsent(InetAddresses.forString("127.0.0.2"), "db", AbstractResponse.class, ip -> response2));
+        assertSame(cachedResponse, cache.get(InetAddresses.forString("127.0.0.2"), "db", AbstractResponse.class));
+
+        assertNotSame(response1, cache.get(InetAddresses.forString("127.0.0.1"), "db", AbstractResponse.class));
+    }
+
+    public void testCachesPerDatabase() {
+        GeoIpCache cache = new GeoIpCache(10);
+        AbstractResponse response1 = mock(AbstractResponse.class);
+        AbstractResponse response2 = mock(AbstractResponse.class);
+        InetAddress ip = InetAddresses.forString("127.0.0.1");
+
+        assertSame(response1, cache.putIfAbsent(ip, "db1", AbstractResponse.class, address -> response1));
+        assertSame(response2, cache.putIfAbsent(ip, "db2", AbstractResponse.class, address -> response2));
+        assertSame(response1, cache.putIfAbsent(ip, "db1", AbstractResponse.class, address -> response2));
 
-        assertNotSame(response1, cache.get(InetAddresses.forString("127.0.0.1"), AbstractResponse.class));
+        GeoIpStatsAction.NodeResponse stats = cache.stats(new DiscoveryNode("node", buildNewFakeTransportAddress(), Version.CURRENT));
+        assertEquals(2, stats.getCount());
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(0, stats.getEvictions());
     }
 
     public void testThrowsFunctionsException() {
         GeoIpCache cache = new GeoIpCache(1);
         IllegalArgumentException ex = expectThrows(IllegalArgumentException.class,
-            () -> cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), AbstractResponse.class,
+            () -> cache.putIfAbsent(InetAddresses.forString("127.0.0.1"), "db", AbstractResponse.class,
                 ip -> { throw new IllegalArgumentException("bad"); }));
         assertEquals("bad", ex.getMessage());
     }
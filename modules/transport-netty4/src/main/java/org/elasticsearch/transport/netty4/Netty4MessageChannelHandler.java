@@ -26,6 +26,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.Attribute;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.transport.Transports;
 
 
@@ -47,12 +48,14 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
         assert msg instanceof ByteBuf : "Expected message type ByteBuf, found: " + msg.getClass();
 
         final ByteBuf buffer = (ByteBuf) msg;
+        // the buffer is released once the message has been handled and the requests that hold on to slices of it are done
+        final ReleasableBytesReference reference = new ReleasableBytesReference(Netty4Utils.toBytesReference(buffer), buffer::release);
         try {
             Channel channel = ctx.channel();
             Attribute<Netty4TcpChannel> channelAttribute = channel.attr(Netty4Transport.CHANNEL_KEY);
-            transport.inboundMessage(channelAttribute.get(), Netty4Utils.toBytesReference(buffer));
+            transport.inboundMessage(channelAttribute.get(), reference);
         } finally {
-            buffer.release();
+            reference.close();
         }
     }
 
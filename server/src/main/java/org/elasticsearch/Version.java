@@ -214,8 +214,10 @@ public class Version implements Comparable<Version>, ToXContentFragment {
     public static final Version V_6_7_1 = new Version(V_6_7_1_ID, org.apache.lucene.util.Version.LUCENE_7_7_0);
     public static final int V_6_7_1_6515_ID = 6070150;
     public static final Version V_6_7_1_6515 = new Version(V_6_7_1_6515_ID, org.apache.lucene.util.Version.LUCENE_7_7_0);
+    public static final int V_6_7_2_6515_ID = 6070250;
+    public static final Version V_6_7_2_6515 = new Version(V_6_7_2_6515_ID, org.apache.lucene.util.Version.LUCENE_7_7_0);
 
-    public static final Version CURRENT = V_6_7_1_6515;
+    public static final Version CURRENT = V_6_7_2_6515;
 
     static {
         assert CURRENT.luceneVersion.equals(org.apache.lucene.util.Version.LATEST) : "Version must be upgraded to ["
@@ -228,6 +230,8 @@ public class Version implements Comparable<Version>, ToXContentFragment {
 
     public static Version fromId(int id) {
         switch (id) {
+            case V_6_7_2_6515_ID:
+                return V_6_7_2_6515;
             case V_6_7_1_6515_ID:
                 return V_6_7_1_6515;
             case V_6_7_1_ID:
@@ -64,6 +64,12 @@ public class ClusterAllocationExplainRequestBuilder
         return this;
     }
 
+    /** Whether to include the number of decisions and the time spent per allocation decider while explaining */
+    public ClusterAllocationExplainRequestBuilder setIncludeDeciderStats(boolean includeDeciderStats) {
+        request.includeDeciderStats(includeDeciderStats);
+        return this;
+    }
+
     /**
      * Requests the explain API to explain an already assigned replica shard currently allocated to
      * the given node.
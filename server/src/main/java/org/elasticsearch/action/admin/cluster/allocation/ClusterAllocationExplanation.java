@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.allocation;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -26,6 +27,7 @@ import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.cluster.routing.allocation.AllocationDecision;
 import org.elasticsearch.cluster.routing.allocation.ShardAllocationDecision;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciderStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -52,15 +54,23 @@ public final class ClusterAllocationExplanation implements ToXContentObject, Wri
     private final DiscoveryNode relocationTargetNode;
     private final ClusterInfo clusterInfo;
     private final ShardAllocationDecision shardAllocationDecision;
+    private final AllocationDeciderStats deciderStats;
 
     public ClusterAllocationExplanation(ShardRouting shardRouting, @Nullable DiscoveryNode currentNode,
                                         @Nullable DiscoveryNode relocationTargetNode, @Nullable ClusterInfo clusterInfo,
                                         ShardAllocationDecision shardAllocationDecision) {
+        this(shardRouting, currentNode, relocationTargetNode, clusterInfo, shardAllocationDecision, null);
+    }
+
+    public ClusterAllocationExplanation(ShardRouting shardRouting, @Nullable DiscoveryNode currentNode,
+                                        @Nullable DiscoveryNode relocationTargetNode, @Nullable ClusterInfo clusterInfo,
+                                        ShardAllocationDecision shardAllocationDecision, @Nullable AllocationDeciderStats deciderStats) {
         this.shardRouting = shardRouting;
         this.currentNode = currentNode;
         this.relocationTargetNode = relocationTargetNode;
         this.clusterInfo = clusterInfo;
         this.shardAllocationDecision = shardAllocationDecision;
+        this.deciderStats = deciderStats;
     }
 
     public ClusterAllocationExplanation(StreamInput in) throws IOException {
@@ -69,6 +79,11 @@ public final class ClusterAllocationExplanation implements ToXContentObject, Wri
         this.relocationTargetNode = in.readOptionalWriteable(DiscoveryNode::new);
         this.clusterInfo = in.readOptionalWriteable(ClusterInfo::new);
         this.shardAllocationDecision = new ShardAllocationDecision(in);
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            this.deciderStats = in.readOptionalWriteable(AllocationDeciderStats::new);
+        } else {
+            this.deciderStats = null;
+        }
     }
 
     @Override
@@ -78,6 +93,9 @@ public final class ClusterAllocationExplanation implements ToXContentObject, Wri
         out.writeOptionalWriteable(relocationTargetNode);
         out.writeOptionalWriteable(clusterInfo);
         shardAllocationDecision.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            out.writeOptionalWriteable(deciderStats);
+        }
     }
 
     /**
@@ -140,6 +158,15 @@ public final class ClusterAllocationExplanation implements ToXContentObject, Wri
         return shardAllocationDecision;
     }
 
+    /**
+     * Returns the number of decisions and the time spent per allocation decider while explaining, or {@code null} if they
+     * were not requested.
+     */
+    @Nullable
+    public AllocationDeciderStats getDeciderStats() {
+        return deciderStats;
+    }
+
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(); {
             builder.field("index", shardRouting.getIndexName());
@@ -180,6 +207,9 @@ public final class ClusterAllocationExplanation implements ToXContentObject, Wri
                 }
                 builder.field("explanation", explanation);
             }
+            if (deciderStats != null) {
+                deciderStats.toXContent(builder, params);
+            }
         }
         builder.endObject(); // end wrapping object
         return builder;
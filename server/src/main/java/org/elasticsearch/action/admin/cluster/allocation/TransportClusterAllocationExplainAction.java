@@ -99,6 +99,9 @@ public class TransportClusterAllocationExplainAction
         ShardRouting shardRouting = findShardToExplain(request, allocation);
         logger.debug("explaining the allocation for [{}], found shard [{}]", request, shardRouting);
 
+        if (request.includeDeciderStats()) {
+            allocation.recordDeciderStats();
+        }
         ClusterAllocationExplanation cae = explainShard(shardRouting, allocation,
             request.includeDiskInfo() ? clusterInfo : null, request.includeYesDecisions(), gatewayAllocator, shardAllocator);
         listener.onResponse(new ClusterAllocationExplainResponse(cae));
@@ -126,7 +129,7 @@ public class TransportClusterAllocationExplainAction
         return new ClusterAllocationExplanation(shardRouting,
             shardRouting.currentNodeId() != null ? allocation.nodes().get(shardRouting.currentNodeId()) : null,
             shardRouting.relocatingNodeId() != null ? allocation.nodes().get(shardRouting.relocatingNodeId()) : null,
-            clusterInfo, shardDecision);
+            clusterInfo, shardDecision, allocation.deciderStats());
     }
 
     // public for testing
@@ -20,8 +20,10 @@
 package org.elasticsearch.action.admin.cluster.node.stats;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.action.search.SearchReduceStats;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciderStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -91,6 +93,12 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
     @Nullable
     private AdaptiveSelectionStats adaptiveSelectionStats;
 
+    @Nullable
+    private SearchReduceStats searchReduceStats;
+
+    @Nullable
+    private AllocationDeciderStats allocationDeciderStats;
+
     NodeStats() {
     }
 
@@ -102,6 +110,33 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
                      @Nullable DiscoveryStats discoveryStats,
                      @Nullable IngestStats ingestStats,
                      @Nullable AdaptiveSelectionStats adaptiveSelectionStats) {
+        this(node, timestamp, indices, os, process, jvm, threadPool, fs, transport, http, breaker, scriptStats, discoveryStats,
+            ingestStats, adaptiveSelectionStats, null);
+    }
+
+    public NodeStats(DiscoveryNode node, long timestamp, @Nullable NodeIndicesStats indices,
+                     @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool,
+                     @Nullable FsInfo fs, @Nullable TransportStats transport, @Nullable HttpStats http,
+                     @Nullable AllCircuitBreakerStats breaker,
+                     @Nullable ScriptStats scriptStats,
+                     @Nullable DiscoveryStats discoveryStats,
+                     @Nullable IngestStats ingestStats,
+                     @Nullable AdaptiveSelectionStats adaptiveSelectionStats,
+                     @Nullable SearchReduceStats searchReduceStats) {
+        this(node, timestamp, indices, os, process, jvm, threadPool, fs, transport, http, breaker, scriptStats, discoveryStats,
+            ingestStats, adaptiveSelectionStats, searchReduceStats, null);
+    }
+
+    public NodeStats(DiscoveryNode node, long timestamp, @Nullable NodeIndicesStats indices,
+                     @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool,
+                     @Nullable FsInfo fs, @Nullable TransportStats transport, @Nullable HttpStats http,
+                     @Nullable AllCircuitBreakerStats breaker,
+                     @Nullable ScriptStats scriptStats,
+                     @Nullable DiscoveryStats discoveryStats,
+                     @Nullable IngestStats ingestStats,
+                     @Nullable AdaptiveSelectionStats adaptiveSelectionStats,
+                     @Nullable SearchReduceStats searchReduceStats,
+                     @Nullable AllocationDeciderStats allocationDeciderStats) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -117,6 +152,8 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         this.discoveryStats = discoveryStats;
         this.ingestStats = ingestStats;
         this.adaptiveSelectionStats = adaptiveSelectionStats;
+        this.searchReduceStats = searchReduceStats;
+        this.allocationDeciderStats = allocationDeciderStats;
     }
 
     public long getTimestamp() {
@@ -211,6 +248,16 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         return adaptiveSelectionStats;
     }
 
+    @Nullable
+    public SearchReduceStats getSearchReduceStats() {
+        return searchReduceStats;
+    }
+
+    @Nullable
+    public AllocationDeciderStats getAllocationDeciderStats() {
+        return allocationDeciderStats;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -240,6 +287,13 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         } else {
             adaptiveSelectionStats = null;
         }
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            searchReduceStats = in.readOptionalWriteable(SearchReduceStats::new);
+            allocationDeciderStats = in.readOptionalWriteable(AllocationDeciderStats::new);
+        } else {
+            searchReduceStats = null;
+            allocationDeciderStats = null;
+        }
     }
 
     @Override
@@ -266,6 +320,10 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         if (out.getVersion().onOrAfter(Version.V_6_1_0)) {
             out.writeOptionalWriteable(adaptiveSelectionStats);
         }
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            out.writeOptionalWriteable(searchReduceStats);
+            out.writeOptionalWriteable(allocationDeciderStats);
+        }
     }
 
     @Override
@@ -329,6 +387,12 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         if (getAdaptiveSelectionStats() != null) {
             getAdaptiveSelectionStats().toXContent(builder, params);
         }
+        if (getSearchReduceStats() != null) {
+            getSearchReduceStats().toXContent(builder, params);
+        }
+        if (getAllocationDeciderStats() != null) {
+            getAllocationDeciderStats().toXContent(builder, params);
+        }
         return builder;
     }
 }
@@ -45,6 +45,8 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
     private boolean discovery;
     private boolean ingest;
     private boolean adaptiveSelection;
+    private boolean searchReduce;
+    private boolean allocationDeciders;
 
     public NodesStatsRequest() {
     }
@@ -74,6 +76,8 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.discovery = true;
         this.ingest = true;
         this.adaptiveSelection = true;
+        this.searchReduce = true;
+        this.allocationDeciders = true;
         return this;
     }
 
@@ -94,6 +98,8 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.discovery = false;
         this.ingest = false;
         this.adaptiveSelection = false;
+        this.searchReduce = false;
+        this.allocationDeciders = false;
         return this;
     }
 
@@ -281,6 +287,30 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         return this;
     }
 
+    public boolean searchReduce() {
+        return searchReduce;
+    }
+
+    /**
+     * Should statistics about the reduce buffers of coordinated searches be returned.
+     */
+    public NodesStatsRequest searchReduce(boolean searchReduce) {
+        this.searchReduce = searchReduce;
+        return this;
+    }
+
+    public boolean allocationDeciders() {
+        return allocationDeciders;
+    }
+
+    /**
+     * Should the number of decisions and the time spent per allocation decider be returned.
+     */
+    public NodesStatsRequest allocationDeciders(boolean allocationDeciders) {
+        this.allocationDeciders = allocationDeciders;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -301,6 +331,13 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         } else {
             adaptiveSelection = false;
         }
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            searchReduce = in.readBoolean();
+            allocationDeciders = in.readBoolean();
+        } else {
+            searchReduce = false;
+            allocationDeciders = false;
+        }
     }
 
     @Override
@@ -321,5 +358,9 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         if (out.getVersion().onOrAfter(Version.V_6_1_0)) {
             out.writeBoolean(adaptiveSelection);
         }
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            out.writeBoolean(searchReduce);
+            out.writeBoolean(allocationDeciders);
+        }
     }
 }
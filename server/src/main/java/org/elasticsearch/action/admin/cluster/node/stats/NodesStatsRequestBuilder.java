@@ -149,4 +149,14 @@ public class NodesStatsRequestBuilder
         return this;
     }
 
+    public NodesStatsRequestBuilder setSearchReduce(boolean searchReduce) {
+        request.searchReduce(searchReduce);
+        return this;
+    }
+
+    public NodesStatsRequestBuilder setAllocationDeciders(boolean allocationDeciders) {
+        request.allocationDeciders(allocationDeciders);
+        return this;
+    }
+
 }
@@ -113,6 +113,11 @@ class BulkPrimaryExecutionContext {
         return getCurrentItem().request();
     }
 
+    /** returns the index of the item that is executed next, which is the number of items once all items were executed */
+    public int getCurrentItemIndex() {
+        return currentIndex;
+    }
+
     public BulkShardRequest getBulkShardRequest() {
         return request;
     }
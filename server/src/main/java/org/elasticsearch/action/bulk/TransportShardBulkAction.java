@@ -31,6 +31,7 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
 import org.elasticsearch.action.support.replication.TransportReplicationAction;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
 import org.elasticsearch.action.update.UpdateHelper;
@@ -49,7 +50,10 @@ import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -70,6 +74,7 @@ import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -80,10 +85,22 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     public static final String ACTION_NAME = BulkAction.NAME + "[s]";
 
+    /**
+     * The size of the documents executed on the primary after which they are sent to the replicas while the primary executes the rest
+     * of the shard level bulk request. Only applies to requests that do not refresh. <code>0</code> replicates requests as a whole.
+     */
+    public static final Setting<ByteSizeValue> REPLICATION_CHUNK_SIZE_SETTING = Setting.byteSizeSetting(
+            "action.bulk.replication_chunk_size", new ByteSizeValue(0), new ByteSizeValue(0), new ByteSizeValue(Long.MAX_VALUE),
+            Property.Dynamic, Property.NodeScope);
+
+    /** The estimated size of an item on top of its source, so that requests without sources are chunked as well. */
+    private static final int ITEM_OVERHEAD_IN_BYTES = 50;
+
     private static final Logger logger = LogManager.getLogger(TransportShardBulkAction.class);
 
     private final UpdateHelper updateHelper;
     private final MappingUpdatedAction mappingUpdatedAction;
+    private volatile long replicationChunkSizeInBytes;
 
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
@@ -94,6 +111,9 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             indexNameExpressionResolver, BulkShardRequest::new, BulkShardRequest::new, ThreadPool.Names.WRITE);
         this.updateHelper = updateHelper;
         this.mappingUpdatedAction = mappingUpdatedAction;
+        this.replicationChunkSizeInBytes = REPLICATION_CHUNK_SIZE_SETTING.get(settings).getBytes();
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(REPLICATION_CHUNK_SIZE_SETTING,
+            chunkSize -> this.replicationChunkSizeInBytes = chunkSize.getBytes());
     }
 
     @Override
@@ -114,6 +134,24 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
     @Override
     protected WritePrimaryResult<BulkShardRequest, BulkShardResponse> shardOperationOnPrimary(BulkShardRequest request, IndexShard primary)
         throws Exception {
+        return performOnPrimary(request, primary, 0, replicaRequest -> {
+            throw new AssertionError("request [" + request + "] is replicated as a whole");
+        });
+    }
+
+    @Override
+    protected WritePrimaryResult<BulkShardRequest, BulkShardResponse> shardOperationOnPrimary(BulkShardRequest request, IndexShard primary,
+                                                                                              Consumer<BulkShardRequest> partReplicator)
+        throws Exception {
+        // chunks are refreshed independently on the replicas, so only requests that do not refresh can be replicated in chunks
+        final long chunkSizeInBytes = request.getRefreshPolicy() == RefreshPolicy.NONE ? replicationChunkSizeInBytes : 0;
+        return performOnPrimary(request, primary, chunkSizeInBytes, partReplicator);
+    }
+
+    private WritePrimaryResult<BulkShardRequest, BulkShardResponse> performOnPrimary(BulkShardRequest request, IndexShard primary,
+                                                                                     long chunkSizeInBytes,
+                                                                                     Consumer<BulkShardRequest> partReplicator)
+        throws Exception {
         ClusterStateObserver observer = new ClusterStateObserver(clusterService, request.timeout(), logger, threadPool.getThreadContext());
         CheckedRunnable<Exception> waitForMappingUpdate = () -> {
             PlainActionFuture<Void> waitingFuture = new PlainActionFuture<>();
@@ -137,7 +175,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             waitingFuture.get();
         };
         return performOnPrimary(request, primary, updateHelper, threadPool::absoluteTimeInMillis,
-            new ConcreteMappingUpdatePerformer(), waitForMappingUpdate);
+            new ConcreteMappingUpdatePerformer(), waitForMappingUpdate, chunkSizeInBytes, partReplicator);
     }
 
     public static WritePrimaryResult<BulkShardRequest, BulkShardResponse> performOnPrimary(
@@ -147,22 +185,80 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         LongSupplier nowInMillisSupplier,
         MappingUpdatePerformer mappingUpdater,
         CheckedRunnable<Exception> waitForMappingUpdate) throws Exception {
+        return performOnPrimary(request, primary, updateHelper, nowInMillisSupplier, mappingUpdater, waitForMappingUpdate, 0,
+            replicaRequest -> {
+                throw new AssertionError("request [" + request + "] is replicated as a whole");
+            });
+    }
+
+    /**
+     * Executes the items of the request on the primary. Once the items executed since the last chunk add up to
+     * <code>replicationChunkSizeInBytes</code>, they are handed to <code>partReplicator</code> as a replica request of their own so
+     * that they are replicated while the primary executes the next items. The replica request of the returned result holds the items
+     * that were not replicated yet.
+     */
+    public static WritePrimaryResult<BulkShardRequest, BulkShardResponse> performOnPrimary(
+        BulkShardRequest request,
+        IndexShard primary,
+        UpdateHelper updateHelper,
+        LongSupplier nowInMillisSupplier,
+        MappingUpdatePerformer mappingUpdater,
+        CheckedRunnable<Exception> waitForMappingUpdate,
+        long replicationChunkSizeInBytes,
+        Consumer<BulkShardRequest> partReplicator) throws Exception {
         BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
-        return performOnPrimary(context, updateHelper, nowInMillisSupplier, mappingUpdater, waitForMappingUpdate);
+        return performOnPrimary(context, updateHelper, nowInMillisSupplier, mappingUpdater, waitForMappingUpdate,
+            replicationChunkSizeInBytes, partReplicator);
     }
 
     private static WritePrimaryResult<BulkShardRequest, BulkShardResponse> performOnPrimary(
         BulkPrimaryExecutionContext context, UpdateHelper updateHelper, LongSupplier nowInMillisSupplier,
-        MappingUpdatePerformer mappingUpdater, CheckedRunnable<Exception> waitForMappingUpdate) throws Exception {
+        MappingUpdatePerformer mappingUpdater, CheckedRunnable<Exception> waitForMappingUpdate,
+        long replicationChunkSizeInBytes, Consumer<BulkShardRequest> partReplicator) throws Exception {
 
+        final BulkShardRequest request = context.getBulkShardRequest();
+        int chunkStart = 0;
+        int executedItems = 0;
+        long chunkSizeInBytes = 0;
         while (context.hasMoreOperationsToExecute()) {
             executeBulkItemRequest(context, updateHelper, nowInMillisSupplier, mappingUpdater, waitForMappingUpdate);
             assert context.isInitial(); // either completed and moved to next or reset
+            if (replicationChunkSizeInBytes > 0) {
+                for (; executedItems < context.getCurrentItemIndex(); executedItems++) {
+                    chunkSizeInBytes += replicationSizeInBytes(request.items()[executedItems]);
+                }
+                // the rest of the items are replicated with the primary result, so we never send a chunk after the last item
+                if (chunkSizeInBytes >= replicationChunkSizeInBytes && context.hasMoreOperationsToExecute()) {
+                    partReplicator.accept(replicaRequestForItems(request, chunkStart, executedItems));
+                    chunkStart = executedItems;
+                    chunkSizeInBytes = 0;
+                }
+            }
         }
-        return new WritePrimaryResult<>(context.getBulkShardRequest(), context.buildShardResponse(), context.getLocationToSync(),
+        final BulkShardRequest replicaRequest = chunkStart == 0
+            ? request : replicaRequestForItems(request, chunkStart, request.items().length);
+        return new WritePrimaryResult<>(replicaRequest, context.buildShardResponse(), context.getLocationToSync(),
             null, context.getPrimary(), logger);
     }
 
+    private static long replicationSizeInBytes(BulkItemRequest item) {
+        final DocWriteRequest<?> request = item.request();
+        if (request instanceof IndexRequest && ((IndexRequest) request).source() != null) {
+            return ((IndexRequest) request).source().length() + ITEM_OVERHEAD_IN_BYTES;
+        }
+        return ITEM_OVERHEAD_IN_BYTES;
+    }
+
+    /** Builds a replica request for the items of the given request in the range from <code>from</code> (inclusive) to <code>to</code> */
+    private static BulkShardRequest replicaRequestForItems(BulkShardRequest request, int from, int to) {
+        final BulkShardRequest replicaRequest = new BulkShardRequest(request.shardId(), request.getRefreshPolicy(),
+            Arrays.copyOfRange(request.items(), from, to));
+        replicaRequest.timeout(request.timeout());
+        replicaRequest.waitForActiveShards(request.waitForActiveShards());
+        replicaRequest.setParentTask(request.getParentTask());
+        return replicaRequest;
+    }
+
     /** Executes bulk item requests and handles request execution exceptions */
     static void executeBulkItemRequest(BulkPrimaryExecutionContext context, UpdateHelper updateHelper, LongSupplier nowInMillisSupplier,
                                        MappingUpdatePerformer mappingUpdater, CheckedRunnable<Exception> waitForMappingUpdate)
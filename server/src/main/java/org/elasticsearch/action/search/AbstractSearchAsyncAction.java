@@ -80,8 +80,8 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                                         ActionListener<SearchResponse> listener, GroupShardsIterator<SearchShardIterator> shardsIts,
                                         TransportSearchAction.SearchTimeProvider timeProvider, long clusterStateVersion,
                                         SearchTask task, SearchPhaseResults<Result> resultConsumer, int maxConcurrentShardRequests,
-                                        SearchResponse.Clusters clusters) {
-        super(name, request, shardsIts, logger, maxConcurrentShardRequests, executor);
+                                        SearchResponse.Clusters clusters, @Nullable ShardRequestHedging hedging) {
+        super(name, request, shardsIts, logger, maxConcurrentShardRequests, executor, hedging);
         this.timeProvider = timeProvider;
         this.logger = logger;
         this.searchTransportService = searchTransportService;
@@ -134,7 +134,10 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         } else {
             Boolean allowPartialResults = request.allowPartialSearchResults();
             assert allowPartialResults != null : "SearchRequest missing setting for allowPartialSearchResults";
-            if (allowPartialResults == false && shardFailures.get() != null ){
+            // hedged and shed requests fail or skip a copy of a shard on purpose, so with hedging or shedding enabled only failures
+            // that were not cleared by another copy of the same shard succeeding count
+            if (allowPartialResults == false && shardFailures.get() != null
+                    && (isHedgingOrSheddingEnabled() == false || buildShardFailures().length > 0)) {
                 if (logger.isDebugEnabled()) {
                     final ShardOperationFailedException[] shardSearchFailures = ExceptionsHelper.groupBy(buildShardFailures());
                     Throwable cause = shardSearchFailures.length == 0 ? null :
@@ -233,6 +236,17 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         listener.onFailure(exception);
     }
 
+    @Override
+    final void onDiscardedShardResult(Result result) {
+        try {
+            SearchShardTarget searchShardTarget = result.getSearchShardTarget();
+            Transport.Connection connection = getConnection(searchShardTarget.getClusterAlias(), searchShardTarget.getNodeId());
+            sendReleaseSearchContext(result.getRequestId(), connection, searchShardTarget.getOriginalIndices());
+        } catch (Exception e) {
+            logger.trace("failed to release context", e);
+        }
+    }
+
     @Override
     public final void onShardSuccess(Result result) {
         successfulOps.incrementAndGet();
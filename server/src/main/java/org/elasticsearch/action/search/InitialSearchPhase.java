@@ -27,8 +27,10 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.threadpool.Scheduler;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -55,9 +57,11 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
     private final AtomicInteger shardExecutionIndex = new AtomicInteger(0);
     private final int maxConcurrentShardRequests;
     private final Executor executor;
+    @Nullable
+    private final ShardRequestHedging hedging;
 
     InitialSearchPhase(String name, SearchRequest request, GroupShardsIterator<SearchShardIterator> shardsIts, Logger logger,
-                       int maxConcurrentShardRequests, Executor executor) {
+                       int maxConcurrentShardRequests, Executor executor, @Nullable ShardRequestHedging hedging) {
         super(name);
         this.request = request;
         final List<SearchShardIterator> toSkipIterators = new ArrayList<>();
@@ -79,6 +83,14 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         this.expectedTotalOps = shardsIts.totalSizeWith1ForEmpty();
         this.maxConcurrentShardRequests = Math.min(maxConcurrentShardRequests, shardsIts.size());
         this.executor = executor;
+        this.hedging = hedging;
+    }
+
+    /**
+     * Returns <code>true</code> if shard requests of this phase may be hedged or shed to another copy of the shard.
+     */
+    final boolean isHedgingOrSheddingEnabled() {
+        return hedging != null;
     }
 
     private void onShardFailure(final int shardIndex, @Nullable ShardRouting shard, @Nullable String nodeId,
@@ -206,31 +218,174 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         final Thread thread = Thread.currentThread();
         if (shard == null) {
             fork(() -> onShardFailure(shardIndex, null, null, shardIt, new NoShardAvailableActionException(shardIt.shardId())));
+        } else if (hedging != null) {
+            hedging.onShardRequest();
+            if (hedging.shouldShed(shard.currentNodeId())) {
+                fork(() -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, new EsRejectedExecutionException(
+                    "search queue of node [" + shard.currentNodeId() + "] is too large, shard request was shed")));
+            } else if (hedging.isHedgingEnabled() && shardIt.remaining() > 0) {
+                new HedgedShardExecution(shardIndex, shardIt).start(shard, thread);
+            } else {
+                executeOnShard(shardIndex, shardIt, shard, thread);
+            }
         } else {
+            executeOnShard(shardIndex, shardIt, shard, thread);
+        }
+    }
+
+    private void executeOnShard(final int shardIndex, final SearchShardIterator shardIt, final ShardRouting shard, final Thread thread) {
+        try {
+            executePhaseOnShard(shardIt, shard, new SearchActionListener<FirstResult>(
+                shardIt.newSearchShardTarget(shard.currentNodeId()), shardIndex) {
+                @Override
+                public void innerOnResponse(FirstResult result) {
+                    maybeFork(thread, () -> onShardResult(result, shardIt));
+                }
+
+                @Override
+                public void onFailure(Exception t) {
+                    maybeFork(thread, () -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, t));
+                }
+            });
+        } catch (final Exception e) {
+            /*
+             * It is possible to run into connection exceptions here because we are getting the connection early and might run in to
+             * nodes that are not connected. In this case, on shard failure will move us to the next shard copy.
+             */
+            fork(() -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e));
+        }
+    }
+
+    /**
+     * Executes the phase on a copy of a shard and, if that copy does not respond within the hedge delay, on the next copy of the
+     * shard as well. The first successful response is used and the response of the other copy is discarded. A failure of one copy
+     * is recorded but only moves on to the next copy of the shard once both copies failed.
+     */
+    private final class HedgedShardExecution {
+        private final int shardIndex;
+        private final SearchShardIterator shardIt;
+        private int pending;
+        private boolean done;
+        private Scheduler.ScheduledCancellable scheduledHedge;
+
+        HedgedShardExecution(int shardIndex, SearchShardIterator shardIt) {
+            this.shardIndex = shardIndex;
+            this.shardIt = shardIt;
+        }
+
+        void start(ShardRouting shard, Thread thread) {
+            synchronized (this) {
+                pending = 1;
+            }
+            send(shard, thread, false);
+            final Scheduler.ScheduledCancellable scheduled = hedging.scheduleHedge(this::hedge);
+            synchronized (this) {
+                if (done) {
+                    scheduled.cancel();
+                } else {
+                    scheduledHedge = scheduled;
+                }
+            }
+        }
+
+        private void hedge() {
+            final ShardRouting shard;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                shard = shardIt.nextOrNull();
+                if (shard == null) {
+                    return;
+                }
+                pending++;
+            }
+            hedging.onHedgedRequest();
+            logger.trace("{}: hedging shard request [{}] to [{}]", shardIt.shardId(), request, shard.currentNodeId());
+            send(shard, Thread.currentThread(), true);
+        }
+
+        private void send(ShardRouting shard, Thread thread, boolean hedge) {
             try {
                 executePhaseOnShard(shardIt, shard, new SearchActionListener<FirstResult>(
                     shardIt.newSearchShardTarget(shard.currentNodeId()), shardIndex) {
                     @Override
                     public void innerOnResponse(FirstResult result) {
-                        maybeFork(thread, () -> onShardResult(result, shardIt));
+                        HedgedShardExecution.this.onResponse(result, thread, hedge);
                     }
 
                     @Override
-                    public void onFailure(Exception t) {
-                        maybeFork(thread, () -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, t));
+                    public void onFailure(Exception e) {
+                        HedgedShardExecution.this.onFailure(shard, e, thread);
                     }
                 });
             } catch (final Exception e) {
-                /*
-                 * It is possible to run into connection exceptions here because we are getting the connection early and might run in to
-                 * nodes that are not connected. In this case, on shard failure will move us to the next shard copy.
-                 */
-                fork(() -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e));
+                fork(() -> onFailure(shard, e, thread));
+            }
+        }
+
+        private void onResponse(FirstResult result, Thread thread, boolean hedge) {
+            final int abandoned;
+            synchronized (this) {
+                pending--;
+                if (done) {
+                    abandoned = -1;
+                } else {
+                    done = true;
+                    abandoned = pending;
+                }
+            }
+            if (abandoned < 0) {
+                hedging.onDiscardedResponse();
+                onDiscardedShardResult(result);
+                return;
+            }
+            cancelHedge();
+            if (hedge) {
+                hedging.onHedgeWin();
+            }
+            // the copies that are still pending will not be counted on their own, so they are counted with the successful one
+            maybeFork(thread, () -> onShardResult(result, shardIt, abandoned));
+        }
+
+        private void onFailure(ShardRouting shard, Exception e, Thread thread) {
+            synchronized (this) {
+                pending--;
+                if (done) {
+                    return;
+                }
+                if (pending > 0) {
+                    // another copy is still running, record the failure and wait for the other copy
+                    logger.trace(() -> new ParameterizedMessage("{}: Failed to execute [{}] while another copy is pending",
+                        shard.shortSummary(), request), e);
+                    InitialSearchPhase.this.onShardFailure(shardIndex, shardIt.newSearchShardTarget(shard.currentNodeId()), e);
+                    final int xTotalOps = totalOps.incrementAndGet();
+                    assert xTotalOps < expectedTotalOps : "a pending copy must not be counted yet";
+                    return;
+                }
+                done = true;
+            }
+            cancelHedge();
+            maybeFork(thread, () -> InitialSearchPhase.this.onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e));
+        }
+
+        private void cancelHedge() {
+            final Scheduler.ScheduledCancellable scheduled;
+            synchronized (this) {
+                scheduled = scheduledHedge;
+                scheduledHedge = null;
+            }
+            if (scheduled != null) {
+                scheduled.cancel();
             }
         }
     }
 
     private void onShardResult(FirstResult result, SearchShardIterator shardIt) {
+        onShardResult(result, shardIt, 0);
+    }
+
+    private void onShardResult(FirstResult result, SearchShardIterator shardIt, int abandonedOps) {
         assert result.getShardIndex() != -1 : "shard index is not set";
         assert result.getSearchShardTarget() != null : "search shard target must not be null";
         onShardSuccess(result);
@@ -239,15 +394,19 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         // cause the successor to read a wrong value from successfulOps if second phase is very fast ie. count etc.
         // increment all the "future" shards to update the total ops since we some may work and some may not...
         // and when that happens, we break on total ops, so we must maintain them
-        successfulShardExecution(shardIt);
+        successfulShardExecution(shardIt, abandonedOps);
     }
 
     private void successfulShardExecution(SearchShardIterator shardsIt) {
+        successfulShardExecution(shardsIt, 0);
+    }
+
+    private void successfulShardExecution(SearchShardIterator shardsIt, int abandonedOps) {
         final int remainingOpsOnIterator;
         if (shardsIt.skip()) {
             remainingOpsOnIterator = shardsIt.remaining();
         } else {
-            remainingOpsOnIterator = shardsIt.remaining() + 1;
+            remainingOpsOnIterator = shardsIt.remaining() + 1 + abandonedOps;
         }
         final int xTotalOps = totalOps.addAndGet(remainingOpsOnIterator);
         if (xTotalOps == expectedTotalOps) {
@@ -293,6 +452,14 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
     protected abstract void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
                                                 SearchActionListener<FirstResult> listener);
 
+    /**
+     * Executed for every successful shard level response that is not used because another copy of the same shard responded
+     * first, so that resources held on behalf of the response can be released.
+     * @param result the discarded result
+     */
+    void onDiscardedShardResult(FirstResult result) {
+    }
+
     /**
      * This class acts as a basic result collection that can be extended to do on-the-fly reduction or result processing
      */
@@ -31,7 +31,10 @@ import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.collect.HppcMaps;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
@@ -66,14 +69,52 @@ public final class SearchPhaseController {
 
     private static final ScoreDoc[] EMPTY_DOCS = new ScoreDoc[0];
 
+    /**
+     * The share of the free memory of the request circuit breaker that the buffered aggregations of a single search may use
+     * before they are partially reduced, regardless of the batched reduce size.
+     */
+    static final double REDUCE_BUFFER_BREAKER_RATIO = 0.1;
+
     private final Function<Boolean, ReduceContext> reduceContextFunction;
+    private final CircuitBreakerService circuitBreakerService;
+    private final SearchReduceStats.Recorder reduceStats = new SearchReduceStats.Recorder();
 
     /**
      * Constructor.
      * @param reduceContextFunction A function that builds a context for the reduce of an {@link InternalAggregation}
      */
     public SearchPhaseController(Function<Boolean, ReduceContext> reduceContextFunction) {
+        this(reduceContextFunction, new NoneCircuitBreakerService());
+    }
+
+    /**
+     * Constructor.
+     * @param reduceContextFunction A function that builds a context for the reduce of an {@link InternalAggregation}
+     * @param circuitBreakerService the circuit breaker service whose request breaker bounds the memory used by reduce buffers
+     */
+    public SearchPhaseController(Function<Boolean, ReduceContext> reduceContextFunction, CircuitBreakerService circuitBreakerService) {
         this.reduceContextFunction = reduceContextFunction;
+        this.circuitBreakerService = circuitBreakerService;
+    }
+
+    /**
+     * Returns statistics about the reduce buffers of the searches coordinated by this node.
+     */
+    public SearchReduceStats reduceStats() {
+        return reduceStats.stats();
+    }
+
+    /**
+     * Returns the number of bytes the buffered aggregations of a single search may hold before they have to be partially reduced.
+     * This is a share of the memory that is still available to the request circuit breaker.
+     */
+    long reduceBufferBudget() {
+        final CircuitBreaker breaker = circuitBreakerService.getBreaker(CircuitBreaker.REQUEST);
+        final long limit = breaker.getLimit();
+        if (limit < 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) (Math.max(0, limit - breaker.getUsed()) * REDUCE_BUFFER_BREAKER_RATIO);
     }
 
     public AggregatedDfs aggregateDfs(Collection<DfsSearchResult> results) {
@@ -407,7 +448,7 @@ public final class SearchPhaseController {
      * Reduces the given query results and consumes all aggregations and profile results.
      * @param queryResults a list of non-null query shard results
      */
-    ReducedQueryPhase reducedQueryPhase(Collection<? extends SearchPhaseResult> queryResults,
+    public ReducedQueryPhase reducedQueryPhase(Collection<? extends SearchPhaseResult> queryResults,
                                                boolean isScrollRequest, boolean trackTotalHits, boolean performFinalReduce) {
         return reducedQueryPhase(queryResults, null, new ArrayList<>(), new TopDocsStats(trackTotalHits), 0, isScrollRequest,
             performFinalReduce);
@@ -569,17 +610,21 @@ public final class SearchPhaseController {
 
     /**
      * A {@link InitialSearchPhase.ArraySearchPhaseResults} implementation
-     * that incrementally reduces aggregation results as shard results are consumed.
-     * This implementation can be configured to batch up a certain amount of results and only reduce them
-     * iff the buffer is exhausted.
+     * that incrementally reduces aggregation results and merges top docs as shard results are consumed.
+     * Top docs are merged into a single running result as soon as a shard result arrives. Aggregation results are buffered
+     * and partially reduced once either the buffer is exhausted or the estimated size of the buffered aggregations exceeds
+     * the share of the request circuit breaker returned by {@link SearchPhaseController#reduceBufferBudget()}.
+     * Shard results are consumed on arrival so they don't hold on to their top docs and aggregations until the final reduce.
      */
     static final class QueryPhaseResultConsumer extends InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> {
         private final InternalAggregations[] aggsBuffer;
-        private final TopDocs[] topDocsBuffer;
         private final boolean hasAggs;
         private final boolean hasTopDocs;
         private final int bufferSize;
         private int index;
+        private long bufferedAggsBytes;
+        private long largestBufferedAggsBytes;
+        private TopDocs mergedTopDocs;
         private final SearchPhaseController controller;
         private int numReducePhases = 0;
         private final TopDocsStats topDocsStats = new TopDocsStats();
@@ -607,7 +652,6 @@ public final class SearchPhaseController {
             this.controller = controller;
             // no need to buffer anything if we have less expected results. in this case we don't consume any results ahead of time.
             this.aggsBuffer = new InternalAggregations[hasAggs ? bufferSize : 0];
-            this.topDocsBuffer = new TopDocs[hasTopDocs ? bufferSize : 0];
             this.hasTopDocs = hasTopDocs;
             this.hasAggs = hasAggs;
             this.bufferSize = bufferSize;
@@ -622,32 +666,42 @@ public final class SearchPhaseController {
         }
 
         private synchronized void consumeInternal(QuerySearchResult querySearchResult) {
-            if (index == bufferSize) {
+            final boolean breakerTriggered = hasAggs && index < bufferSize && index > 1
+                && bufferedAggsBytes > controller.reduceBufferBudget();
+            if (index == bufferSize || breakerTriggered) {
                 if (hasAggs) {
                     ReduceContext reduceContext = controller.reduceContextFunction.apply(false);
-                    InternalAggregations reducedAggs = InternalAggregations.reduce(Arrays.asList(aggsBuffer), reduceContext);
+                    InternalAggregations reducedAggs = InternalAggregations.reduce(Arrays.asList(aggsBuffer).subList(0, index),
+                        reduceContext);
                     Arrays.fill(aggsBuffer, null);
                     aggsBuffer[0] = reducedAggs;
+                    // we can't measure the reduced aggregations, but they are usually at least as large as the largest shard result
+                    bufferedAggsBytes = largestBufferedAggsBytes;
+                    controller.reduceStats.onPartialReduce(breakerTriggered);
                 }
-                if (hasTopDocs) {
-                    TopDocs reducedTopDocs = mergeTopDocs(Arrays.asList(topDocsBuffer),
-                        // we have to merge here in the same way we collect on a shard
-                        querySearchResult.from() + querySearchResult.size(), 0);
-                    Arrays.fill(topDocsBuffer, null);
-                    topDocsBuffer[0] = reducedTopDocs;
-                }
+                // top docs are merged on arrival, but a full buffer still counts as a reduce phase as it did when they were buffered
                 numReducePhases++;
                 index = 1;
             }
             final int i = index++;
             if (hasAggs) {
+                final long aggsBytes = querySearchResult.aggregationsSizeInBytes();
                 aggsBuffer[i] = (InternalAggregations) querySearchResult.consumeAggs();
+                bufferedAggsBytes += aggsBytes;
+                largestBufferedAggsBytes = Math.max(largestBufferedAggsBytes, aggsBytes);
+                controller.reduceStats.onBuffered(aggsBytes, bufferedAggsBytes);
             }
             if (hasTopDocs) {
                 final TopDocs topDocs = querySearchResult.consumeTopDocs(); // can't be null
                 topDocsStats.add(topDocs);
                 setShardIndex(topDocs, querySearchResult.getShardIndex());
-                topDocsBuffer[i] = topDocs;
+                if (mergedTopDocs == null) {
+                    mergedTopDocs = topDocs;
+                } else {
+                    // we have to merge here in the same way we collect on a shard
+                    mergedTopDocs = mergeTopDocs(Arrays.asList(mergedTopDocs, topDocs),
+                        querySearchResult.from() + querySearchResult.size(), 0);
+                }
             }
         }
 
@@ -656,7 +710,14 @@ public final class SearchPhaseController {
         }
 
         private synchronized List<TopDocs> getRemainingTopDocs() {
-            return hasTopDocs ? Arrays.asList(topDocsBuffer).subList(0, index) : null;
+            if (hasTopDocs == false) {
+                return null;
+            }
+            final List<TopDocs> remaining = new ArrayList<>(1);
+            if (mergedTopDocs != null) {
+                remaining.add(mergedTopDocs);
+            }
+            return remaining;
         }
 
         @Override
@@ -666,12 +727,19 @@ public final class SearchPhaseController {
         }
 
         /**
-         * Returns the number of buffered results
+         * Returns the number of buffered aggregation results
          */
         int getNumBuffered() {
             return index;
         }
 
+        /**
+         * Returns the estimated size of the buffered aggregation results
+         */
+        synchronized long getBufferedAggsBytes() {
+            return bufferedAggsBytes;
+        }
+
         int getNumReducePhases() { return numReducePhases; }
     }
 
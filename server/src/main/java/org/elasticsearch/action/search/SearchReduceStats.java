@@ -0,0 +1,164 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the reduce buffers of the searches coordinated by a node: how many partial reduces were executed, how many of them
+ * were triggered by the request circuit breaker budget rather than by the batched reduce size, and an estimate of the memory held by
+ * shard aggregation results while they were waiting to be reduced.
+ */
+public class SearchReduceStats implements Writeable, ToXContentFragment {
+
+    private final long partialReduces;
+    private final long breakerTriggeredReduces;
+    private final long bufferedAggregationsInBytes;
+    private final long peakBufferedAggregationsInBytes;
+
+    public SearchReduceStats(long partialReduces, long breakerTriggeredReduces, long bufferedAggregationsInBytes,
+                             long peakBufferedAggregationsInBytes) {
+        this.partialReduces = partialReduces;
+        this.breakerTriggeredReduces = breakerTriggeredReduces;
+        this.bufferedAggregationsInBytes = bufferedAggregationsInBytes;
+        this.peakBufferedAggregationsInBytes = peakBufferedAggregationsInBytes;
+    }
+
+    public SearchReduceStats(StreamInput in) throws IOException {
+        this(in.readVLong(), in.readVLong(), in.readVLong(), in.readVLong());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(partialReduces);
+        out.writeVLong(breakerTriggeredReduces);
+        out.writeVLong(bufferedAggregationsInBytes);
+        out.writeVLong(peakBufferedAggregationsInBytes);
+    }
+
+    /**
+     * The number of partial (non-final) reduces of aggregation results.
+     */
+    public long getPartialReduces() {
+        return partialReduces;
+    }
+
+    /**
+     * The number of partial reduces that were executed before the batched reduce size was reached because the buffered
+     * aggregations exceeded their share of the request circuit breaker.
+     */
+    public long getBreakerTriggeredReduces() {
+        return breakerTriggeredReduces;
+    }
+
+    /**
+     * The estimated size of all shard aggregation results that were buffered for a reduce.
+     */
+    public ByteSizeValue getBufferedAggregations() {
+        return new ByteSizeValue(bufferedAggregationsInBytes);
+    }
+
+    /**
+     * The largest estimated size of the aggregation results buffered by a single search at any point in time.
+     */
+    public ByteSizeValue getPeakBufferedAggregations() {
+        return new ByteSizeValue(peakBufferedAggregationsInBytes);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.SEARCH_REDUCE);
+        builder.field(Fields.PARTIAL_REDUCES, partialReduces);
+        builder.field(Fields.BREAKER_TRIGGERED_REDUCES, breakerTriggeredReduces);
+        builder.humanReadableField(Fields.BUFFERED_AGGREGATIONS_IN_BYTES, Fields.BUFFERED_AGGREGATIONS, getBufferedAggregations());
+        builder.humanReadableField(Fields.PEAK_BUFFERED_AGGREGATIONS_IN_BYTES, Fields.PEAK_BUFFERED_AGGREGATIONS,
+            getPeakBufferedAggregations());
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final String SEARCH_REDUCE = "search_reduce";
+        static final String PARTIAL_REDUCES = "partial_reduces";
+        static final String BREAKER_TRIGGERED_REDUCES = "breaker_triggered_reduces";
+        static final String BUFFERED_AGGREGATIONS = "buffered_aggregations";
+        static final String BUFFERED_AGGREGATIONS_IN_BYTES = "buffered_aggregations_in_bytes";
+        static final String PEAK_BUFFERED_AGGREGATIONS = "peak_buffered_aggregations";
+        static final String PEAK_BUFFERED_AGGREGATIONS_IN_BYTES = "peak_buffered_aggregations_in_bytes";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchReduceStats that = (SearchReduceStats) o;
+        return partialReduces == that.partialReduces
+            && breakerTriggeredReduces == that.breakerTriggeredReduces
+            && bufferedAggregationsInBytes == that.bufferedAggregationsInBytes
+            && peakBufferedAggregationsInBytes == that.peakBufferedAggregationsInBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(partialReduces, breakerTriggeredReduces, bufferedAggregationsInBytes, peakBufferedAggregationsInBytes);
+    }
+
+    /**
+     * Records the reduce activity of the searches coordinated by a node.
+     */
+    static final class Recorder {
+
+        private final LongAdder partialReduces = new LongAdder();
+        private final LongAdder breakerTriggeredReduces = new LongAdder();
+        private final LongAdder bufferedAggregationsInBytes = new LongAdder();
+        private final AtomicLong peakBufferedAggregationsInBytes = new AtomicLong();
+
+        void onBuffered(long sizeInBytes, long totalBufferedInBytes) {
+            bufferedAggregationsInBytes.add(sizeInBytes);
+            peakBufferedAggregationsInBytes.accumulateAndGet(totalBufferedInBytes, Math::max);
+        }
+
+        void onPartialReduce(boolean breakerTriggered) {
+            partialReduces.increment();
+            if (breakerTriggered) {
+                breakerTriggeredReduces.increment();
+            }
+        }
+
+        SearchReduceStats stats() {
+            return new SearchReduceStats(partialReduces.sum(), breakerTriggeredReduces.sum(), bufferedAggregationsInBytes.sum(),
+                peakBufferedAggregationsInBytes.get());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides, for the shard level requests of a single search request, whether a request should be hedged, ie. sent to a second copy
+ * of the shard if the first copy did not respond within a percentile of the recently observed response times, and whether a copy
+ * should be skipped because the search queue of its node is too large. The decisions are based on the statistics collected by
+ * the {@link ResponseCollectorService} for adaptive replica selection.
+ */
+final class ShardRequestHedging {
+
+    private final ResponseCollectorService collector;
+    private final ThreadPool threadPool;
+    private final long hedgeDelayNanos;
+    private final int maxQueueSize;
+
+    ShardRequestHedging(ResponseCollectorService collector, ThreadPool threadPool, long hedgeDelayNanos, int maxQueueSize) {
+        this.collector = collector;
+        this.threadPool = threadPool;
+        this.hedgeDelayNanos = hedgeDelayNanos;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Creates the hedging policy for a new search request from the current settings, or returns <code>null</code> if neither
+     * hedging nor load shedding is enabled.
+     */
+    @Nullable
+    static ShardRequestHedging create(ClusterSettings clusterSettings, @Nullable ResponseCollectorService collector,
+                                      ThreadPool threadPool) {
+        if (collector == null) {
+            return null;
+        }
+        long hedgeDelayNanos = -1;
+        if (clusterSettings.get(TransportSearchAction.HEDGING_ENABLED_SETTING)) {
+            final long percentile = collector.getResponseTimePercentile(
+                clusterSettings.get(TransportSearchAction.HEDGING_LATENCY_PERCENTILE_SETTING));
+            if (percentile >= 0) {
+                hedgeDelayNanos = Math.max(percentile, clusterSettings.get(TransportSearchAction.HEDGING_MIN_DELAY_SETTING).nanos());
+            }
+        }
+        final int maxQueueSize = clusterSettings.get(TransportSearchAction.SHEDDING_MAX_QUEUE_SIZE_SETTING);
+        if (hedgeDelayNanos < 0 && maxQueueSize < 0) {
+            return null;
+        }
+        return new ShardRequestHedging(collector, threadPool, hedgeDelayNanos, maxQueueSize);
+    }
+
+    /**
+     * Returns whether shard level requests should be hedged.
+     */
+    boolean isHedgingEnabled() {
+        return hedgeDelayNanos >= 0;
+    }
+
+    /**
+     * Returns whether the request to the given node should be shed because the average search queue size of the node exceeds
+     * the configured maximum.
+     */
+    boolean shouldShed(String nodeId) {
+        if (maxQueueSize < 0 || nodeId == null) {
+            return false;
+        }
+        final boolean shed = collector.getNodeStatistics(nodeId).map(stats -> stats.queueSize > maxQueueSize).orElse(false);
+        if (shed) {
+            collector.onShedRequest();
+        }
+        return shed;
+    }
+
+    /**
+     * Schedules the given hedge to run once the hedge delay elapsed. The hedge runs on the scheduler thread with the thread
+     * context of the caller, so it must only send the hedged request.
+     */
+    Scheduler.ScheduledCancellable scheduleHedge(Runnable hedge) {
+        assert isHedgingEnabled();
+        return threadPool.schedule(threadPool.preserveContext(hedge), new TimeValue(hedgeDelayNanos, TimeUnit.NANOSECONDS),
+            ThreadPool.Names.SAME);
+    }
+
+    void onShardRequest() {
+        collector.onHedgingShardRequest();
+    }
+
+    void onHedgedRequest() {
+        collector.onHedgedRequest();
+    }
+
+    void onHedgeWin() {
+        collector.onHedgeWin();
+    }
+
+    void onDiscardedResponse() {
+        collector.onDiscardedResponse();
+    }
+}
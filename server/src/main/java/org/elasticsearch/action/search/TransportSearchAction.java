@@ -40,6 +40,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.ShardId;
@@ -73,6 +74,25 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Long> SHARD_COUNT_LIMIT_SETTING = Setting.longSetting(
             "action.search.shard_count.limit", Long.MAX_VALUE, 1L, Property.Dynamic, Property.NodeScope);
 
+    /** Whether shard level query requests are sent to a second copy of the shard if the first copy is slow to respond. */
+    public static final Setting<Boolean> HEDGING_ENABLED_SETTING = Setting.boolSetting(
+            "search.hedging.enabled", false, Property.Dynamic, Property.NodeScope);
+
+    /** The percentile of the recent shard response times after which a shard level request is hedged. */
+    public static final Setting<Double> HEDGING_LATENCY_PERCENTILE_SETTING = Setting.doubleSetting(
+            "search.hedging.latency_percentile", 95.0, 1.0, 100.0, Property.Dynamic, Property.NodeScope);
+
+    /** The minimum time to wait for a shard level response before hedging the request. */
+    public static final Setting<TimeValue> HEDGING_MIN_DELAY_SETTING = Setting.timeSetting(
+            "search.hedging.min_delay", TimeValue.timeValueMillis(10), TimeValue.ZERO, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * The average search queue size of a node above which shard level requests to that node are shed and sent to another copy of
+     * the shard instead, or fail if there is no other copy. <code>-1</code> disables load shedding.
+     */
+    public static final Setting<Integer> SHEDDING_MAX_QUEUE_SIZE_SETTING = Setting.intSetting(
+            "search.shedding.max_queue_size", -1, -1, Property.Dynamic, Property.NodeScope);
+
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
     private final RemoteClusterService remoteClusterService;
@@ -431,18 +451,20 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 };
             }, clusters);
         } else {
+            final ShardRequestHedging hedging = ShardRequestHedging.create(clusterService.getClusterSettings(),
+                searchService.getResponseCollectorService(), threadPool);
             AbstractSearchAsyncAction searchAsyncAction;
             switch (searchRequest.searchType()) {
                 case DFS_QUERY_THEN_FETCH:
                     searchAsyncAction = new SearchDfsQueryThenFetchAsyncAction(logger, searchTransportService, connectionLookup,
                         aliasFilter, concreteIndexBoosts, indexRoutings, searchPhaseController, executor, searchRequest, listener,
-                        shardIterators, timeProvider, clusterStateVersion, task, clusters);
+                        shardIterators, timeProvider, clusterStateVersion, task, clusters, hedging);
                     break;
                 case QUERY_AND_FETCH:
                 case QUERY_THEN_FETCH:
                     searchAsyncAction = new SearchQueryThenFetchAsyncAction(logger, searchTransportService, connectionLookup,
                         aliasFilter, concreteIndexBoosts, indexRoutings, searchPhaseController, executor, searchRequest, listener,
-                        shardIterators, timeProvider, clusterStateVersion, task, clusters);
+                        shardIterators, timeProvider, clusterStateVersion, task, clusters, hedging);
                     break;
                 default:
                     throw new IllegalStateException("Unknown search type: [" + searchRequest.searchType() + "]");
@@ -33,6 +33,7 @@ import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ReplicationGroup;
 import org.elasticsearch.index.shard.ShardId;
@@ -45,8 +46,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class ReplicationOperation<
             Request extends ReplicationRequest<Request>,
@@ -69,6 +72,14 @@ public class ReplicationOperation<
      */
     private final AtomicInteger pendingActions = new AtomicInteger();
     private final AtomicInteger successfulShards = new AtomicInteger();
+    /**
+     * The allocation ids of the replicas that this operation was sent to, and of those that failed to perform (a part of) it. A replica
+     * may be sent several replica requests if the primary replicates the operation in parts, see {@link Primary#perform(
+     * ReplicationRequest, Consumer)}, so it only counts as successful if it performed all of them.
+     */
+    private final Set<String> replicaAllocationIds = ConcurrentCollections.newConcurrentSet();
+    private final Set<String> failedReplicaAllocationIds = ConcurrentCollections.newConcurrentSet();
+    private final Set<String> staleAllocationIds = ConcurrentCollections.newConcurrentSet();
     private final Primary<Request, ReplicaRequest, PrimaryResultT> primary;
     private final Replicas<ReplicaRequest> replicasProxy;
     private final AtomicBoolean finished = new AtomicBoolean();
@@ -102,38 +113,57 @@ public class ReplicationOperation<
 
         totalShards.incrementAndGet();
         pendingActions.incrementAndGet(); // increase by 1 until we finish all primary coordination
-        primaryResult = primary.perform(request);
+        primaryResult = primary.perform(request, this::replicatePart);
         primary.updateLocalCheckpointForShard(primaryRouting.allocationId().getId(), primary.localCheckpoint());
         final ReplicaRequest replicaRequest = primaryResult.replicaRequest();
         if (replicaRequest != null) {
             if (logger.isTraceEnabled()) {
                 logger.trace("[{}] op [{}] completed on primary for request [{}]", primaryId, opType, request);
             }
-
-            // we have to get the replication group after successfully indexing into the primary in order to honour recovery semantics.
-            // we have to make sure that every operation indexed into the primary after recovery start will also be replicated
-            // to the recovery target. If we used an old replication group, we may miss a recovery that has started since then.
-            // we also have to make sure to get the global checkpoint before the replication group, to ensure that the global checkpoint
-            // is valid for this replication group. If we would sample in the reverse, the global checkpoint might be based on a subset
-            // of the sampled replication group, and advanced further than what the given replication group would allow it to.
-            // This would entail that some shards could learn about a global checkpoint that would be higher than its local checkpoint.
-            final long globalCheckpoint = primary.globalCheckpoint();
-            // we have to capture the max_seq_no_of_updates after this request was completed on the primary to make sure the value of
-            // max_seq_no_of_updates on replica when this request is executed is at least the value on the primary when it was executed on.
-            final long maxSeqNoOfUpdatesOrDeletes = primary.maxSeqNoOfUpdatesOrDeletes();
-            assert maxSeqNoOfUpdatesOrDeletes != SequenceNumbers.UNASSIGNED_SEQ_NO : "seqno_of_updates still uninitialized";
-            final ReplicationGroup replicationGroup = primary.getReplicationGroup();
-            markUnavailableShardsAsStale(replicaRequest, replicationGroup);
-            performOnReplicas(replicaRequest, globalCheckpoint, maxSeqNoOfUpdatesOrDeletes, replicationGroup);
+            replicate(replicaRequest, true);
         }
 
         successfulShards.incrementAndGet();  // mark primary as successful
         decPendingAndFinishIfNeeded();
     }
 
+    /**
+     * Sends a part of the operation that has already been performed on the primary to the replicas while the primary is still
+     * performing the rest of it.
+     */
+    private void replicatePart(ReplicaRequest replicaRequest) {
+        assert pendingActions.get() > 0 : "the primary is no longer performing request [" + request + "]";
+        if (logger.isTraceEnabled()) {
+            logger.trace("[{}] part of op [{}] completed on primary for request [{}]", primary.routingEntry().shardId(), opType,
+                replicaRequest);
+        }
+        replicate(replicaRequest, false);
+    }
+
+    private void replicate(ReplicaRequest replicaRequest, boolean lastPart) {
+        // we have to get the replication group after successfully indexing into the primary in order to honour recovery semantics.
+        // we have to make sure that every operation indexed into the primary after recovery start will also be replicated
+        // to the recovery target. If we used an old replication group, we may miss a recovery that has started since then.
+        // we also have to make sure to get the global checkpoint before the replication group, to ensure that the global checkpoint
+        // is valid for this replication group. If we would sample in the reverse, the global checkpoint might be based on a subset
+        // of the sampled replication group, and advanced further than what the given replication group would allow it to.
+        // This would entail that some shards could learn about a global checkpoint that would be higher than its local checkpoint.
+        final long globalCheckpoint = primary.globalCheckpoint();
+        // we have to capture the max_seq_no_of_updates after this request was completed on the primary to make sure the value of
+        // max_seq_no_of_updates on replica when this request is executed is at least the value on the primary when it was executed on.
+        final long maxSeqNoOfUpdatesOrDeletes = primary.maxSeqNoOfUpdatesOrDeletes();
+        assert maxSeqNoOfUpdatesOrDeletes != SequenceNumbers.UNASSIGNED_SEQ_NO : "seqno_of_updates still uninitialized";
+        final ReplicationGroup replicationGroup = primary.getReplicationGroup();
+        markUnavailableShardsAsStale(replicaRequest, replicationGroup);
+        performOnReplicas(replicaRequest, globalCheckpoint, maxSeqNoOfUpdatesOrDeletes, replicationGroup, lastPart);
+    }
+
     private void markUnavailableShardsAsStale(ReplicaRequest replicaRequest, ReplicationGroup replicationGroup) {
         // if inSyncAllocationIds contains allocation ids of shards that don't exist in RoutingTable, mark copies as stale
         for (String allocationId : replicationGroup.getUnavailableInSyncShards()) {
+            if (staleAllocationIds.add(allocationId) == false) {
+                continue; // already marked as stale when replicating another part of the operation
+            }
             pendingActions.incrementAndGet();
             replicasProxy.markShardCopyAsStaleIfNeeded(replicaRequest.shardId(), allocationId,
                 ActionListener.wrap(r -> decPendingAndFinishIfNeeded(), ReplicationOperation.this::onNoLongerPrimary));
@@ -141,10 +171,13 @@ public class ReplicationOperation<
     }
 
     private void performOnReplicas(final ReplicaRequest replicaRequest, final long globalCheckpoint,
-                                   final long maxSeqNoOfUpdatesOrDeletes, final ReplicationGroup replicationGroup) {
-        // for total stats, add number of unassigned shards and
-        // number of initializing shards that are not ready yet to receive operations (recovery has not opened engine yet on the target)
-        totalShards.addAndGet(replicationGroup.getSkippedShards().size());
+                                   final long maxSeqNoOfUpdatesOrDeletes, final ReplicationGroup replicationGroup,
+                                   final boolean lastPart) {
+        if (lastPart) {
+            // for total stats, add number of unassigned shards and number of initializing shards that are not ready yet to receive
+            // operations (recovery has not opened engine yet on the target)
+            totalShards.addAndGet(replicationGroup.getSkippedShards().size());
+        }
 
         final ShardRouting primaryRouting = primary.routingEntry();
 
@@ -161,15 +194,17 @@ public class ReplicationOperation<
             logger.trace("[{}] sending op [{}] to replica {} for request [{}]", shard.shardId(), opType, shard, replicaRequest);
         }
 
-        totalShards.incrementAndGet();
+        final String allocationId = shard.allocationId().getId();
+        if (replicaAllocationIds.add(allocationId)) {
+            totalShards.incrementAndGet();
+        }
         pendingActions.incrementAndGet();
         replicasProxy.performOn(shard, replicaRequest, globalCheckpoint, maxSeqNoOfUpdatesOrDeletes, new ActionListener<ReplicaResponse>() {
             @Override
             public void onResponse(ReplicaResponse response) {
-                successfulShards.incrementAndGet();
                 try {
-                    primary.updateLocalCheckpointForShard(shard.allocationId().getId(), response.localCheckpoint());
-                    primary.updateGlobalCheckpointForShard(shard.allocationId().getId(), response.globalCheckpoint());
+                    primary.updateLocalCheckpointForShard(allocationId, response.localCheckpoint());
+                    primary.updateGlobalCheckpointForShard(allocationId, response.globalCheckpoint());
                 } catch (final AlreadyClosedException e) {
                     // okay, the index was deleted or this shard was never activated after a relocation; fall through and finish normally
                 } catch (final Exception e) {
@@ -185,6 +220,11 @@ public class ReplicationOperation<
                 logger.trace(() -> new ParameterizedMessage(
                     "[{}] failure while performing [{}] on replica {}, request [{}]",
                     shard.shardId(), opType, shard, replicaRequest), replicaException);
+                if (failedReplicaAllocationIds.add(allocationId) == false) {
+                    // another part of the operation already failed on this replica, which has been taken care of
+                    decPendingAndFinishIfNeeded();
+                    return;
+                }
                 // Only report "critical" exceptions - TODO: Reach out to the master node to get the latest shard state then report.
                 if (TransportActions.isShardNotAvailableException(replicaException) == false) {
                     RestStatus restStatus = ExceptionsHelper.status(replicaException);
@@ -265,7 +305,7 @@ public class ReplicationOperation<
             }
             primaryResult.setShardInfo(new ReplicationResponse.ShardInfo(
                     totalShards.get(),
-                    successfulShards.get(),
+                    successfulShards.get() + replicaAllocationIds.size() - failedReplicaAllocationIds.size(),
                     failuresArray
                 )
             );
@@ -311,6 +351,20 @@ public class ReplicationOperation<
          */
         PrimaryResultT perform(RequestT request) throws Exception;
 
+        /**
+         * Performs the given request on this primary like {@link #perform(ReplicationRequest)}, but allows the primary to hand parts of
+         * the operation that it already performed to the given consumer, which sends them to the replicas right away. The replica
+         * request of the returned result then only needs to cover the rest of the operation. Parts are replicated concurrently, so
+         * they must be safe to apply on the replicas in any order. The default implementation does not split the operation.
+         *
+         * @param request          the request to perform
+         * @param partReplicator   sends a part of the operation that has been performed on the primary to the replicas
+         * @return the request to send to the replicas for the rest of the operation
+         */
+        default PrimaryResultT perform(RequestT request, Consumer<ReplicaRequestT> partReplicator) throws Exception {
+            return perform(request);
+        }
+
         /**
          * Notifies the primary of a local checkpoint for the given allocation.
          *
@@ -84,6 +84,7 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
@@ -201,6 +202,20 @@ public abstract class TransportReplicationAction<
     protected abstract PrimaryResult<ReplicaRequest, Response> shardOperationOnPrimary(
             Request shardRequest, IndexShard primary) throws Exception;
 
+    /**
+     * Primary operation on node with primary copy that may send the parts of the operation that it already performed to the replicas
+     * while it performs the rest, see {@link ReplicationOperation.Primary#perform(ReplicationRequest, Consumer)}. Defaults to
+     * {@link #shardOperationOnPrimary(ReplicationRequest, IndexShard)}, which replicates the operation as a whole.
+     *
+     * @param shardRequest   the request to the primary shard
+     * @param primary        the primary shard to perform the operation on
+     * @param partReplicator sends a replica request for a part of the operation that has already been performed to the replicas
+     */
+    protected PrimaryResult<ReplicaRequest, Response> shardOperationOnPrimary(
+            Request shardRequest, IndexShard primary, Consumer<ReplicaRequest> partReplicator) throws Exception {
+        return shardOperationOnPrimary(shardRequest, primary);
+    }
+
     /**
      * Synchronously execute the specified replica operation. This is done under a permit from
      * {@link IndexShard#acquireReplicaOperationPermit(long, long, long, ActionListener, String, Object)}.
@@ -1053,6 +1068,14 @@ public abstract class TransportReplicationAction<
             return result;
         }
 
+        @Override
+        public PrimaryResult perform(Request request, Consumer<ReplicaRequest> partReplicator) throws Exception {
+            PrimaryResult result = shardOperationOnPrimary(request, indexShard, partReplicator);
+            assert result.replicaRequest() == null || result.finalFailure == null : "a replica request [" + result.replicaRequest()
+                + "] with a primary failure [" + result.finalFailure + "]";
+            return result;
+        }
+
         @Override
         public void updateLocalCheckpointForShard(String allocationId, long checkpoint) {
             indexShard.updateLocalCheckpointForShard(allocationId, checkpoint);
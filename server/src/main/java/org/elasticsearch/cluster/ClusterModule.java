@@ -278,6 +278,10 @@ public class ClusterModule extends AbstractModule {
         return allocationService;
     }
 
+    public AllocationDeciders getAllocationDeciders() {
+        return allocationDeciders;
+    }
+
     @Override
     protected void configure() {
         bind(GatewayAllocator.class).asEagerSingleton();
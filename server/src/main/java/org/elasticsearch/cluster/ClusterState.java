@@ -40,6 +40,7 @@ import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -60,8 +61,10 @@ import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.discovery.zen.PublishClusterStateAction;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -178,6 +181,7 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
 
     // built on demand
     private volatile RoutingNodes routingNodes;
+    private volatile LocalRoutingNode localRoutingNode;
 
     public ClusterState(long version, String stateUUID, ClusterState state) {
         this(state.clusterName, version, stateUUID, state.metaData(), state.routingTable(), state.nodes(), state.blocks(), state.customs(),
@@ -290,6 +294,51 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
         return routingNodes;
     }
 
+    /**
+     * Returns the shards allocated to the local node, like {@code getRoutingNodes().node(nodes().getLocalNodeId())} does, without
+     * building the {@link RoutingNodes} of the whole cluster. Only the indices whose routing changed since the previous cluster
+     * state are visited again. Returns {@code null} if the local node is unknown or is neither a data node nor holds any shards.
+     */
+    @Nullable
+    public RoutingNode getLocalRoutingNode() {
+        LocalRoutingNode localRoutingNode = this.localRoutingNode;
+        if (localRoutingNode == null) {
+            localRoutingNode = new LocalRoutingNode(buildLocalRoutingNode());
+            this.localRoutingNode = localRoutingNode;
+        }
+        return localRoutingNode.routingNode;
+    }
+
+    private RoutingNode buildLocalRoutingNode() {
+        final String localNodeId = nodes().getLocalNodeId();
+        if (localNodeId == null) {
+            return null;
+        }
+        final RoutingNodes routingNodes = this.routingNodes;
+        if (routingNodes != null) {
+            return routingNodes.node(localNodeId);
+        }
+        List<ShardRouting> shards = new ArrayList<>();
+        for (ObjectCursor<IndexRoutingTable> cursor : routingTable().indicesRouting().values()) {
+            shards.addAll(cursor.value.shardsOnNode(localNodeId));
+        }
+        final DiscoveryNode localNode = nodes().getLocalNode();
+        if (shards.isEmpty() && (localNode == null || localNode.isDataNode() == false)) {
+            return null;
+        }
+        return new RoutingNode(localNodeId, localNode, shards.toArray(new ShardRouting[shards.size()]));
+    }
+
+    private static final class LocalRoutingNode {
+
+        @Nullable
+        private final RoutingNode routingNode;
+
+        private LocalRoutingNode(@Nullable RoutingNode routingNode) {
+            this.routingNode = routingNode;
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
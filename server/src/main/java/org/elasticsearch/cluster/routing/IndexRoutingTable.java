@@ -73,6 +73,10 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
 
     private final List<ShardRouting> allActiveShards;
 
+    // instances are shared between cluster states as long as the routing of the index does not change, so the shards of the
+    // node that is applying them are only collected again for indices that changed
+    private volatile NodeShards nodeShards;
+
     IndexRoutingTable(Index index, ImmutableOpenIntMap<IndexShardRoutingTable> shards) {
         this.index = index;
         this.shuffler = new RotationShardShuffler(Randomness.get().nextInt());
@@ -97,6 +101,30 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
         return index;
     }
 
+    /**
+     * Returns the shards of this index that are allocated to the given node, including the targets of the shards that are
+     * relocating to it, like {@link RoutingNode#copyShards()} would.
+     */
+    public List<ShardRouting> shardsOnNode(String nodeId) {
+        NodeShards nodeShards = this.nodeShards;
+        if (nodeShards == null || nodeShards.nodeId.equals(nodeId) == false) {
+            List<ShardRouting> shardsOnNode = new ArrayList<>();
+            for (IntObjectCursor<IndexShardRoutingTable> cursor : shards) {
+                for (ShardRouting shardRouting : cursor.value) {
+                    if (nodeId.equals(shardRouting.currentNodeId())) {
+                        shardsOnNode.add(shardRouting);
+                    }
+                    if (shardRouting.relocating() && nodeId.equals(shardRouting.relocatingNodeId())) {
+                        shardsOnNode.add(shardRouting.getTargetRelocatingShard());
+                    }
+                }
+            }
+            nodeShards = new NodeShards(nodeId, Collections.unmodifiableList(shardsOnNode));
+            this.nodeShards = nodeShards;
+        }
+        return nodeShards.shards;
+    }
+
     boolean validate(MetaData metaData) {
         // check index exists
         if (!metaData.hasIndex(index.getName())) {
@@ -317,6 +345,17 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
         }
     }
 
+    private static final class NodeShards {
+
+        private final String nodeId;
+        private final List<ShardRouting> shards;
+
+        private NodeShards(String nodeId, List<ShardRouting> shards) {
+            this.nodeId = nodeId;
+            this.shards = shards;
+        }
+    }
+
     public static Builder builder(Index index) {
         return new Builder(index);
     }
@@ -28,8 +28,11 @@ import org.elasticsearch.cluster.routing.RoutingChangesObserver;
 import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciderStats;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.DecisionCache;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.RestoreService.RestoreInProgressUpdater;
@@ -80,6 +83,10 @@ public class RoutingAllocation {
         nodesChangedObserver, indexMetaDataUpdater, restoreInProgressUpdater
     );
 
+    private final DecisionCache decisionCache = new DecisionCache();
+
+    private AllocationDeciderStats.Recorder deciderStatsRecorder = null;
+
 
     /**
      * Creates a new {@link RoutingAllocation}
@@ -258,6 +265,46 @@ public class RoutingAllocation {
         return nodesChangedObserver.isChanged();
     }
 
+    /**
+     * Returns the number of changes that were made to the routing nodes so far
+     */
+    public long routingNodesChangeCount() {
+        return nodesChangedObserver.getChangeCount();
+    }
+
+    /**
+     * Returns the cache of the decisions taken by the {@link AllocationDeciders} during this allocation
+     */
+    public DecisionCache decisionCache() {
+        return decisionCache;
+    }
+
+    /**
+     * Starts recording the number of decisions and the time spent per decider for this allocation, see {@link #deciderStats()}
+     */
+    public void recordDeciderStats() {
+        if (deciderStatsRecorder == null) {
+            deciderStatsRecorder = deciders.newStatsRecorder();
+        }
+    }
+
+    /**
+     * Returns the recorder of the decider stats of this allocation, or {@code null} if they are not recorded
+     */
+    @Nullable
+    public AllocationDeciderStats.Recorder deciderStatsRecorder() {
+        return deciderStatsRecorder;
+    }
+
+    /**
+     * Returns the number of decisions and the time spent per decider since {@link #recordDeciderStats()} was called, or
+     * {@code null} if they are not recorded
+     */
+    @Nullable
+    public AllocationDeciderStats deciderStats() {
+        return deciderStatsRecorder == null ? null : deciderStatsRecorder.stats();
+    }
+
     /**
      * Create a routing decision, including the reason if the debug flag is
      * turned on
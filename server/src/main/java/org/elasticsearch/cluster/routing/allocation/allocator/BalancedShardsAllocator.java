@@ -220,8 +220,12 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         }
 
         private float weight(Balancer balancer, ModelNode node, String index, int numAdditionalShards) {
+            return weight(balancer, node, index, balancer.avgShardsPerNode(index), numAdditionalShards);
+        }
+
+        private float weight(Balancer balancer, ModelNode node, String index, float avgShardsPerNodeOfIndex, int numAdditionalShards) {
             final float weightShard = node.numShards() + numAdditionalShards - balancer.avgShardsPerNode();
-            final float weightIndex = node.numShards(index) + numAdditionalShards - balancer.avgShardsPerNode(index);
+            final float weightIndex = node.numShards(index) + numAdditionalShards - avgShardsPerNodeOfIndex;
             return theta0 * weightShard + theta1 * weightIndex;
         }
     }
@@ -240,6 +244,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final MetaData metaData;
         private final float avgShardsPerNode;
         private final NodeSorter sorter;
+        /* canRebalance decisions only depend on the routing of the cluster, which does not change while the same shard is tried
+         * against the nodes of the balance window one after the other. Cleared whenever a shard is relocated on the cluster. */
+        private final Map<ShardRouting, Decision> rebalanceDecisions = new HashMap<>();
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
             this.logger = logger;
@@ -486,6 +493,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
+            rebalanceDecisions.clear();
             for (String index : buildWeightOrderedIndices()) {
                 IndexMetaData indexMetaData = metaData.index(index);
 
@@ -596,8 +604,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = sorter.delta(indices[i]);
             }
             new IntroSorter() {
 
@@ -1007,7 +1014,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     if (shard.started()) {
                         // skip initializing, unassigned and relocating shards we can't relocate them anyway
                         Decision allocationDecision = deciders.canAllocate(shard, minNode.getRoutingNode(), allocation);
-                        Decision rebalanceDecision = deciders.canRebalance(shard, allocation);
+                        Decision rebalanceDecision = rebalanceDecisions.get(shard);
+                        if (rebalanceDecision == null) {
+                            rebalanceDecision = deciders.canRebalance(shard, allocation);
+                            rebalanceDecisions.put(shard, rebalanceDecision);
+                        }
                         if (((allocationDecision.type() == Type.YES) || (allocationDecision.type() == Type.THROTTLE))
                                 && ((rebalanceDecision.type() == Type.YES) || (rebalanceDecision.type() == Type.THROTTLE))) {
                             if (maxNode.containsShard(shard)) {
@@ -1037,6 +1048,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                                     minNode.getNodeId());
                         /* now allocate on the cluster */
                         minNode.addShard(routingNodes.relocateShard(candidate, minNode.getNodeId(), shardSize, allocation.changes()).v1());
+                        rebalanceDecisions.clear();
                         return true;
                     } else {
                         assert decision.type() == Type.THROTTLE;
@@ -1190,6 +1202,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         final float[] weights;
         private final WeightFunction function;
         private String index;
+        private float avgShardsPerNodeOfIndex;
         private final Balancer balancer;
         private float pivotWeight;
 
@@ -1205,7 +1218,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * nodes by weight, with minimal weight first.
          */
         public void reset(String index, int from, int to) {
-            this.index = index;
+            setIndex(index);
             for (int i = from; i < to; i++) {
                 weights[i] = weight(modelNodes[i]);
             }
@@ -1217,7 +1230,12 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         }
 
         public float weight(ModelNode node) {
-            return function.weight(balancer, node, index);
+            return function.weight(balancer, node, index, avgShardsPerNodeOfIndex, 0);
+        }
+
+        private void setIndex(String index) {
+            this.index = index;
+            this.avgShardsPerNodeOfIndex = balancer.avgShardsPerNode(index);
         }
 
         @Override
@@ -1248,5 +1266,22 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         public float delta() {
             return weights[weights.length - 1] - weights[0];
         }
+
+        /**
+         * Recalculates the weights per node for the given index and returns the difference between the highest and the lowest
+         * one, like {@link #reset(String)} followed by {@link #delta()} would, but without sorting the nodes.
+         */
+        public float delta(String index) {
+            setIndex(index);
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < modelNodes.length; i++) {
+                final float weight = weight(modelNodes[i]);
+                weights[i] = weight;
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+            return max - min;
+        }
     }
 }
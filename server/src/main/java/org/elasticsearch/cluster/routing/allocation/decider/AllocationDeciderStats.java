@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The number of times each {@link AllocationDecider} was asked for a decision and the total time it took to decide.
+ */
+public class AllocationDeciderStats implements Writeable, ToXContentFragment {
+
+    private final List<DeciderStats> deciders;
+
+    public AllocationDeciderStats(List<DeciderStats> deciders) {
+        this.deciders = deciders;
+    }
+
+    public AllocationDeciderStats(StreamInput in) throws IOException {
+        deciders = in.readList(DeciderStats::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(deciders);
+    }
+
+    public List<DeciderStats> getDeciders() {
+        return deciders;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("allocation_deciders");
+        for (DeciderStats decider : deciders) {
+            builder.startObject(decider.name);
+            builder.field("count", decider.count);
+            builder.humanReadableField("time_in_nanos", "time", new TimeValue(decider.timeInNanos, TimeUnit.NANOSECONDS));
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public static class DeciderStats implements Writeable {
+
+        private final String name;
+        private final long count;
+        private final long timeInNanos;
+
+        public DeciderStats(String name, long count, long timeInNanos) {
+            this.name = name;
+            this.count = count;
+            this.timeInNanos = timeInNanos;
+        }
+
+        public DeciderStats(StreamInput in) throws IOException {
+            name = in.readString();
+            count = in.readVLong();
+            timeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(count);
+            out.writeVLong(timeInNanos);
+        }
+
+        /**
+         * The simple class name of the decider.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTimeInNanos() {
+            return timeInNanos;
+        }
+    }
+
+    /**
+     * Accumulates the number of decisions and the time spent per decider, indexed by the position of the decider in
+     * {@link AllocationDeciders}.
+     */
+    public static final class Recorder {
+
+        private final String[] names;
+        private final CounterMetric[] counts;
+        private final CounterMetric[] timesInNanos;
+
+        Recorder(AllocationDecider[] deciders) {
+            names = new String[deciders.length];
+            counts = new CounterMetric[deciders.length];
+            timesInNanos = new CounterMetric[deciders.length];
+            for (int i = 0; i < deciders.length; i++) {
+                final String simpleName = deciders[i].getClass().getSimpleName();
+                names[i] = simpleName.isEmpty() ? deciders[i].getClass().getName() : simpleName;
+                counts[i] = new CounterMetric();
+                timesInNanos[i] = new CounterMetric();
+            }
+        }
+
+        void record(int decider, long timeInNanos) {
+            counts[decider].inc();
+            timesInNanos[decider].inc(timeInNanos);
+        }
+
+        public AllocationDeciderStats stats() {
+            List<DeciderStats> deciders = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; i++) {
+                deciders.add(new DeciderStats(names[i], counts[i].count(), timesInNanos[i].count()));
+            }
+            return new AllocationDeciderStats(deciders);
+        }
+    }
+}
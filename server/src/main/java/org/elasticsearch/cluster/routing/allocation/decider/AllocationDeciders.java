@@ -34,22 +34,53 @@ import static org.elasticsearch.cluster.routing.allocation.RoutingAllocation.Deb
 /**
  * A composite {@link AllocationDecider} combining the "decision" of multiple
  * {@link AllocationDecider} implementations into a single allocation decision.
+ * The number of decisions and the time spent per decider are recorded, see {@link #stats()}.
  */
 public class AllocationDeciders extends AllocationDecider {
 
     private static final Logger logger = LogManager.getLogger(AllocationDeciders.class);
 
     private final Collection<AllocationDecider> allocations;
+    private final AllocationDecider[] deciders;
+    private final AllocationDeciderStats.Recorder stats;
 
     public AllocationDeciders(Collection<AllocationDecider> allocations) {
         this.allocations = Collections.unmodifiableCollection(allocations);
+        this.deciders = allocations.toArray(new AllocationDecider[0]);
+        this.stats = newStatsRecorder();
+    }
+
+    /**
+     * Returns the number of decisions and the time spent per decider since this node started.
+     */
+    public AllocationDeciderStats stats() {
+        return stats.stats();
+    }
+
+    /**
+     * Returns a new recorder for the number of decisions and the time spent per decider, see
+     * {@link RoutingAllocation#recordDeciderStats()}.
+     */
+    public AllocationDeciderStats.Recorder newStatsRecorder() {
+        return new AllocationDeciderStats.Recorder(deciders);
+    }
+
+    private void recordTime(int decider, long startTimeNanos, RoutingAllocation allocation) {
+        final long tookInNanos = Math.max(0, System.nanoTime() - startTimeNanos);
+        stats.record(decider, tookInNanos);
+        final AllocationDeciderStats.Recorder allocationStats = allocation.deciderStatsRecorder();
+        if (allocationStats != null) {
+            allocationStats.record(decider, tookInNanos);
+        }
     }
 
     @Override
     public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canRebalance(shardRouting, allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canRebalance(shardRouting, allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -70,14 +101,26 @@ public class AllocationDeciders extends AllocationDecider {
         if (allocation.shouldIgnoreShardForNode(shardRouting.shardId(), node.nodeId())) {
             return Decision.NO;
         }
+        final Decision cached = allocation.decisionCache().getCanAllocate(shardRouting, node, allocation);
+        if (cached != null) {
+            return cached;
+        }
+        final Decision decision = doCanAllocate(shardRouting, node, allocation);
+        allocation.decisionCache().putCanAllocate(shardRouting, node, allocation, decision);
+        return decision;
+    }
+
+    private Decision doCanAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canAllocate(shardRouting, node, allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
                     logger.trace("Can not allocate [{}] on node [{}] due to [{}]",
-                        shardRouting, node.node(), allocationDecider.getClass().getSimpleName());
+                        shardRouting, node.node(), deciders[i].getClass().getSimpleName());
                 }
                 // short circuit only if debugging is not enabled
                 if (!allocation.debugDecision()) {
@@ -103,14 +146,26 @@ public class AllocationDeciders extends AllocationDecider {
             }
             return Decision.NO;
         }
+        final Decision cached = allocation.decisionCache().getCanRemain(shardRouting, node, allocation);
+        if (cached != null) {
+            return cached;
+        }
+        final Decision decision = doCanRemain(shardRouting, node, allocation);
+        allocation.decisionCache().putCanRemain(shardRouting, node, allocation, decision);
+        return decision;
+    }
+
+    private Decision doCanRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canRemain(shardRouting, node, allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
                     logger.trace("Shard [{}] can not remain on node [{}] due to [{}]",
-                        shardRouting, node.nodeId(), allocationDecider.getClass().getSimpleName());
+                        shardRouting, node.nodeId(), deciders[i].getClass().getSimpleName());
                 }
                 if (!allocation.debugDecision()) {
                     return decision;
@@ -128,8 +183,10 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canAllocate(IndexMetaData indexMetaData, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canAllocate(indexMetaData, node, allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canAllocate(indexMetaData, node, allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -148,8 +205,10 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canAllocate(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canAllocate(shardRouting, allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canAllocate(shardRouting, allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -168,8 +227,10 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canAllocate(RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canAllocate(node, allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canAllocate(node, allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -188,8 +249,10 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canRebalance(RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canRebalance(allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canRebalance(allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -213,13 +276,15 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider decider : allocations) {
-            Decision decision = decider.canForceAllocatePrimary(shardRouting, node, allocation);
+        for (int i = 0; i < deciders.length; i++) {
+            final long startTimeNanos = System.nanoTime();
+            Decision decision = deciders[i].canForceAllocatePrimary(shardRouting, node, allocation);
+            recordTime(i, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
                     logger.trace("Shard [{}] can not be forcefully allocated to node [{}] due to [{}].",
-                        shardRouting.shardId(), node.nodeId(), decider.getClass().getSimpleName());
+                        shardRouting.shardId(), node.nodeId(), deciders[i].getClass().getSimpleName());
                 }
                 if (!allocation.debugDecision()) {
                     return decision;
@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the decisions that {@link AllocationDeciders} takes about a shard on a node for the duration of a single
+ * {@link RoutingAllocation}. The allocators ask for the same shard and node several times per round, for instance once from the
+ * gateway allocator and once from the shards allocator, and the answer only changes when the {@link RoutingNodes} do. All cached
+ * decisions are dropped whenever a change is made to the routing nodes or the allocation starts ignoring disabled allocation.
+ * Decisions are not cached while debugging, as they then carry explanations.
+ */
+public final class DecisionCache {
+
+    /**
+     * The maximum number of decisions held per kind of decision, further decisions are not cached until the cache is cleared.
+     */
+    static final int MAX_CACHED_DECISIONS = 10_000;
+
+    private final Map<ShardRouting, Map<String, Decision>> canAllocate = new HashMap<>();
+    private final Map<ShardRouting, Map<String, Decision>> canRemain = new HashMap<>();
+    private int canAllocateSize;
+    private int canRemainSize;
+    private long routingNodesChangeCount;
+    private boolean ignoreDisable;
+
+    Decision getCanAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+        return isCacheable(allocation) ? get(canAllocate, shardRouting, node) : null;
+    }
+
+    void putCanAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation, Decision decision) {
+        if (isCacheable(allocation) && canAllocateSize < MAX_CACHED_DECISIONS) {
+            put(canAllocate, shardRouting, node, decision);
+            canAllocateSize++;
+        }
+    }
+
+    Decision getCanRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+        return isCacheable(allocation) ? get(canRemain, shardRouting, node) : null;
+    }
+
+    void putCanRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation, Decision decision) {
+        if (isCacheable(allocation) && canRemainSize < MAX_CACHED_DECISIONS) {
+            put(canRemain, shardRouting, node, decision);
+            canRemainSize++;
+        }
+    }
+
+    private boolean isCacheable(RoutingAllocation allocation) {
+        if (allocation.debugDecision()) {
+            return false;
+        }
+        if (routingNodesChangeCount != allocation.routingNodesChangeCount() || ignoreDisable != allocation.ignoreDisable()) {
+            canAllocate.clear();
+            canRemain.clear();
+            canAllocateSize = 0;
+            canRemainSize = 0;
+            routingNodesChangeCount = allocation.routingNodesChangeCount();
+            ignoreDisable = allocation.ignoreDisable();
+        }
+        return true;
+    }
+
+    private static Decision get(Map<ShardRouting, Map<String, Decision>> decisions, ShardRouting shardRouting, RoutingNode node) {
+        Map<String, Decision> decisionsPerNode = decisions.get(shardRouting);
+        return decisionsPerNode == null ? null : decisionsPerNode.get(node.nodeId());
+    }
+
+    private static void put(Map<ShardRouting, Map<String, Decision>> decisions, ShardRouting shardRouting, RoutingNode node,
+                            Decision decision) {
+        decisions.computeIfAbsent(shardRouting, k -> new HashMap<>()).put(node.nodeId(), decision);
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.cluster.service;
 
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.common.Nullable;
 
 import java.util.function.Supplier;
 
@@ -44,6 +45,14 @@ public interface ClusterApplier {
      */
     ClusterState.Builder newClusterStateBuilder();
 
+    /**
+     * Returns the time spent by the appliers and listeners notified of the applied cluster states, or {@code null} if not tracked.
+     */
+    @Nullable
+    default ClusterApplierStats getStats() {
+        return null;
+    }
+
     /**
      * Listener for results of cluster state application
      */
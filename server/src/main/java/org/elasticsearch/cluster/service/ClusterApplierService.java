@@ -36,6 +36,7 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
@@ -47,10 +48,13 @@ import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -94,6 +98,9 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private final Queue<NotifyTimeout> onGoingTimeouts = ConcurrentCollections.newQueue();
 
+    private final Map<String, MeanMetric> applierTimings = ConcurrentCollections.newConcurrentMap();
+    private final Map<String, MeanMetric> listenerTimings = ConcurrentCollections.newConcurrentMap();
+
     private final AtomicReference<ClusterState> state; // last applied state
 
     private final String nodeName;
@@ -481,7 +488,12 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         clusterStateAppliers.forEach(applier -> {
             try {
                 logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
-                applier.applyClusterState(clusterChangedEvent);
+                final long startTimeNS = currentTimeInNanos();
+                try {
+                    applier.applyClusterState(clusterChangedEvent);
+                } finally {
+                    recordTime(applierTimings, applier, startTimeNS);
+                }
             } catch (Exception ex) {
                 logger.warn("failed to notify ClusterStateApplier", ex);
             }
@@ -492,13 +504,47 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         Stream.concat(clusterStateListeners.stream(), timeoutClusterStateListeners.stream()).forEach(listener -> {
             try {
                 logger.trace("calling [{}] with change to version [{}]", listener, clusterChangedEvent.state().version());
-                listener.clusterChanged(clusterChangedEvent);
+                final long startTimeNS = currentTimeInNanos();
+                try {
+                    listener.clusterChanged(clusterChangedEvent);
+                } finally {
+                    recordTime(listenerTimings, listener, startTimeNS);
+                }
             } catch (Exception ex) {
                 logger.warn("failed to notify ClusterStateListener", ex);
             }
         });
     }
 
+    private void recordTime(Map<String, MeanMetric> timings, Object appliedTo, long startTimeNS) {
+        // most appliers take well below a millisecond, so the raw nanos are summed up and only the totals are converted
+        final long tookInNanos = Math.max(0, currentTimeInNanos() - startTimeNS);
+        timings.computeIfAbsent(timingName(appliedTo), name -> new MeanMetric()).inc(tookInNanos);
+    }
+
+    // appliers and listeners are often lambdas or method references, which are recorded under the class that declares them
+    static String timingName(Object appliedTo) {
+        final String className = appliedTo.getClass().getName();
+        final int lambdaIndex = className.indexOf("$$Lambda");
+        return lambdaIndex < 0 ? className : className.substring(0, lambdaIndex);
+    }
+
+    @Override
+    public ClusterApplierStats getStats() {
+        return new ClusterApplierStats(toRecordings(applierTimings), toRecordings(listenerTimings));
+    }
+
+    private static List<ClusterApplierStats.Recording> toRecordings(Map<String, MeanMetric> timings) {
+        List<ClusterApplierStats.Recording> recordings = new ArrayList<>(timings.size());
+        for (Map.Entry<String, MeanMetric> entry : timings.entrySet()) {
+            recordings.add(new ClusterApplierStats.Recording(entry.getKey(), entry.getValue().count(),
+                TimeValue.nsecToMSec(entry.getValue().sum())));
+        }
+        recordings.sort(Comparator.comparingLong(ClusterApplierStats.Recording::getTotalTimeMillis).reversed()
+            .thenComparing(ClusterApplierStats.Recording::getName));
+        return recordings;
+    }
+
     private static class SafeClusterApplyListener implements ClusterApplyListener {
         private final ClusterApplyListener listener;
         private final Logger logger;
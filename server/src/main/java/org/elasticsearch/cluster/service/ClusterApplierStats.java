@@ -0,0 +1,141 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class encapsulating the time spent by the cluster state appliers and listeners of a node in applying cluster states
+ */
+public class ClusterApplierStats implements Writeable, ToXContentFragment {
+
+    private final List<Recording> appliers;
+    private final List<Recording> listeners;
+
+    public ClusterApplierStats(List<Recording> appliers, List<Recording> listeners) {
+        this.appliers = appliers;
+        this.listeners = listeners;
+    }
+
+    public ClusterApplierStats(StreamInput in) throws IOException {
+        appliers = in.readList(Recording::new);
+        listeners = in.readList(Recording::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(appliers);
+        out.writeList(listeners);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("cluster_applier_stats");
+        {
+            builder.startArray("appliers");
+            for (Recording recording : appliers) {
+                recording.toXContent(builder, params);
+            }
+            builder.endArray();
+            builder.startArray("listeners");
+            for (Recording recording : listeners) {
+                recording.toXContent(builder, params);
+            }
+            builder.endArray();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public List<Recording> getAppliers() {
+        return appliers;
+    }
+
+    public List<Recording> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * The number of times a single applier or listener was called and the total time it took
+     */
+    public static class Recording implements Writeable, ToXContentObject {
+
+        private final String name;
+        private final long count;
+        private final long totalTimeMillis;
+
+        public Recording(String name, long count, long totalTimeMillis) {
+            this.name = name;
+            this.count = count;
+            this.totalTimeMillis = totalTimeMillis;
+        }
+
+        public Recording(StreamInput in) throws IOException {
+            name = in.readString();
+            count = in.readVLong();
+            totalTimeMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(count);
+            out.writeVLong(totalTimeMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            {
+                builder.field("name", name);
+                builder.field("count", count);
+                builder.humanReadableField("total_time_in_millis", "total_time", new TimeValue(totalTimeMillis));
+            }
+            builder.endObject();
+            return builder;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalTimeMillis() {
+            return totalTimeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Recording(name=" + name + ", count=" + count + ", totalTimeMillis=" + totalTimeMillis + ")";
+        }
+    }
+}
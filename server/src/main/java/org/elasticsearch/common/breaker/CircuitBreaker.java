@@ -60,6 +60,11 @@ public interface CircuitBreaker {
      * segments.
      */
     String ACCOUNTING = "accounting";
+    /**
+     * The fetch cache breaker tracks the memory held by the entries of the
+     * indices fetch cache. Entries that would trip it are not cached.
+     */
+    String FETCH_CACHE = "fetch_cache";
 
     enum Type {
         // A regular or ChildMemoryCircuitBreaker
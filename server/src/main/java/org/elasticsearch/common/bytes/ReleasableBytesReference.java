@@ -0,0 +1,191 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.io.stream.FilterStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.common.util.concurrent.RefCounted;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link BytesReference} over a buffer that must be released once it is no longer used, such as a pooled network buffer or pages
+ * obtained from a recycler. The buffer is reference counted: {@link #retain()} and {@link #retainedSlice(int, int)} take an additional
+ * reference that must be released with {@link #close()}, and the underlying buffer is released once the last reference is gone.
+ * <p>
+ * Reading from the {@link #streamInput()} of such a reference hands out retained slices of the buffer from
+ * {@link StreamInput#readReleasableBytesReference()} instead of copying the bytes to the heap.
+ */
+public final class ReleasableBytesReference extends BytesReference implements Releasable, RefCounted {
+
+    private static final Releasable NO_OP = () -> {};
+
+    private final BytesReference delegate;
+    private final RefCountedReleasable refCounted;
+
+    public ReleasableBytesReference(BytesReference delegate, Releasable releasable) {
+        this(delegate, new RefCountedReleasable(releasable));
+    }
+
+    private ReleasableBytesReference(BytesReference delegate, RefCountedReleasable refCounted) {
+        this.delegate = delegate;
+        this.refCounted = refCounted;
+    }
+
+    /**
+     * Wraps a bytes reference that does not need to be released.
+     */
+    public static ReleasableBytesReference wrap(BytesReference reference) {
+        return new ReleasableBytesReference(reference, NO_OP);
+    }
+
+    /**
+     * Returns the number of references that are currently held on the underlying buffer.
+     */
+    public int refCount() {
+        return refCounted.refCount();
+    }
+
+    /**
+     * Takes an additional reference on the underlying buffer and returns this instance.
+     */
+    public ReleasableBytesReference retain() {
+        refCounted.incRef();
+        return this;
+    }
+
+    /**
+     * Returns a slice of this reference that holds its own reference on the underlying buffer and must be closed independently.
+     */
+    public ReleasableBytesReference retainedSlice(int from, int length) {
+        if (from == 0 && length() == length) {
+            return retain();
+        }
+        final BytesReference slice = delegate.slice(from, length);
+        refCounted.incRef();
+        return new ReleasableBytesReference(slice, refCounted);
+    }
+
+    @Override
+    public void incRef() {
+        refCounted.incRef();
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return refCounted.tryIncRef();
+    }
+
+    @Override
+    public void decRef() {
+        refCounted.decRef();
+    }
+
+    @Override
+    public void close() {
+        refCounted.decRef();
+    }
+
+    @Override
+    public byte get(int index) {
+        return delegate.get(index);
+    }
+
+    @Override
+    public int length() {
+        return delegate.length();
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        return delegate.slice(from, length);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return delegate.ramBytesUsed();
+    }
+
+    @Override
+    public StreamInput streamInput() throws IOException {
+        assert refCount() > 0 : "reference has already been released";
+        return new FilterStreamInput(delegate.streamInput()) {
+            @Override
+            public ReleasableBytesReference readReleasableBytesReference() throws IOException {
+                final int length = readArraySize();
+                if (length == 0) {
+                    return wrap(BytesArray.EMPTY);
+                }
+                final int offset = ReleasableBytesReference.this.length() - available();
+                final ReleasableBytesReference slice = retainedSlice(offset, length);
+                final long skipped = delegate.skip(length);
+                assert skipped == length : "skipped [" + skipped + "] bytes but expected [" + length + "]";
+                return slice;
+            }
+        };
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        delegate.writeTo(os);
+    }
+
+    @Override
+    public String utf8ToString() {
+        return delegate.utf8ToString();
+    }
+
+    @Override
+    public BytesRef toBytesRef() {
+        return delegate.toBytesRef();
+    }
+
+    @Override
+    public BytesRefIterator iterator() {
+        return delegate.iterator();
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        return delegate.toXContent(builder, params);
+    }
+
+    private static final class RefCountedReleasable extends AbstractRefCounted {
+
+        private final Releasable releasable;
+
+        RefCountedReleasable(Releasable releasable) {
+            super("bytes-reference");
+            this.releasable = releasable;
+        }
+
+        @Override
+        protected void closeInternal() {
+            Releasables.close(releasable);
+        }
+    }
+}
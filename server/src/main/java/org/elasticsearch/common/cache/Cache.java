@@ -60,6 +60,7 @@ import java.util.function.ToLongBiFunction;
  * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
  * <li>Locks on the list could be taken per node being modified instead of globally.</li>
  * </ol>
+ * Caches built with {@link EvictionPolicy#TINY_LFU} implement the first two of these in {@link TinyLfuCache}.
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
@@ -99,6 +100,19 @@ public class Cache<K, V> {
 
     // use CacheBuilder to construct
     Cache() {
+        this(true);
+    }
+
+    /**
+     * Constructs a cache, optionally without allocating the segments. Subclasses that bring their own storage (see
+     * {@link TinyLfuCache}) must override every public operation of this class.
+     */
+    Cache(boolean segmented) {
+        if (segmented) {
+            segments = createSegments();
+        } else {
+            segments = null;
+        }
     }
 
     void setExpireAfterAccessNanos(long expireAfterAccessNanos) {
@@ -127,6 +141,18 @@ public class Cache<K, V> {
         return this.expireAfterWriteNanos;
     }
 
+    long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    ToLongBiFunction<K, V> getWeigher() {
+        return weigher;
+    }
+
+    RemovalListener<K, V> getRemovalListener() {
+        return removalListener;
+    }
+
     void setMaximumWeight(long maximumWeight) {
         if (maximumWeight < 0) {
             throw new IllegalArgumentException("maximumWeight < 0");
@@ -336,12 +362,14 @@ public class Cache<K, V> {
     }
 
     public static final int NUMBER_OF_SEGMENTS = 256;
-    @SuppressWarnings("unchecked") private final CacheSegment<K, V>[] segments = new CacheSegment[NUMBER_OF_SEGMENTS];
+    private final CacheSegment<K, V>[] segments;
 
-    {
+    private static <K, V> CacheSegment<K, V>[] createSegments() {
+        @SuppressWarnings("unchecked") final CacheSegment<K, V>[] segments = new CacheSegment[NUMBER_OF_SEGMENTS];
         for (int i = 0; i < segments.length; i++) {
             segments[i] = new CacheSegment<>();
         }
+        return segments;
     }
 
     Entry<K, V> head;
@@ -781,9 +809,13 @@ public class Cache<K, V> {
         return maximumWeight != -1 && weight > maximumWeight;
     }
 
+    boolean isExpired(long accessTime, long writeTime, long now) {
+        return (entriesExpireAfterAccess && now - accessTime > expireAfterAccessNanos) ||
+                (entriesExpireAfterWrite && now - writeTime > expireAfterWriteNanos);
+    }
+
     private boolean isExpired(Entry<K, V> entry, long now) {
-        return (entriesExpireAfterAccess && now - entry.accessTime > expireAfterAccessNanos) ||
-                (entriesExpireAfterWrite && now - entry.writeTime > expireAfterWriteNanos);
+        return isExpired(entry.accessTime, entry.writeTime, now);
     }
 
     private boolean unlink(Entry<K, V> entry) {
@@ -0,0 +1,52 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import java.util.Locale;
+
+/**
+ * The policy used by a {@link Cache} to choose which entries to evict once its maximum weight is exceeded.
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Evicts the least recently used entry. Every cache hit promotes the entry under a cache-wide lock.
+     */
+    LRU,
+
+    /**
+     * Window TinyLFU: admits entries into the main region of the cache only if they are estimated to be accessed more
+     * frequently than the entry they would replace. Cache hits are recorded in lock-free buffers and applied in batches.
+     */
+    TINY_LFU;
+
+    public static EvictionPolicy parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown eviction policy [" + value + "], must be one of [lru, tiny_lfu]", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
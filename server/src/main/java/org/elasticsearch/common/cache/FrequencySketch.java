@@ -0,0 +1,135 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+/**
+ * A probabilistic estimate of how often keys have been accessed, used as the admission filter of {@link TinyLfuCache}.
+ * <p>
+ * This is a count-min sketch with four hash functions and 4-bit counters, sixteen of which are packed into each {@code long}
+ * of the table. The four counters of a key share a single {@code long} slot group chosen from the key's hash so that an
+ * increment touches few cache lines. Counters saturate at 15. To keep the estimates fresh every counter is halved once the
+ * number of increments reaches ten times the width of the table (the "aging" step of TinyLFU), which lets the sketch forget
+ * keys that used to be popular.
+ * <p>
+ * This class is not thread-safe; callers must provide their own synchronization.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    // mask to clear the high bit of each counter after shifting the table right by one
+    private static final long RESET_MASK = 0x7777777777777777L;
+    // mask selecting the low bit of each counter
+    private static final long ONE_MASK = 0x1111111111111111L;
+    // the maximum width of the table, chosen so that the sample size fits in an int
+    private static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    private long[] table = new long[1];
+    private int tableMask = 0;
+    private int sampleSize = 10;
+    private int size = 0;
+
+    /**
+     * Grows the sketch so that it can estimate the frequencies of at least {@code expectedSize} keys accurately. Growing the
+     * sketch discards all of the frequencies that were recorded so far.
+     */
+    void ensureCapacity(long expectedSize) {
+        final int capacity = (int) Math.min(Math.max(1, expectedSize), MAXIMUM_CAPACITY);
+        if (table.length >= capacity) {
+            return;
+        }
+        table = new long[ceilingPowerOfTwo(capacity)];
+        tableMask = table.length - 1;
+        sampleSize = 10 * table.length;
+        size = 0;
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    /**
+     * Returns the estimated number of times the key with the given hash code was recorded, saturating at 15.
+     */
+    int frequency(int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access to the key with the given hash code, periodically aging all of the counters.
+     */
+    void increment(int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter. Counters that were odd lose their low bit, which is accounted for when adjusting the size.
+     */
+    void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    // applies a supplemental hash function to defend against poor quality hash codes
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+}
@@ -0,0 +1,753 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A concurrent cache using the Window TinyLFU eviction policy.
+ * <p>
+ * Entries are stored in a {@link ConcurrentHashMap} so that cache hits never block. Rather than reordering the eviction
+ * queues on every hit, as {@link Cache} does under its LRU lock, a hit is recorded in a striped, lossy ring buffer and the
+ * recorded hits are applied in batches by whichever thread next holds the eviction lock. A reader only tries to acquire that
+ * lock, and never waits for it, when the buffer it recorded into is full. Writes (insertions, loads and invalidations) are
+ * serialized by the eviction lock and drain the read buffer first.
+ * <p>
+ * The policy splits the maximum weight into three regions:
+ * <ol>
+ * <li>a small admission window (1% of the weight) that is ordered by recency and absorbs bursts of new entries,</li>
+ * <li>a probation region holding main entries that have been accessed once since they entered it, and</li>
+ * <li>a protected region (80% of the main region) holding main entries that have been accessed again.</li>
+ * </ol>
+ * Entries that overflow the window compete with the least recently used entry of the probation region; the one that a
+ * {@link FrequencySketch} estimates to be accessed less often is evicted. This keeps one-off scans from flushing out the
+ * frequently used entries, which plain LRU is prone to. Caches without a maximum weight keep every entry in the window and
+ * only use it to order time-based evictions.
+ * <p>
+ * Removal notifications for evictions and invalidations of single keys are delivered while holding the eviction lock.
+ * {@link #keys()} and {@link #values()} iterate in no particular order and are weakly consistent.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+class TinyLfuCache<K, V> extends Cache<K, V> {
+
+    // the share of the maximum weight used by the admission window
+    static final double WINDOW_PERCENTAGE = 0.01;
+
+    // the share of the main region used by the protected region
+    static final double PROTECTED_PERCENTAGE = 0.8;
+
+    // candidates that are at least this popular are occasionally admitted even if the victim is more popular, to prevent an
+    // attacker from pinning the victim using hash collisions in the sketch
+    private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+
+    private final ConcurrentHashMap<K, CompletableFuture<Node<K, V>>> map = new ConcurrentHashMap<>();
+
+    private final ReadBuffer<Node<K, V>> readBuffer = new ReadBuffer<>();
+
+    // protects the eviction queues and the sketch
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+
+    private final Consumer<Node<K, V>> onAccess = this::onAccess;
+
+    private long windowMaximum = Long.MAX_VALUE;
+    private long protectedMaximum = Long.MAX_VALUE;
+    private long windowWeight = 0;
+    private long protectedWeight = 0;
+
+    // a simple xorshift generator for the admission jitter, guarded by the eviction lock
+    private int randomSeed = 0x2545F491;
+
+    private volatile int count = 0;
+    private volatile long weight = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // use CacheBuilder to construct
+    TinyLfuCache() {
+        super(false);
+    }
+
+    @Override
+    void setMaximumWeight(long maximumWeight) {
+        super.setMaximumWeight(maximumWeight);
+        windowMaximum = (long) (maximumWeight * WINDOW_PERCENTAGE);
+        protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENTAGE);
+    }
+
+    // the region of the cache an entry lives in
+    enum Region {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    // the lifecycle of an entry in the eviction queues
+    enum State {
+        NEW, ALIVE, DEAD
+    }
+
+    static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long weight;
+        final long writeTime;
+        volatile long accessTime;
+
+        // guarded by the eviction lock
+        Node<K, V> previous;
+        Node<K, V> next;
+        Region region;
+        State state = State.NEW;
+
+        Node(K key, V value, long weight, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = this.accessTime = writeTime;
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        return get(key, now(), e -> {});
+    }
+
+    private V get(K key, long now, Consumer<Node<K, V>> onExpiration) {
+        final CompletableFuture<Node<K, V>> future = map.get(key);
+        if (future == null) {
+            misses.increment();
+            return null;
+        }
+        final Node<K, V> node;
+        try {
+            node = future.get();
+        } catch (ExecutionException e) {
+            assert future.isCompletedExceptionally();
+            misses.increment();
+            return null;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        if (isExpired(node, now)) {
+            misses.increment();
+            onExpiration.accept(node);
+            return null;
+        }
+        hits.increment();
+        node.accessTime = now;
+        afterRead(node, now);
+        return node.value;
+    }
+
+    private void afterRead(Node<K, V> node, long now) {
+        if (readBuffer.offer(node) == ReadBuffer.FULL && evictionLock.tryLock()) {
+            try {
+                maintenance(now);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, CacheLoader<K, V> loader) throws ExecutionException {
+        final long now = now();
+        // we have to eagerly evict expired entries or our putIfAbsent call below will fail
+        V value = get(key, now, e -> {
+            evictionLock.lock();
+            try {
+                if (e.state == State.ALIVE) {
+                    evictEntry(e);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        });
+        if (value != null) {
+            return value;
+        }
+        // as in Cache#computeIfAbsent, a future is placed in the map so that the loader is invoked at most once without
+        // holding any lock while it runs
+        final CompletableFuture<Node<K, V>> completableFuture = new CompletableFuture<>();
+        final CompletableFuture<Node<K, V>> future = map.putIfAbsent(key, completableFuture);
+        if (future != null) {
+            try {
+                return future.get().value;
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        final V loaded;
+        try {
+            loaded = loader.load(key);
+        } catch (Exception e) {
+            map.remove(key, completableFuture);
+            completableFuture.completeExceptionally(e);
+            throw new ExecutionException(e);
+        }
+        if (loaded == null) {
+            NullPointerException npe = new NullPointerException("loader returned a null value");
+            map.remove(key, completableFuture);
+            completableFuture.completeExceptionally(npe);
+            throw new ExecutionException(npe);
+        }
+        final Node<K, V> node = new Node<>(key, loaded, getWeigher().applyAsLong(key, loaded), now);
+        completableFuture.complete(node);
+        evictionLock.lock();
+        try {
+            // the mapping may have been replaced or invalidated while we were loading
+            if (map.get(key) == completableFuture) {
+                add(node);
+            }
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        final long now = now();
+        final Node<K, V> node = new Node<>(key, value, getWeigher().applyAsLong(key, value), now);
+        Node<K, V> replaced = null;
+        evictionLock.lock();
+        try {
+            final Node<K, V> previous = completedNode(map.put(key, CompletableFuture.completedFuture(node)));
+            if (previous != null && previous.state == State.ALIVE) {
+                unlink(previous);
+                replaced = previous;
+            }
+            add(node);
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+        if (replaced != null) {
+            getRemovalListener().onRemoval(new RemovalNotification<>(replaced.key, replaced.value,
+                RemovalNotification.RemovalReason.REPLACED));
+        }
+    }
+
+    @Override
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            final CompletableFuture<Node<K, V>> future = map.remove(key);
+            if (future != null) {
+                evictions.increment();
+                final Node<K, V> node = completedNode(future);
+                if (node != null && node.state == State.ALIVE) {
+                    delete(node, RemovalNotification.RemovalReason.INVALIDATED);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate(K key, V value) {
+        evictionLock.lock();
+        try {
+            final CompletableFuture<Node<K, V>> future = map.get(key);
+            final Node<K, V> node = completedNode(future);
+            if (node != null && Objects.equals(value, node.value) && map.remove(key, future)) {
+                evictions.increment();
+                if (node.state == State.ALIVE) {
+                    delete(node, RemovalNotification.RemovalReason.INVALIDATED);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        final List<Node<K, V>> invalidated = new ArrayList<>(count);
+        evictionLock.lock();
+        try {
+            map.clear();
+            clear(window, invalidated);
+            clear(probation, invalidated);
+            clear(protectedQueue, invalidated);
+            windowWeight = 0;
+            protectedWeight = 0;
+            count = 0;
+            weight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+        for (Node<K, V> node : invalidated) {
+            getRemovalListener().onRemoval(new RemovalNotification<>(node.key, node.value,
+                RemovalNotification.RemovalReason.INVALIDATED));
+        }
+    }
+
+    private static <K, V> void clear(AccessOrderDeque<K, V> deque, List<Node<K, V>> cleared) {
+        for (Node<K, V> node = deque.first; node != null; node = node.next) {
+            node.state = State.DEAD;
+            cleared.add(node);
+        }
+        deque.clear();
+    }
+
+    @Override
+    public void refresh() {
+        final long now = now();
+        evictionLock.lock();
+        try {
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * The keys in the cache, in no particular order. Iteration is weakly consistent and {@link Iterator#remove()}
+     * invalidates the current entry.
+     */
+    @Override
+    public Iterable<K> keys() {
+        return () -> new NodeIterator<>(node -> node.key);
+    }
+
+    /**
+     * The values in the cache, in no particular order. Iteration is weakly consistent and {@link Iterator#remove()}
+     * invalidates the current entry.
+     */
+    @Override
+    public Iterable<V> values() {
+        return () -> new NodeIterator<>(node -> node.value);
+    }
+
+    private class NodeIterator<T> implements Iterator<T> {
+        private final Iterator<CompletableFuture<Node<K, V>>> iterator = map.values().iterator();
+        private final Function<Node<K, V>, T> mapper;
+        private Node<K, V> current;
+        private Node<K, V> next;
+
+        NodeIterator(Function<Node<K, V>, T> mapper) {
+            this.mapper = mapper;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && iterator.hasNext()) {
+                next = completedNode(iterator.next());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            advance();
+            return mapper.apply(current);
+        }
+
+        @Override
+        public void remove() {
+            if (current != null) {
+                invalidate(current.key, current.value);
+                current = null;
+            }
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return isExpired(node.accessTime, node.writeTime, now);
+    }
+
+    // returns the node held by the future if the future completed successfully, otherwise null
+    private static <K, V> Node<K, V> completedNode(CompletableFuture<Node<K, V>> future) {
+        if (future == null || future.isDone() == false || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.getNow(null);
+    }
+
+    private void maintenance(long now) {
+        assert evictionLock.isHeldByCurrentThread();
+        readBuffer.drainTo(onAccess);
+        expire(now);
+        evict();
+    }
+
+    // applies a buffered cache hit to the eviction queues
+    private void onAccess(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        if (node.state != State.ALIVE) {
+            return;
+        }
+        sketch.increment(node.key.hashCode());
+        switch (node.region) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.region = Region.PROTECTED;
+                protectedQueue.addLast(node);
+                protectedWeight += node.weight;
+                demoteFromProtected();
+                break;
+            case PROTECTED:
+                protectedQueue.moveToBack(node);
+                break;
+        }
+    }
+
+    private void demoteFromProtected() {
+        while (protectedWeight > protectedMaximum) {
+            final Node<K, V> demoted = protectedQueue.first;
+            if (demoted == null) {
+                break;
+            }
+            protectedQueue.remove(demoted);
+            protectedWeight -= demoted.weight;
+            demoted.region = Region.PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    private void add(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        assert node.state == State.NEW;
+        readBuffer.drainTo(onAccess);
+        node.state = State.ALIVE;
+        node.region = Region.WINDOW;
+        window.addLast(node);
+        windowWeight += node.weight;
+        count++;
+        weight += node.weight;
+        if (getMaximumWeight() != -1 && count > sketch.capacity()) {
+            sketch.ensureCapacity(2L * count);
+        }
+        sketch.increment(node.key.hashCode());
+    }
+
+    private void expire(long now) {
+        if (getExpireAfterAccessNanos() == -1 && getExpireAfterWriteNanos() == -1) {
+            return;
+        }
+        expire(window, now);
+        expire(probation, now);
+        expire(protectedQueue, now);
+    }
+
+    private void expire(AccessOrderDeque<K, V> deque, long now) {
+        while (deque.first != null && isExpired(deque.first, now)) {
+            evictEntry(deque.first);
+        }
+    }
+
+    private void evict() {
+        if (getMaximumWeight() == -1) {
+            return;
+        }
+        evictFromMain(evictFromWindow());
+    }
+
+    /**
+     * Moves the entries that overflow the admission window to the most recently used end of the probation region.
+     *
+     * @return the first entry that was moved, which is the oldest candidate for admission, or null if none moved
+     */
+    private Node<K, V> evictFromWindow() {
+        Node<K, V> first = null;
+        while (windowWeight > windowMaximum && window.first != null) {
+            final Node<K, V> node = window.first;
+            window.remove(node);
+            windowWeight -= node.weight;
+            node.region = Region.PROBATION;
+            probation.addLast(node);
+            if (first == null) {
+                first = node;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Evicts entries until the cache fits its maximum weight. The candidates that just left the window are pitted against the
+     * least recently used entries of the probation region, and the one with the lower estimated frequency is evicted.
+     */
+    private void evictFromMain(Node<K, V> candidate) {
+        Node<K, V> victim = probation.first;
+        while (weight > getMaximumWeight()) {
+            if (victim == null && candidate == null) {
+                // the probation region is exhausted, fall back to the protected region and then to the window
+                final Node<K, V> node = protectedQueue.first != null ? protectedQueue.first : window.first;
+                if (node == null) {
+                    break;
+                }
+                evictEntry(node);
+            } else if (victim == null || victim == candidate) {
+                // only candidates are left, evict them in the order they left the window
+                final Node<K, V> evicted = candidate;
+                candidate = candidate.next;
+                victim = candidate;
+                evictEntry(evicted);
+            } else if (candidate == null) {
+                final Node<K, V> evicted = victim;
+                victim = victim.next;
+                evictEntry(evicted);
+            } else if (candidate.weight > getMaximumWeight()) {
+                // the candidate could never fit
+                final Node<K, V> evicted = candidate;
+                candidate = candidate.next;
+                evictEntry(evicted);
+            } else if (admit(candidate.key, victim.key)) {
+                final Node<K, V> evicted = victim;
+                victim = victim.next;
+                evictEntry(evicted);
+            } else {
+                final Node<K, V> evicted = candidate;
+                candidate = candidate.next;
+                evictEntry(evicted);
+            }
+        }
+    }
+
+    private boolean admit(K candidateKey, K victimKey) {
+        final int victimFrequency = sketch.frequency(victimKey.hashCode());
+        final int candidateFrequency = sketch.frequency(candidateKey.hashCode());
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        } else if (candidateFrequency < ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        randomSeed ^= randomSeed << 13;
+        randomSeed ^= randomSeed >>> 17;
+        randomSeed ^= randomSeed << 5;
+        return (randomSeed & 127) == 0;
+    }
+
+    private void evictEntry(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        final CompletableFuture<Node<K, V>> future = map.get(node.key);
+        if (completedNode(future) == node && map.remove(node.key, future)) {
+            evictions.increment();
+        }
+        delete(node, RemovalNotification.RemovalReason.EVICTED);
+    }
+
+    private void delete(Node<K, V> node, RemovalNotification.RemovalReason removalReason) {
+        unlink(node);
+        getRemovalListener().onRemoval(new RemovalNotification<>(node.key, node.value, removalReason));
+    }
+
+    private void unlink(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        assert node.state == State.ALIVE;
+        switch (node.region) {
+            case WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                protectedWeight -= node.weight;
+                break;
+        }
+        node.state = State.DEAD;
+        count--;
+        weight -= node.weight;
+    }
+
+    /**
+     * An intrusive doubly-linked list of nodes ordered from least recently used (first) to most recently used (last).
+     */
+    static final class AccessOrderDeque<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void addLast(Node<K, V> node) {
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                assert first == node;
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                assert last == node;
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (last != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            first = last = null;
+        }
+    }
+
+    /**
+     * A striped, lossy buffer of cache hits. Readers pick a stripe based on their thread and append to it with a single CAS;
+     * if the stripe is full or the CAS fails the hit is dropped, which is acceptable as the policy only needs a sample of
+     * the accesses. Stripes are drained by the thread holding the eviction lock.
+     */
+    static final class ReadBuffer<E> {
+
+        static final int SUCCESS = 0;
+        static final int FULL = 1;
+        static final int FAILED = 2;
+
+        // the number of elements in a stripe, must be a power of two
+        static final int STRIPE_SIZE = 16;
+        private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+        private static final int NUMBER_OF_STRIPES =
+            Math.min(64, Integer.highestOneBit(Math.max(1, 4 * Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+        private final Stripe<E>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        ReadBuffer() {
+            stripes = new Stripe[NUMBER_OF_STRIPES];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe<>();
+            }
+        }
+
+        /**
+         * Records the element in the calling thread's stripe.
+         *
+         * @return {@link #SUCCESS} if the element was recorded, {@link #FULL} if the stripe is full and should be drained, or
+         * {@link #FAILED} if the element was dropped due to contention
+         */
+        int offer(E e) {
+            final long id = Thread.currentThread().getId();
+            final int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+            return stripes[(hash >>> 16) & (stripes.length - 1)].offer(e);
+        }
+
+        void drainTo(Consumer<E> consumer) {
+            for (Stripe<E> stripe : stripes) {
+                stripe.drainTo(consumer);
+            }
+        }
+
+        private static final class Stripe<E> {
+            private final AtomicLong writeCounter = new AtomicLong();
+            // only written by the thread holding the eviction lock
+            private volatile long readCounter = 0;
+            private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+
+            int offer(E e) {
+                final long head = readCounter;
+                final long tail = writeCounter.get();
+                if (tail - head >= STRIPE_SIZE) {
+                    return FULL;
+                }
+                if (writeCounter.compareAndSet(tail, tail + 1)) {
+                    buffer.lazySet((int) (tail & STRIPE_MASK), e);
+                    return SUCCESS;
+                }
+                return FAILED;
+            }
+
+            void drainTo(Consumer<E> consumer) {
+                long head = readCounter;
+                final long tail = writeCounter.get();
+                while (head != tail) {
+                    final int index = (int) (head & STRIPE_MASK);
+                    final E e = buffer.get(index);
+                    if (e == null) {
+                        // the writer claimed the slot but has not published the element yet
+                        break;
+                    }
+                    buffer.lazySet(index, null);
+                    consumer.accept(e);
+                    head++;
+                }
+                readCounter = head;
+            }
+        }
+    }
+}
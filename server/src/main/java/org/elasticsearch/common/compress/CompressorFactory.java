@@ -34,6 +34,11 @@ public class CompressorFactory {
 
     public static final Compressor COMPRESSOR = new DeflateCompressor();
 
+    /**
+     * A faster alternative to {@link #COMPRESSOR} that is only used for transport messages.
+     */
+    public static final Compressor LZ4 = new Lz4Compressor();
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
@@ -47,6 +52,10 @@ public class CompressorFactory {
                 assert XContentHelper.xContentType(bytes) == null;
                 return COMPRESSOR;
             }
+            if (LZ4.isCompressed(bytes)) {
+                assert XContentHelper.xContentType(bytes) == null;
+                return LZ4;
+            }
 
         XContentType contentType = XContentHelper.xContentType(bytes);
         if (contentType == null) {
@@ -0,0 +1,225 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.InputStreamDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 compression algorithm. It is much cheaper than {@link DeflateCompressor}
+ * for both compression and decompression, at the cost of a lower compression ratio, which makes it a better fit for data that is
+ * compressed once and sent over the network.
+ * <p>
+ * The data is split into blocks of at most {@link #BLOCK_SIZE} bytes that are compressed independently with Lucene's LZ4
+ * implementation. Each block is prefixed with its uncompressed length as a vInt and the stream is terminated by an empty block.
+ */
+public class Lz4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+    static final int BLOCK_SIZE = 1 << 16;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new Lz4InputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new Lz4StreamOutput(out);
+    }
+
+    private static final class Lz4StreamOutput extends StreamOutput {
+
+        private final StreamOutput out;
+        private final OutputStreamDataOutput dataOutput;
+        private final org.apache.lucene.codecs.compressing.Compressor compressor = CompressionMode.FAST.newCompressor();
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private int bufferSize;
+        private boolean closed;
+
+        private Lz4StreamOutput(StreamOutput out) {
+            this.out = out;
+            this.dataOutput = new OutputStreamDataOutput(out);
+        }
+
+        @Override
+        public void writeByte(byte b) throws IOException {
+            if (bufferSize == buffer.length) {
+                writeBlock();
+            }
+            buffer[bufferSize++] = b;
+        }
+
+        @Override
+        public void writeBytes(byte[] b, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (bufferSize == buffer.length) {
+                    writeBlock();
+                }
+                final int toCopy = Math.min(length, buffer.length - bufferSize);
+                System.arraycopy(b, offset, buffer, bufferSize, toCopy);
+                bufferSize += toCopy;
+                offset += toCopy;
+                length -= toCopy;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (bufferSize > 0) {
+                out.writeVInt(bufferSize);
+                compressor.compress(buffer, 0, bufferSize, dataOutput);
+                bufferSize = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try {
+                    writeBlock();
+                    // an empty block marks the end of the stream
+                    out.writeVInt(0);
+                    compressor.close();
+                } finally {
+                    out.close();
+                }
+            }
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class Lz4InputStream extends InputStream {
+
+        private final StreamInput in;
+        private final InputStreamDataInput dataInput;
+        private final Decompressor decompressor = CompressionMode.FAST.newDecompressor();
+        private final BytesRef block = new BytesRef();
+        private boolean eos;
+
+        private Lz4InputStream(StreamInput in) {
+            this.in = in;
+            this.dataInput = new InputStreamDataInput(in);
+        }
+
+        /**
+         * Makes sure that there are decompressed bytes to read, returns {@code false} once the end of the stream is reached.
+         */
+        private boolean fillBlock() throws IOException {
+            while (block.length == 0) {
+                if (eos) {
+                    return false;
+                }
+                final int length = in.readVInt();
+                if (length == 0) {
+                    eos = true;
+                    return false;
+                }
+                if (length < 0 || length > BLOCK_SIZE) {
+                    throw new IOException("invalid LZ4 block length [" + length + "]");
+                }
+                decompressor.decompress(dataInput, length, 0, length, block);
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (fillBlock() == false) {
+                return -1;
+            }
+            block.length--;
+            return block.bytes[block.offset++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (fillBlock() == false) {
+                return -1;
+            }
+            final int toCopy = Math.min(len, block.length);
+            System.arraycopy(block.bytes, block.offset, b, off, toCopy);
+            block.offset += toCopy;
+            block.length -= toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public int available() {
+            return block.length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.elasticsearch.common.settings;
 
 import org.apache.logging.log4j.LogManager;
 import org.elasticsearch.action.admin.indices.close.TransportCloseIndexAction;
+import org.elasticsearch.action.bulk.TransportShardBulkAction;
 import org.elasticsearch.action.search.TransportSearchAction;
 import org.elasticsearch.action.support.AutoCreateIndex;
 import org.elasticsearch.action.support.DestructiveOperations;
@@ -66,7 +67,9 @@ import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.indices.IndexingMemoryController;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
 import org.elasticsearch.indices.IndicesService;
@@ -75,6 +78,7 @@ import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.indices.store.IndicesStore;
+import org.elasticsearch.ingest.IngestService;
 import org.elasticsearch.monitor.fs.FsService;
 import org.elasticsearch.monitor.jvm.JvmGcMonitorService;
 import org.elasticsearch.monitor.jvm.JvmService;
@@ -218,6 +222,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING,
                     InternalClusterInfoService.INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING,
                     DestructiveOperations.REQUIRES_NAME_SETTING,
+                    TransportShardBulkAction.REPLICATION_CHUNK_SIZE_SETTING,
                     DiscoverySettings.PUBLISH_TIMEOUT_SETTING,
                     DiscoverySettings.PUBLISH_DIFF_ENABLE_SETTING,
                     DiscoverySettings.COMMIT_TIMEOUT_SETTING,
@@ -275,6 +280,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_OVERHEAD_SETTING,
                     HierarchyCircuitBreakerService.ACCOUNTING_CIRCUIT_BREAKER_LIMIT_SETTING,
                     HierarchyCircuitBreakerService.ACCOUNTING_CIRCUIT_BREAKER_OVERHEAD_SETTING,
+                    HierarchyCircuitBreakerService.FETCH_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING,
+                    HierarchyCircuitBreakerService.FETCH_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING,
+                    HierarchyCircuitBreakerService.FETCH_CACHE_CIRCUIT_BREAKER_TYPE_SETTING,
                     IndexModule.NODE_STORE_ALLOW_MMAPFS,
                     IndexModule.NODE_STORE_ALLOW_MMAP,
                     ClusterService.CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
@@ -283,6 +291,10 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     SearchService.DEFAULT_ALLOW_PARTIAL_SEARCH_RESULTS,
                     ElectMasterService.DISCOVERY_ZEN_MINIMUM_MASTER_NODES_SETTING,
                     TransportSearchAction.SHARD_COUNT_LIMIT_SETTING,
+                    TransportSearchAction.HEDGING_ENABLED_SETTING,
+                    TransportSearchAction.HEDGING_LATENCY_PERCENTILE_SETTING,
+                    TransportSearchAction.HEDGING_MIN_DELAY_SETTING,
+                    TransportSearchAction.SHEDDING_MAX_QUEUE_SIZE_SETTING,
                     RemoteClusterAware.REMOTE_CLUSTERS_SEEDS,
                     RemoteClusterAware.SEARCH_REMOTE_CLUSTERS_SEEDS,
                     RemoteClusterAware.REMOTE_CLUSTERS_PROXY,
@@ -316,6 +328,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     TransportSettings.PUBLISH_PORT_PROFILE,
                     TransportSettings.OLD_TRANSPORT_COMPRESS,
                     TransportSettings.TRANSPORT_COMPRESS,
+                    TransportSettings.TRANSPORT_COMPRESSION_SCHEME,
+                    TransportSettings.TRANSPORT_COMPRESS_ACTIONS,
                     TransportSettings.PING_SCHEDULE,
                     TransportSettings.TCP_CONNECT_TIMEOUT,
                     TransportSettings.CONNECT_TIMEOUT,
@@ -365,6 +379,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     IndicesFieldDataCache.INDICES_FIELDDATA_CACHE_SIZE_KEY,
                     IndicesRequestCache.INDICES_CACHE_QUERY_SIZE,
                     IndicesRequestCache.INDICES_CACHE_QUERY_EXPIRE,
+                    IndicesRequestCache.INDICES_CACHE_QUERY_EVICTION_POLICY,
+                    IndicesFetchCache.INDICES_FETCH_CACHE_SIZE,
+                    IndicesFetchCache.INDICES_FETCH_CACHE_EVICTION_POLICY,
                     HunspellService.HUNSPELL_LAZY_LOAD,
                     HunspellService.HUNSPELL_IGNORE_CASE,
                     HunspellService.HUNSPELL_DICTIONARY_OPTIONS,
@@ -407,6 +424,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     Node.NODE_DATA_SETTING,
                     Node.NODE_MASTER_SETTING,
                     Node.NODE_INGEST_SETTING,
+                    IngestService.LAZY_SOURCE_SETTING,
                     Node.NODE_ATTRIBUTES,
                     Node.NODE_LOCAL_STORAGE_SETTING,
                     TransportMasterNodeReadAction.FORCE_LOCAL_SETTING,
@@ -448,6 +466,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     IndexingMemoryController.MAX_INDEX_BUFFER_SIZE_SETTING,
                     IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING,
                     IndexingMemoryController.SHARD_MEMORY_INTERVAL_TIME_SETTING,
+                    TranslogSyncScheduler.MAX_WAIT_SETTING,
                     ResourceWatcherService.ENABLED,
                     ResourceWatcherService.RELOAD_INTERVAL_HIGH,
                     ResourceWatcherService.RELOAD_INTERVAL_MEDIUM,
@@ -20,6 +20,8 @@
 package org.elasticsearch.discovery;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -34,10 +36,17 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
 
     private final PendingClusterStateStats queueStats;
     private final PublishClusterStateStats publishStats;
+    private final ClusterApplierStats applierStats;
 
     public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats) {
+        this(queueStats, publishStats, null);
+    }
+
+    public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats,
+                          @Nullable ClusterApplierStats applierStats) {
         this.queueStats = queueStats;
         this.publishStats = publishStats;
+        this.applierStats = applierStats;
     }
 
     public DiscoveryStats(StreamInput in) throws IOException {
@@ -48,6 +57,12 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
         } else {
             publishStats = null;
         }
+
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            applierStats = in.readOptionalWriteable(ClusterApplierStats::new);
+        } else {
+            applierStats = null;
+        }
     }
 
     @Override
@@ -57,6 +72,10 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
         if (out.getVersion().onOrAfter(Version.V_6_1_0)) {
             out.writeOptionalWriteable(publishStats);
         }
+
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            out.writeOptionalWriteable(applierStats);
+        }
     }
 
     @Override
@@ -68,6 +87,9 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
         if (publishStats != null) {
             publishStats.toXContent(builder, params);
         }
+        if (applierStats != null) {
+            applierStats.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
@@ -83,4 +105,9 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
     public PublishClusterStateStats getPublishStats() {
         return publishStats;
     }
+
+    @Nullable
+    public ClusterApplierStats getApplierStats() {
+        return applierStats;
+    }
 }
@@ -407,7 +407,7 @@ public class ZenDiscovery extends AbstractLifecycleComponent implements Discover
 
     @Override
     public DiscoveryStats stats() {
-        return new DiscoveryStats(pendingStatesQueue.stats(), publishClusterState.stats());
+        return new DiscoveryStats(pendingStatesQueue.stats(), publishClusterState.stats(), clusterApplier.getStats());
     }
 
     public DiscoverySettings getDiscoverySettings() {
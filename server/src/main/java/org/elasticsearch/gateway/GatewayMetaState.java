@@ -334,7 +334,7 @@ public class GatewayMetaState implements ClusterStateApplier {
 
     public static Set<Index> getRelevantIndicesOnDataOnlyNode(ClusterState state, ClusterState previousState,
                                                               Set<Index> previouslyWrittenIndices) {
-        RoutingNode newRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode newRoutingNode = state.getLocalRoutingNode();
         if (newRoutingNode == null) {
             throw new IllegalStateException("cluster state does not contain this node - cannot write index meta state");
         }
@@ -252,6 +252,13 @@ public final class IndexSettings {
     public static final Setting<Boolean> INDEX_SOFT_DELETES_SETTING =
         Setting.boolSetting("index.soft_deletes.enabled", false, Property.IndexScope, Property.Final);
 
+    /**
+     * Specifies if the live version map should store uids and versions in paged primitive arrays instead of a map of objects. This
+     * lowers the per-document heap overhead and GC pressure for indexing-heavy workloads at the cost of slightly slower lookups.
+     */
+    public static final Setting<Boolean> INDEX_VERSION_MAP_PAGED_SETTING =
+        Setting.boolSetting("index.version_map.paged", false, Property.IndexScope, Property.Final);
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -345,6 +352,7 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final boolean versionMapPaged;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -480,6 +488,7 @@ public final class IndexSettings {
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
         softDeleteEnabled = version.onOrAfter(Version.V_6_5_0) && scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
+        versionMapPaged = scopedSettings.get(INDEX_VERSION_MAP_PAGED_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
@@ -941,6 +950,13 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if the live version map stores its entries in paged arrays.
+     */
+    public boolean isVersionMapPaged() {
+        return versionMapPaged;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.frequency;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.AbstractIndexComponent;
+import org.elasticsearch.index.IndexSettings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache for the background frequencies that the <code>significant_terms</code> and <code>significant_text</code>
+ * aggregations compute for their candidate terms.
+ * <p>
+ * Frequencies are cached per segment and per background filter so that they can be reused across requests. The key
+ * of a segment includes its deletes so a refresh that changes the live docs of a segment invalidates its entries, and
+ * the entries of a segment are dropped when the segment is closed. The cached keys are tracked per segment for that
+ * purpose, so closing a segment does not need to look at the entries of the other segments.
+ */
+public final class BackgroundFrequencyCache extends AbstractIndexComponent
+        implements IndexReader.ClosedListener, RemovalListener<BackgroundFrequencyCache.Key, Long>, Closeable {
+
+    public static final Setting<ByteSizeValue> INDEX_BACKGROUND_FREQUENCY_CACHE_SIZE_SETTING =
+        Setting.byteSizeSetting("index.background_frequency_cache.size", new ByteSizeValue(8, ByteSizeUnit.MB), Property.IndexScope);
+
+    // rough estimation of the memory used by a key and its boxed value, excluding the bytes of the term
+    private static final long BASE_RAM_BYTES_PER_ENTRY = 128;
+
+    @Nullable
+    private final Cache<Key, Long> cache;
+    private final ConcurrentMap<IndexReader.CacheKey, Set<Key>> keysByReader = ConcurrentCollections.newConcurrentMap();
+
+    public BackgroundFrequencyCache(IndexSettings indexSettings) {
+        super(indexSettings);
+        final long maxWeight = indexSettings.getValue(INDEX_BACKGROUND_FREQUENCY_CACHE_SIZE_SETTING).getBytes();
+        if (maxWeight > 0) {
+            this.cache = CacheBuilder.<Key, Long>builder()
+                .setMaximumWeight(maxWeight)
+                .weigher((key, value) -> key.ramBytesUsed())
+                .removalListener(this)
+                .build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Returns the frequency of <code>term</code> in the segment of <code>context</code>, restricted to the documents
+     * that match <code>filter</code> if not null. The frequency is computed with <code>loader</code> if it is not cached.
+     *
+     * @param term A {@link Term} for frequencies derived from the terms dictionary, a {@link Query} for frequencies
+     *             derived from the count of its matching documents or null for the number of documents that match the filter.
+     */
+    public long getOrCompute(LeafReaderContext context, @Nullable Query filter, @Nullable Object term,
+                             CheckedSupplier<Long, IOException> loader) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = context.reader().getReaderCacheHelper();
+        if (cache == null || cacheHelper == null) {
+            return loader.get();
+        }
+        final IndexReader.CacheKey readerKey = cacheHelper.getKey();
+        final Key key = new Key(readerKey, filter, term);
+        final Long cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final Set<Key> keys = keysByReader.computeIfAbsent(readerKey, k -> {
+            cacheHelper.addClosedListener(BackgroundFrequencyCache.this);
+            return ConcurrentCollections.newConcurrentSet();
+        });
+        final long value = loader.get();
+        final Key copy = key.deepCopy();
+        // tracked before it is cached so that an eviction right after the put finds it
+        keys.add(copy);
+        cache.put(copy, value);
+        return value;
+    }
+
+    @Override
+    public void onClose(IndexReader.CacheKey readerKey) {
+        final Set<Key> keys = keysByReader.remove(readerKey);
+        if (keys != null) {
+            for (Key key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, Long> notification) {
+        if (notification.getRemovalReason() == RemovalNotification.RemovalReason.REPLACED) {
+            // the key is still cached
+            return;
+        }
+        final Key key = notification.getKey();
+        final Set<Key> keys = keysByReader.get(key.readerKey);
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * The number of cached frequencies.
+     */
+    public int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    @Override
+    public void close() {
+        clear("close");
+    }
+
+    public void clear(String reason) {
+        logger.debug("clearing all background frequencies because [{}]", reason);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    static final class Key {
+        final IndexReader.CacheKey readerKey;
+        @Nullable
+        final Query filter;
+        @Nullable
+        final Object term;
+
+        Key(IndexReader.CacheKey readerKey, @Nullable Query filter, @Nullable Object term) {
+            assert term == null || term instanceof Term || term instanceof Query;
+            this.readerKey = readerKey;
+            this.filter = filter;
+            this.term = term;
+        }
+
+        /**
+         * Returns a copy of this key that does not share the bytes of the term, the caller may reuse them.
+         */
+        Key deepCopy() {
+            if (term instanceof Term) {
+                final Term t = (Term) term;
+                return new Key(readerKey, filter, new Term(t.field(), BytesRef.deepCopyOf(t.bytes())));
+            }
+            return this;
+        }
+
+        long ramBytesUsed() {
+            return BASE_RAM_BYTES_PER_ENTRY + (term instanceof Term ? ((Term) term).bytes().length : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return readerKey == key.readerKey &&
+                Objects.equals(filter, key.filter) &&
+                Objects.equals(term, key.term);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(readerKey, filter, term);
+        }
+    }
+}
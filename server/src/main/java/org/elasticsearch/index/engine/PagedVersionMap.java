@@ -0,0 +1,265 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A map from _uid to {@link IndexVersionValue} with a primitive, paged layout, used by {@link LiveVersionMap} for indices
+ * that keep many unrefreshed documents in the version map.
+ * <p>
+ * Instead of one {@link BytesRef} key and one {@link VersionValue} per document, which add up to millions of small objects
+ * that survive until the next refresh, uids are stored in a {@link BytesRefHash} (open addressing over cached uid hashes
+ * with the uid bytes appended to a paged byte array) and the version, seqNo, term and translog location of each uid are
+ * stored in parallel paged arrays indexed by the id the hash assigned to the uid. Values are materialized into short-lived
+ * {@link IndexVersionValue} instances on lookup.
+ * <p>
+ * Removing a uid only clears its state; the uid bytes stay in the hash until the map is discarded, which happens on the next
+ * refresh. The map is split into stripes, selected by the uid hash, that are each guarded by their own monitor so that
+ * indexing threads working on different uids rarely contend.
+ * <p>
+ * The arrays are allocated through {@link BigArrays#NON_RECYCLING_INSTANCE}: lookups may still read a map after the
+ * {@link LiveVersionMap} swapped it out on refresh, so its pages must not be handed to another user. The memory is reported
+ * through {@link #ramBytesUsed()} and accounted as indexing buffer by the {@link org.elasticsearch.indices.IndexingMemoryController}.
+ */
+final class PagedVersionMap implements Accountable, Releasable {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PagedVersionMap.class);
+
+    // number of stripes, must be a power of two
+    static final int NUMBER_OF_STRIPES = 16;
+
+    // the states of a slot
+    private static final byte REMOVED = 0;
+    private static final byte PRESENT = 1;
+    private static final byte PRESENT_WITH_LOCATION = 2;
+
+    private final Stripe[] stripes;
+    private final AtomicInteger size = new AtomicInteger();
+
+    PagedVersionMap() {
+        this(BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    PagedVersionMap(BigArrays bigArrays) {
+        stripes = new Stripe[NUMBER_OF_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(bigArrays);
+        }
+    }
+
+    private Stripe stripe(int hash) {
+        // the hash table of the stripe consumes the low bits of the hash
+        return stripes[(hash >>> 28) & (NUMBER_OF_STRIPES - 1)];
+    }
+
+    /**
+     * Returns the value mapped to the given uid or null if there is none.
+     */
+    IndexVersionValue get(BytesRef uid) {
+        final int hash = uid.hashCode();
+        return stripe(hash).get(uid, hash);
+    }
+
+    /**
+     * Maps the given uid to the given value, returning the value that was previously mapped to the uid or null.
+     */
+    IndexVersionValue put(BytesRef uid, IndexVersionValue value) {
+        final int hash = uid.hashCode();
+        final IndexVersionValue previous = stripe(hash).put(uid, hash, value);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the value mapped to the given uid, returning it or null if there was none.
+     */
+    IndexVersionValue remove(BytesRef uid) {
+        final int hash = uid.hashCode();
+        final IndexVersionValue previous = stripe(hash).remove(uid, hash);
+        if (previous != null) {
+            size.decrementAndGet();
+        }
+        return previous;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Materializes the current content of the map. Each stripe is copied atomically, but the map as a whole is not.
+     */
+    Map<BytesRef, VersionValue> snapshot() {
+        final Map<BytesRef, VersionValue> snapshot = new HashMap<>(size());
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(snapshot);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = BASE_RAM_BYTES_USED;
+        for (Stripe stripe : stripes) {
+            ramBytesUsed += stripe.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(stripes);
+    }
+
+    private static final class Stripe implements Releasable {
+
+        private static final long INITIAL_CAPACITY = 16;
+
+        private final BigArrays bigArrays;
+        private final BytesRefHash uids;
+        private ByteArray states;
+        private LongArray versions;
+        private LongArray seqNos;
+        private LongArray terms;
+        private LongArray locationGenerations;
+        private LongArray locationOffsets;
+        private IntArray locationSizes;
+
+        Stripe(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            this.uids = new BytesRefHash(INITIAL_CAPACITY, bigArrays);
+            this.states = bigArrays.newByteArray(INITIAL_CAPACITY, false);
+            this.versions = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.seqNos = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.terms = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.locationGenerations = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.locationOffsets = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.locationSizes = bigArrays.newIntArray(INITIAL_CAPACITY, false);
+        }
+
+        synchronized IndexVersionValue get(BytesRef uid, int hash) {
+            final long id = uids.find(uid, hash);
+            return id < 0 ? null : read(id);
+        }
+
+        synchronized IndexVersionValue put(BytesRef uid, int hash, IndexVersionValue value) {
+            long id = uids.add(uid, hash);
+            final IndexVersionValue previous;
+            if (id < 0) {
+                id = -1 - id;
+                previous = read(id);
+            } else {
+                previous = null;
+                grow(id + 1);
+            }
+            versions.set(id, value.version);
+            seqNos.set(id, value.seqNo);
+            terms.set(id, value.term);
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                states.set(id, PRESENT);
+            } else {
+                states.set(id, PRESENT_WITH_LOCATION);
+                locationGenerations.set(id, location.generation);
+                locationOffsets.set(id, location.translogLocation);
+                locationSizes.set(id, location.size);
+            }
+            return previous;
+        }
+
+        synchronized IndexVersionValue remove(BytesRef uid, int hash) {
+            final long id = uids.find(uid, hash);
+            if (id < 0) {
+                return null;
+            }
+            final IndexVersionValue previous = read(id);
+            states.set(id, REMOVED);
+            return previous;
+        }
+
+        synchronized void copyTo(Map<BytesRef, VersionValue> map) {
+            for (long id = 0; id < uids.size(); id++) {
+                final IndexVersionValue value = read(id);
+                if (value != null) {
+                    map.put(BytesRef.deepCopyOf(uids.get(id, new BytesRef())), value);
+                }
+            }
+        }
+
+        synchronized long ramBytesUsed() {
+            return uids.ramBytesUsed() + states.ramBytesUsed() + versions.ramBytesUsed() + seqNos.ramBytesUsed() +
+                terms.ramBytesUsed() + locationGenerations.ramBytesUsed() + locationOffsets.ramBytesUsed() +
+                locationSizes.ramBytesUsed();
+        }
+
+        private IndexVersionValue read(long id) {
+            final byte state = states.get(id);
+            if (state == REMOVED) {
+                return null;
+            }
+            final Translog.Location location = state == PRESENT_WITH_LOCATION ?
+                new Translog.Location(locationGenerations.get(id), locationOffsets.get(id), locationSizes.get(id)) : null;
+            return new IndexVersionValue(location, versions.get(id), seqNos.get(id), terms.get(id));
+        }
+
+        private void grow(long minSize) {
+            states = bigArrays.grow(states, minSize);
+            versions = bigArrays.grow(versions, minSize);
+            seqNos = bigArrays.grow(seqNos, minSize);
+            terms = bigArrays.grow(terms, minSize);
+            locationGenerations = bigArrays.grow(locationGenerations, minSize);
+            locationOffsets = bigArrays.grow(locationOffsets, minSize);
+            locationSizes = bigArrays.grow(locationSizes, minSize);
+        }
+
+        @Override
+        public synchronized void close() {
+            Releasables.close(uids, states, versions, seqNos, terms, locationGenerations, locationOffsets, locationSizes);
+        }
+    }
+}
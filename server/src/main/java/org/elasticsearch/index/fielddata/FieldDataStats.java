@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -42,15 +43,21 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
     long evictions;
     @Nullable
     FieldMemoryStats fields;
+    GlobalOrdinalsStats globalOrdinals = new GlobalOrdinalsStats();
 
     public FieldDataStats() {
 
     }
 
     public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields) {
+        this(memorySize, evictions, fields, new GlobalOrdinalsStats());
+    }
+
+    public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields, GlobalOrdinalsStats globalOrdinals) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.fields = fields;
+        this.globalOrdinals = globalOrdinals;
     }
 
     public void add(FieldDataStats stats) {
@@ -63,6 +70,7 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
                 fields.add(stats.fields);
             }
         }
+        this.globalOrdinals.add(stats.globalOrdinals);
     }
 
     public long getMemorySizeInBytes() {
@@ -82,11 +90,20 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         return fields;
     }
 
+    public GlobalOrdinalsStats getGlobalOrdinals() {
+        return globalOrdinals;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            globalOrdinals = new GlobalOrdinalsStats(in);
+        } else {
+            globalOrdinals = new GlobalOrdinalsStats();
+        }
     }
 
     @Override
@@ -94,6 +111,9 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            globalOrdinals.writeTo(out);
+        }
     }
 
     @Override
@@ -104,6 +124,7 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         if (fields != null) {
             fields.toXContent(builder, FIELDS, MEMORY_SIZE_IN_BYTES, MEMORY_SIZE);
         }
+        globalOrdinals.toXContent(builder, params);
         builder.endObject();
         return builder;
     }
@@ -115,11 +136,12 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         FieldDataStats that = (FieldDataStats) o;
         return memorySize == that.memorySize &&
             evictions == that.evictions &&
-            Objects.equals(fields, that.fields);
+            Objects.equals(fields, that.fields) &&
+            Objects.equals(globalOrdinals, that.globalOrdinals);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, fields);
+        return Objects.hash(memorySize, evictions, fields, globalOrdinals);
     }
 }
@@ -0,0 +1,248 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Statistics about the global ordinals that were built on a shard: how many times they were built, how many of these builds
+ * reused the global ordinals of the previous reader and how long the builds took. Per field statistics also include the
+ * size of the global ordinals that were built last.
+ */
+public final class GlobalOrdinalsStats implements Writeable, ToXContentFragment {
+
+    private static final String GLOBAL_ORDINALS = "global_ordinals";
+    private static final String BUILDS = "builds";
+    private static final String INCREMENTAL_BUILDS = "incremental_builds";
+    private static final String BUILD_TIME = "build_time";
+    private static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
+    private static final String LAST_SIZE = "last_size";
+    private static final String LAST_SIZE_IN_BYTES = "last_size_in_bytes";
+    private static final String FIELDS = "fields";
+
+    private long builds;
+    private long incrementalBuilds;
+    private long buildTimeInMillis;
+    @Nullable
+    private Map<String, FieldStats> fields;
+
+    public GlobalOrdinalsStats() {
+    }
+
+    public GlobalOrdinalsStats(long builds, long incrementalBuilds, long buildTimeInMillis, @Nullable Map<String, FieldStats> fields) {
+        this.builds = builds;
+        this.incrementalBuilds = incrementalBuilds;
+        this.buildTimeInMillis = buildTimeInMillis;
+        this.fields = fields;
+    }
+
+    public GlobalOrdinalsStats(StreamInput in) throws IOException {
+        builds = in.readVLong();
+        incrementalBuilds = in.readVLong();
+        buildTimeInMillis = in.readVLong();
+        if (in.readBoolean()) {
+            fields = in.readMap(StreamInput::readString, FieldStats::new);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(builds);
+        out.writeVLong(incrementalBuilds);
+        out.writeVLong(buildTimeInMillis);
+        out.writeBoolean(fields != null);
+        if (fields != null) {
+            out.writeMap(fields, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+        }
+    }
+
+    public void add(GlobalOrdinalsStats stats) {
+        builds += stats.builds;
+        incrementalBuilds += stats.incrementalBuilds;
+        buildTimeInMillis += stats.buildTimeInMillis;
+        if (stats.fields != null) {
+            if (fields == null) {
+                fields = new HashMap<>();
+            }
+            for (Map.Entry<String, FieldStats> entry : stats.fields.entrySet()) {
+                fields.merge(entry.getKey(), entry.getValue(), FieldStats::merge);
+            }
+        }
+    }
+
+    /**
+     * The number of times global ordinals were built.
+     */
+    public long getBuilds() {
+        return builds;
+    }
+
+    /**
+     * The number of times global ordinals were built incrementally from the global ordinals of a previous reader.
+     */
+    public long getIncrementalBuilds() {
+        return incrementalBuilds;
+    }
+
+    /**
+     * The total time spent building global ordinals.
+     */
+    public TimeValue getBuildTime() {
+        return new TimeValue(buildTimeInMillis);
+    }
+
+    public long getBuildTimeInMillis() {
+        return buildTimeInMillis;
+    }
+
+    @Nullable
+    public Map<String, FieldStats> getFields() {
+        return fields;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(GLOBAL_ORDINALS);
+        builder.field(BUILDS, builds);
+        builder.field(INCREMENTAL_BUILDS, incrementalBuilds);
+        builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, getBuildTime());
+        if (fields != null) {
+            builder.startObject(FIELDS);
+            for (Map.Entry<String, FieldStats> entry : fields.entrySet()) {
+                builder.startObject(entry.getKey());
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GlobalOrdinalsStats that = (GlobalOrdinalsStats) o;
+        return builds == that.builds &&
+            incrementalBuilds == that.incrementalBuilds &&
+            buildTimeInMillis == that.buildTimeInMillis &&
+            Objects.equals(fields, that.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(builds, incrementalBuilds, buildTimeInMillis, fields);
+    }
+
+    /**
+     * Global ordinals statistics of a single field.
+     */
+    public static final class FieldStats implements Writeable, ToXContentFragment {
+
+        private final long builds;
+        private final long incrementalBuilds;
+        private final long buildTimeInMillis;
+        private final long lastSizeInBytes;
+
+        public FieldStats(long builds, long incrementalBuilds, long buildTimeInMillis, long lastSizeInBytes) {
+            this.builds = builds;
+            this.incrementalBuilds = incrementalBuilds;
+            this.buildTimeInMillis = buildTimeInMillis;
+            this.lastSizeInBytes = lastSizeInBytes;
+        }
+
+        public FieldStats(StreamInput in) throws IOException {
+            builds = in.readVLong();
+            incrementalBuilds = in.readVLong();
+            buildTimeInMillis = in.readVLong();
+            lastSizeInBytes = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(builds);
+            out.writeVLong(incrementalBuilds);
+            out.writeVLong(buildTimeInMillis);
+            out.writeVLong(lastSizeInBytes);
+        }
+
+        static FieldStats merge(FieldStats a, FieldStats b) {
+            return new FieldStats(a.builds + b.builds, a.incrementalBuilds + b.incrementalBuilds,
+                a.buildTimeInMillis + b.buildTimeInMillis, a.lastSizeInBytes + b.lastSizeInBytes);
+        }
+
+        public long getBuilds() {
+            return builds;
+        }
+
+        public long getIncrementalBuilds() {
+            return incrementalBuilds;
+        }
+
+        public long getBuildTimeInMillis() {
+            return buildTimeInMillis;
+        }
+
+        /**
+         * The size of the global ordinals that were built last, summed up over shards.
+         */
+        public long getLastSizeInBytes() {
+            return lastSizeInBytes;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(BUILDS, builds);
+            builder.field(INCREMENTAL_BUILDS, incrementalBuilds);
+            builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, new TimeValue(buildTimeInMillis));
+            builder.humanReadableField(LAST_SIZE_IN_BYTES, LAST_SIZE, new ByteSizeValue(lastSizeInBytes));
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FieldStats that = (FieldStats) o;
+            return builds == that.builds &&
+                incrementalBuilds == that.incrementalBuilds &&
+                buildTimeInMillis == that.buildTimeInMillis &&
+                lastSizeInBytes == that.lastSizeInBytes;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(builds, incrementalBuilds, buildTimeInMillis, lastSizeInBytes);
+        }
+    }
+}
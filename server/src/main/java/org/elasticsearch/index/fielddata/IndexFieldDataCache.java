@@ -22,6 +22,8 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
 import org.elasticsearch.index.shard.ShardId;
 
 /**
@@ -44,6 +46,27 @@ public interface IndexFieldDataCache {
      */
     void clear(String fieldName);
 
+    /**
+     * Returns the global ordinals map that was last built for the given shard, or <code>null</code> if there is none.
+     */
+    default GlobalOrdinalMap getLastGlobalOrdinalMap(ShardId shardId) {
+        return null;
+    }
+
+    /**
+     * Keeps the global ordinals map that was last built for the given shard so that the global ordinals of the next
+     * reader of the shard can be built incrementally. Once the global ordinals that the map was built for are no longer
+     * cached the map is accounted for in the given breaker for as long as it is kept.
+     */
+    default void setLastGlobalOrdinalMap(ShardId shardId, GlobalOrdinalMap ordinalMap, CircuitBreaker breaker) {
+    }
+
+    /**
+     * Clears the state that is kept for the given shard, called once the shard is closed.
+     */
+    default void clear(ShardId shardId) {
+    }
+
     interface Listener {
 
         /**
@@ -42,6 +42,8 @@ import java.util.Map;
 public class IndexFieldDataService extends AbstractIndexComponent implements Closeable {
     public static final String FIELDDATA_CACHE_VALUE_NODE = "node";
     public static final String FIELDDATA_CACHE_KEY = "index.fielddata.cache";
+    public static final Setting<Boolean> INDEX_GLOBAL_ORDINALS_INCREMENTAL =
+        Setting.boolSetting("index.fielddata.global_ordinals.incremental", false, Property.IndexScope, Property.Dynamic);
     public static final Setting<String> INDEX_FIELDDATA_CACHE_KEY =
         new Setting<>(FIELDDATA_CACHE_KEY, (s) -> FIELDDATA_CACHE_VALUE_NODE, (s) -> {
             switch (s) {
@@ -106,6 +108,21 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
         ExceptionsHelper.maybeThrowRuntimeAndSuppress(exceptions);
     }
 
+    /**
+     * Clears the state that the field data caches keep for the given shard, called once the shard is closed.
+     */
+    public synchronized void clearShard(final ShardId shardId) {
+        List<Exception> exceptions = new ArrayList<>(0);
+        for (IndexFieldDataCache cache : fieldDataCaches.values()) {
+            try {
+                cache.clear(shardId);
+            } catch (Exception e) {
+                exceptions.add(e);
+            }
+        }
+        ExceptionsHelper.maybeThrowRuntimeAndSuppress(exceptions);
+    }
+
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return getForField(fieldType, index().getName());
     }
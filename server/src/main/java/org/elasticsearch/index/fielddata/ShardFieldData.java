@@ -25,19 +25,25 @@ import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 public class ShardFieldData implements IndexFieldDataCache.Listener {
 
     private final CounterMetric evictionsMetric = new CounterMetric();
     private final CounterMetric totalMetric = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
+    private final GlobalOrdinalsMetrics globalOrdinalsMetrics = new GlobalOrdinalsMetrics();
+    private final ConcurrentMap<String, GlobalOrdinalsMetrics> perFieldGlobalOrdinalsMetrics = ConcurrentCollections.newConcurrentMap();
 
     public FieldDataStats stats(String... fields) {
         ObjectLongHashMap<String> fieldTotals = null;
+        Map<String, GlobalOrdinalsStats.FieldStats> globalOrdinalsFields = null;
         if (fields != null && fields.length > 0) {
             fieldTotals = new ObjectLongHashMap<>();
             for (Map.Entry<String, CounterMetric> entry : perFieldTotals.entrySet()) {
@@ -45,9 +51,18 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
                     fieldTotals.put(entry.getKey(), entry.getValue().count());
                 }
             }
+            globalOrdinalsFields = new HashMap<>();
+            for (Map.Entry<String, GlobalOrdinalsMetrics> entry : perFieldGlobalOrdinalsMetrics.entrySet()) {
+                if (Regex.simpleMatch(fields, entry.getKey())) {
+                    globalOrdinalsFields.put(entry.getKey(), entry.getValue().fieldStats());
+                }
+            }
         }
+        final GlobalOrdinalsStats globalOrdinalsStats = new GlobalOrdinalsStats(globalOrdinalsMetrics.builds.count(),
+            globalOrdinalsMetrics.incrementalBuilds.count(), TimeUnit.NANOSECONDS.toMillis(globalOrdinalsMetrics.buildTime.count()),
+            globalOrdinalsFields);
         return new FieldDataStats(totalMetric.count(), evictionsMetric.count(), fieldTotals == null ? null :
-            new FieldMemoryStats(fieldTotals));
+            new FieldMemoryStats(fieldTotals), globalOrdinalsStats);
     }
 
     @Override
@@ -64,6 +79,11 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
                 prev.inc(ramUsage.ramBytesUsed());
             }
         }
+        if (ramUsage instanceof GlobalOrdinalsIndexFieldData) {
+            final GlobalOrdinalsIndexFieldData globalOrdinals = (GlobalOrdinalsIndexFieldData) ramUsage;
+            globalOrdinalsMetrics.onBuild(globalOrdinals);
+            perFieldGlobalOrdinalsMetrics.computeIfAbsent(fieldName, k -> new GlobalOrdinalsMetrics()).onBuild(globalOrdinals);
+        }
     }
 
     @Override
@@ -80,4 +100,25 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             }
         }
     }
+
+    private static final class GlobalOrdinalsMetrics {
+        final CounterMetric builds = new CounterMetric();
+        final CounterMetric incrementalBuilds = new CounterMetric();
+        final CounterMetric buildTime = new CounterMetric();
+        volatile long lastSizeInBytes;
+
+        void onBuild(GlobalOrdinalsIndexFieldData globalOrdinals) {
+            builds.inc();
+            if (globalOrdinals.isIncrementalBuild()) {
+                incrementalBuilds.inc();
+            }
+            buildTime.inc(globalOrdinals.getBuildTimeInNanos());
+            lastSizeInBytes = globalOrdinals.ramBytesUsed();
+        }
+
+        GlobalOrdinalsStats.FieldStats fieldStats() {
+            return new GlobalOrdinalsStats.FieldStats(builds.count(), incrementalBuilds.count(),
+                TimeUnit.NANOSECONDS.toMillis(buildTime.count()), lastSizeInBytes);
+        }
+    }
 }
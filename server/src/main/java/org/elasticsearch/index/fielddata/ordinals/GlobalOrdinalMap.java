@@ -0,0 +1,210 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.common.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Maps the ordinals of the segments of a reader to global ordinals. This is either a view of a Lucene {@link OrdinalMap}, or a map
+ * that was built incrementally from the map of a previous reader of the same shard by {@link GlobalOrdinalsBuilder}.
+ * <p>
+ * The map remembers the core cache key and the number of ordinals of every segment so that the mapping of the segments that
+ * are still part of the next reader can be reused.
+ */
+public abstract class GlobalOrdinalMap implements Accountable {
+
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final long[] segmentValueCounts;
+
+    GlobalOrdinalMap(IndexReader.CacheKey[] segmentKeys, long[] segmentValueCounts) {
+        assert segmentKeys.length == segmentValueCounts.length;
+        this.segmentKeys = segmentKeys;
+        this.segmentValueCounts = segmentValueCounts;
+    }
+
+    /**
+     * Wraps the given Lucene {@link OrdinalMap}.
+     */
+    static GlobalOrdinalMap wrap(OrdinalMap ordinalMap, IndexReader.CacheKey[] segmentKeys, long[] segmentValueCounts) {
+        return new LuceneGlobalOrdinalMap(ordinalMap, segmentKeys, segmentValueCounts);
+    }
+
+    /**
+     * Returns the mapping from the ordinals of the segment at the given index to global ordinals.
+     */
+    public abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * Returns the ordinal of the given global ordinal in the first segment that contains it.
+     */
+    public abstract long getFirstSegmentOrd(long globalOrd);
+
+    /**
+     * Returns the index of the first segment that contains the given global ordinal.
+     */
+    public abstract int getFirstSegmentNumber(long globalOrd);
+
+    /**
+     * Returns the total number of unique terms in the global ordinal space.
+     */
+    public abstract long getValueCount();
+
+    /**
+     * Returns the Lucene {@link OrdinalMap} this map is a view of, or <code>null</code> if this map was built incrementally.
+     */
+    @Nullable
+    public abstract OrdinalMap getOrdinalMap();
+
+    /**
+     * Returns the number of segments.
+     */
+    public int getSegmentCount() {
+        return segmentKeys.length;
+    }
+
+    /**
+     * Returns the core cache key of the segment at the given index, or <code>null</code> if the segment doesn't support caching.
+     */
+    @Nullable
+    IndexReader.CacheKey getSegmentKey(int segmentIndex) {
+        return segmentKeys[segmentIndex];
+    }
+
+    /**
+     * Returns the number of ordinals of the segment at the given index.
+     */
+    long getSegmentValueCount(int segmentIndex) {
+        return segmentValueCounts[segmentIndex];
+    }
+
+    long shallowRamBytesUsed() {
+        return RamUsageEstimator.shallowSizeOf(segmentKeys) + RamUsageEstimator.sizeOf(segmentValueCounts);
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    private static final class LuceneGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private final OrdinalMap ordinalMap;
+
+        private LuceneGlobalOrdinalMap(OrdinalMap ordinalMap, IndexReader.CacheKey[] segmentKeys, long[] segmentValueCounts) {
+            super(segmentKeys, segmentValueCounts);
+            this.ordinalMap = ordinalMap;
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return ordinalMap.getFirstSegmentOrd(globalOrd);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return ordinalMap.getFirstSegmentNumber(globalOrd);
+        }
+
+        @Override
+        public long getValueCount() {
+            return ordinalMap.getValueCount();
+        }
+
+        @Override
+        public OrdinalMap getOrdinalMap() {
+            return ordinalMap;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ordinalMap.ramBytesUsed() + shallowRamBytesUsed();
+        }
+    }
+
+    /**
+     * A map that was built incrementally, it stores the same information as an {@link OrdinalMap}.
+     */
+    static final class IncrementalGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private final LongValues[] segmentToGlobalOrds;
+        private final PackedLongValues firstSegments;
+        private final PackedLongValues globalOrdDeltas;
+        private final long ramBytesUsed;
+
+        IncrementalGlobalOrdinalMap(IndexReader.CacheKey[] segmentKeys, long[] segmentValueCounts,
+                                    PackedLongValues[] segmentToGlobalOrds, PackedLongValues firstSegments,
+                                    PackedLongValues globalOrdDeltas) {
+            super(segmentKeys, segmentValueCounts);
+            this.segmentToGlobalOrds = segmentToGlobalOrds;
+            this.firstSegments = firstSegments;
+            this.globalOrdDeltas = globalOrdDeltas;
+            long ramBytesUsed = shallowRamBytesUsed() + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds)
+                + firstSegments.ramBytesUsed() + globalOrdDeltas.ramBytesUsed();
+            for (PackedLongValues values : segmentToGlobalOrds) {
+                ramBytesUsed += values.ramBytesUsed();
+            }
+            this.ramBytesUsed = ramBytesUsed;
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return segmentToGlobalOrds[segmentIndex];
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return globalOrd - globalOrdDeltas.get(globalOrd);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return (int) firstSegments.get(globalOrd);
+        }
+
+        @Override
+        public long getValueCount() {
+            return globalOrdDeltas.size();
+        }
+
+        @Override
+        public OrdinalMap getOrdinalMap() {
+            return null;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ramBytesUsed;
+        }
+    }
+}
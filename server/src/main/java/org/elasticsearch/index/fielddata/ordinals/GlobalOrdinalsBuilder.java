@@ -21,23 +21,39 @@ package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.PriorityQueue;
 import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardUtils;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -53,32 +69,307 @@ public enum GlobalOrdinalsBuilder {
     public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
             IndexSettings indexSettings, CircuitBreakerService breakerService, Logger logger,
             Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) throws IOException {
+        return build(indexReader, indexFieldData, indexSettings, breakerService, logger, scriptFunction, new IndexFieldDataCache.None());
+    }
+
+    /**
+     * Build global ordinals for the provided {@link IndexReader}. If {@link IndexFieldDataService#INDEX_GLOBAL_ORDINALS_INCREMENTAL}
+     * is enabled the global ordinals are built incrementally from the map that was last built for the same shard, which is kept
+     * in the given cache: the mapping of the segments that are still part of the reader is reused and only the terms of new
+     * segments are merged in.
+     */
+    public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
+            IndexSettings indexSettings, CircuitBreakerService breakerService, Logger logger,
+            Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction, IndexFieldDataCache cache) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
+        final long[] segmentValueCounts = new long[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
-            atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
+            final LeafReaderContext context = indexReader.leaves().get(i);
+            atomicFD[i] = indexFieldData.load(context);
             subs[i] = atomicFD[i].getOrdinalsValues();
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            segmentKeys[i] = cacheHelper == null ? null : cacheHelper.getKey();
+            segmentValueCounts[i] = subs[i].getValueCount();
+        }
+        final ShardId shardId = indexSettings.getValue(IndexFieldDataService.INDEX_GLOBAL_ORDINALS_INCREMENTAL)
+            && indexReader instanceof DirectoryReader ? ShardUtils.extractShardId((DirectoryReader) indexReader) : null;
+        GlobalOrdinalMap ordinalMap = null;
+        if (shardId != null) {
+            final GlobalOrdinalMap previous = cache.getLastGlobalOrdinalMap(shardId);
+            if (previous != null) {
+                ordinalMap = buildIncremental(previous, subs, segmentKeys, segmentValueCounts);
+            }
+        }
+        final boolean incrementalBuild = ordinalMap != null;
+        if (ordinalMap == null) {
+            ordinalMap = GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs, PackedInts.DEFAULT), segmentKeys, segmentValueCounts);
+        }
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA);
+        if (shardId != null) {
+            cache.setLastGlobalOrdinalMap(shardId, ordinalMap, breaker);
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
-        breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
+        breaker.addWithoutBreaking(memorySizeInBytes);
+        final long buildTimeInNanos = System.nanoTime() - startTimeNS;
 
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "global-ordinals [{}][{}] took [{}]",
+                    "global-ordinals [{}][{}] took [{}]{}",
                     indexFieldData.getFieldName(),
                     ordinalMap.getValueCount(),
-                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                    new TimeValue(buildTimeInNanos, TimeUnit.NANOSECONDS),
+                    incrementalBuild ? " (incremental)" : ""
             );
         }
         return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, memorySizeInBytes, scriptFunction
+                atomicFD, ordinalMap, memorySizeInBytes, scriptFunction, incrementalBuild, buildTimeInNanos, breaker
         );
     }
 
+    /**
+     * Builds the map of the given segments from the map of a previous reader. The segment to global ordinals mapping of the
+     * segments that were part of the previous reader is reused: the global ordinals that are still used by these segments are
+     * walked in order, comparing integers only, and merged with the terms of the new segments, so only the terms of the new
+     * segments need to be compared with each other. Returns <code>null</code> if no segment can be reused.
+     */
+    static GlobalOrdinalMap buildIncremental(GlobalOrdinalMap previous, SortedSetDocValues[] subs,
+                                             IndexReader.CacheKey[] segmentKeys, long[] segmentValueCounts) throws IOException {
+        final Map<IndexReader.CacheKey, Integer> previousSegments = new HashMap<>();
+        for (int i = 0; i < previous.getSegmentCount(); i++) {
+            if (previous.getSegmentKey(i) != null) {
+                previousSegments.put(previous.getSegmentKey(i), i);
+            }
+        }
+        final PriorityQueue<ReusedSegment> reusedSegments = new PriorityQueue<ReusedSegment>(subs.length) {
+            @Override
+            protected boolean lessThan(ReusedSegment a, ReusedSegment b) {
+                return a.previousGlobalOrd < b.previousGlobalOrd;
+            }
+        };
+        final List<TermsEnumSource> newSegments = new ArrayList<>();
+        boolean reused = false;
+        for (int i = 0; i < subs.length; i++) {
+            final Integer previousIndex = segmentKeys[i] == null ? null : previousSegments.get(segmentKeys[i]);
+            if (previousIndex != null && previous.getSegmentValueCount(previousIndex) == segmentValueCounts[i]) {
+                reused = true;
+                if (segmentValueCounts[i] > 0) {
+                    reusedSegments.add(new ReusedSegment(i, previous.getGlobalOrds(previousIndex), segmentValueCounts[i]));
+                }
+            } else {
+                newSegments.add(new TermsEnumSource(i, subs[i].termsEnum()));
+            }
+        }
+        if (reused == false) {
+            return null;
+        }
+
+        final PackedLongValues.Builder[] segmentToGlobalOrds = new PackedLongValues.Builder[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            segmentToGlobalOrds[i] = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        }
+        final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        long globalOrd = 0;
+        if (newSegments.isEmpty()) {
+            // segments were only removed, so the remaining global ordinals just need to be compacted
+            while (reusedSegments.size() > 0) {
+                final ReusedSegment top = reusedSegments.top();
+                firstSegments.add(top.segment);
+                globalOrdDeltas.add(globalOrd - top.ord);
+                collectReusedSegments(reusedSegments, segmentToGlobalOrds, globalOrd++);
+            }
+        } else {
+            final PriorityQueue<Source> sources = new PriorityQueue<Source>(newSegments.size() + 1) {
+                @Override
+                protected boolean lessThan(Source a, Source b) {
+                    return a.term.compareTo(b.term) < 0;
+                }
+            };
+            if (reusedSegments.size() > 0) {
+                final ReusedSegmentsSource source = new ReusedSegmentsSource(reusedSegments, subs, segmentToGlobalOrds);
+                if (source.next()) {
+                    sources.add(source);
+                }
+            }
+            for (TermsEnumSource source : newSegments) {
+                source.segmentToGlobalOrds = segmentToGlobalOrds[source.segment];
+                if (source.next()) {
+                    sources.add(source);
+                }
+            }
+            final BytesRefBuilder scratch = new BytesRefBuilder();
+            while (sources.size() > 0) {
+                Source top = sources.top();
+                firstSegments.add(top.segment());
+                globalOrdDeltas.add(globalOrd - top.ord());
+                scratch.copyBytes(top.term);
+                do {
+                    top.collect(globalOrd);
+                    if (top.next()) {
+                        sources.updateTop();
+                    } else {
+                        sources.pop();
+                    }
+                    top = sources.top();
+                } while (top != null && top.term.bytesEquals(scratch.get()));
+                globalOrd++;
+            }
+        }
+
+        final PackedLongValues[] mappings = new PackedLongValues[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            mappings[i] = segmentToGlobalOrds[i].build();
+            assert mappings[i].size() == segmentValueCounts[i];
+        }
+        return new GlobalOrdinalMap.IncrementalGlobalOrdinalMap(segmentKeys, segmentValueCounts, mappings, firstSegments.build(),
+            globalOrdDeltas.build());
+    }
+
+    /**
+     * Maps all segment ordinals of the reused segments that had the same global ordinal as the top of the given queue
+     * to the given global ordinal.
+     */
+    private static void collectReusedSegments(PriorityQueue<ReusedSegment> reusedSegments,
+                                              PackedLongValues.Builder[] segmentToGlobalOrds, long globalOrd) {
+        final long previousGlobalOrd = reusedSegments.top().previousGlobalOrd;
+        do {
+            final ReusedSegment top = reusedSegments.top();
+            segmentToGlobalOrds[top.segment].add(globalOrd);
+            if (top.next()) {
+                reusedSegments.updateTop();
+            } else {
+                reusedSegments.pop();
+            }
+        } while (reusedSegments.size() > 0 && reusedSegments.top().previousGlobalOrd == previousGlobalOrd);
+    }
+
+    /**
+     * Walks the ordinals of a segment that was part of the previous reader in order, along with their previous global ordinal.
+     */
+    private static final class ReusedSegment {
+        final int segment;
+        final LongValues toPreviousGlobalOrds;
+        final long valueCount;
+        long ord;
+        long previousGlobalOrd;
+
+        ReusedSegment(int segment, LongValues toPreviousGlobalOrds, long valueCount) {
+            this.segment = segment;
+            this.toPreviousGlobalOrds = toPreviousGlobalOrds;
+            this.valueCount = valueCount;
+            this.previousGlobalOrd = toPreviousGlobalOrds.get(0);
+        }
+
+        boolean next() {
+            if (++ord == valueCount) {
+                return false;
+            }
+            previousGlobalOrd = toPreviousGlobalOrds.get(ord);
+            return true;
+        }
+    }
+
+    /**
+     * A sorted stream of terms that is merged into the global ordinals.
+     */
+    private abstract static class Source {
+        BytesRef term;
+
+        /** Moves to the next term, returns false if there are no more terms */
+        abstract boolean next() throws IOException;
+
+        /** The segment of the current term */
+        abstract int segment();
+
+        /** The ordinal of the current term in its segment */
+        abstract long ord() throws IOException;
+
+        /** Maps the current term to the given global ordinal */
+        abstract void collect(long globalOrd);
+    }
+
+    private static final class TermsEnumSource extends Source {
+        final int segment;
+        final TermsEnum termsEnum;
+        PackedLongValues.Builder segmentToGlobalOrds;
+
+        TermsEnumSource(int segment, TermsEnum termsEnum) {
+            this.segment = segment;
+            this.termsEnum = termsEnum;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            term = termsEnum.next();
+            return term != null;
+        }
+
+        @Override
+        int segment() {
+            return segment;
+        }
+
+        @Override
+        long ord() throws IOException {
+            return termsEnum.ord();
+        }
+
+        @Override
+        void collect(long globalOrd) {
+            segmentToGlobalOrds.add(globalOrd);
+        }
+    }
+
+    /**
+     * The terms of the reused segments in the order of their previous global ordinals, which is the order of the terms.
+     */
+    private static final class ReusedSegmentsSource extends Source {
+        final PriorityQueue<ReusedSegment> reusedSegments;
+        final SortedSetDocValues[] subs;
+        final PackedLongValues.Builder[] segmentToGlobalOrds;
+        int segment;
+        long ord;
+
+        ReusedSegmentsSource(PriorityQueue<ReusedSegment> reusedSegments, SortedSetDocValues[] subs,
+                             PackedLongValues.Builder[] segmentToGlobalOrds) {
+            this.reusedSegments = reusedSegments;
+            this.subs = subs;
+            this.segmentToGlobalOrds = segmentToGlobalOrds;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (reusedSegments.size() == 0) {
+                return false;
+            }
+            final ReusedSegment top = reusedSegments.top();
+            segment = top.segment;
+            ord = top.ord;
+            term = subs[segment].lookupOrd(ord);
+            return true;
+        }
+
+        @Override
+        int segment() {
+            return segment;
+        }
+
+        @Override
+        long ord() {
+            return ord;
+        }
+
+        @Override
+        void collect(long globalOrd) {
+            collectReusedSegments(reusedSegments, segmentToGlobalOrds, globalOrd);
+        }
+    }
+
     public static IndexOrdinalsFieldData buildEmpty(IndexSettings indexSettings, final IndexReader indexReader,
             IndexOrdinalsFieldData indexFieldData) throws IOException {
         assert indexReader.leaves().size() > 1;
@@ -109,8 +400,9 @@ public enum GlobalOrdinalsBuilder {
             subs[i] = atomicFD[i].getOrdinalsValues();
         }
         final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
-        return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, 0, AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
+        return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(), atomicFD,
+                GlobalOrdinalMap.wrap(ordinalMap, new IndexReader.CacheKey[atomicFD.length], new long[atomicFD.length]), 0,
+                AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION, false, 0L, null
         );
     }
 
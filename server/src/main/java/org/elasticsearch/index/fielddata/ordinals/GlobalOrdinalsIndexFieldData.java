@@ -24,7 +24,10 @@ import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
@@ -35,6 +38,8 @@ import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
 import org.elasticsearch.search.MultiValueMode;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.function.Function;
@@ -47,14 +52,23 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
     private final String fieldName;
     private final long memorySizeInBytes;
 
-    private final OrdinalMap ordinalMap;
+    private final GlobalOrdinalMap ordinalMap;
     private final Atomic[] atomicReaders;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
-
-
-    protected GlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd,
-                                           OrdinalMap ordinalMap, long memorySizeInBytes, Function<SortedSetDocValues,
-                                           ScriptDocValues<?>> scriptFunction) {
+    private final boolean incrementalBuild;
+    private final long buildTimeInNanos;
+    @Nullable
+    private final CircuitBreaker breaker;
+    // lazily built for consumers that need a Lucene ordinal map if the map was built incrementally
+    private volatile OrdinalMap luceneOrdinalMap;
+    private long luceneOrdinalMapBytes;
+    private boolean released;
+
+
+    GlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd,
+                                 GlobalOrdinalMap ordinalMap, long memorySizeInBytes,
+                                 Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+                                 boolean incrementalBuild, long buildTimeInNanos, @Nullable CircuitBreaker breaker) {
         super(indexSettings);
         this.fieldName = fieldName;
         this.memorySizeInBytes = memorySizeInBytes;
@@ -64,6 +78,9 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
             atomicReaders[i] = new Atomic(segmentAfd[i], ordinalMap, i);
         }
         this.scriptFunction = scriptFunction;
+        this.incrementalBuild = incrementalBuild;
+        this.buildTimeInNanos = buildTimeInNanos;
+        this.breaker = breaker;
     }
 
     @Override
@@ -112,18 +129,87 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
         return atomicReaders[context.ord];
     }
 
+    /**
+     * Returns the Lucene {@link OrdinalMap} of these global ordinals. If they were built incrementally the map is built from
+     * scratch the first time it is requested and accounted for in the field data circuit breaker until {@link #release()} is called.
+     */
     @Override
     public OrdinalMap getOrdinalMap() {
+        final OrdinalMap map = ordinalMap.getOrdinalMap();
+        if (map != null) {
+            return map;
+        }
+        if (luceneOrdinalMap == null) {
+            synchronized (this) {
+                if (luceneOrdinalMap == null) {
+                    final SortedSetDocValues[] subs = new SortedSetDocValues[atomicReaders.length];
+                    for (int i = 0; i < subs.length; i++) {
+                        subs[i] = atomicReaders[i].afd.getOrdinalsValues();
+                    }
+                    final OrdinalMap built;
+                    try {
+                        built = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (breaker != null && released == false) {
+                        luceneOrdinalMapBytes = built.ramBytesUsed();
+                        breaker.addWithoutBreaking(luceneOrdinalMapBytes);
+                    }
+                    luceneOrdinalMap = built;
+                }
+            }
+        }
+        return luceneOrdinalMap;
+    }
+
+    /**
+     * Releases the Lucene {@link OrdinalMap} that was lazily built by {@link #getOrdinalMap()} from the field data circuit breaker.
+     * Called once these global ordinals are removed from the field data cache, which releases the rest of their memory.
+     */
+    public synchronized void release() {
+        if (released == false) {
+            released = true;
+            if (luceneOrdinalMapBytes != 0) {
+                breaker.addWithoutBreaking(-luceneOrdinalMapBytes);
+                luceneOrdinalMapBytes = 0;
+            }
+        }
+    }
+
+    @Override
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return ordinalMap.getGlobalOrds(segmentIndex);
+    }
+
+    /**
+     * Returns the map from segment to global ordinals.
+     */
+    public GlobalOrdinalMap getGlobalOrdinalMap() {
         return ordinalMap;
     }
 
+    /**
+     * Returns whether these global ordinals were built incrementally from the global ordinals of a previous reader.
+     */
+    public boolean isIncrementalBuild() {
+        return incrementalBuild;
+    }
+
+    /**
+     * Returns how long it took to build these global ordinals.
+     */
+    public long getBuildTimeInNanos() {
+        return buildTimeInNanos;
+    }
+
     private final class Atomic extends AbstractAtomicOrdinalsFieldData {
 
         private final AtomicOrdinalsFieldData afd;
-        private final OrdinalMap ordinalMap;
+        private final GlobalOrdinalMap ordinalMap;
         private final int segmentIndex;
 
-        private Atomic(AtomicOrdinalsFieldData afd, OrdinalMap ordinalMap, int segmentIndex) {
+        private Atomic(AtomicOrdinalsFieldData afd, GlobalOrdinalMap ordinalMap, int segmentIndex) {
             super(scriptFunction);
             this.afd = afd;
             this.ordinalMap = ordinalMap;
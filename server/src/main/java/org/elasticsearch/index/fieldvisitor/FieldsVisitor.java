@@ -192,6 +192,22 @@ public class FieldsVisitor extends StoredFieldVisitor {
         return fieldsValues != null ? fieldsValues : emptyMap();
     }
 
+    /**
+     * Resets the given visitor and copies the values that this visitor loaded from the stored fields of a document into it. This
+     * must be called before {@link #postProcess(MapperService)}, and the given visitor must load the same fields as this one.
+     */
+    public void copyTo(FieldsVisitor visitor) {
+        visitor.reset();
+        visitor.source = source;
+        visitor.type = type;
+        visitor.id = id;
+        for (Map.Entry<String, List<Object>> entry : fields().entrySet()) {
+            for (Object value : entry.getValue()) {
+                visitor.addValue(entry.getKey(), value);
+            }
+        }
+    }
+
     public void reset() {
         if (fieldsValues != null) fieldsValues.clear();
         source = null;
@@ -125,6 +125,7 @@ import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
@@ -167,6 +168,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.mapper.SourceToParse.source;
@@ -197,6 +199,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final Supplier<Sort> indexSortSupplier;
     // Package visible for testing
     final CircuitBreakerService circuitBreakerService;
+    private final TranslogSyncScheduler translogSyncScheduler;
 
     private final SearchOperationListener searchOperationListener;
 
@@ -273,7 +276,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             final List<IndexingOperationListener> listeners,
             final Runnable globalCheckpointSyncer,
             final RetentionLeaseSyncer retentionLeaseSyncer,
-            final CircuitBreakerService circuitBreakerService) throws IOException {
+            final CircuitBreakerService circuitBreakerService,
+            final TranslogSyncScheduler translogSyncScheduler) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -306,6 +310,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         state = IndexShardState.CREATED;
         this.path = path;
         this.circuitBreakerService = circuitBreakerService;
+        this.translogSyncScheduler = translogSyncScheduler;
         /* create engine config */
         logger.debug("state: [CREATED]");
 
@@ -381,6 +386,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return mapperService;
     }
 
+    public CircuitBreakerService circuitBreakerService() {
+        return circuitBreakerService;
+    }
+
     public SearchOperationListener getSearchOperationListener() {
         return this.searchOperationListener;
     }
@@ -1256,6 +1265,15 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         // fail the engine. This will cause this shard to also be removed from the node's index service.
         getEngine().failEngine(reason, e);
     }
+    /**
+     * Returns <code>true</code> if the searchers of this shard are wrapped by an {@link IndexSearcherWrapper}. Wrapped readers may hide
+     * documents or fields per request but share the cache keys of the readers they wrap, so values loaded through them must not be
+     * cached by segment.
+     */
+    public boolean hasSearcherWrapper() {
+        return searcherWrapper != null;
+    }
+
     public Engine.Searcher acquireSearcher(String source) {
         return acquireSearcher(source, Engine.SearcherScope.EXTERNAL);
     }
@@ -2826,30 +2844,43 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor = new AsyncIOProcessor<Translog.Location>(logger, 1024) {
         @Override
         protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
-            try {
-                getEngine().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
-            } catch (AlreadyClosedException ex) {
-                // that's fine since we already synced everything on engine close - this also is conform with the methods
-                // documentation
-            } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                logger.debug("failed to sync translog", ex);
-                throw ex;
-            }
+            ensureTranslogSynced(candidates.stream().map(Tuple::v1));
         }
     };
 
+    private void ensureTranslogSynced(Stream<Translog.Location> locations) throws IOException {
+        try {
+            getEngine().ensureTranslogSynced(locations);
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
+    // the same instance must be passed on every call so that the scheduler can coalesce the syncs of this shard
+    private final TranslogSyncScheduler.Target translogSyncTarget = this::ensureTranslogSynced;
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
      * the transaction log the caller thread will be hijacked to run the fsync for all pending fsync operations.
      * This method allows indexing threads to continue indexing without blocking on fsync calls. We ensure that there is only
      * one thread blocking on the sync an all others can continue indexing.
+     * If group commits are enabled on the node the sync is coalesced with the syncs of the other shards on the same data path, see
+     * {@link TranslogSyncScheduler}.
      * NOTE: if the syncListener throws an exception when it's processed the exception will only be logged. Users should make sure that the
      * listener handles all exception cases internally.
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogSyncScheduler.isEnabled()) {
+            translogSyncScheduler.sync(path.getRootDataPath(), translogSyncTarget, location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
@@ -132,6 +132,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     private final LongSupplier primaryTermSupplier;
     private final String translogUUID;
     private final TranslogDeletionPolicy deletionPolicy;
+    private final TranslogSyncStats.Recorder syncRecorder = new TranslogSyncStats.Recorder();
 
     /**
      * Creates a new Translog instance. This method will create a new transaction log unless the given {@link TranslogGeneration} is
@@ -724,7 +725,10 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public void sync() throws IOException {
         try (ReleasableLock lock = readLock.acquire()) {
             if (closed.get() == false) {
-                current.sync();
+                final long startTime = System.nanoTime();
+                if (current.syncUpTo(Long.MAX_VALUE)) {
+                    syncRecorder.record(System.nanoTime() - startTime);
+                }
             }
         } catch (final Exception ex) {
             closeOnTragicEvent(ex);
@@ -796,7 +800,12 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try (ReleasableLock lock = readLock.acquire()) {
             if (location.generation == current.getGeneration()) { // if we have a new one it's already synced
                 ensureOpen();
-                return current.syncUpTo(location.translogLocation + location.size);
+                final long startTime = System.nanoTime();
+                final boolean synced = current.syncUpTo(location.translogLocation + location.size);
+                if (synced) {
+                    syncRecorder.record(System.nanoTime() - startTime);
+                }
+                return synced;
             }
         } catch (final Exception ex) {
             closeOnTragicEvent(ex);
@@ -858,7 +867,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try (ReleasableLock lock = readLock.acquire()) {
             final long uncommittedGen = deletionPolicy.getTranslogGenerationOfLastCommit();
             return new TranslogStats(totalOperations(), sizeInBytes(), totalOperationsByMinGen(uncommittedGen),
-                sizeInBytesByMinGen(uncommittedGen), earliestLastModifiedAge());
+                sizeInBytesByMinGen(uncommittedGen), earliestLastModifiedAge(), syncRecorder.stats());
         }
     }
 
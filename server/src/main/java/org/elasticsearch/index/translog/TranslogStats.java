@@ -28,6 +28,7 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Objects;
 
 public class TranslogStats implements Streamable, ToXContentFragment {
 
@@ -36,12 +37,19 @@ public class TranslogStats implements Streamable, ToXContentFragment {
     private long uncommittedSizeInBytes;
     private int  uncommittedOperations;
     private long earliestLastModifiedAge;
+    private TranslogSyncStats syncStats = new TranslogSyncStats();
 
     public TranslogStats() {
     }
 
     public TranslogStats(int numberOfOperations, long translogSizeInBytes, int uncommittedOperations, long uncommittedSizeInBytes,
                          long earliestLastModifiedAge) {
+        this(numberOfOperations, translogSizeInBytes, uncommittedOperations, uncommittedSizeInBytes, earliestLastModifiedAge,
+            new TranslogSyncStats());
+    }
+
+    public TranslogStats(int numberOfOperations, long translogSizeInBytes, int uncommittedOperations, long uncommittedSizeInBytes,
+                         long earliestLastModifiedAge, TranslogSyncStats syncStats) {
         if (numberOfOperations < 0) {
             throw new IllegalArgumentException("numberOfOperations must be >= 0");
         }
@@ -62,6 +70,7 @@ public class TranslogStats implements Streamable, ToXContentFragment {
         this.uncommittedSizeInBytes = uncommittedSizeInBytes;
         this.uncommittedOperations = uncommittedOperations;
         this.earliestLastModifiedAge = earliestLastModifiedAge;
+        this.syncStats = Objects.requireNonNull(syncStats);
     }
 
     public void add(TranslogStats translogStats) {
@@ -75,6 +84,7 @@ public class TranslogStats implements Streamable, ToXContentFragment {
         this.uncommittedSizeInBytes += translogStats.uncommittedSizeInBytes;
         this.earliestLastModifiedAge =
             Math.min(this.earliestLastModifiedAge, translogStats.earliestLastModifiedAge);
+        this.syncStats = this.syncStats.add(translogStats.syncStats);
     }
 
     public long getTranslogSizeInBytes() {
@@ -97,6 +107,11 @@ public class TranslogStats implements Streamable, ToXContentFragment {
 
     public long getEarliestLastModifiedAge() { return earliestLastModifiedAge; }
 
+    /** statistics about the fsyncs of the translog */
+    public TranslogSyncStats getSyncStats() {
+        return syncStats;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("translog");
@@ -105,6 +120,7 @@ public class TranslogStats implements Streamable, ToXContentFragment {
         builder.field("uncommitted_operations", uncommittedOperations);
         builder.humanReadableField("uncommitted_size_in_bytes", "uncommitted_size", new ByteSizeValue(uncommittedSizeInBytes));
         builder.field("earliest_last_modified_age", earliestLastModifiedAge);
+        syncStats.toXContent(builder, params);
         builder.endObject();
         return builder;
     }
@@ -128,6 +144,9 @@ public class TranslogStats implements Streamable, ToXContentFragment {
         if (in.getVersion().onOrAfter(Version.V_6_3_0)) {
             earliestLastModifiedAge = in.readVLong();
         }
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            syncStats = new TranslogSyncStats(in);
+        }
     }
 
     @Override
@@ -141,5 +160,8 @@ public class TranslogStats implements Streamable, ToXContentFragment {
         if (out.getVersion().onOrAfter(Version.V_6_3_0)) {
             out.writeVLong(earliestLastModifiedAge);
         }
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            syncStats.writeTo(out);
+        }
     }
 }
@@ -0,0 +1,295 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Coalesces the translog fsyncs requested by the shards of a node into group commits. Requests are grouped by the data path the
+ * shards live on: the first request that arrives while no round is in progress makes its thread the leader of the next round. The
+ * leader waits for up to {@link #MAX_WAIT_SETTING} so that requests from other shards on the same path can join, then fsyncs each of
+ * the shards in the round once, up to the highest location requested for it, and notifies all listeners. The shards of a round are
+ * fsynced in parallel on a dedicated executor so that the disk sees them at once rather than one after the other. The leader only
+ * runs a single round: requests that arrive while a round is in progress are synced in the next round, which runs on the executor
+ * right after, without waiting again.
+ *
+ * Trading a bounded amount of latency for fewer fsyncs helps when many shards share a disk and each of them would otherwise issue its
+ * own fsync per bulk request. When the maximum wait is zero the scheduler is disabled and each shard syncs its own translog as
+ * requests come in.
+ */
+public final class TranslogSyncScheduler implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncScheduler.class);
+
+    /**
+     * How long the leader of a group commit round waits for other shards to join before fsyncing. Zero disables group commits.
+     */
+    public static final Setting<TimeValue> MAX_WAIT_SETTING = Setting.timeSetting("indices.translog.group_commit.max_wait",
+        TimeValue.ZERO, TimeValue.ZERO, TimeValue.timeValueSeconds(1), Property.NodeScope);
+
+    /**
+     * Syncs the translog of a single shard.
+     */
+    @FunctionalInterface
+    public interface Target {
+
+        /**
+         * Ensures that all given locations have been synced to the underlying storage.
+         */
+        void ensureSynced(Stream<Translog.Location> locations) throws IOException;
+    }
+
+    private final long maxWaitInNanos;
+    private final ConcurrentMap<Path, GroupCommit> groupCommits = ConcurrentCollections.newConcurrentMap();
+    @Nullable
+    private final ExecutorService executor;
+
+    public TranslogSyncScheduler(Settings settings, ThreadContext threadContext) {
+        this.maxWaitInNanos = MAX_WAIT_SETTING.get(settings).nanos();
+        if (isEnabled()) {
+            final int maxThreads = Math.min(8, EsExecutors.numberOfProcessors(settings));
+            this.executor = EsExecutors.newScaling(Node.NODE_NAME_SETTING.get(settings) + "/translog_group_commit", 0, maxThreads,
+                60, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "[translog_group_commit]"), threadContext);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if translog syncs should go through this scheduler.
+     */
+    public boolean isEnabled() {
+        return maxWaitInNanos > 0;
+    }
+
+    /**
+     * Syncs the given location of the given target as part of the next group commit round on the given data path. The listener is
+     * notified once the location has been synced or the sync failed. The caller thread might be hijacked to lead a single round.
+     */
+    public void sync(Path dataPath, Target target, Translog.Location location, Consumer<Exception> listener) {
+        assert isEnabled() : "group commits are disabled";
+        groupCommits.computeIfAbsent(dataPath, path -> new GroupCommit()).sync(new PendingSync(target, location, listener));
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            ThreadPool.terminate(executor, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class PendingSync {
+        private final Target target;
+        private final Translog.Location location;
+        private final Consumer<Exception> listener;
+
+        PendingSync(Target target, Translog.Location location, Consumer<Exception> listener) {
+            this.target = target;
+            this.location = location;
+            this.listener = listener;
+        }
+    }
+
+    private final class GroupCommit {
+
+        private List<PendingSync> pending = new ArrayList<>();
+        private boolean roundActive;
+
+        void sync(PendingSync pendingSync) {
+            synchronized (this) {
+                pending.add(pendingSync);
+                if (roundActive) {
+                    // the current round hands the pending syncs over to the next one
+                    return;
+                }
+                roundActive = true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(maxWaitInNanos);
+            } catch (InterruptedException e) {
+                // we still have to sync what's pending, just stop waiting for others to join
+                Thread.currentThread().interrupt();
+            }
+            runRound();
+        }
+
+        private void runRound() {
+            try {
+                process(drain());
+            } finally {
+                final boolean hasPending;
+                synchronized (this) {
+                    hasPending = pending.isEmpty() == false;
+                    roundActive = hasPending;
+                }
+                if (hasPending) {
+                    executor.execute(new AbstractRunnable() {
+                        @Override
+                        public void onFailure(Exception e) {
+                            failPending(e);
+                        }
+
+                        @Override
+                        public void onRejection(Exception e) {
+                            // the scheduler is closed, fail the pending syncs rather than leaving their listeners hanging
+                            failPending(e);
+                        }
+
+                        @Override
+                        protected void doRun() {
+                            runRound();
+                        }
+                    });
+                }
+            }
+        }
+
+        private synchronized List<PendingSync> drain() {
+            final List<PendingSync> round = pending;
+            pending = new ArrayList<>();
+            return round;
+        }
+
+        private void failPending(Exception e) {
+            final List<PendingSync> round;
+            synchronized (this) {
+                round = drain();
+                roundActive = false;
+            }
+            for (PendingSync pendingSync : round) {
+                notifyListener(pendingSync, e);
+            }
+        }
+
+        private void process(List<PendingSync> round) {
+            final Map<Target, List<PendingSync>> byTarget = new IdentityHashMap<>();
+            for (PendingSync pendingSync : round) {
+                byTarget.computeIfAbsent(pendingSync.target, target -> new ArrayList<>()).add(pendingSync);
+            }
+            final List<TargetSync> targetSyncs = new ArrayList<>(byTarget.size());
+            for (List<PendingSync> syncs : byTarget.values()) {
+                targetSyncs.add(new TargetSync(syncs));
+            }
+            for (int i = 1; i < targetSyncs.size(); i++) {
+                executor.execute(targetSyncs.get(i));
+            }
+            // this thread also syncs all targets that no executor thread picked up yet, so that rounds of other data paths that
+            // occupy the executor can't starve this one
+            for (TargetSync targetSync : targetSyncs) {
+                targetSync.run();
+            }
+            for (TargetSync targetSync : targetSyncs) {
+                targetSync.awaitCompletion();
+            }
+        }
+
+        private final class TargetSync extends AbstractRunnable {
+            private final List<PendingSync> syncs;
+            private final AtomicBoolean claimed = new AtomicBoolean();
+            private final CountDownLatch completed = new CountDownLatch(1);
+
+            TargetSync(List<PendingSync> syncs) {
+                this.syncs = syncs;
+            }
+
+            @Override
+            public void onRejection(Exception e) {
+                // the executor is closed, the round's thread syncs this target itself
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // syncTarget notifies the listeners about sync failures, so there is nothing left to notify here
+                logger.warn("unexpected failure while syncing translog", e);
+            }
+
+            @Override
+            protected void doRun() {
+                if (claimed.compareAndSet(false, true)) {
+                    try {
+                        syncTarget(syncs);
+                    } finally {
+                        completed.countDown();
+                    }
+                }
+            }
+
+            void awaitCompletion() {
+                try {
+                    completed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void syncTarget(List<PendingSync> syncs) {
+            Exception exception = null;
+            try {
+                syncs.get(0).target.ensureSynced(syncs.stream().map(pendingSync -> pendingSync.location));
+            } catch (Exception e) {
+                logger.debug("failed to sync translog", e);
+                exception = e;
+            }
+            notifyListeners(syncs, exception);
+        }
+
+        private void notifyListeners(List<PendingSync> syncs, @Nullable Exception exception) {
+            for (PendingSync pendingSync : syncs) {
+                notifyListener(pendingSync, exception);
+            }
+        }
+
+        private void notifyListener(PendingSync pendingSync, @Nullable Exception exception) {
+            try {
+                pendingSync.listener.accept(exception);
+            } catch (Exception e) {
+                logger.warn("failed to notify callback", e);
+            }
+        }
+    }
+}
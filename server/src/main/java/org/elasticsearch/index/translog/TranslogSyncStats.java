@@ -0,0 +1,200 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the fsyncs of a translog: how many were executed, how long they took in total and a histogram of their latencies.
+ * The histogram has a bucket per entry of {@link #BUCKET_BOUNDS_IN_MILLIS} counting the fsyncs that took less than its bound, plus a
+ * final bucket for the fsyncs that took longer than the last bound.
+ */
+public class TranslogSyncStats implements Writeable, ToXContentFragment {
+
+    /**
+     * The exclusive upper bounds of the latency buckets, in milliseconds.
+     */
+    static final long[] BUCKET_BOUNDS_IN_MILLIS = new long[] { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000 };
+
+    private final long count;
+    private final long totalTimeInNanos;
+    private final long[] buckets;
+
+    public TranslogSyncStats() {
+        this(0, 0, new long[BUCKET_BOUNDS_IN_MILLIS.length + 1]);
+    }
+
+    public TranslogSyncStats(long count, long totalTimeInNanos, long[] buckets) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must be >= 0");
+        }
+        if (totalTimeInNanos < 0) {
+            throw new IllegalArgumentException("totalTimeInNanos must be >= 0");
+        }
+        if (buckets.length != BUCKET_BOUNDS_IN_MILLIS.length + 1) {
+            throw new IllegalArgumentException("expected [" + (BUCKET_BOUNDS_IN_MILLIS.length + 1) + "] buckets but got ["
+                + buckets.length + "]");
+        }
+        this.count = count;
+        this.totalTimeInNanos = totalTimeInNanos;
+        this.buckets = buckets;
+    }
+
+    public TranslogSyncStats(StreamInput in) throws IOException {
+        this(in.readVLong(), in.readVLong(), in.readVLongArray());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(count);
+        out.writeVLong(totalTimeInNanos);
+        out.writeVLongArray(buckets);
+    }
+
+    /**
+     * Returns new stats that hold the sum of these and the given stats.
+     */
+    public TranslogSyncStats add(TranslogSyncStats other) {
+        if (other == null) {
+            return this;
+        }
+        final long[] sum = new long[buckets.length];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = buckets[i] + other.buckets[i];
+        }
+        return new TranslogSyncStats(count + other.count, totalTimeInNanos + other.totalTimeInNanos, sum);
+    }
+
+    /**
+     * The number of fsyncs executed.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The total time spent in fsyncs.
+     */
+    public TimeValue getTotalTime() {
+        return new TimeValue(totalTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The number of fsyncs in each latency bucket, see {@link TranslogSyncStats}.
+     */
+    public long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.SYNC);
+        builder.field(Fields.TOTAL, count);
+        builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, getTotalTime());
+        builder.startArray(Fields.LATENCY_HISTOGRAM);
+        for (int i = 0; i < buckets.length; i++) {
+            builder.startObject();
+            if (i < BUCKET_BOUNDS_IN_MILLIS.length) {
+                builder.field(Fields.LT_MILLIS, BUCKET_BOUNDS_IN_MILLIS[i]);
+            } else {
+                builder.field(Fields.GTE_MILLIS, BUCKET_BOUNDS_IN_MILLIS[i - 1]);
+            }
+            builder.field(Fields.COUNT, buckets[i]);
+            builder.endObject();
+        }
+        builder.endArray();
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final String SYNC = "sync";
+        static final String TOTAL = "total";
+        static final String TOTAL_TIME = "total_time";
+        static final String TOTAL_TIME_IN_MILLIS = "total_time_in_millis";
+        static final String LATENCY_HISTOGRAM = "latency_histogram";
+        static final String LT_MILLIS = "lt_millis";
+        static final String GTE_MILLIS = "gte_millis";
+        static final String COUNT = "count";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TranslogSyncStats that = (TranslogSyncStats) o;
+        return count == that.count && totalTimeInNanos == that.totalTimeInNanos && Arrays.equals(buckets, that.buckets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, totalTimeInNanos, Arrays.hashCode(buckets));
+    }
+
+    /**
+     * Records the latencies of the fsyncs of a single translog.
+     */
+    static final class Recorder {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalTimeInNanos = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_IN_MILLIS.length + 1);
+
+        void record(long tookInNanos) {
+            count.increment();
+            totalTimeInNanos.add(tookInNanos);
+            buckets.incrementAndGet(bucket(tookInNanos));
+        }
+
+        TranslogSyncStats stats() {
+            final long[] snapshot = new long[buckets.length()];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = buckets.get(i);
+            }
+            return new TranslogSyncStats(count.sum(), totalTimeInNanos.sum(), snapshot);
+        }
+
+        static int bucket(long tookInNanos) {
+            final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(tookInNanos);
+            for (int i = 0; i < BUCKET_BOUNDS_IN_MILLIS.length; i++) {
+                if (tookInMillis < BUCKET_BOUNDS_IN_MILLIS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_IN_MILLIS.length;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.EvictionPolicy;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The indices fetch cache holds the stored fields, including the <code>_source</code>, that the fetch phase loaded for
+ * individual documents so that documents that are fetched over and over again don't have to be read and decompressed from
+ * the stored fields of their segment each time. Entries are keyed by the core cache key of the segment, the document and the
+ * fields that were loaded. Since the stored fields of a segment never change the cache is fully coherent, entries of a segment
+ * are cleaned once the segment is closed.
+ * <p>
+ * The cache can be opted in on an index level setting that can be dynamically changed and defaults to false. It is bounded by
+ * {@link #INDICES_FETCH_CACHE_SIZE}, and every entry is accounted for in the {@link CircuitBreaker#FETCH_CACHE} circuit breaker:
+ * documents that would trip the breaker, or the parent breaker, are not cached.
+ */
+public final class IndicesFetchCache implements RemovalListener<IndicesFetchCache.Key, FieldsVisitor>, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(IndicesFetchCache.class);
+
+    public static final Setting<Boolean> INDEX_FETCH_CACHE_ENABLED_SETTING =
+        Setting.boolSetting("index.fetch.cache.enable", false, Property.Dynamic, Property.IndexScope);
+    public static final Setting<ByteSizeValue> INDICES_FETCH_CACHE_SIZE =
+        Setting.memorySizeSetting("indices.fetch.cache.size", "1%", Property.NodeScope);
+    public static final Setting<EvictionPolicy> INDICES_FETCH_CACHE_EVICTION_POLICY =
+        new Setting<>("indices.fetch.cache.eviction_policy", EvictionPolicy.TINY_LFU.toString(), EvictionPolicy::parse,
+            Property.NodeScope);
+
+    // rough per value and per field overhead of the loaded stored fields, the values themselves are accounted for separately
+    private static final long BASE_RAM_BYTES_PER_FIELD = 64;
+    private static final long BASE_RAM_BYTES_PER_VALUE = 32;
+
+    private final Set<IndexReader.CacheKey> registeredClosedListeners = ConcurrentCollections.newConcurrentSet();
+    private final Set<IndexReader.CacheKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final CircuitBreakerService circuitBreakerService;
+    private final Cache<Key, FieldsVisitor> cache;
+
+    IndicesFetchCache(Settings settings, CircuitBreakerService circuitBreakerService) {
+        this.circuitBreakerService = circuitBreakerService;
+        this.cache = CacheBuilder.<Key, FieldsVisitor>builder()
+            .setMaximumWeight(INDICES_FETCH_CACHE_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> Key.BASE_RAM_BYTES_USED + ramBytesUsed(v))
+            .removalListener(this)
+            .setEvictionPolicy(INDICES_FETCH_CACHE_EVICTION_POLICY.get(settings))
+            .build();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, FieldsVisitor> notification) {
+        breaker().addWithoutBreaking(-(Key.BASE_RAM_BYTES_USED + ramBytesUsed(notification.getValue())));
+    }
+
+    private CircuitBreaker breaker() {
+        return circuitBreakerService.getBreaker(CircuitBreaker.FETCH_CACHE);
+    }
+
+    /**
+     * Loads the stored fields of the given document into the given visitor, using the cached values if the document was loaded
+     * with the same fields before.
+     *
+     * @param reader       the segment reader of the document
+     * @param docId        the segment relative id of the document
+     * @param visitor      the visitor to load the fields into
+     * @param loadSource   whether the visitor loads the <code>_source</code>
+     * @param storedFields the stored fields the visitor loads in addition to the metadata fields
+     */
+    public void loadStoredFields(LeafReader reader, int docId, FieldsVisitor visitor, boolean loadSource,
+                                 Set<String> storedFields) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+        if (cacheHelper == null) {
+            // the reader doesn't tell us when it's closed, we can't cache anything for it
+            reader.document(docId, visitor);
+            return;
+        }
+        final Key key = new Key(cacheHelper.getKey(), docId, loadSource, storedFields);
+        final FieldsVisitor cached = cache.get(key);
+        if (cached != null) {
+            cached.copyTo(visitor);
+            return;
+        }
+        reader.document(docId, visitor);
+        final FieldsVisitor loaded = new FieldsVisitor(false);
+        visitor.copyTo(loaded);
+        final long bytes = Key.BASE_RAM_BYTES_USED + ramBytesUsed(loaded);
+        try {
+            breaker().addEstimateBytesAndMaybeBreak(bytes, "fetch_cache");
+        } catch (CircuitBreakingException e) {
+            logger.trace("not caching stored fields of doc [{}]: {}", docId, e.getMessage());
+            return;
+        }
+        // make sure the entries of the segment are cleaned once it's closed
+        if (registeredClosedListeners.add(key.readerCacheKey)) {
+            cacheHelper.addClosedListener(closedKey -> {
+                if (registeredClosedListeners.remove(closedKey)) {
+                    keysToClean.add(closedKey);
+                }
+            });
+        }
+        cache.put(key, loaded);
+    }
+
+    /**
+     * Removes the entries of all segments that were closed since the last clean up.
+     */
+    void cleanCache() {
+        if (keysToClean.isEmpty() == false) {
+            final Set<IndexReader.CacheKey> currentKeysToClean = new HashSet<>();
+            for (Iterator<IndexReader.CacheKey> iterator = keysToClean.iterator(); iterator.hasNext(); ) {
+                currentKeysToClean.add(iterator.next());
+                iterator.remove();
+            }
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+                if (currentKeysToClean.contains(iterator.next().readerCacheKey)) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    /**
+     * Returns the number of cached documents
+     */
+    int count() {
+        return cache.count();
+    }
+
+    int numRegisteredCloseListeners() { // for testing
+        return registeredClosedListeners.size();
+    }
+
+    static long ramBytesUsed(FieldsVisitor visitor) {
+        long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER;
+        if (visitor.source() != null) {
+            bytes += visitor.source().length();
+        }
+        for (Map.Entry<String, List<Object>> entry : visitor.fields().entrySet()) {
+            bytes += BASE_RAM_BYTES_PER_FIELD + entry.getKey().length() * Character.BYTES;
+            for (Object value : entry.getValue()) {
+                bytes += BASE_RAM_BYTES_PER_VALUE;
+                if (value instanceof BytesRef) {
+                    bytes += ((BytesRef) value).length;
+                } else if (value instanceof String) {
+                    bytes += ((String) value).length() * Character.BYTES;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    static final class Key {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        final IndexReader.CacheKey readerCacheKey;
+        final int docId;
+        final boolean loadSource;
+        final Set<String> storedFields;
+
+        Key(IndexReader.CacheKey readerCacheKey, int docId, boolean loadSource, Set<String> storedFields) {
+            this.readerCacheKey = Objects.requireNonNull(readerCacheKey);
+            this.docId = docId;
+            this.loadSource = loadSource;
+            this.storedFields = storedFields == null ? Collections.emptySet() : storedFields;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return docId == key.docId && loadSource == key.loadSource && readerCacheKey.equals(key.readerCacheKey)
+                && storedFields.equals(key.storedFields);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = readerCacheKey.hashCode();
+            result = 31 * result + docId;
+            result = 31 * result + Boolean.hashCode(loadSource);
+            result = 31 * result + storedFields.hashCode();
+            return result;
+        }
+    }
+}
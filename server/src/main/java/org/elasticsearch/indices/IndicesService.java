@@ -106,6 +106,7 @@ import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.IndexStore;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -204,7 +205,9 @@ public class IndicesService extends AbstractLifecycleComponent
     private final IndexingMemoryController indexingMemoryController;
     private final TimeValue cleanInterval;
     private final IndicesRequestCache indicesRequestCache;
+    private final IndicesFetchCache indicesFetchCache;
     private final IndicesQueryCache indicesQueryCache;
+    private final TranslogSyncScheduler translogSyncScheduler;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
     private final Map<String, Function<IndexSettings, IndexStore>> indexStoreFactories;
@@ -231,7 +234,9 @@ public class IndicesService extends AbstractLifecycleComponent
         this.analysisRegistry = analysisRegistry;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
+        this.indicesFetchCache = new IndicesFetchCache(settings, circuitBreakerService);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.translogSyncScheduler = new TranslogSyncScheduler(settings, threadPool.getThreadContext());
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(settings, threadPool,
@@ -251,7 +256,8 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache,  logger, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, indicesFetchCache, logger, threadPool,
+            this.cleanInterval);
         this.metaStateService = metaStateService;
         this.engineFactoryProviders = engineFactoryProviders;
 
@@ -301,7 +307,9 @@ public class IndicesService extends AbstractLifecycleComponent
             indicesFieldDataCache,
             cacheCleaner,
             indicesRequestCache,
-            indicesQueryCache);
+            indicesFetchCache,
+            indicesQueryCache,
+            translogSyncScheduler);
     }
 
     /**
@@ -535,7 +543,8 @@ public class IndicesService extends AbstractLifecycleComponent
                 indicesQueryCache,
                 mapperRegistry,
                 indicesFieldDataCache,
-                namedWriteableRegistry
+                namedWriteableRegistry,
+                translogSyncScheduler
         );
     }
 
@@ -681,6 +690,10 @@ public class IndicesService extends AbstractLifecycleComponent
         return indicesQueryCache;
     }
 
+    public IndicesFetchCache getIndicesFetchCache() {
+        return indicesFetchCache;
+    }
+
     static class OldShardsStats implements IndexEventListener {
 
         final SearchStats searchStats = new SearchStats();
@@ -1142,14 +1155,17 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
+        private final IndicesFetchCache fetchCache;
 
         CacheCleaner(IndicesFieldDataCache cache,
                      IndicesRequestCache requestCache,
+                     IndicesFetchCache fetchCache,
                      Logger logger,
                      ThreadPool threadPool,
                      TimeValue interval) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.fetchCache = fetchCache;
             this.logger = logger;
             this.threadPool = threadPool;
             this.interval = interval;
@@ -1176,6 +1192,12 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+
+            try {
+                this.fetchCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic fetch cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.schedule(this, interval, ThreadPool.Names.SAME);
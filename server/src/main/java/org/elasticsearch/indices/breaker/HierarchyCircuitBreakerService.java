@@ -73,6 +73,13 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
     public static final Setting<CircuitBreaker.Type> ACCOUNTING_CIRCUIT_BREAKER_TYPE_SETTING =
         new Setting<>("indices.breaker.accounting.type", "memory", CircuitBreaker.Type::parseValue, Property.NodeScope);
 
+    public static final Setting<ByteSizeValue> FETCH_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING =
+        Setting.memorySizeSetting("indices.breaker.fetch_cache.limit", "100%", Property.Dynamic, Property.NodeScope);
+    public static final Setting<Double> FETCH_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING =
+        Setting.doubleSetting("indices.breaker.fetch_cache.overhead", 1.0d, 0.0d, Property.Dynamic, Property.NodeScope);
+    public static final Setting<CircuitBreaker.Type> FETCH_CACHE_CIRCUIT_BREAKER_TYPE_SETTING =
+        new Setting<>("indices.breaker.fetch_cache.type", "memory", CircuitBreaker.Type::parseValue, Property.NodeScope);
+
     public static final Setting<ByteSizeValue> IN_FLIGHT_REQUESTS_CIRCUIT_BREAKER_LIMIT_SETTING =
         Setting.memorySizeSetting("network.breaker.inflight_requests.limit", "100%", Property.Dynamic, Property.NodeScope);
     public static final Setting<Double> IN_FLIGHT_REQUESTS_CIRCUIT_BREAKER_OVERHEAD_SETTING =
@@ -85,6 +92,7 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
     private volatile BreakerSettings inFlightRequestsSettings;
     private volatile BreakerSettings requestSettings;
     private volatile BreakerSettings accountingSettings;
+    private volatile BreakerSettings fetchCacheSettings;
 
     // Tripped count for when redistribution was attempted but wasn't successful
     private final AtomicLong parentTripCount = new AtomicLong(0);
@@ -115,6 +123,12 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
                 ACCOUNTING_CIRCUIT_BREAKER_TYPE_SETTING.get(settings)
         );
 
+        this.fetchCacheSettings = new BreakerSettings(CircuitBreaker.FETCH_CACHE,
+                FETCH_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING.get(settings).getBytes(),
+                FETCH_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING.get(settings),
+                FETCH_CACHE_CIRCUIT_BREAKER_TYPE_SETTING.get(settings)
+        );
+
         this.parentSettings = new BreakerSettings(CircuitBreaker.PARENT,
                 TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING.get(settings).getBytes(), 1.0,
                 CircuitBreaker.Type.PARENT);
@@ -127,6 +141,7 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         registerBreaker(this.fielddataSettings);
         registerBreaker(this.inFlightRequestsSettings);
         registerBreaker(this.accountingSettings);
+        registerBreaker(this.fetchCacheSettings);
 
         clusterSettings.addSettingsUpdateConsumer(TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING, this::setTotalCircuitBreakerLimit,
             this::validateTotalCircuitBreakerLimit);
@@ -138,6 +153,8 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
             this::setRequestBreakerLimit);
         clusterSettings.addSettingsUpdateConsumer(ACCOUNTING_CIRCUIT_BREAKER_LIMIT_SETTING, ACCOUNTING_CIRCUIT_BREAKER_OVERHEAD_SETTING,
             this::setAccountingBreakerLimit);
+        clusterSettings.addSettingsUpdateConsumer(FETCH_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING, FETCH_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING,
+            this::setFetchCacheBreakerLimit);
     }
 
     private void setRequestBreakerLimit(ByteSizeValue newRequestMax, Double newRequestOverhead) {
@@ -177,6 +194,14 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         logger.info("Updated breaker settings for accounting requests: {}", newAccountingSettings);
     }
 
+    private void setFetchCacheBreakerLimit(ByteSizeValue newFetchCacheMax, Double newFetchCacheOverhead) {
+        BreakerSettings newFetchCacheSettings = new BreakerSettings(CircuitBreaker.FETCH_CACHE, newFetchCacheMax.getBytes(),
+            newFetchCacheOverhead, HierarchyCircuitBreakerService.this.fetchCacheSettings.getType());
+        registerBreaker(newFetchCacheSettings);
+        HierarchyCircuitBreakerService.this.fetchCacheSettings = newFetchCacheSettings;
+        logger.info("Updated breaker settings for the fetch cache: {}", newFetchCacheSettings);
+    }
+
     private boolean validateTotalCircuitBreakerLimit(ByteSizeValue byteSizeValue) {
         BreakerSettings newParentSettings = new BreakerSettings(CircuitBreaker.PARENT, byteSizeValue.getBytes(), 1.0,
             CircuitBreaker.Type.PARENT);
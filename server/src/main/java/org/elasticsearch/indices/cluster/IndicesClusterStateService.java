@@ -278,7 +278,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * @param state new cluster state
      */
     private void updateFailedShardsCache(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getLocalRoutingNode();
         if (localRoutingNode == null) {
             failedShardsCache.clear();
             return;
@@ -380,7 +380,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         assert localNodeId != null;
 
         Set<Index> indicesWithShards = new HashSet<>();
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
+        RoutingNode localRoutingNode = state.getLocalRoutingNode();
         if (localRoutingNode != null) { // null e.g. if we are not a data node
             for (ShardRouting shardRouting : localRoutingNode) {
                 indicesWithShards.add(shardRouting.index());
@@ -412,7 +412,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * @param state new cluster state
      */
     private void failMissingShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getLocalRoutingNode();
         if (localRoutingNode == null) {
             return;
         }
@@ -439,7 +439,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         assert localNodeId != null;
 
         // remove shards based on routing nodes (no deletion of data)
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
+        RoutingNode localRoutingNode = state.getLocalRoutingNode();
         for (AllocatedIndex<? extends Shard> indexService : indicesService) {
             for (Shard shard : indexService) {
                 ShardRouting currentRoutingEntry = shard.routingEntry();
@@ -473,7 +473,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
     private void createIndices(final ClusterState state) {
         // we only create indices for shards that are allocated
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getLocalRoutingNode();
         if (localRoutingNode == null) {
             return;
         }
@@ -540,7 +540,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                     indicesService.removeIndex(indexService.index(), FAILURE, "removing index (mapping update failed)");
 
                     // fail shards that would be created or updated by createOrUpdateShards
-                    RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+                    RoutingNode localRoutingNode = state.getLocalRoutingNode();
                     if (localRoutingNode != null) {
                         for (final ShardRouting shardRouting : localRoutingNode) {
                             if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
@@ -554,7 +554,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     }
 
     private void createOrUpdateShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getLocalRoutingNode();
         if (localRoutingNode == null) {
             return;
         }
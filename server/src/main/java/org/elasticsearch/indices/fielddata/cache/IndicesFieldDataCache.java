@@ -29,6 +29,8 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.IndexReader.CacheKey;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.cache.RemovalListener;
@@ -39,16 +41,20 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable{
@@ -101,6 +107,8 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
                 logger.error("Failed to call listener on field data cache unloading", e);
             }
         }
+        // once the listeners released the entry from the breaker, the global ordinals map it retains, if any, is accounted on its own
+        indexCache.onRemoval(key.shardId, value, notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED);
     }
 
     public static class FieldDataWeigher implements ToLongBiFunction<Key, Accountable> {
@@ -120,6 +128,7 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        private final Map<ShardId, RetainedOrdinalMap> lastGlobalOrdinalMaps = ConcurrentCollections.newConcurrentMap();
 
         IndexFieldCache(Logger logger,final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.logger = logger;
@@ -189,8 +198,74 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             // don't call cache.cleanUp here as it would have bad performance implications
         }
 
+        @Override
+        public GlobalOrdinalMap getLastGlobalOrdinalMap(ShardId shardId) {
+            final RetainedOrdinalMap retained = lastGlobalOrdinalMaps.get(shardId);
+            return retained == null ? null : retained.ordinalMap;
+        }
+
+        @Override
+        public void setLastGlobalOrdinalMap(ShardId shardId, GlobalOrdinalMap ordinalMap, CircuitBreaker breaker) {
+            lastGlobalOrdinalMaps.compute(shardId, (id, previous) -> {
+                if (previous != null) {
+                    previous.release();
+                }
+                return new RetainedOrdinalMap(ordinalMap, breaker);
+            });
+        }
+
+        /**
+         * Called when a cache entry of this field is removed. The global ordinals map that was last built for a shard is accounted
+         * for by its cache entry. Once that entry is removed because its reader was closed the map is kept for the next build and
+         * accounted for on its own, unless that would trip the breaker. If the entry is evicted the map is dropped as well. A Lucene
+         * ordinal map that was built on demand for the removed global ordinals is released from the breaker.
+         */
+        void onRemoval(@Nullable ShardId shardId, Accountable value, boolean evicted) {
+            if (value instanceof GlobalOrdinalsIndexFieldData == false) {
+                return;
+            }
+            final GlobalOrdinalsIndexFieldData globalOrdinals = (GlobalOrdinalsIndexFieldData) value;
+            // the Lucene ordinal map is built on demand after the global ordinals were cached, so the listeners don't release it
+            globalOrdinals.release();
+            if (shardId == null) {
+                return;
+            }
+            final GlobalOrdinalMap ordinalMap = globalOrdinals.getGlobalOrdinalMap();
+            lastGlobalOrdinalMaps.computeIfPresent(shardId, (id, retained) -> {
+                if (retained.ordinalMap != ordinalMap) {
+                    return retained;
+                }
+                if (evicted) {
+                    retained.release();
+                    return null;
+                }
+                try {
+                    retained.account();
+                } catch (CircuitBreakingException e) {
+                    logger.trace("dropping global ordinals of [{}] for field [{}]: {}", shardId, fieldName, e.getMessage());
+                    return null;
+                }
+                return retained;
+            });
+        }
+
+        @Override
+        public void clear(ShardId shardId) {
+            final RetainedOrdinalMap retained = lastGlobalOrdinalMaps.remove(shardId);
+            if (retained != null) {
+                retained.release();
+            }
+        }
+
+        private void clearLastGlobalOrdinalMaps() {
+            for (ShardId shardId : lastGlobalOrdinalMaps.keySet()) {
+                clear(shardId);
+            }
+        }
+
         @Override
         public void clear() {
+            clearLastGlobalOrdinalMaps();
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     cache.invalidate(key);
@@ -202,6 +277,9 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
         @Override
         public void clear(String fieldName) {
+            if (this.fieldName.equals(fieldName)) {
+                clearLastGlobalOrdinalMaps();
+            }
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     if (key.indexCache.fieldName.equals(fieldName)) {
@@ -214,6 +292,40 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             // soon as possible
             cache.refresh();
         }
+
+        int numRetainedGlobalOrdinalMaps() { // for testing
+            return lastGlobalOrdinalMaps.size();
+        }
+    }
+
+    /**
+     * A global ordinals map that is kept to build the global ordinals of the next reader of a shard incrementally. It is only
+     * accounted for in the breaker once the global ordinals it was built for are no longer cached.
+     */
+    private static final class RetainedOrdinalMap {
+        final GlobalOrdinalMap ordinalMap;
+        private final CircuitBreaker breaker;
+        private long accountedBytes;
+
+        RetainedOrdinalMap(GlobalOrdinalMap ordinalMap, CircuitBreaker breaker) {
+            this.ordinalMap = ordinalMap;
+            this.breaker = breaker;
+        }
+
+        void account() {
+            if (accountedBytes == 0) {
+                final long bytes = ordinalMap.ramBytesUsed();
+                breaker.addEstimateBytesAndMaybeBreak(bytes, "retained global ordinals");
+                accountedBytes = bytes;
+            }
+        }
+
+        void release() {
+            if (accountedBytes != 0) {
+                breaker.addWithoutBreaking(-accountedBytes);
+                accountedBytes = 0;
+            }
+        }
     }
 
     public static class Key {
@@ -25,8 +25,11 @@ import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
@@ -42,15 +45,22 @@ import java.util.concurrent.ConcurrentMap;
 
 public class MultiFileWriter implements Releasable {
 
-    public MultiFileWriter(Store store, RecoveryState.Index indexState, String tempFilePrefix, Logger logger, Runnable ensureOpen) {
+    /**
+     * @param inFlightBreaker the breaker that chunks which are buffered until the gap before them is filled are accounted in. They
+     *                        outlive the request they were received with and with it the reservation the transport made for them.
+     */
+    public MultiFileWriter(Store store, RecoveryState.Index indexState, String tempFilePrefix, Logger logger, Runnable ensureOpen,
+                           CircuitBreaker inFlightBreaker) {
         this.store = store;
         this.indexState = indexState;
         this.tempFilePrefix = tempFilePrefix;
         this.logger = logger;
         this.ensureOpen = ensureOpen;
+        this.inFlightBreaker = inFlightBreaker;
     }
 
     private final Runnable ensureOpen;
+    private final CircuitBreaker inFlightBreaker;
     private final Logger logger;
     private final Store store;
     private final RecoveryState.Index indexState;
@@ -65,7 +75,10 @@ public class MultiFileWriter implements Releasable {
     public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk)
         throws IOException {
         final FileChunkWriter writer = fileChunkWriters.computeIfAbsent(fileMetaData.name(), name -> new FileChunkWriter());
-        writer.writeChunk(new FileChunk(fileMetaData, content, position, lastChunk));
+        // chunks may be buffered until the gap before them is filled so we need our own reference on their content
+        final ReleasableBytesReference retained = content instanceof ReleasableBytesReference
+            ? ((ReleasableBytesReference) content).retain() : ReleasableBytesReference.wrap(content);
+        writer.writeChunk(new FileChunk(fileMetaData, retained, position, lastChunk));
     }
 
     /** Get a temporary name for the provided file name. */
@@ -138,6 +151,7 @@ public class MultiFileWriter implements Releasable {
 
     @Override
     public void close() {
+        fileChunkWriters.values().forEach(FileChunkWriter::close);
         fileChunkWriters.clear();
         // clean open index outputs
         Iterator<Map.Entry<String, IndexOutput>> iterator = openIndexOutputs.entrySet().iterator();
@@ -166,17 +180,38 @@ public class MultiFileWriter implements Releasable {
         store.renameTempFilesSafe(tempFileNames);
     }
 
-    static final class FileChunk {
+    static final class FileChunk implements Releasable {
         final StoreFileMetaData md;
-        final BytesReference content;
+        final ReleasableBytesReference content;
         final long position;
         final boolean lastChunk;
-        FileChunk(StoreFileMetaData md, BytesReference content, long position, boolean lastChunk) {
+        // guarded by the FileChunkWriter the chunk is buffered in
+        private CircuitBreaker breaker;
+        FileChunk(StoreFileMetaData md, ReleasableBytesReference content, long position, boolean lastChunk) {
             this.md = md;
             this.content = content;
             this.position = position;
             this.lastChunk = lastChunk;
         }
+
+        /** Accounts the content of this chunk in the given breaker until the chunk is closed. */
+        void reserve(CircuitBreaker breaker) {
+            assert this.breaker == null : "chunk at [" + position + "] of [" + md.name() + "] is already reserved";
+            breaker.addWithoutBreaking(content.length());
+            this.breaker = breaker;
+        }
+
+        @Override
+        public void close() {
+            try {
+                content.close();
+            } finally {
+                if (breaker != null) {
+                    breaker.addWithoutBreaking(-content.length());
+                    breaker = null;
+                }
+            }
+        }
     }
 
     private final class FileChunkWriter {
@@ -187,6 +222,10 @@ public class MultiFileWriter implements Releasable {
         void writeChunk(FileChunk newChunk) throws IOException {
             synchronized (this) {
                 pendingChunks.add(newChunk);
+                if (newChunk.position != lastPosition) {
+                    // the chunk has to wait for the chunks before it and is likely still buffered once its request is answered
+                    newChunk.reserve(inFlightBreaker);
+                }
             }
             while (true) {
                 final FileChunk chunk;
@@ -197,7 +236,11 @@ public class MultiFileWriter implements Releasable {
                     }
                     pendingChunks.remove();
                 }
-                innerWriteFileChunk(chunk.md, chunk.position, chunk.content, chunk.lastChunk);
+                try {
+                    innerWriteFileChunk(chunk.md, chunk.position, chunk.content, chunk.lastChunk);
+                } finally {
+                    chunk.close();
+                }
                 synchronized (this) {
                     assert lastPosition == chunk.position : "last_position " + lastPosition + " != chunk_position " + chunk.position;
                     lastPosition += chunk.content.length();
@@ -209,5 +252,10 @@ public class MultiFileWriter implements Releasable {
                 }
             }
         }
+
+        synchronized void close() {
+            Releasables.close(pendingChunks);
+            pendingChunks.clear();
+        }
     }
 }
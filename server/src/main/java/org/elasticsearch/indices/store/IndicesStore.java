@@ -136,7 +136,7 @@ public class IndicesStore implements ClusterStateListener, Closeable {
         folderNotFoundCache.removeIf(shardId -> !routingTable.hasIndex(shardId.getIndex()));
         // remove entries from cache which are allocated to this node
         final String localNodeId = event.state().nodes().getLocalNodeId();
-        RoutingNode localRoutingNode = event.state().getRoutingNodes().node(localNodeId);
+        RoutingNode localRoutingNode = event.state().getLocalRoutingNode();
         if (localRoutingNode != null) {
             for (ShardRouting routing : localRoutingNode) {
                 folderNotFoundCache.remove(routing.shardId());
@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
@@ -148,6 +149,112 @@ public class CompoundProcessor implements Processor {
         return ingestDocument;
     }
 
+    @Override
+    public boolean supportsBatchExecution() {
+        return true;
+    }
+
+    /**
+     * Executes the processors over the whole batch one processor at a time, so that processors supporting batch execution see all
+     * documents that are still in flight at once. Failure handling, dropping and metrics per document are the same as when
+     * executing the documents one by one through {@link #execute(IngestDocument)}.
+     */
+    @Override
+    public void execute(List<IngestDocument> documents, BiConsumer<IngestDocument, Exception> handler) {
+        final int numDocuments = documents.size();
+        final boolean[] dropped = new boolean[numDocuments];
+        final Exception[] failures = new Exception[numDocuments];
+        // slots of the documents that still need to go through the remaining processors
+        int[] pending = new int[numDocuments];
+        for (int i = 0; i < numDocuments; i++) {
+            pending[i] = i;
+        }
+        int numPending = numDocuments;
+        for (Tuple<Processor, IngestMetric> processorWithMetric : processorsWithMetrics) {
+            if (numPending == 0) {
+                break;
+            }
+            final Processor processor = processorWithMetric.v1();
+            final IngestMetric metric = processorWithMetric.v2();
+            final List<IngestDocument> batch = new ArrayList<>(numPending);
+            for (int i = 0; i < numPending; i++) {
+                batch.add(documents.get(pending[i]));
+            }
+            final IngestDocument[] batchResults = new IngestDocument[numPending];
+            final Exception[] batchFailures = new Exception[numPending];
+            final int[] stillPending = new int[numPending];
+            int numStillPending = 0;
+            long startTimeInNanos = relativeTimeProvider.getAsLong();
+            metric.preIngest(numPending);
+            try {
+                executeBatch(processor, batch, batchResults, batchFailures);
+                for (int i = 0; i < numPending; i++) {
+                    final int slot = pending[i];
+                    final Exception e = batchFailures[i];
+                    if (e == null) {
+                        if (batchResults[i] == null) {
+                            dropped[slot] = true;
+                        } else {
+                            stillPending[numStillPending++] = slot;
+                        }
+                        continue;
+                    }
+                    metric.ingestFailed();
+                    if (ignoreFailure) {
+                        stillPending[numStillPending++] = slot;
+                        continue;
+                    }
+                    ElasticsearchException compoundProcessorException =
+                        newCompoundProcessorException(e, processor.getType(), processor.getTag());
+                    if (onFailureProcessors.isEmpty()) {
+                        failures[slot] = compoundProcessorException;
+                    } else {
+                        try {
+                            dropped[slot] = executeOnFailure(documents.get(slot), compoundProcessorException) == false;
+                        } catch (Exception inner) {
+                            failures[slot] = inner;
+                        }
+                    }
+                }
+            } finally {
+                long ingestTimeInMillis = TimeUnit.NANOSECONDS.toMillis(relativeTimeProvider.getAsLong() - startTimeInNanos);
+                metric.postIngest(numPending, ingestTimeInMillis);
+            }
+            pending = stillPending;
+            numPending = numStillPending;
+        }
+        for (int slot = 0; slot < numDocuments; slot++) {
+            if (failures[slot] != null) {
+                handler.accept(null, failures[slot]);
+            } else {
+                handler.accept(dropped[slot] ? null : documents.get(slot), null);
+            }
+        }
+    }
+
+    private static void executeBatch(Processor processor, List<IngestDocument> batch, IngestDocument[] results, Exception[] failures) {
+        if (processor.supportsBatchExecution()) {
+            final int[] slot = new int[1];
+            processor.execute(batch, (result, e) -> {
+                results[slot[0]] = result;
+                failures[slot[0]] = e;
+                slot[0]++;
+            });
+            if (slot[0] != batch.size()) {
+                throw new IllegalStateException("processor [" + processor.getType() + "] reported results for [" + slot[0]
+                    + "] out of [" + batch.size() + "] documents");
+            }
+        } else {
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    results[i] = processor.execute(batch.get(i));
+                } catch (Exception e) {
+                    failures[i] = e;
+                }
+            }
+        }
+    }
+
     /**
      * @return true if execution should continue, false if document is dropped.
      */
@@ -64,8 +64,13 @@ public final class IngestDocument {
 
     public IngestDocument(String index, String type, String id, String routing, String parent,
                           Long version, VersionType versionType, Map<String, Object> source) {
-        this.sourceAndMetadata = new HashMap<>();
-        this.sourceAndMetadata.putAll(source);
+        if (source instanceof LazySourceMap) {
+            // copying would parse all of the source, the lazy map is created for this document only so it can be used as is
+            this.sourceAndMetadata = source;
+        } else {
+            this.sourceAndMetadata = new HashMap<>();
+            this.sourceAndMetadata.putAll(source);
+        }
         this.sourceAndMetadata.put(MetaData.INDEX.getFieldName(), index);
         this.sourceAndMetadata.put(MetaData.TYPE.getFieldName(), type);
         this.sourceAndMetadata.put(MetaData.ID.getFieldName(), id);
@@ -112,12 +117,23 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(String path, Class<T> clazz) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
-        for (String pathElement : fieldPath.pathElements) {
-            context = resolve(pathElement, path, context);
+        return getFieldValue(new FieldPath(path), clazz);
+    }
+
+    /**
+     * Returns the value contained in the document for the provided compiled path
+     * @param fieldPath The compiled path within the document
+     * @param clazz The expected class of the field value
+     * @return the value for the provided path if existing, null otherwise
+     * @throws IllegalArgumentException if the field doesn't exist or if the field that is found at the provided path
+     * is not of the expected type.
+     */
+    public <T> T getFieldValue(FieldPath fieldPath, Class<T> clazz) {
+        Object context = fieldPath.initialContext(this);
+        for (int i = 0; i < fieldPath.pathElements.length; i++) {
+            context = resolve(fieldPath, i, context);
         }
-        return cast(path, context, clazz);
+        return cast(fieldPath.path, context, clazz);
     }
 
     /**
@@ -131,10 +147,24 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(String path, Class<T> clazz, boolean ignoreMissing) {
+        return getFieldValue(new FieldPath(path), clazz, ignoreMissing);
+    }
+
+    /**
+     * Returns the value contained in the document for the provided compiled path
+     *
+     * @param fieldPath The compiled path within the document
+     * @param clazz The expected class of the field value
+     * @param ignoreMissing The flag to determine whether to throw an exception when `path` is not found in the document.
+     * @return the value for the provided path if existing, null otherwise.
+     * @throws IllegalArgumentException only if ignoreMissing is false and the field doesn't exist
+     * or if the field that is found at the provided path is not of the expected type.
+     */
+    public <T> T getFieldValue(FieldPath fieldPath, Class<T> clazz, boolean ignoreMissing) {
         try {
-            return getFieldValue(path, clazz);
+            return getFieldValue(fieldPath, clazz);
         } catch (IllegalArgumentException e) {
-            if (ignoreMissing && hasField(path) != true) {
+            if (ignoreMissing && hasField(fieldPath) != true) {
                 return null;
             } else {
                 throw e;
@@ -219,8 +249,26 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public boolean hasField(String path, boolean failOutOfRange) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        return hasField(new FieldPath(path), failOutOfRange);
+    }
+
+    /**
+     * Checks whether the document contains a value for the provided compiled path
+     * @param fieldPath The compiled path within the document
+     * @return true if the document contains a value for the field, false otherwise
+     */
+    public boolean hasField(FieldPath fieldPath) {
+        return hasField(fieldPath, false);
+    }
+
+    /**
+     * Checks whether the document contains a value for the provided compiled path
+     * @param fieldPath The compiled path within the document
+     * @param failOutOfRange Whether to throw an IllegalArgumentException if array is accessed outside of its range
+     * @return true if the document contains a value for the field, false otherwise
+     */
+    public boolean hasField(FieldPath fieldPath, boolean failOutOfRange) {
+        Object context = fieldPath.initialContext(this);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             String pathElement = fieldPath.pathElements[i];
             if (context == null) {
@@ -233,49 +281,46 @@ public final class IngestDocument {
             } else if (context instanceof List) {
                 @SuppressWarnings("unchecked")
                 List<Object> list = (List<Object>) context;
-                try {
-                    int index = Integer.parseInt(pathElement);
-                    if (index < 0 || index >= list.size()) {
-                        if (failOutOfRange) {
-                            throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" +
-                                    list.size() + "] as part of path [" + path +"]");
-                        } else {
-                            return false;
-                        }
-                    }
-                    context = list.get(index);
-                } catch (NumberFormatException e) {
+                Integer index = fieldPath.indices[i];
+                if (index == null) {
                     return false;
                 }
-
+                if (index < 0 || index >= list.size()) {
+                    if (failOutOfRange) {
+                        throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" +
+                                list.size() + "] as part of path [" + fieldPath.path +"]");
+                    } else {
+                        return false;
+                    }
+                }
+                context = list.get(index);
             } else {
                 return false;
             }
         }
 
-        String leafKey = fieldPath.pathElements[fieldPath.pathElements.length - 1];
+        int leaf = fieldPath.pathElements.length - 1;
         if (context instanceof Map) {
             @SuppressWarnings("unchecked")
             Map<String, Object> map = (Map<String, Object>) context;
-            return map.containsKey(leafKey);
+            return map.containsKey(fieldPath.pathElements[leaf]);
         }
         if (context instanceof List) {
             @SuppressWarnings("unchecked")
             List<Object> list = (List<Object>) context;
-            try {
-                int index = Integer.parseInt(leafKey);
-                if (index >= 0 && index < list.size()) {
-                    return true;
+            Integer index = fieldPath.indices[leaf];
+            if (index == null) {
+                return false;
+            }
+            if (index >= 0 && index < list.size()) {
+                return true;
+            } else {
+                if (failOutOfRange) {
+                    throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" +
+                            list.size() + "] as part of path [" + fieldPath.path +"]");
                 } else {
-                    if (failOutOfRange) {
-                        throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" +
-                                list.size() + "] as part of path [" + path +"]");
-                    } else {
-                        return false;
-                    }
+                    return false;
                 }
-            } catch (NumberFormatException e) {
-                return false;
             }
         }
         return false;
@@ -296,13 +341,23 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty, invalid or if the field doesn't exist.
      */
     public void removeField(String path) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        removeField(new FieldPath(path));
+    }
+
+    /**
+     * Removes the field identified by the provided compiled path.
+     * @param fieldPath the compiled path of the field to be removed
+     * @throws IllegalArgumentException if the field doesn't exist.
+     */
+    public void removeField(FieldPath fieldPath) {
+        String path = fieldPath.path;
+        Object context = fieldPath.initialContext(this);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
-            context = resolve(fieldPath.pathElements[i], path, context);
+            context = resolve(fieldPath, i, context);
         }
 
-        String leafKey = fieldPath.pathElements[fieldPath.pathElements.length - 1];
+        int leaf = fieldPath.pathElements.length - 1;
+        String leafKey = fieldPath.pathElements[leaf];
         if (context instanceof Map) {
             @SuppressWarnings("unchecked")
             Map<String, Object> map = (Map<String, Object>) context;
@@ -315,13 +370,7 @@ public final class IngestDocument {
         if (context instanceof List) {
             @SuppressWarnings("unchecked")
             List<Object> list = (List<Object>) context;
-            int index;
-            try {
-                index = Integer.parseInt(leafKey);
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("[" + leafKey + "] is not an integer, cannot be used as an index as part of path [" +
-                        path + "]", e);
-            }
+            int index = fieldPath.index(leaf);
             if (index < 0 || index >= list.size()) {
                 throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" + list.size() +
                         "] as part of path [" + path + "]");
@@ -337,7 +386,9 @@ public final class IngestDocument {
                 "] as part of path [" + path + "]");
     }
 
-    private static Object resolve(String pathElement, String fullPath, Object context) {
+    private static Object resolve(FieldPath fieldPath, int i, Object context) {
+        String pathElement = fieldPath.pathElements[i];
+        String fullPath = fieldPath.path;
         if (context == null) {
             throw new IllegalArgumentException("cannot resolve [" + pathElement + "] from null as part of path [" + fullPath + "]");
         }
@@ -352,13 +403,7 @@ public final class IngestDocument {
         if (context instanceof List) {
             @SuppressWarnings("unchecked")
             List<Object> list = (List<Object>) context;
-            int index;
-            try {
-                index = Integer.parseInt(pathElement);
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("[" + pathElement + "] is not an integer, cannot be used as an index as part of path ["
-                        + fullPath + "]", e);
-            }
+            int index = fieldPath.index(i);
             if (index < 0 || index >= list.size()) {
                 throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" + list.size() +
                         "] as part of path [" + fullPath + "]");
@@ -382,7 +427,16 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public void appendFieldValue(String path, Object value) {
-        setFieldValue(path, value, true);
+        setFieldValue(new FieldPath(path), value, true);
+    }
+
+    /**
+     * Appends the provided value to the provided compiled path in the document, see {@link #appendFieldValue(String, Object)}.
+     * @param fieldPath The compiled path within the document
+     * @param value The value or values to append to the existing ones
+     */
+    public void appendFieldValue(FieldPath fieldPath, Object value) {
+        setFieldValue(fieldPath, value, true);
     }
 
     /**
@@ -413,7 +467,17 @@ public final class IngestDocument {
      * item identified by the provided path.
      */
     public void setFieldValue(String path, Object value) {
-        setFieldValue(path, value, false);
+        setFieldValue(new FieldPath(path), value, false);
+    }
+
+    /**
+     * Sets the provided value to the provided compiled path in the document, see {@link #setFieldValue(String, Object)}.
+     * @param fieldPath The compiled path within the document
+     * @param value The value to put in for the path key
+     * @throws IllegalArgumentException if the value cannot be set to the item identified by the provided path.
+     */
+    public void setFieldValue(FieldPath fieldPath, Object value) {
+        setFieldValue(fieldPath, value, false);
     }
 
     /**
@@ -427,12 +491,12 @@ public final class IngestDocument {
      */
     public void setFieldValue(TemplateScript.Factory fieldPathTemplate, ValueSource valueSource) {
         Map<String, Object> model = createTemplateModel();
-        setFieldValue(fieldPathTemplate.newInstance(model).execute(), valueSource.copyAndResolve(model), false);
+        setFieldValue(new FieldPath(fieldPathTemplate.newInstance(model).execute()), valueSource.copyAndResolve(model), false);
     }
 
-    private void setFieldValue(String path, Object value, boolean append) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+    private void setFieldValue(FieldPath fieldPath, Object value, boolean append) {
+        String path = fieldPath.path;
+        Object context = fieldPath.initialContext(this);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             String pathElement = fieldPath.pathElements[i];
             if (context == null) {
@@ -451,13 +515,7 @@ public final class IngestDocument {
             } else if (context instanceof List) {
                 @SuppressWarnings("unchecked")
                 List<Object> list = (List<Object>) context;
-                int index;
-                try {
-                    index = Integer.parseInt(pathElement);
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("[" + pathElement +
-                            "] is not an integer, cannot be used as an index as part of path [" + path + "]", e);
-                }
+                int index = fieldPath.index(i);
                 if (index < 0 || index >= list.size()) {
                     throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" +
                             list.size() + "] as part of path [" + path + "]");
@@ -469,7 +527,8 @@ public final class IngestDocument {
             }
         }
 
-        String leafKey = fieldPath.pathElements[fieldPath.pathElements.length - 1];
+        int leaf = fieldPath.pathElements.length - 1;
+        String leafKey = fieldPath.pathElements[leaf];
         if (context == null) {
             throw new IllegalArgumentException("cannot set [" + leafKey + "] with null parent as part of path [" + path + "]");
         }
@@ -494,13 +553,7 @@ public final class IngestDocument {
         } else if (context instanceof List) {
             @SuppressWarnings("unchecked")
             List<Object> list = (List<Object>) context;
-            int index;
-            try {
-                index = Integer.parseInt(leafKey);
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("[" + leafKey + "] is not an integer, cannot be used as an index as part of path [" +
-                        path + "]", e);
-            }
+            int index = fieldPath.index(leaf);
             if (index < 0 || index >= list.size()) {
                 throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" + list.size() +
                         "] as part of path [" + path + "]");
@@ -704,32 +757,97 @@ public final class IngestDocument {
         }
     }
 
-    private class FieldPath {
+    /**
+     * A path in dot-notation that is parsed once and can then be resolved against any {@link IngestDocument}. Processors that
+     * always operate on the same field should compile it when they are created rather than passing the path as a string for
+     * every document they process.
+     */
+    public static final class FieldPath {
 
+        private final String path;
+        private final boolean ingestMetadata;
         private final String[] pathElements;
-        private final Object initialContext;
-
-        private FieldPath(String path) {
+        // the path elements parsed as list indices, null for the elements that are not integers
+        private final Integer[] indices;
+
+        /**
+         * @param path The path within the document in dot-notation
+         * @throws IllegalArgumentException if the path is null, empty or invalid
+         */
+        public FieldPath(String path) {
             if (Strings.isEmpty(path)) {
                 throw new IllegalArgumentException("path cannot be null nor empty");
             }
             String newPath;
             if (path.startsWith(INGEST_KEY_PREFIX)) {
-                initialContext = ingestMetadata;
+                ingestMetadata = true;
                 newPath = path.substring(INGEST_KEY_PREFIX.length(), path.length());
             } else {
-                initialContext = sourceAndMetadata;
+                ingestMetadata = false;
                 if (path.startsWith(SOURCE_PREFIX)) {
                     newPath = path.substring(SOURCE_PREFIX.length(), path.length());
                 } else {
                     newPath = path;
                 }
             }
+            this.path = path;
             this.pathElements = newPath.split("\\.");
             if (pathElements.length == 1 && pathElements[0].isEmpty()) {
                 throw new IllegalArgumentException("path [" + path + "] is not valid");
             }
+            this.indices = new Integer[pathElements.length];
+            for (int i = 0; i < pathElements.length; i++) {
+                indices[i] = parseIndex(pathElements[i]);
+            }
         }
 
+        private static Integer parseIndex(String pathElement) {
+            // most path elements are plain field names, check the characters first to avoid the cost of a parse failure
+            int start = pathElement.startsWith("-") || pathElement.startsWith("+") ? 1 : 0;
+            if (pathElement.length() == start) {
+                return null;
+            }
+            for (int i = start; i < pathElement.length(); i++) {
+                if (Character.isDigit(pathElement.charAt(i)) == false) {
+                    return null;
+                }
+            }
+            try {
+                return Integer.parseInt(pathElement);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return the path in dot-notation this field path was compiled from
+         */
+        public String getPath() {
+            return path;
+        }
+
+        private Object initialContext(IngestDocument document) {
+            return ingestMetadata ? document.ingestMetadata : document.sourceAndMetadata;
+        }
+
+        private int index(int i) {
+            Integer index = indices[i];
+            if (index != null) {
+                return index;
+            }
+            NumberFormatException cause = null;
+            try {
+                Integer.parseInt(pathElements[i]);
+            } catch (NumberFormatException e) {
+                cause = e;
+            }
+            throw new IllegalArgumentException("[" + pathElements[i] + "] is not an integer, cannot be used as an index as part of path ["
+                    + path + "]", cause);
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
     }
 }
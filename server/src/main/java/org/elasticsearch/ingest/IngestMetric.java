@@ -66,6 +66,25 @@ class IngestMetric {
         ingestCount.inc();
     }
 
+    /**
+     * Call this prior to the ingest action on a batch of things.
+     * @param count The number of things in the batch.
+     */
+    void preIngest(int count) {
+        ingestCurrent.inc(count);
+    }
+
+    /**
+     * Call this after performing the ingest action on a batch of things, even if the action failed.
+     * @param count The number of things in the batch.
+     * @param ingestTimeInMillis The time it took to perform the action on the whole batch.
+     */
+    void postIngest(int count, long ingestTimeInMillis) {
+        ingestCurrent.dec(count);
+        ingestTime.inc(ingestTimeInMillis);
+        ingestCount.inc(count);
+    }
+
     /**
      * Call this if the ingest action failed.
      */
@@ -38,8 +38,12 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.gateway.GatewayService;
@@ -49,6 +53,7 @@ import org.elasticsearch.plugins.IngestPlugin;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -59,8 +64,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Holder class for several ingest related services.
@@ -69,6 +77,18 @@ public class IngestService implements ClusterStateApplier {
 
     public static final String NOOP_PIPELINE_NAME = "_none";
 
+    /**
+     * The number of consecutive bulk items that are executed as one batch, the unit of work that is spread over the ingest
+     * thread pool.
+     */
+    static final int BATCH_SIZE = 64;
+
+    /**
+     * Whether ingest documents parse the source of index requests lazily, see {@link LazySourceMap}. This pays off for pipelines
+     * that only touch a few top level fields of large documents, but parses the values that are accessed twice.
+     */
+    public static final Setting<Boolean> LAZY_SOURCE_SETTING = Setting.boolSetting("ingest.lazy_source", false, Property.NodeScope);
+
     private final ClusterService clusterService;
     private final ScriptService scriptService;
     private final Map<String, Processor.Factory> processorFactories;
@@ -78,6 +98,7 @@ public class IngestService implements ClusterStateApplier {
     // are loaded, so in the cluster state we just save the pipeline config and here we keep the actual pipelines around.
     private volatile Map<String, Pipeline> pipelines = new HashMap<>();
     private final ThreadPool threadPool;
+    private final boolean lazySource;
     private final IngestMetric totalMetrics = new IngestMetric();
 
     public IngestService(ClusterService clusterService, ThreadPool threadPool,
@@ -96,6 +117,7 @@ public class IngestService implements ClusterStateApplier {
             )
         );
         this.threadPool = threadPool;
+        this.lazySource = env != null && LAZY_SOURCE_SETTING.get(env.settings());
     }
 
     private static Map<String, Processor.Factory> processorFactories(List<IngestPlugin> ingestPlugins,
@@ -374,9 +396,14 @@ public class IngestService implements ClusterStateApplier {
         ExceptionsHelper.rethrowAndSuppress(exceptions);
     }
 
+    /**
+     * Executes the pipelines of the index requests in the given bulk items. Items are split into batches of {@link #BATCH_SIZE}
+     * consecutive items which are spread over the {@link ThreadPool.Names#INGEST} thread pool, so the item handlers may be called
+     * concurrently and in any order. The handlers receive the slot of the item, that is its position in the given requests.
+     */
     public void executeBulkRequest(Iterable<DocWriteRequest<?>> actionRequests,
-        BiConsumer<IndexRequest, Exception> itemFailureHandler, Consumer<Exception> completionHandler,
-        Consumer<IndexRequest> itemDroppedHandler) {
+        BiConsumer<Integer, Exception> itemFailureHandler, Consumer<Exception> completionHandler,
+        IntConsumer itemDroppedHandler) {
 
         threadPool.executor(ThreadPool.Names.WRITE).execute(new AbstractRunnable() {
 
@@ -387,28 +414,18 @@ public class IngestService implements ClusterStateApplier {
 
             @Override
             protected void doRun() {
+                final List<Integer> slots = new ArrayList<>();
+                final List<IndexRequest> indexRequests = new ArrayList<>();
+                int slot = 0;
                 for (DocWriteRequest<?> actionRequest : actionRequests) {
                     IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(actionRequest);
-                    if (indexRequest == null) {
-                        continue;
-                    }
-                    String pipelineId = indexRequest.getPipeline();
-                    if (NOOP_PIPELINE_NAME.equals(pipelineId) == false) {
-                        try {
-                            Pipeline pipeline = pipelines.get(pipelineId);
-                            if (pipeline == null) {
-                                throw new IllegalArgumentException("pipeline with id [" + pipelineId + "] does not exist");
-                            }
-                            innerExecute(indexRequest, pipeline, itemDroppedHandler);
-                            //this shouldn't be needed here but we do it for consistency with index api
-                            // which requires it to prevent double execution
-                            indexRequest.setPipeline(NOOP_PIPELINE_NAME);
-                        } catch (Exception e) {
-                            itemFailureHandler.accept(indexRequest, e);
-                        }
+                    if (indexRequest != null && NOOP_PIPELINE_NAME.equals(indexRequest.getPipeline()) == false) {
+                        slots.add(slot);
+                        indexRequests.add(indexRequest);
                     }
+                    slot++;
                 }
-                completionHandler.accept(null);
+                new BulkExecution(slots, indexRequests, itemFailureHandler, completionHandler, itemDroppedHandler).start();
             }
         });
     }
@@ -452,46 +469,202 @@ public class IngestService implements ClusterStateApplier {
         return sb.toString();
     }
 
-    private void innerExecute(IndexRequest indexRequest, Pipeline pipeline, Consumer<IndexRequest> itemDroppedHandler) throws Exception {
-        if (pipeline.getProcessors().isEmpty()) {
-            return;
+    private IngestDocument newIngestDocument(IndexRequest indexRequest) {
+        String index = indexRequest.index();
+        String type = indexRequest.type();
+        String id = indexRequest.id();
+        String routing = indexRequest.routing();
+        Long version = indexRequest.version();
+        VersionType versionType = indexRequest.versionType();
+        Map<String, Object> sourceAsMap = lazySource
+            ? LazySourceMap.parse(indexRequest.source(), indexRequest.getContentType())
+            : indexRequest.sourceAsMap();
+        return new IngestDocument(index, type, id, routing, null, version, versionType, sourceAsMap);
+    }
+
+    private static void updateIndexRequest(IndexRequest indexRequest, IngestDocument ingestDocument) throws IOException {
+        Map<IngestDocument.MetaData, Object> metadataMap = ingestDocument.extractMetadata();
+        //it's fine to set all metadata fields all the time, as ingest document holds their starting values
+        //before ingestion, which might also get modified during ingestion.
+        indexRequest.index((String) metadataMap.get(IngestDocument.MetaData.INDEX));
+        indexRequest.type((String) metadataMap.get(IngestDocument.MetaData.TYPE));
+        indexRequest.id((String) metadataMap.get(IngestDocument.MetaData.ID));
+        indexRequest.routing((String) metadataMap.get(IngestDocument.MetaData.ROUTING));
+        indexRequest.version(((Number) metadataMap.get(IngestDocument.MetaData.VERSION)).longValue());
+        if (metadataMap.get(IngestDocument.MetaData.VERSION_TYPE) != null) {
+            indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.MetaData.VERSION_TYPE)));
+        }
+        Map<String, Object> source = ingestDocument.getSourceAndMetadata();
+        if (source instanceof LazySourceMap) {
+            LazySourceMap lazySourceMap = (LazySourceMap) source;
+            XContentBuilder builder = XContentBuilder.builder(lazySourceMap.getXContentType().xContent());
+            lazySourceMap.toXContent(builder);
+            indexRequest.source(builder);
+        } else {
+            indexRequest.source(source);
         }
+    }
 
-        long startTimeInNanos = System.nanoTime();
-        // the pipeline specific stat holder may not exist and that is fine:
-        // (e.g. the pipeline may have been removed while we're ingesting a document
-        try {
-            totalMetrics.preIngest();
-            String index = indexRequest.index();
-            String type = indexRequest.type();
-            String id = indexRequest.id();
-            String routing = indexRequest.routing();
-            Long version = indexRequest.version();
-            VersionType versionType = indexRequest.versionType();
-            Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
-            IngestDocument ingestDocument = new IngestDocument(index, type, id, routing, null, version, versionType, sourceAsMap);
-            if (pipeline.execute(ingestDocument) == null) {
-                itemDroppedHandler.accept(indexRequest);
-            } else {
-                Map<IngestDocument.MetaData, Object> metadataMap = ingestDocument.extractMetadata();
-                //it's fine to set all metadata fields all the time, as ingest document holds their starting values
-                //before ingestion, which might also get modified during ingestion.
-                indexRequest.index((String) metadataMap.get(IngestDocument.MetaData.INDEX));
-                indexRequest.type((String) metadataMap.get(IngestDocument.MetaData.TYPE));
-                indexRequest.id((String) metadataMap.get(IngestDocument.MetaData.ID));
-                indexRequest.routing((String) metadataMap.get(IngestDocument.MetaData.ROUTING));
-                indexRequest.version(((Number) metadataMap.get(IngestDocument.MetaData.VERSION)).longValue());
-                if (metadataMap.get(IngestDocument.MetaData.VERSION_TYPE) != null) {
-                    indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.MetaData.VERSION_TYPE)));
+    /**
+     * Runs the pipelines of the index requests of a single bulk request. The thread that starts the execution processes batches
+     * itself and forks helpers to the ingest thread pool, all of which take the next unprocessed batch until none are left. A
+     * rejected helper is not retried as the remaining workers pick up its share, and the last worker to finish completes the bulk.
+     */
+    private final class BulkExecution {
+
+        private final int[] slots;
+        private final IndexRequest[] indexRequests;
+        private final BiConsumer<Integer, Exception> itemFailureHandler;
+        private final Consumer<Exception> completionHandler;
+        private final IntConsumer itemDroppedHandler;
+        private final int numBatches;
+        private final int numHelpers;
+        private final AtomicInteger nextBatch = new AtomicInteger();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final CountDown pendingWorkers;
+
+        BulkExecution(List<Integer> slots, List<IndexRequest> indexRequests, BiConsumer<Integer, Exception> itemFailureHandler,
+                      Consumer<Exception> completionHandler, IntConsumer itemDroppedHandler) {
+            this.slots = slots.stream().mapToInt(Integer::intValue).toArray();
+            this.indexRequests = indexRequests.toArray(new IndexRequest[0]);
+            this.itemFailureHandler = itemFailureHandler;
+            this.completionHandler = completionHandler;
+            this.itemDroppedHandler = itemDroppedHandler;
+            this.numBatches = (this.slots.length + BATCH_SIZE - 1) / BATCH_SIZE;
+            ThreadPool.Info info = threadPool.info(ThreadPool.Names.INGEST);
+            int parallelism = info == null ? 1 : Math.max(1, info.getMax());
+            this.numHelpers = Math.max(0, Math.min(numBatches, parallelism) - 1);
+            this.pendingWorkers = new CountDown(numHelpers + 1);
+        }
+
+        void start() {
+            for (int i = 0; i < numHelpers; i++) {
+                threadPool.executor(ThreadPool.Names.INGEST).execute(new AbstractRunnable() {
+                    @Override
+                    public void onRejection(Exception e) {
+                        onWorkerDone(null);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onWorkerDone(e);
+                    }
+
+                    @Override
+                    protected void doRun() {
+                        work();
+                    }
+                });
+            }
+            work();
+        }
+
+        private void work() {
+            Exception workerFailure = null;
+            try {
+                int batch;
+                while ((batch = nextBatch.getAndIncrement()) < numBatches) {
+                    executeBatch(batch * BATCH_SIZE, Math.min(slots.length, (batch + 1) * BATCH_SIZE));
+                }
+            } catch (Exception e) {
+                workerFailure = e;
+            }
+            onWorkerDone(workerFailure);
+        }
+
+        private void onWorkerDone(Exception e) {
+            if (e != null) {
+                failure.compareAndSet(null, e);
+            }
+            if (pendingWorkers.countDown()) {
+                completionHandler.accept(failure.get());
+            }
+        }
+
+        private void executeBatch(int from, int to) {
+            int start = from;
+            while (start < to) {
+                // hand runs of consecutive items that share the same pipeline to that pipeline at once
+                final String pipelineId = indexRequests[start].getPipeline();
+                int end = start + 1;
+                while (end < to && Objects.equals(pipelineId, indexRequests[end].getPipeline())) {
+                    end++;
+                }
+                executePipeline(pipelineId, start, end);
+                start = end;
+            }
+        }
+
+        private void executePipeline(String pipelineId, int from, int to) {
+            final Pipeline pipeline = pipelines.get(pipelineId);
+            if (pipeline == null) {
+                for (int i = from; i < to; i++) {
+                    IllegalArgumentException e = new IllegalArgumentException("pipeline with id [" + pipelineId + "] does not exist");
+                    itemFailureHandler.accept(slots[i], e);
+                }
+                return;
+            }
+            if (pipeline.getProcessors().isEmpty()) {
+                for (int i = from; i < to; i++) {
+                    indexRequests[i].setPipeline(NOOP_PIPELINE_NAME);
+                }
+                return;
+            }
+
+            long startTimeInNanos = System.nanoTime();
+            // the pipeline specific stat holder may not exist and that is fine:
+            // (e.g. the pipeline may have been removed while we're ingesting a document
+            totalMetrics.preIngest(to - from);
+            try {
+                final List<IngestDocument> documents = new ArrayList<>(to - from);
+                final int[] positions = new int[to - from];
+                for (int i = from; i < to; i++) {
+                    try {
+                        documents.add(newIngestDocument(indexRequests[i]));
+                        positions[documents.size() - 1] = i;
+                    } catch (Exception e) {
+                        onItemFailure(i, e);
+                    }
+                }
+                final int[] processed = new int[1];
+                try {
+                    pipeline.execute(documents, (result, e) -> {
+                        final int position = processed[0]++;
+                        onItemExecuted(positions[position], documents.get(position), result, e);
+                    });
+                } catch (Exception e) {
+                    for (int position = processed[0]; position < documents.size(); position++) {
+                        onItemFailure(positions[position], e);
+                    }
                 }
-                indexRequest.source(ingestDocument.getSourceAndMetadata());
+            } finally {
+                long ingestTimeInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeInNanos);
+                totalMetrics.postIngest(to - from, ingestTimeInMillis);
             }
-        } catch (Exception e) {
+        }
+
+        private void onItemExecuted(int i, IngestDocument ingestDocument, IngestDocument result, Exception e) {
+            if (e != null) {
+                onItemFailure(i, e);
+                return;
+            }
+            try {
+                if (result == null) {
+                    itemDroppedHandler.accept(slots[i]);
+                } else {
+                    updateIndexRequest(indexRequests[i], ingestDocument);
+                }
+                //this shouldn't be needed here but we do it for consistency with index api
+                // which requires it to prevent double execution
+                indexRequests[i].setPipeline(NOOP_PIPELINE_NAME);
+            } catch (Exception inner) {
+                onItemFailure(i, inner);
+            }
+        }
+
+        private void onItemFailure(int i, Exception e) {
             totalMetrics.ingestFailed();
-            throw e;
-        } finally {
-            long ingestTimeInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeInNanos);
-            totalMetrics.postIngest(ingestTimeInMillis);
+            itemFailureHandler.accept(slots[i], e);
         }
     }
 
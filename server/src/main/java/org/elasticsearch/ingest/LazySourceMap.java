@@ -0,0 +1,199 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The top level of a document source that only parses the objects and arrays it holds when they are accessed. Such values are
+ * kept as raw bytes until they are read through the map and written back verbatim by {@link #toXContent(XContentBuilder)} if
+ * they never were. Once materialized, a value is treated as modified as it may have been changed in place.
+ * <p>
+ * Iterating over the entries of the map materializes all of its values.
+ */
+final class LazySourceMap extends AbstractMap<String, Object> {
+
+    private final XContentType xContentType;
+    private final Map<String, Object> fields;
+
+    private LazySourceMap(XContentType xContentType, Map<String, Object> fields) {
+        this.xContentType = xContentType;
+        this.fields = fields;
+    }
+
+    /**
+     * Parses the top level fields of the provided source, leaving nested objects and arrays unparsed.
+     */
+    static LazySourceMap parse(BytesReference source, XContentType xContentType) {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source, xContentType)) {
+            XContentParser.Token token = parser.nextToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("Failed to parse content to map, expected an object but got [{}]", token);
+            }
+            Map<String, Object> fields = new LinkedHashMap<>();
+            while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+                String name = parser.currentName();
+                token = parser.nextToken();
+                if (token == XContentParser.Token.START_OBJECT || token == XContentParser.Token.START_ARRAY) {
+                    XContentBuilder builder = XContentBuilder.builder(xContentType.xContent());
+                    builder.copyCurrentStructure(parser);
+                    fields.put(name, new RawValue(BytesReference.bytes(builder)));
+                } else {
+                    fields.put(name, readScalar(parser, token));
+                }
+            }
+            return new LazySourceMap(xContentType, fields);
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("Failed to parse content to map", e);
+        }
+    }
+
+    private static Object readScalar(XContentParser parser, XContentParser.Token token) throws IOException {
+        // mirrors how XContentParser#map() reads values so that both backings yield the same objects
+        if (token == XContentParser.Token.VALUE_STRING) {
+            return parser.text();
+        } else if (token == XContentParser.Token.VALUE_NUMBER) {
+            return parser.numberValue();
+        } else if (token == XContentParser.Token.VALUE_BOOLEAN) {
+            return parser.booleanValue();
+        } else if (token == XContentParser.Token.VALUE_EMBEDDED_OBJECT) {
+            return parser.binaryValue();
+        }
+        return null;
+    }
+
+    private Object materialize(String key, Object value) {
+        if (value instanceof RawValue) {
+            Object parsed = ((RawValue) value).parse(xContentType);
+            fields.put(key, parsed);
+            return parsed;
+        }
+        return value;
+    }
+
+    /**
+     * Writes this source as an object, copying the bytes of the values that were never accessed.
+     */
+    void toXContent(XContentBuilder builder) throws IOException {
+        builder.startObject();
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            if (entry.getValue() instanceof RawValue) {
+                builder.rawField(entry.getKey(), ((RawValue) entry.getValue()).bytes.streamInput(), xContentType);
+            } else {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+        }
+        builder.endObject();
+    }
+
+    XContentType getXContentType() {
+        return xContentType;
+    }
+
+    /**
+     * Returns the number of values that are still held as raw bytes.
+     */
+    int rawValueCount() {
+        int count = 0;
+        for (Object value : fields.values()) {
+            if (value instanceof RawValue) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = fields.get(key);
+        return value instanceof RawValue ? materialize((String) key, value) : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return fields.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object previous = fields.put(key, value);
+        return previous instanceof RawValue ? ((RawValue) previous).parse(xContentType) : previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Object previous = fields.remove(key);
+        return previous instanceof RawValue ? ((RawValue) previous).parse(xContentType) : previous;
+    }
+
+    @Override
+    public int size() {
+        return fields.size();
+    }
+
+    @Override
+    public void clear() {
+        fields.clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            if (entry.getValue() instanceof RawValue) {
+                entry.setValue(((RawValue) entry.getValue()).parse(xContentType));
+            }
+        }
+        return fields.entrySet();
+    }
+
+    private static final class RawValue {
+
+        private final BytesReference bytes;
+
+        private RawValue(BytesReference bytes) {
+            this.bytes = bytes;
+        }
+
+        private Object parse(XContentType xContentType) {
+            try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                    DeprecationHandler.THROW_UNSUPPORTED_OPERATION, bytes, xContentType)) {
+                XContentParser.Token token = parser.nextToken();
+                return token == XContentParser.Token.START_OBJECT ? parser.map() : parser.list();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
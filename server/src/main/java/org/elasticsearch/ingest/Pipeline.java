@@ -27,6 +27,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.LongSupplier;
 
 import org.elasticsearch.script.ScriptService;
@@ -107,6 +108,28 @@ public final class Pipeline {
         }
     }
 
+    /**
+     * Modifies the data of a batch of documents to be indexed based on the processor this pipeline holds. The handler is called
+     * once per document, in order, with either the resulting document (<code>null</code> if the document is to be dropped) or
+     * the exception that the pipeline failed with for that document.
+     */
+    public void execute(List<IngestDocument> documents, BiConsumer<IngestDocument, Exception> handler) {
+        final int numDocuments = documents.size();
+        long startTimeInNanos = relativeTimeProvider.getAsLong();
+        try {
+            metrics.preIngest(numDocuments);
+            compoundProcessor.execute(documents, (result, e) -> {
+                if (e != null) {
+                    metrics.ingestFailed();
+                }
+                handler.accept(result, e);
+            });
+        } finally {
+            long ingestTimeInMillis = TimeUnit.NANOSECONDS.toMillis(relativeTimeProvider.getAsLong() - startTimeInNanos);
+            metrics.postIngest(numDocuments, ingestTimeInMillis);
+        }
+    }
+
     /**
      * The unique id of this pipeline
      */
@@ -24,8 +24,10 @@ import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.script.ScriptService;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.LongSupplier;
 
@@ -45,6 +47,36 @@ public interface Processor {
      */
     IngestDocument execute(IngestDocument ingestDocument) throws Exception;
 
+    /**
+     * Introspect and potentially modify a batch of incoming documents. Processors that can amortize work across documents, for
+     * instance by preparing state once per batch, can override this together with {@link #supportsBatchExecution()}. The default
+     * implementation executes each document with {@link #execute(IngestDocument)}.
+     *
+     * @param documents the documents to process
+     * @param handler   called once per document, in the order of the documents, with either the result of processing it (which is
+     *                  <code>null</code> if the document is to be dropped) or the exception that processing it failed with
+     */
+    default void execute(List<IngestDocument> documents, BiConsumer<IngestDocument, Exception> handler) {
+        for (IngestDocument document : documents) {
+            final IngestDocument result;
+            try {
+                result = execute(document);
+            } catch (Exception e) {
+                handler.accept(null, e);
+                continue;
+            }
+            handler.accept(result, null);
+        }
+    }
+
+    /**
+     * Whether this processor implements {@link #execute(List, BiConsumer)} itself, in which case it is preferred over executing
+     * documents one by one when a batch of documents is processed.
+     */
+    default boolean supportsBatchExecution() {
+        return false;
+    }
+
     /**
      * Gets the type of a processor
      */
@@ -27,14 +27,18 @@ import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Collects statistics about queue size, response time, and service time of
@@ -44,9 +48,27 @@ import java.util.concurrent.ConcurrentMap;
 public final class ResponseCollectorService implements ClusterStateListener {
 
     private static final double ALPHA = 0.3;
+    // the number of most recent response times that percentiles are computed from
+    private static final int RESPONSE_TIME_SAMPLES = 1024;
+    // the number of new response times after which cached percentiles are recomputed
+    private static final int PERCENTILE_REFRESH_INTERVAL = 64;
 
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
 
+    // written without locking on every shard response. Percentiles are computed from a copy of the samples that might miss the
+    // response times that are being recorded concurrently, which is fine for an estimate
+    private final AtomicLongArray responseTimes = new AtomicLongArray(RESPONSE_TIME_SAMPLES);
+    private final AtomicLong responseTimeCount = new AtomicLong();
+    private double cachedPercentile = Double.NaN;
+    private long cachedPercentileValue = -1;
+    private long cachedPercentileCount;
+
+    private final CounterMetric hedgingShardRequests = new CounterMetric();
+    private final CounterMetric hedgedRequests = new CounterMetric();
+    private final CounterMetric hedgeWins = new CounterMetric();
+    private final CounterMetric discardedResponses = new CounterMetric();
+    private final CounterMetric shedRequests = new CounterMetric();
+
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
     }
@@ -77,6 +99,75 @@ public final class ResponseCollectorService implements ClusterStateListener {
                 return ns;
             }
         });
+        addResponseTime(responseTimeNanos);
+    }
+
+    private void addResponseTime(long responseTimeNanos) {
+        responseTimes.set((int) (responseTimeCount.getAndIncrement() % RESPONSE_TIME_SAMPLES), responseTimeNanos);
+    }
+
+    /**
+     * Returns the given percentile of the most recent response times of all nodes, or <code>-1</code> if too few responses
+     * were collected to compute it. The percentile is only recomputed every {@value #PERCENTILE_REFRESH_INTERVAL} responses.
+     */
+    public synchronized long getResponseTimePercentile(double percentile) {
+        final long count = responseTimeCount.get();
+        if (count < PERCENTILE_REFRESH_INTERVAL) {
+            return -1;
+        }
+        if (percentile != cachedPercentile || count - cachedPercentileCount >= PERCENTILE_REFRESH_INTERVAL) {
+            final int numSamples = (int) Math.min(count, RESPONSE_TIME_SAMPLES);
+            final long[] sorted = new long[numSamples];
+            for (int i = 0; i < numSamples; i++) {
+                sorted[i] = responseTimes.get(i);
+            }
+            Arrays.sort(sorted);
+            final int index = (int) Math.ceil(percentile / 100 * numSamples) - 1;
+            cachedPercentileValue = sorted[Math.max(0, Math.min(numSamples - 1, index))];
+            cachedPercentile = percentile;
+            cachedPercentileCount = count;
+        }
+        return cachedPercentileValue;
+    }
+
+    /**
+     * Called for every shard level search request that is sent while hedging or load shedding is enabled.
+     */
+    public void onHedgingShardRequest() {
+        hedgingShardRequests.inc();
+    }
+
+    /**
+     * Called when a shard level search request is sent to another copy of the shard because the first copy was slow.
+     */
+    public void onHedgedRequest() {
+        hedgedRequests.inc();
+    }
+
+    /**
+     * Called when a hedged shard level search request responded before the request it hedged.
+     */
+    public void onHedgeWin() {
+        hedgeWins.inc();
+    }
+
+    /**
+     * Called when the successful response of a shard is discarded because another copy of the shard responded first.
+     */
+    public void onDiscardedResponse() {
+        discardedResponses.inc();
+    }
+
+    /**
+     * Called when a shard level search request is not sent because the search queue of the target node is too large.
+     */
+    public void onShedRequest() {
+        shedRequests.inc();
+    }
+
+    public SearchHedgingStats getHedgingStats() {
+        return new SearchHedgingStats(hedgingShardRequests.count(), hedgedRequests.count(), hedgeWins.count(),
+            discardedResponses.count(), shedRequests.count());
     }
 
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
@@ -90,7 +181,7 @@ public final class ResponseCollectorService implements ClusterStateListener {
     }
 
     public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
-        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
+        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics(), getHedgingStats());
     }
 
     /**
@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Statistics about hedged shard requests and load shedding of the search requests coordinated by a node.
+ */
+public final class SearchHedgingStats implements Writeable, ToXContentFragment {
+
+    private final long shardRequests;
+    private final long hedgedRequests;
+    private final long hedgeWins;
+    private final long discardedResponses;
+    private final long shedRequests;
+
+    public SearchHedgingStats(long shardRequests, long hedgedRequests, long hedgeWins, long discardedResponses, long shedRequests) {
+        this.shardRequests = shardRequests;
+        this.hedgedRequests = hedgedRequests;
+        this.hedgeWins = hedgeWins;
+        this.discardedResponses = discardedResponses;
+        this.shedRequests = shedRequests;
+    }
+
+    public SearchHedgingStats(StreamInput in) throws IOException {
+        shardRequests = in.readVLong();
+        hedgedRequests = in.readVLong();
+        hedgeWins = in.readVLong();
+        discardedResponses = in.readVLong();
+        shedRequests = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(shardRequests);
+        out.writeVLong(hedgedRequests);
+        out.writeVLong(hedgeWins);
+        out.writeVLong(discardedResponses);
+        out.writeVLong(shedRequests);
+    }
+
+    /**
+     * The number of shard level requests that were sent while hedging or load shedding was enabled
+     */
+    public long getShardRequests() {
+        return shardRequests;
+    }
+
+    /**
+     * The number of shard level requests that were sent to a second copy of the shard because the first copy was slow to respond
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * The number of hedged requests that responded before the request they hedged
+     */
+    public long getHedgeWins() {
+        return hedgeWins;
+    }
+
+    /**
+     * The number of successful shard responses that were discarded because another copy of the shard responded first
+     */
+    public long getDiscardedResponses() {
+        return discardedResponses;
+    }
+
+    /**
+     * The number of shard level requests that were not sent because the search queue of the target node was too large
+     */
+    public long getShedRequests() {
+        return shedRequests;
+    }
+
+    /**
+     * The ratio of shard level requests that were hedged
+     */
+    public double getHedgeRate() {
+        return shardRequests == 0 ? 0 : (double) hedgedRequests / shardRequests;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("search_hedging");
+        builder.field("shard_requests", shardRequests);
+        builder.field("hedged_requests", hedgedRequests);
+        builder.field("hedge_wins", hedgeWins);
+        builder.field("hedge_rate", getHedgeRate());
+        builder.field("discarded_responses", discardedResponses);
+        builder.field("shed_requests", shedRequests);
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchHedgingStats that = (SearchHedgingStats) o;
+        return shardRequests == that.shardRequests &&
+            hedgedRequests == that.hedgedRequests &&
+            hedgeWins == that.hedgeWins &&
+            discardedResponses == that.discardedResponses &&
+            shedRequests == that.shedRequests;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(shardRequests, hedgedRequests, hedgeWins, discardedResponses, shedRequests);
+    }
+}
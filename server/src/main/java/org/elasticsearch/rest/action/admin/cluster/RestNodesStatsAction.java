@@ -78,6 +78,8 @@ public class RestNodesStatsAction extends BaseRestHandler {
         metrics.put("discovery", r -> r.discovery(true));
         metrics.put("ingest", r -> r.ingest(true));
         metrics.put("adaptive_selection", r -> r.adaptiveSelection(true));
+        metrics.put("search_reduce", r -> r.searchReduce(true));
+        metrics.put("allocation_deciders", r -> r.allocationDeciders(true));
         METRICS = Collections.unmodifiableMap(metrics);
     }
 
@@ -39,6 +39,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.frequency.BackgroundFrequencyCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -52,6 +53,7 @@ import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.search.NestedHelper;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
 import org.elasticsearch.search.collapse.CollapseContext;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -112,6 +114,7 @@ final class DefaultSearchContext extends SearchContext {
     private ScriptFieldsContext scriptFields;
     private FetchSourceContext fetchSourceContext;
     private DocValueFieldsContext docValueFieldsContext;
+    private IndicesFetchCache fetchCache;
     private int from = -1;
     private int size = -1;
     private SortAndFormats sort;
@@ -460,6 +463,17 @@ final class DefaultSearchContext extends SearchContext {
         return this;
     }
 
+    @Override
+    public IndicesFetchCache fetchCache() {
+        return fetchCache;
+    }
+
+    @Override
+    public SearchContext fetchCache(IndicesFetchCache fetchCache) {
+        this.fetchCache = fetchCache;
+        return this;
+    }
+
     @Override
     public DocValueFieldsContext docValueFieldsContext() {
         return docValueFieldsContext;
@@ -501,6 +515,15 @@ final class DefaultSearchContext extends SearchContext {
         return indexService.cache().bitsetFilterCache();
     }
 
+    @Override
+    public BackgroundFrequencyCache backgroundFrequencyCache() {
+        // wrapped readers share the cache keys of the segments they wrap, so their frequencies must not be cached
+        if (indexShard.hasSearcherWrapper()) {
+            return null;
+        }
+        return indexService.cache().backgroundFrequencyCache();
+    }
+
     @Override
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return queryShardContext.getForField(fieldType);
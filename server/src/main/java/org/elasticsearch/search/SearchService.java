@@ -58,6 +58,7 @@ import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
 import org.elasticsearch.node.ResponseCollectorService;
@@ -662,6 +663,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         final DefaultSearchContext searchContext = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget,
             engineSearcher, clusterService, indexService, indexShard, bigArrays, threadPool.estimatedTimeInMillisCounter(), timeout,
             fetchPhase, clusterService.state().nodes().getMinNodeVersion());
+        // wrapped searchers may filter stored fields per request, the cache can only be shared by requests that see the same fields
+        if (indexService.getIndexSettings().getValue(IndicesFetchCache.INDEX_FETCH_CACHE_ENABLED_SETTING)
+                && indexShard.hasSearcherWrapper() == false) {
+            searchContext.fetchCache(indicesService.getIndicesFetchCache());
+        }
         boolean success = false;
         try {
             // we clone the query shard context here just for rewriting otherwise we
@@ -82,6 +82,8 @@ import org.elasticsearch.search.aggregations.metrics.sum.Sum;
 import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.tophits.TopHits;
 import org.elasticsearch.search.aggregations.metrics.tophits.TopHitsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.topmetrics.TopMetrics;
+import org.elasticsearch.search.aggregations.metrics.topmetrics.TopMetricsAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCount;
 import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.weighted_avg.WeightedAvgAggregationBuilder;
@@ -342,6 +344,13 @@ public class AggregationBuilders {
         return new TopHitsAggregationBuilder(name);
     }
 
+    /**
+     * Create a new {@link TopMetrics} aggregation with the given name.
+     */
+    public static TopMetricsAggregationBuilder topMetrics(String name) {
+        return new TopMetricsAggregationBuilder(name);
+    }
+
     /**
      * Create a new {@link GeoBounds} aggregation with the given name.
      */
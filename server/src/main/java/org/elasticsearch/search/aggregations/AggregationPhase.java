@@ -60,8 +60,10 @@ public class AggregationPhase implements SearchPhase {
                 }
                 context.aggregations().aggregators(aggregators);
                 if (!collectors.isEmpty()) {
-                    Collector collector = MultiBucketCollector.wrap(collectors);
-                    ((BucketCollector)collector).preCollection();
+                    BatchingBucketCollector bucketCollector = new BatchingBucketCollector(MultiBucketCollector.wrap(collectors));
+                    bucketCollector.preCollection();
+                    context.aggregations().collector(bucketCollector);
+                    Collector collector = bucketCollector;
                     if (context.getProfilers() != null) {
                         collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
                                 // TODO: report on child aggs as well
@@ -97,7 +99,7 @@ public class AggregationPhase implements SearchPhase {
 
         // optimize the global collector based execution
         if (!globals.isEmpty()) {
-            BucketCollector globalsCollector = MultiBucketCollector.wrap(globals);
+            BatchingBucketCollector globalsCollector = new BatchingBucketCollector(MultiBucketCollector.wrap(globals));
             Query query = context.buildFilteredQuery(Queries.newMatchAllQuery());
 
             try {
@@ -115,6 +117,7 @@ public class AggregationPhase implements SearchPhase {
                 }
                 globalsCollector.preCollection();
                 context.searcher().search(query, collector);
+                globalsCollector.flush();
             } catch (Exception e) {
                 throw new QueryPhaseExecutionException(context, "Failed to execute global aggregators", e);
             } finally {
@@ -122,6 +125,15 @@ public class AggregationPhase implements SearchPhase {
             }
         }
 
+        if (context.aggregations().collector() != null) {
+            try {
+                // collect the docs that are still buffered before the post collection of the aggregators
+                context.aggregations().collector().flush();
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect aggregations", e);
+            }
+        }
+
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
         context.aggregations().resetBucketMultiConsumer();
         for (Aggregator aggregator : context.aggregations().aggregators()) {
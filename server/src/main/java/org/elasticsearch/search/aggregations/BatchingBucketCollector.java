@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Scorer;
+
+import java.io.IOException;
+
+/**
+ * A {@link BucketCollector} that buffers the docs that are collected by the top level aggregators and hands them over to
+ * {@link LeafBucketCollector#collect(int[], int, long)} in batches of up to {@link #BATCH_SIZE} docs instead of one by one.
+ * This allows aggregators to pull the doc values of a whole batch and to update their buckets in tight loops.
+ * <p>
+ * Buffered docs are flushed when the batch is full, when the collection moves on to the next segment and when
+ * {@link #flush()} is called, which must happen before the post collection of the wrapped aggregators. Batching is disabled
+ * if the wrapped collector needs scores, since the scorer is positioned on the last collected doc only.
+ */
+public final class BatchingBucketCollector extends BucketCollector {
+
+    /**
+     * The maximum number of docs that are handed over to the wrapped collector at once.
+     */
+    public static final int BATCH_SIZE = 4096;
+
+    private final BucketCollector in;
+    private final boolean batching;
+    private int[] docs;
+    private int count;
+    private LeafBucketCollector current;
+
+    public BatchingBucketCollector(BucketCollector in) {
+        this.in = in;
+        this.batching = in.needsScores() == false;
+    }
+
+    @Override
+    public boolean needsScores() {
+        return in.needsScores();
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        in.preCollection();
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        flush();
+        in.postCollection();
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        // the docs of the previous segment need to be collected before the wrapped collector moves on to the next one
+        flush();
+        final LeafBucketCollector leafCollector = in.getLeafCollector(ctx);
+        if (batching == false || leafCollector == LeafBucketCollector.NO_OP_COLLECTOR) {
+            return leafCollector;
+        }
+        if (docs == null) {
+            docs = new int[BATCH_SIZE];
+        }
+        current = leafCollector;
+        return new LeafBucketCollector() {
+            @Override
+            public void setScorer(Scorer scorer) throws IOException {
+                leafCollector.setScorer(scorer);
+            }
+
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                assert bucket == 0;
+                docs[count++] = doc;
+                if (count == docs.length) {
+                    collectBatch();
+                }
+            }
+        };
+    }
+
+    /**
+     * Collects the buffered docs of the current segment, this must be called once the collection is done.
+     */
+    public void flush() throws IOException {
+        try {
+            collectBatch();
+        } catch (CollectionTerminatedException e) {
+            // the wrapped collector is done with this segment
+        }
+        current = null;
+    }
+
+    private void collectBatch() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        final int count = this.count;
+        this.count = 0;
+        try {
+            current.collect(docs, count, 0);
+        } catch (CollectionTerminatedException e) {
+            current = LeafBucketCollector.NO_OP_COLLECTOR;
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return in.toString();
+    }
+}
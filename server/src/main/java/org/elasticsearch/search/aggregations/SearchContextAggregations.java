@@ -28,6 +28,7 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private final MultiBucketConsumer multiBucketConsumer;
     private Aggregator[] aggregators;
+    private BatchingBucketCollector collector;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -62,6 +63,17 @@ public class SearchContextAggregations {
         return multiBucketConsumer;
     }
 
+    /**
+     * Returns the collector of the top level aggregators that are collected in the query phase, or <code>null</code> if there is none.
+     */
+    BatchingBucketCollector collector() {
+        return collector;
+    }
+
+    void collector(BatchingBucketCollector collector) {
+        this.collector = collector;
+    }
+
     void resetBucketMultiConsumer() {
         multiBucketConsumer.reset();
     }
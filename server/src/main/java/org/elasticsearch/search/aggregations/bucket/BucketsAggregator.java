@@ -84,6 +84,28 @@ public abstract class BucketsAggregator extends AggregatorBase {
         subCollector.collect(doc, bucketOrd);
     }
 
+    /**
+     * Batch version of {@link #collectBucket(LeafBucketCollector, int, long)} that collects <code>docs[i]</code> in the bucket
+     * <code>bucketOrds[i]</code> for the first <code>count</code> entries. The doc counts are resized once for the whole batch
+     * and the sub collector is skipped entirely if there are no sub aggregations.
+     */
+    public final void collectBuckets(LeafBucketCollector subCollector, int[] docs, long[] bucketOrds, int count) throws IOException {
+        long maxBucketOrd = -1;
+        for (int i = 0; i < count; i++) {
+            maxBucketOrd = Math.max(maxBucketOrd, bucketOrds[i]);
+        }
+        grow(maxBucketOrd + 1);
+        final IntArray docCounts = this.docCounts;
+        for (int i = 0; i < count; i++) {
+            docCounts.increment(bucketOrds[i], 1);
+        }
+        if (subCollector != LeafBucketCollector.NO_OP_COLLECTOR) {
+            for (int i = 0; i < count; i++) {
+                subCollector.collect(docs[i], bucketOrds[i]);
+            }
+        }
+    }
+
     public final void mergeBuckets(long[] mergeMap, long newNumBuckets) {
         try (IntArray oldDocCounts = docCounts) {
             docCounts = bigArrays.newIntArray(newNumBuckets, true);
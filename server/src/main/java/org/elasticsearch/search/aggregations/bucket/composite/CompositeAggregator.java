@@ -20,14 +20,25 @@
 package org.elasticsearch.search.aggregations.bucket.composite;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queries.SearchAfterSortedDocQuery;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
@@ -63,8 +74,14 @@ final class CompositeAggregator extends BucketsAggregator {
     private final int[] reverseMuls;
     private final List<DocValueFormat> formats;
 
+    private final CompositeValuesSourceConfig[] sourceConfigs;
     private final SingleDimensionValuesSource<?>[] sources;
     private final CompositeValuesCollectorQueue queue;
+    private final boolean hasAfterKey;
+
+    // the query that resumes the collection after the after key on index sorted segments
+    private Sort afterKeySort;
+    private Weight afterKeyWeight;
 
     private final List<Entry> entries = new ArrayList<>();
     private LeafReaderContext currentLeaf;
@@ -79,6 +96,7 @@ final class CompositeAggregator extends BucketsAggregator {
         this.sourceNames = Arrays.stream(sourceConfigs).map(CompositeValuesSourceConfig::name).collect(Collectors.toList());
         this.reverseMuls = Arrays.stream(sourceConfigs).mapToInt(CompositeValuesSourceConfig::reverseMul).toArray();
         this.formats = Arrays.stream(sourceConfigs).map(CompositeValuesSourceConfig::format).collect(Collectors.toList());
+        this.sourceConfigs = sourceConfigs;
         this.sources = new SingleDimensionValuesSource[sourceConfigs.length];
         // check that the provided size is not greater than the search.max_buckets setting
         int bucketLimit = context.aggregations().multiBucketConsumer().getLimit();
@@ -94,6 +112,7 @@ final class CompositeAggregator extends BucketsAggregator {
             this.sources[i] = createValuesSource(context.bigArrays(), context.searcher().getIndexReader(), sourceConfigs[i], size);
         }
         this.queue = new CompositeValuesCollectorQueue(context.bigArrays(), sources, size, rawAfterKey);
+        this.hasAfterKey = rawAfterKey != null;
         this.sortedDocsProducer = sources[0].createSortedDocsProducerOrNull(context.searcher().getIndexReader(), context.query());
     }
 
@@ -160,8 +179,14 @@ final class CompositeAggregator extends BucketsAggregator {
     @Override
     protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         finishLeaf();
+        if (isLeafCompetitive(ctx) == false) {
+            // the values of the leading source in this segment are all before the after key or after the lowest bucket
+            // in the queue so we can bypass search entirely for this segment.
+            throw new CollectionTerminatedException();
+        }
         boolean fillDocIdSet = deferredCollectors != NO_OP_COLLECTOR;
-        if (sortedDocsProducer != null) {
+        final int indexSortPrefix = computeIndexSortPrefix(ctx);
+        if (sortedDocsProducer != null && indexSortPrefix == 0) {
             /*
               The producer will visit documents sorted by the leading source of the composite definition
               and terminates when the leading source value is guaranteed to be greater than the lowest
@@ -183,7 +208,16 @@ final class CompositeAggregator extends BucketsAggregator {
                 currentLeaf = ctx;
                 docIdSetBuilder = new RoaringDocIdSet.Builder(ctx.reader().maxDoc());
             }
-            final LeafBucketCollector inner = queue.getLeafCollector(ctx, getFirstPassCollector(docIdSetBuilder));
+            if (indexSortPrefix > 0 && hasAfterKey && context.minimumScore() == null) {
+                /*
+                  The segment is sorted by the leading sources so we can jump directly to the first document
+                  that is after the after key and terminate as soon as the leading sources are greater than
+                  the lowest composite bucket in the queue.
+                 */
+                collectAfterKey(ctx, indexSortPrefix);
+                throw new CollectionTerminatedException();
+            }
+            final LeafBucketCollector inner = queue.getLeafCollector(ctx, getFirstPassCollector(docIdSetBuilder, indexSortPrefix));
             return new LeafBucketCollector() {
                 @Override
                 public void collect(int doc, long zeroBucket) throws IOException {
@@ -194,16 +228,135 @@ final class CompositeAggregator extends BucketsAggregator {
         }
     }
 
+    /**
+     * Returns false if the leading source cannot produce a competitive bucket in the provided segment.
+     */
+    private boolean isLeafCompetitive(LeafReaderContext ctx) throws IOException {
+        if (sourceConfigs[0].hasScript()) {
+            return true;
+        }
+        return sources[0].isCompetitive(ctx, queue.getLowerValueLeadSource(), queue.getUpperValueLeadSource());
+    }
+
+    /**
+     * Returns the number of leading sources that follow the index sort of the provided segment.
+     * Sources that follow a rounded source are ignored since documents with the same rounded value
+     * are not sorted by the subsequent sources.
+     */
+    private int computeIndexSortPrefix(LeafReaderContext ctx) throws IOException {
+        final Sort indexSort = ctx.reader().getMetaData().getSort();
+        if (indexSort == null) {
+            return 0;
+        }
+        final SortField[] sortFields = indexSort.getSort();
+        final int end = Math.min(sortFields.length, sources.length);
+        int prefix = 0;
+        for (int i = 0; i < end; i++) {
+            final CompositeValuesSourceConfig config = sourceConfigs[i];
+            final SortField sortField = sortFields[i];
+            if (config.fieldType() == null
+                    || config.hasScript()
+                    || config.missingBucket()
+                    || config.missing() != null
+                    || sortField.getField().equals(config.fieldType().name()) == false
+                    || sortField.getReverse() != (config.reverseMul() == -1)
+                    || isCompatibleSortField(sources[i], sortField) == false
+                    || isSingleValued(ctx.reader(), sortField) == false) {
+                break;
+            }
+            prefix++;
+            if (config.valuesSource() instanceof RoundingValuesSource || config.valuesSource() instanceof HistogramValuesSource) {
+                break;
+            }
+        }
+        return prefix;
+    }
+
+    private static boolean isCompatibleSortField(SingleDimensionValuesSource<?> source, SortField sortField) {
+        if (sortField instanceof SortedSetSortField) {
+            return source instanceof GlobalOrdinalValuesSource || source instanceof BinaryValuesSource;
+        } else if (sortField instanceof SortedNumericSortField) {
+            final SortField.Type type = ((SortedNumericSortField) sortField).getNumericType();
+            if (source instanceof LongValuesSource) {
+                return type == SortField.Type.LONG || type == SortField.Type.INT;
+            } else if (source instanceof DoubleValuesSource) {
+                return type == SortField.Type.DOUBLE;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSingleValued(LeafReader reader, SortField sortField) throws IOException {
+        if (sortField instanceof SortedNumericSortField) {
+            return DocValues.unwrapSingleton(DocValues.getSortedNumeric(reader, sortField.getField())) != null;
+        } else if (sortField instanceof SortedSetSortField) {
+            return DocValues.unwrapSingleton(DocValues.getSortedSet(reader, sortField.getField())) != null;
+        }
+        return false;
+    }
+
+    /**
+     * Collects the documents of an index sorted segment starting from the first document that is after the
+     * leading values of the after key.
+     */
+    private void collectAfterKey(LeafReaderContext ctx, int indexSortPrefix) throws IOException {
+        final Weight weight = getAfterKeyWeight(ctx.reader().getMetaData().getSort(), indexSortPrefix);
+        final Scorer scorer = weight.scorer(ctx);
+        if (scorer == null) {
+            return;
+        }
+        final LeafBucketCollector inner = queue.getLeafCollector(ctx, getFirstPassCollector(docIdSetBuilder, indexSortPrefix));
+        final Bits liveDocs = ctx.reader().getLiveDocs();
+        final DocIdSetIterator iterator = scorer.iterator();
+        try {
+            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                if (liveDocs == null || liveDocs.get(doc)) {
+                    inner.collect(doc);
+                }
+            }
+        } catch (CollectionTerminatedException exc) {
+            // the remaining documents of the segment cannot produce a competitive bucket
+        }
+    }
+
+    private Weight getAfterKeyWeight(Sort indexSort, int indexSortPrefix) throws IOException {
+        final SortField[] sortFields = Arrays.copyOf(indexSort.getSort(), indexSortPrefix);
+        final Sort sort = new Sort(sortFields);
+        if (afterKeyWeight == null || sort.equals(afterKeySort) == false) {
+            final Object[] afterValues = new Object[sortFields.length];
+            for (int i = 0; i < sortFields.length; i++) {
+                Object afterValue = sources[i].getAfter();
+                if (afterValue instanceof Long && ((SortedNumericSortField) sortFields[i]).getNumericType() == SortField.Type.INT) {
+                    // clamping is safe since the after doc is inclusive
+                    afterValue = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (Long) afterValue));
+                }
+                afterValues[i] = afterValue;
+            }
+            // documents that are equal to the after key are included, they can still
+            // produce competitive buckets on the subsequent (or rounded) sources.
+            final FieldDoc afterDoc = new FieldDoc(-1, 0, afterValues);
+            final Query query = new BooleanQuery.Builder()
+                .add(context.query(), BooleanClause.Occur.MUST)
+                .add(new SearchAfterSortedDocQuery(sort, afterDoc), BooleanClause.Occur.FILTER)
+                .build();
+            afterKeyWeight = context.searcher().createNormalizedWeight(query, false);
+            afterKeySort = sort;
+        }
+        return afterKeyWeight;
+    }
+
     /**
      * The first pass selects the top composite buckets from all matching documents.
+     * The first <code>indexSortPrefix</code> sources follow the order of the documents in the segment,
+     * see {@link CompositeValuesCollectorQueue#addIfCompetitive(int)}.
      */
-    private LeafBucketCollector getFirstPassCollector(RoaringDocIdSet.Builder builder) {
+    private LeafBucketCollector getFirstPassCollector(RoaringDocIdSet.Builder builder, int indexSortPrefix) {
         return new LeafBucketCollector() {
             int lastDoc = -1;
 
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                int slot = queue.addIfCompetitive();
+                int slot = queue.addIfCompetitive(indexSortPrefix);
                 if (slot != -1) {
                     if (builder != null && lastDoc != doc) {
                         builder.add(doc);
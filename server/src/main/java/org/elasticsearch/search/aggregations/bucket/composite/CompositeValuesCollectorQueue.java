@@ -20,6 +20,7 @@
 package org.elasticsearch.search.aggregations.bucket.composite;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
@@ -159,6 +160,19 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
         return 0;
     }
 
+    /**
+     * Compares the current candidate with the values in <code>slot</code> on the first <code>numSources</code> sources only.
+     */
+    private int compareCurrentPrefix(int slot, int numSources) {
+        for (int i = 0; i < numSources; i++) {
+            int cmp = arrays[i].compareCurrent(slot);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
     /**
      * Returns true if the values in <code>slot1</code> are equals to the value in <code>slot2</code>.
      */
@@ -247,6 +261,18 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
      * @return The target slot of the candidate or -1 is the candidate is not competitive.
      */
     int addIfCompetitive() {
+        return addIfCompetitive(0);
+    }
+
+    /**
+     * Check if the current candidate should be added in the queue.
+     * The first <code>indexSortSourcePrefix</code> sources must follow the order of the documents in the current leaf
+     * (see {@link org.apache.lucene.index.LeafReader#getMetaData()}) so that no subsequent document can produce a
+     * competitive candidate once the prefix of the current candidate is greater than the prefix of the top of the queue.
+     * @return The target slot of the candidate or -1 is the candidate is not competitive.
+     * @throws CollectionTerminatedException if the queue is full and the subsequent documents cannot produce competitive candidates.
+     */
+    int addIfCompetitive(int indexSortSourcePrefix) {
         // checks if the candidate key is competitive
         Integer topSlot = compareCurrent();
         if (topSlot != null) {
@@ -261,6 +287,11 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
         if (size() >= maxSize
                 // the tree map is full, check if the candidate key should be kept
                 && compare(CANDIDATE_SLOT, top()) > 0) {
+            if (indexSortSourcePrefix > 0 && compareCurrentPrefix(top(), indexSortSourcePrefix) > 0) {
+                // the index sort guarantees that the subsequent documents of the leaf
+                // cannot produce a smaller prefix so we can early terminate.
+                throw new CollectionTerminatedException();
+            }
             // the candidate key is not competitive, skip it
             return -1;
         }
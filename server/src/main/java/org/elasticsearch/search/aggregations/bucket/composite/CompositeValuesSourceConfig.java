@@ -34,6 +34,7 @@ class CompositeValuesSourceConfig {
     private final int reverseMul;
     private final Object missing;
     private final boolean missingBucket;
+    private final boolean hasScript;
 
     /**
      * Creates a new {@link CompositeValuesSourceConfig}.
@@ -43,9 +44,10 @@ class CompositeValuesSourceConfig {
      * @param format The {@link DocValueFormat} of this source.
      * @param order The sort order associated with this source.
      * @param missing The missing value or null if documents with missing value should be ignored.
+     * @param hasScript Whether a script is used to create or transform the values of this source.
      */
     CompositeValuesSourceConfig(String name, @Nullable MappedFieldType fieldType, ValuesSource vs, DocValueFormat format,
-                                SortOrder order, boolean missingBucket, @Nullable Object missing) {
+                                SortOrder order, boolean missingBucket, @Nullable Object missing, boolean hasScript) {
         this.name = name;
         this.fieldType = fieldType;
         this.vs = vs;
@@ -54,6 +56,7 @@ class CompositeValuesSourceConfig {
         this.missingBucket = missingBucket;
         assert missingBucket == false || missing == null;
         this.missing = missing;
+        this.hasScript = hasScript;
     }
 
     /**
@@ -106,4 +109,11 @@ class CompositeValuesSourceConfig {
         assert reverseMul == -1 || reverseMul == 1;
         return reverseMul;
     }
+
+    /**
+     * Returns true if a script is used to create or transform the values of this source.
+     */
+    boolean hasScript() {
+        return hasScript;
+    }
 }
@@ -23,6 +23,7 @@ import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
@@ -249,33 +250,63 @@ class LongValuesSource extends SingleDimensionValuesSource<Long> {
             upperPoint = null;
         }
 
+        final ToLongFunction<byte[]> toBucketFunction = toBucketFunctionOrNull();
+        if (toBucketFunction == null) {
+            return null;
+        }
+        return new PointsSortedDocsProducer(fieldType.name(), toBucketFunction, lowerPoint, upperPoint);
+    }
+
+    /**
+     * Returns a function that converts an encoded point of the field to a bucket value or null
+     * if the points of the field cannot be decoded.
+     */
+    private ToLongFunction<byte[]> toBucketFunctionOrNull() {
         if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
             NumberFieldMapper.NumberFieldType ft = (NumberFieldMapper.NumberFieldType) fieldType;
-            final ToLongFunction<byte[]> toBucketFunction;
-
             switch (ft.typeName()) {
                 case "long":
-                    toBucketFunction = (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
-                    break;
+                    return (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
 
                 case "int":
                 case "short":
                 case "byte":
-                    toBucketFunction = (value) -> rounding.applyAsLong(IntPoint.decodeDimension(value, 0));
-                    break;
+                    return (value) -> rounding.applyAsLong(IntPoint.decodeDimension(value, 0));
 
                 default:
                     return null;
             }
-            return new PointsSortedDocsProducer(fieldType.name(), toBucketFunction, lowerPoint, upperPoint);
         } else if (fieldType instanceof DateFieldMapper.DateFieldType) {
-            final ToLongFunction<byte[]> toBucketFunction = (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
-            return new PointsSortedDocsProducer(fieldType.name(), toBucketFunction, lowerPoint, upperPoint);
+            return (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
         } else {
             return null;
         }
     }
 
+    @Override
+    boolean isCompetitive(LeafReaderContext context, Comparable lowerValue, Comparable upperValue) throws IOException {
+        if (fieldType == null || missing != null || missingBucket || (lowerValue == null && upperValue == null)) {
+            return true;
+        }
+        final ToLongFunction<byte[]> toBucketFunction = toBucketFunctionOrNull();
+        final PointValues points = context.reader().getPointValues(fieldType.name());
+        if (toBucketFunction == null || points == null || points.getDocCount() == 0) {
+            return true;
+        }
+        // the rounding is monotonic so the rounded bounds of the points contain all the buckets of the leaf
+        final long min = toBucketFunction.applyAsLong(points.getMinPackedValue());
+        final long max = toBucketFunction.applyAsLong(points.getMaxPackedValue());
+        final long first = reverseMul == 1 ? min : max;
+        final long last = reverseMul == 1 ? max : min;
+        if (lowerValue != null && compareValues(last, ((Number) lowerValue).longValue()) < 0) {
+            return false;
+        }
+        if (upperValue != null && compareValues(first, ((Number) upperValue).longValue()) > 0) {
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public void close() {
         Releasables.close(values, bits);
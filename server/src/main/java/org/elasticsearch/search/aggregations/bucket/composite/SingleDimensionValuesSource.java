@@ -147,6 +147,16 @@ abstract class SingleDimensionValuesSource<T extends Comparable<T>> implements R
     abstract LeafBucketCollector getLeafCollector(Comparable value,
                                                   LeafReaderContext context, LeafBucketCollector next) throws IOException;
 
+    /**
+     * Returns false if no document in the provided leaf can produce a value that is
+     * greater than or equal to <code>lowerValue</code> and smaller than or equal to <code>upperValue</code>
+     * in the order of this source. Null bounds are unbounded.
+     * This method must only return false when it is guaranteed, the default implementation always returns true.
+     */
+    boolean isCompetitive(LeafReaderContext context, @Nullable Comparable lowerValue, @Nullable Comparable upperValue) throws IOException {
+        return true;
+    }
+
     /**
      * Returns a {@link SortedDocsProducer} or null if this source cannot produce sorted docs.
      */
@@ -93,6 +93,7 @@ public class TermsValuesSourceBuilder extends CompositeValuesSourceBuilder<Terms
         } else {
             format = config.format();
         }
-        return new CompositeValuesSourceConfig(name, fieldType, vs, format, order(), missingBucket(), missing());
+        return new CompositeValuesSourceConfig(name, fieldType, vs, format, order(), missingBucket(), missing(),
+                config.script() != null);
     }
 }
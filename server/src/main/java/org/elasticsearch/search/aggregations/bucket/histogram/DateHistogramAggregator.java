@@ -18,7 +18,9 @@
  */
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Nullable;
@@ -97,7 +99,11 @@ class DateHistogramAggregator extends BucketsAggregator {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
         final SortedNumericDocValues values = valuesSource.longValues(ctx);
+        final NumericDocValues singleValues = DocValues.unwrapSingleton(values);
         return new LeafBucketCollectorBase(sub, values) {
+            private int[] matchingDocs = new int[0];
+            private long[] matchingBucketOrds = new long[0];
+
             @Override
             public void collect(int doc, long bucket) throws IOException {
                 assert bucket == 0;
@@ -125,6 +131,37 @@ class DateHistogramAggregator extends BucketsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                assert bucket == 0;
+                if (singleValues == null) {
+                    super.collect(docs, count, bucket);
+                    return;
+                }
+                if (matchingDocs.length < count) {
+                    matchingDocs = new int[count];
+                    matchingBucketOrds = new long[count];
+                }
+                int numMatching = 0;
+                // consecutive docs often fall into the same bucket, in which case we can skip the lookup in the hash
+                long previousRounded = Long.MIN_VALUE;
+                long previousBucketOrd = -1;
+                for (int i = 0; i < count; i++) {
+                    final int doc = docs[i];
+                    if (singleValues.advanceExact(doc)) {
+                        final long rounded = shardRounding.round(singleValues.longValue() - offset) + offset;
+                        if (previousBucketOrd == -1 || rounded != previousRounded) {
+                            final long bucketOrd = bucketOrds.add(rounded);
+                            previousBucketOrd = bucketOrd < 0 ? -1 - bucketOrd : bucketOrd;
+                            previousRounded = rounded;
+                        }
+                        matchingDocs[numMatching] = doc;
+                        matchingBucketOrds[numMatching++] = previousBucketOrd;
+                    }
+                }
+                collectBuckets(sub, matchingDocs, matchingBucketOrds, numMatching);
+            }
         };
     }
 
@@ -21,7 +21,6 @@ package org.elasticsearch.search.aggregations.bucket.significant;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.BytesRef;
-import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
@@ -167,11 +166,4 @@ public class GlobalOrdinalsSignificantTermsAggregator extends GlobalOrdinalsStri
         return new SignificantStringTerms(name, bucketCountThresholds.getRequiredSize(), bucketCountThresholds.getMinDocCount(),
                 pipelineAggregators(), metaData(), format, numCollectedDocs, supersetSize, significanceHeuristic, emptyList());
     }
-
-    @Override
-    protected void doClose() {
-        super.doClose();
-        Releasables.close(termsAggFactory);
-    }
 }
-
@@ -0,0 +1,280 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.significant;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FilteredDocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.cache.frequency.BackgroundFrequencyCache;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Looks up the background frequencies of the candidate terms of the <code>significant_terms</code> and
+ * <code>significant_text</code> aggregations.
+ * Frequencies are computed per segment and cached in the {@link BackgroundFrequencyCache} of the index, if any,
+ * so that subsequent requests on the same field and background filter only compute the frequencies of new segments.
+ */
+class SignificanceLookup {
+    /**
+     * The number of candidate terms whose background frequencies are looked up at once.
+     */
+    static final int BATCH_SIZE = 1024;
+
+    private final SearchContext context;
+    @Nullable
+    private final MappedFieldType fieldType;
+    private final DocValueFormat format;
+    @Nullable
+    private final Query filter;
+    @Nullable
+    private final BackgroundFrequencyCache cache;
+    private final List<LeafReaderContext> leaves;
+
+    // per segment state that is shared by all the lookups of the request
+    private final TermsEnum[] termsEnums;
+    private final boolean[] termsEnumsLoaded;
+    private final BitSet[] filterBits;
+    private final boolean[] filterBitsLoaded;
+    private PostingsEnum postings;
+    private Weight filterWeight;
+
+    SignificanceLookup(SearchContext context, @Nullable MappedFieldType fieldType, DocValueFormat format, @Nullable Query filter) {
+        this.context = context;
+        this.fieldType = fieldType;
+        this.format = format;
+        this.filter = filter;
+        this.cache = context.backgroundFrequencyCache();
+        this.leaves = context.searcher().getIndexReader().leaves();
+        this.termsEnums = new TermsEnum[leaves.size()];
+        this.termsEnumsLoaded = new boolean[leaves.size()];
+        this.filterBits = new BitSet[leaves.size()];
+        this.filterBitsLoaded = new boolean[leaves.size()];
+    }
+
+    /**
+     * Get the number of docs in the superset.
+     */
+    int supersetSize() throws IOException {
+        if (filter == null) {
+            // Important - need to use the doc count that includes deleted docs
+            // or we have this issue: https://github.com/elastic/elasticsearch/issues/7951
+            return context.searcher().getIndexReader().maxDoc();
+        }
+        int count = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            final int leaf = i;
+            count += getOrCompute(leaf, null, () -> {
+                BitSet bits = getFilterBits(leaf);
+                return bits == null ? 0L : bits.cardinality();
+            });
+        }
+        return count;
+    }
+
+    long backgroundFrequency(BytesRef termBytes) throws IOException {
+        return backgroundFrequency(format.format(termBytes).toString());
+    }
+
+    long backgroundFrequency(long termNum) throws IOException {
+        return backgroundFrequency(format.format(termNum).toString());
+    }
+
+    private long backgroundFrequency(String value) throws IOException {
+        Query query = fieldType.termQuery(value, context.getQueryShardContext());
+        if (query instanceof TermQuery) {
+            // for types that use the inverted index, we prefer using the terms dictionary
+            Term term = ((TermQuery) query).getTerm();
+            long freq = 0;
+            for (int i = 0; i < leaves.size(); i++) {
+                freq += termFrequency(i, term);
+            }
+            return freq;
+        }
+        // otherwise do it the naive way
+        return queryFrequency(query);
+    }
+
+    /**
+     * Sets the background frequencies of the first <code>count</code> <code>terms</code> in <code>freqs</code>.
+     * The terms of each segment are looked up in sorted order so that seeks can reuse the blocks of
+     * the terms dictionary that were loaded for the previous term.
+     */
+    void backgroundFrequencies(BytesRef[] terms, int count, long[] freqs) throws IOException {
+        final Term[] indexedTerms = new Term[count];
+        int numIndexedTerms = 0;
+        for (int i = 0; i < count; i++) {
+            Query query = fieldType.termQuery(format.format(terms[i]).toString(), context.getQueryShardContext());
+            if (query instanceof TermQuery) {
+                indexedTerms[i] = ((TermQuery) query).getTerm();
+                numIndexedTerms++;
+                freqs[i] = 0;
+            } else {
+                freqs[i] = queryFrequency(query);
+            }
+        }
+        if (numIndexedTerms == 0) {
+            return;
+        }
+        final Integer[] order = new Integer[numIndexedTerms];
+        for (int i = 0, j = 0; i < count; i++) {
+            if (indexedTerms[i] != null) {
+                order[j++] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> indexedTerms[a].compareTo(indexedTerms[b]));
+        for (int leaf = 0; leaf < leaves.size(); leaf++) {
+            for (int i : order) {
+                freqs[i] += termFrequency(leaf, indexedTerms[i]);
+            }
+        }
+    }
+
+    private long termFrequency(int leaf, Term term) throws IOException {
+        return getOrCompute(leaf, term, () -> {
+            TermsEnum termsEnum = getTermsEnum(leaf, term.field());
+            if (termsEnum == null || termsEnum.seekExact(term.bytes()) == false) {
+                return 0L;
+            }
+            if (filter == null) {
+                return (long) termsEnum.docFreq();
+            }
+            BitSet bits = getFilterBits(leaf);
+            if (bits == null) {
+                return 0L;
+            }
+            long freq = 0;
+            postings = termsEnum.postings(postings, PostingsEnum.NONE);
+            for (int docId = postings.nextDoc(); docId != DocIdSetIterator.NO_MORE_DOCS; docId = postings.nextDoc()) {
+                if (bits.get(docId)) {
+                    freq++;
+                }
+            }
+            return freq;
+        });
+    }
+
+    private long queryFrequency(Query query) throws IOException {
+        final Query countQuery;
+        if (filter != null) {
+            countQuery = new BooleanQuery.Builder()
+                .add(query, Occur.FILTER)
+                .add(filter, Occur.FILTER)
+                .build();
+        } else {
+            countQuery = query;
+        }
+        final Weight[] weight = new Weight[1];
+        long freq = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            final LeafReaderContext leafContext = leaves.get(i);
+            freq += getOrCompute(i, query, () -> {
+                if (weight[0] == null) {
+                    weight[0] = context.searcher().createNormalizedWeight(countQuery, false);
+                }
+                Scorer scorer = weight[0].scorer(leafContext);
+                if (scorer == null) {
+                    return 0L;
+                }
+                final Bits liveDocs = leafContext.reader().getLiveDocs();
+                final DocIdSetIterator it = scorer.iterator();
+                long count = 0;
+                for (int docId = it.nextDoc(); docId != DocIdSetIterator.NO_MORE_DOCS; docId = it.nextDoc()) {
+                    if (liveDocs == null || liveDocs.get(docId)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        }
+        return freq;
+    }
+
+    private long getOrCompute(int leaf, @Nullable Object term, CheckedSupplier<Long, IOException> loader) throws IOException {
+        if (cache == null) {
+            return loader.get();
+        }
+        return cache.getOrCompute(leaves.get(leaf), filter, term, loader);
+    }
+
+    private TermsEnum getTermsEnum(int leaf, String field) throws IOException {
+        if (termsEnumsLoaded[leaf] == false) {
+            Terms terms = leaves.get(leaf).reader().terms(field);
+            termsEnums[leaf] = terms == null ? null : terms.iterator();
+            termsEnumsLoaded[leaf] = true;
+        }
+        return termsEnums[leaf];
+    }
+
+    /**
+     * Returns the live documents of the segment that match the background filter or null if none matches.
+     */
+    private BitSet getFilterBits(int leaf) throws IOException {
+        assert filter != null;
+        if (filterBitsLoaded[leaf] == false) {
+            if (filterWeight == null) {
+                final IndexReader reader = context.searcher().getIndexReader();
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                filterWeight = searcher.createNormalizedWeight(filter, false);
+            }
+            final LeafReaderContext leafContext = leaves.get(leaf);
+            final Scorer scorer = filterWeight.scorer(leafContext);
+            if (scorer != null) {
+                DocIdSetIterator docs = scorer.iterator();
+                // we want to force apply deleted docs
+                final Bits liveDocs = leafContext.reader().getLiveDocs();
+                if (liveDocs != null) {
+                    docs = new FilteredDocIdSetIterator(docs) {
+                        @Override
+                        protected boolean match(int doc) {
+                            return liveDocs.get(doc);
+                        }
+                    };
+                }
+                filterBits[leaf] = BitSet.of(docs, leafContext.reader().maxDoc());
+            }
+            filterBitsLoaded[leaf] = true;
+        }
+        return filterBits[leaf];
+    }
+}
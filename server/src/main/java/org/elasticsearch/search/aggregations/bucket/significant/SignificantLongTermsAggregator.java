@@ -128,7 +128,7 @@ public class SignificantLongTermsAggregator extends LongTermsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(bucketOrds, termsAggFactory);
+        Releasables.close(bucketOrds);
     }
 
 }
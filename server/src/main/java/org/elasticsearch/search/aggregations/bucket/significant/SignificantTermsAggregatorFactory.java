@@ -20,20 +20,10 @@
 package org.elasticsearch.search.aggregations.bucket.significant;
 
 import org.apache.logging.log4j.LogManager;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.PostingsEnum;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.search.BooleanClause.Occur;
-import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.ParseField;
-import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.DeprecationLogger;
-import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
-import org.elasticsearch.common.lucene.index.FreqTermsEnum;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.DocValueFormat;
@@ -58,18 +48,15 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
-public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource, SignificantTermsAggregatorFactory>
-        implements Releasable {
+public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource, SignificantTermsAggregatorFactory> {
     private static final DeprecationLogger DEPRECATION_LOGGER = new DeprecationLogger(
             LogManager.getLogger(SignificantTermsAggregatorFactory.class));
 
     private final IncludeExclude includeExclude;
     private final String executionHint;
-    private String indexedFieldName;
     private MappedFieldType fieldType;
-    private FilterableTermsEnum termsEnum;
-    private int numberOfAggregatorsCreated;
     final Query filter;
+    private final SignificanceLookup significanceLookup;
     private final int supersetNumDocs;
     private final TermsAggregator.BucketCountThresholds bucketCountThresholds;
     private final SignificanceHeuristic significanceHeuristic;
@@ -89,7 +76,6 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
 
         if (!config.unmapped()) {
             this.fieldType = config.fieldContext().fieldType();
-            this.indexedFieldName = fieldType.name();
         }
 
         this.includeExclude = includeExclude;
@@ -97,12 +83,8 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         this.filter = filterBuilder == null
                 ? null
                 : filterBuilder.toFilter(context.getQueryShardContext());
-        IndexSearcher searcher = context.searcher();
-        this.supersetNumDocs = filter == null
-                // Important - need to use the doc count that includes deleted docs
-                // or we have this issue: https://github.com/elastic/elasticsearch/issues/7951
-                ? searcher.getIndexReader().maxDoc()
-                : searcher.count(filter);
+        this.significanceLookup = new SignificanceLookup(context, fieldType, config.format(), filter);
+        this.supersetNumDocs = significanceLookup.supersetSize();
         this.bucketCountThresholds = bucketCountThresholds;
         this.significanceHeuristic = significanceHeuristic;
     }
@@ -114,50 +96,20 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return supersetNumDocs;
     }
 
-    private FilterableTermsEnum getTermsEnum(String field) throws IOException {
-        if (termsEnum != null) {
-            return termsEnum;
-        }
-        IndexReader reader = context.searcher().getIndexReader();
-        if (numberOfAggregatorsCreated > 1) {
-            termsEnum = new FreqTermsEnum(reader, field, true, false, filter, context.bigArrays());
-        } else {
-            termsEnum = new FilterableTermsEnum(reader, indexedFieldName, PostingsEnum.NONE, filter);
-        }
-        return termsEnum;
-    }
-
-    private long getBackgroundFrequency(String value) throws IOException {
-        Query query = fieldType.termQuery(value, context.getQueryShardContext());
-        if (query instanceof TermQuery) {
-            // for types that use the inverted index, we prefer using a caching terms
-            // enum that will do a better job at reusing index inputs
-            Term term = ((TermQuery) query).getTerm();
-            FilterableTermsEnum termsEnum = getTermsEnum(term.field());
-            if (termsEnum.seekExact(term.bytes())) {
-                return termsEnum.docFreq();
-            } else {
-                return 0;
-            }
-        }
-        // otherwise do it the naive way
-        if (filter != null) {
-            query = new BooleanQuery.Builder()
-                    .add(query, Occur.FILTER)
-                    .add(filter, Occur.FILTER)
-                    .build();
-        }
-        return context.searcher().count(query);
-    }
-
     public long getBackgroundFrequency(BytesRef termBytes) throws IOException {
-        String value = config.format().format(termBytes).toString();
-        return getBackgroundFrequency(value);
+        return significanceLookup.backgroundFrequency(termBytes);
     }
 
     public long getBackgroundFrequency(long termNum) throws IOException {
-        String value = config.format().format(termNum).toString();
-        return getBackgroundFrequency(value);
+        return significanceLookup.backgroundFrequency(termNum);
+    }
+
+    /**
+     * Sets the background frequencies of the first <code>count</code> <code>terms</code> in <code>freqs</code>,
+     * which is cheaper than looking up the terms one by one.
+     */
+    public void getBackgroundFrequencies(BytesRef[] terms, int count, long[] freqs) throws IOException {
+        significanceLookup.backgroundFrequencies(terms, count, freqs);
     }
 
     @Override
@@ -180,7 +132,6 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
             return asMultiBucketAggregator(this, context, parent);
         }
 
-        numberOfAggregatorsCreated++;
         BucketCountThresholds bucketCountThresholds = new BucketCountThresholds(this.bucketCountThresholds);
         if (bucketCountThresholds.getShardSize() == SignificantTermsAggregationBuilder.DEFAULT_BUCKET_COUNT_THRESHOLDS.getShardSize()) {
             // The user has not made a shardSize selection .
@@ -341,15 +292,4 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
             return parseField.getPreferredName();
         }
     }
-
-    @Override
-    public void close() {
-        try {
-            if (termsEnum instanceof Releasable) {
-                ((Releasable) termsEnum).close();
-            }
-        } finally {
-            termsEnum = null;
-        }
-    }
 }
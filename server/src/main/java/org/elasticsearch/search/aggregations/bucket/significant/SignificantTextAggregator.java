@@ -194,31 +194,47 @@ public class SignificantTextAggregator extends BucketsAggregator {
 
         BucketSignificancePriorityQueue<SignificantStringTerms.Bucket> ordered = new BucketSignificancePriorityQueue<>(size);
         SignificantStringTerms.Bucket spare = null;
-        for (int i = 0; i < bucketOrds.size(); i++) {
-            final int docCount = bucketDocCount(i);
-            if (docCount < bucketCountThresholds.getShardMinDocCount()) {
-                continue;
+        // the background frequencies of the candidate terms are looked up in batches
+        final int batchSize = (int) Math.min(bucketOrds.size(), SignificanceLookup.BATCH_SIZE);
+        final long[] ords = new long[batchSize];
+        final BytesRef[] terms = new BytesRef[batchSize];
+        final long[] supersetDfs = new long[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            terms[i] = new BytesRef();
+        }
+        long ord = 0;
+        while (ord < bucketOrds.size()) {
+            int count = 0;
+            for (; ord < bucketOrds.size() && count < batchSize; ord++) {
+                if (bucketDocCount(ord) >= bucketCountThresholds.getShardMinDocCount()) {
+                    ords[count] = ord;
+                    bucketOrds.get(ord, terms[count]);
+                    count++;
+                }
             }
+            termsAggFactory.getBackgroundFrequencies(terms, count, supersetDfs);
 
-            if (spare == null) {
-                spare = new SignificantStringTerms.Bucket(new BytesRef(), 0, 0, 0, 0, null, format);
-            }
+            for (int i = 0; i < count; i++) {
+                if (spare == null) {
+                    spare = new SignificantStringTerms.Bucket(new BytesRef(), 0, 0, 0, 0, null, format);
+                }
 
-            bucketOrds.get(i, spare.termBytes);
-            spare.subsetDf = docCount;
-            spare.subsetSize = subsetSize;
-            spare.supersetDf = termsAggFactory.getBackgroundFrequency(spare.termBytes);
-            spare.supersetSize = supersetSize;
-            // During shard-local down-selection we use subset/superset stats
-            // that are for this shard only
-            // Back at the central reducer these properties will be updated with
-            // global stats
-            spare.updateScore(significanceHeuristic);
-
-            spare.bucketOrd = i;
-            spare = ordered.insertWithOverflow(spare);
-            if (spare == null) {
-                consumeBucketsAndMaybeBreak(1);
+                bucketOrds.get(ords[i], spare.termBytes);
+                spare.subsetDf = bucketDocCount(ords[i]);
+                spare.subsetSize = subsetSize;
+                spare.supersetDf = supersetDfs[i];
+                spare.supersetSize = supersetSize;
+                // During shard-local down-selection we use subset/superset stats
+                // that are for this shard only
+                // Back at the central reducer these properties will be updated with
+                // global stats
+                spare.updateScore(significanceHeuristic);
+
+                spare.bucketOrd = ords[i];
+                spare = ordered.insertWithOverflow(spare);
+                if (spare == null) {
+                    consumeBucketsAndMaybeBreak(1);
+                }
             }
         }
 
@@ -249,7 +265,7 @@ public class SignificantTextAggregator extends BucketsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(bucketOrds, termsAggFactory);
+        Releasables.close(bucketOrds);
     }
 
 }
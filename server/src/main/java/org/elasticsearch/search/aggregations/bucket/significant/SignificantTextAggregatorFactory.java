@@ -19,18 +19,8 @@
 
 package org.elasticsearch.search.aggregations.bucket.significant;
 
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.PostingsEnum;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.search.BooleanClause.Occur;
-import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
-import org.elasticsearch.common.lease.Releasable;
-import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
-import org.elasticsearch.common.lucene.index.FreqTermsEnum;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.DocValueFormat;
@@ -49,16 +39,14 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
-public class SignificantTextAggregatorFactory extends AggregatorFactory<SignificantTextAggregatorFactory>
-        implements Releasable {
+public class SignificantTextAggregatorFactory extends AggregatorFactory<SignificantTextAggregatorFactory> {
 
     private final IncludeExclude includeExclude;
     private String indexedFieldName;
     private MappedFieldType fieldType;
     private final String[] sourceFieldNames;
-    private FilterableTermsEnum termsEnum;
-    private int numberOfAggregatorsCreated;
     private final Query filter;
+    private final SignificanceLookup significanceLookup;
     private final int supersetNumDocs;
     private final TermsAggregator.BucketCountThresholds bucketCountThresholds;
     private final SignificanceHeuristic significanceHeuristic;
@@ -85,12 +73,8 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory<Signific
                 ? null
                 : filterBuilder.toQuery(context.getQueryShardContext());
         this.filterDuplicateText = filterDuplicateText;
-        IndexSearcher searcher = context.searcher();
-        // Important - need to use the doc count that includes deleted docs
-        // or we have this issue: https://github.com/elastic/elasticsearch/issues/7951
-        this.supersetNumDocs = filter == null
-                ? searcher.getIndexReader().maxDoc()
-                : searcher.count(filter);
+        this.significanceLookup = new SignificanceLookup(context, fieldType, format, filter);
+        this.supersetNumDocs = significanceLookup.supersetSize();
         this.bucketCountThresholds = bucketCountThresholds;
         this.significanceHeuristic = significanceHeuristic;
     }
@@ -102,57 +86,16 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory<Signific
         return supersetNumDocs;
     }
 
-    private FilterableTermsEnum getTermsEnum(String field) throws IOException {
-        if (termsEnum != null) {
-            return termsEnum;
-        }
-        IndexReader reader = context.searcher().getIndexReader();
-        if (numberOfAggregatorsCreated > 1) {
-            termsEnum = new FreqTermsEnum(reader, field, true, false, filter, context.bigArrays());
-        } else {
-            termsEnum = new FilterableTermsEnum(reader, indexedFieldName, PostingsEnum.NONE, filter);
-        }
-        return termsEnum;
-    }
-
-    private long getBackgroundFrequency(String value) throws IOException {
-        Query query = fieldType.termQuery(value, context.getQueryShardContext());
-        if (query instanceof TermQuery) {
-            // for types that use the inverted index, we prefer using a caching terms
-            // enum that will do a better job at reusing index inputs
-            Term term = ((TermQuery) query).getTerm();
-            FilterableTermsEnum termsEnum = getTermsEnum(term.field());
-            if (termsEnum.seekExact(term.bytes())) {
-                return termsEnum.docFreq();
-            } else {
-                return 0;
-            }
-        }
-        // otherwise do it the naive way
-        if (filter != null) {
-            query = new BooleanQuery.Builder()
-                    .add(query, Occur.FILTER)
-                    .add(filter, Occur.FILTER)
-                    .build();
-        }
-        return context.searcher().count(query);
-    }
-
     public long getBackgroundFrequency(BytesRef termBytes) throws IOException {
-        String value = format.format(termBytes).toString();
-        return getBackgroundFrequency(value);
+        return significanceLookup.backgroundFrequency(termBytes);
     }
 
-
-    @Override
-    public void close() {
-        try {
-            if (termsEnum instanceof Releasable) {
-                ((Releasable) termsEnum).close();
-            }
-        } finally {
-            termsEnum = null;
-        }
+    /**
+     * Sets the background frequencies of the first <code>count</code> <code>terms</code> in <code>freqs</code>,
+     * which is cheaper than looking up the terms one by one.
+     */
+    public void getBackgroundFrequencies(BytesRef[] terms, int count, long[] freqs) throws IOException {
+        significanceLookup.backgroundFrequencies(terms, count, freqs);
     }
 
     @Override
@@ -163,7 +106,6 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory<Signific
             return asMultiBucketAggregator(this, context, parent);
         }
 
-        numberOfAggregatorsCreated++;
         BucketCountThresholds bucketCountThresholds = new BucketCountThresholds(this.bucketCountThresholds);
         if (bucketCountThresholds.getShardSize() == SignificantTextAggregationBuilder.DEFAULT_BUCKET_COUNT_THRESHOLDS.getShardSize()) {
             // The user has not made a shardSize selection.
@@ -135,6 +135,9 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         final SortedDocValues singleValues = DocValues.unwrapSingleton(globalOrds);
         if (singleValues != null) {
             return new LeafBucketCollectorBase(sub, globalOrds) {
+                private int[] matchingDocs = new int[0];
+                private long[] matchingBucketOrds = new long[0];
+
                 @Override
                 public void collect(int doc, long bucket) throws IOException {
                     assert bucket == 0;
@@ -143,6 +146,31 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                         collectGlobalOrd(doc, ord, sub);
                     }
                 }
+
+                @Override
+                public void collect(int[] docs, int count, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (matchingDocs.length < count) {
+                        matchingDocs = new int[count];
+                        matchingBucketOrds = new long[count];
+                    }
+                    int numMatching = 0;
+                    for (int i = 0; i < count; i++) {
+                        final int doc = docs[i];
+                        if (singleValues.advanceExact(doc)) {
+                            long bucketOrd = singleValues.ordValue();
+                            if (bucketOrds != null) {
+                                bucketOrd = bucketOrds.add(bucketOrd);
+                                if (bucketOrd < 0) {
+                                    bucketOrd = -1 - bucketOrd;
+                                }
+                            }
+                            matchingDocs[numMatching] = doc;
+                            matchingBucketOrds[numMatching++] = bucketOrd;
+                        }
+                    }
+                    collectBuckets(sub, matchingDocs, matchingBucketOrds, numMatching);
+                }
             };
         } else {
             return new LeafBucketCollectorBase(sub, globalOrds) {
@@ -346,6 +374,17 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                             segmentDocCounts.increment(ord + 1, 1);
                         }
                     }
+
+                    @Override
+                    public void collect(int[] docs, int count, long bucket) throws IOException {
+                        assert bucket == 0;
+                        final IntArray segmentDocCounts = LowCardinality.this.segmentDocCounts;
+                        for (int i = 0; i < count; i++) {
+                            if (singleValues.advanceExact(docs[i])) {
+                                segmentDocCounts.increment(singleValues.ordValue() + 1, 1);
+                            }
+                        }
+                    }
                 };
             } else {
                 return new LeafBucketCollectorBase(sub, segmentOrds) {
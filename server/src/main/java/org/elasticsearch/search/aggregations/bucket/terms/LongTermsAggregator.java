@@ -18,7 +18,9 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.LongHash;
@@ -73,7 +75,11 @@ public class LongTermsAggregator extends TermsAggregator {
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
         final SortedNumericDocValues values = getValues(valuesSource, ctx);
+        final NumericDocValues singleValues = DocValues.unwrapSingleton(values);
         return new LeafBucketCollectorBase(sub, values) {
+            private int[] matchingDocs = new int[0];
+            private long[] matchingBucketOrds = new long[0];
+
             @Override
             public void collect(int doc, long owningBucketOrdinal) throws IOException {
                 assert owningBucketOrdinal == 0;
@@ -99,6 +105,32 @@ public class LongTermsAggregator extends TermsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrdinal) throws IOException {
+                assert owningBucketOrdinal == 0;
+                if (singleValues == null) {
+                    super.collect(docs, count, owningBucketOrdinal);
+                    return;
+                }
+                if (matchingDocs.length < count) {
+                    matchingDocs = new int[count];
+                    matchingBucketOrds = new long[count];
+                }
+                int numMatching = 0;
+                for (int i = 0; i < count; i++) {
+                    final int doc = docs[i];
+                    if (singleValues.advanceExact(doc)) {
+                        final long val = singleValues.longValue();
+                        if ((longFilter == null) || (longFilter.accept(val))) {
+                            final long bucketOrdinal = bucketOrds.add(val);
+                            matchingDocs[numMatching] = doc;
+                            matchingBucketOrds[numMatching++] = bucketOrdinal < 0 ? -1 - bucketOrdinal : bucketOrdinal;
+                        }
+                    }
+                }
+                collectBuckets(sub, matchingDocs, matchingBucketOrds, numMatching);
+            }
         };
     }
 
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics.cardinality;
 
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
@@ -34,31 +35,47 @@ import java.util.Map;
 
 public class CardinalityAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource, CardinalityAggregatorFactory> {
 
-    private final Long precisionThreshold;
+    /**
+     * The number of buckets of a sub-aggregation that use hyperloglog whose registers must fit in {@link #AUTO_PRECISION_BUDGET}
+     * if no precision threshold is set. Lower precisions than the default are used otherwise.
+     */
+    static final int AUTO_PRECISION_BUCKETS = 1024;
+    static final long AUTO_PRECISION_BUDGET = ByteSizeUnit.MB.toBytes(4);
+
+    private final int precision;
 
     public CardinalityAggregatorFactory(String name, ValuesSourceConfig<ValuesSource> config, Long precisionThreshold,
             SearchContext context, AggregatorFactory<?> parent, AggregatorFactories.Builder subFactoriesBuilder,
             Map<String, Object> metaData) throws IOException {
         super(name, config, context, parent, subFactoriesBuilder, metaData);
-        this.precisionThreshold = precisionThreshold;
+        // only depends on the request so that all shards agree on the precision
+        this.precision = precision(precisionThreshold, parent == null);
     }
 
     @Override
     protected Aggregator createUnmapped(Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
             throws IOException {
-        return new CardinalityAggregator(name, null, precision(), context, parent, pipelineAggregators, metaData);
+        return new CardinalityAggregator(name, null, precision, context, parent, pipelineAggregators, metaData);
     }
 
     @Override
     protected Aggregator doCreateInternal(ValuesSource valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
-        return new CardinalityAggregator(name, valuesSource, precision(), context, parent, pipelineAggregators,
-                metaData);
+        return new CardinalityAggregator(name, valuesSource, precision, context, parent, pipelineAggregators, metaData);
     }
 
-    private int precision() {
-        return precisionThreshold == null
-                ? HyperLogLogPlusPlus.DEFAULT_PRECISION
-                : HyperLogLogPlusPlus.precisionFromThreshold(precisionThreshold);
+    /**
+     * Returns the precision to use given the configured threshold and whether the aggregation is a top level one. Sub-aggregations
+     * may be collected for many buckets of their parents, so they get a lower precision unless a threshold is configured.
+     */
+    static int precision(Long precisionThreshold, boolean topLevel) {
+        if (precisionThreshold != null) {
+            return HyperLogLogPlusPlus.precisionFromThreshold(precisionThreshold);
+        }
+        if (topLevel) {
+            return HyperLogLogPlusPlus.DEFAULT_PRECISION;
+        }
+        return HyperLogLogPlusPlus.precisionFromBudget(HyperLogLogPlusPlus.DEFAULT_PRECISION, AUTO_PRECISION_BUCKETS,
+            AUTO_PRECISION_BUDGET);
     }
 }
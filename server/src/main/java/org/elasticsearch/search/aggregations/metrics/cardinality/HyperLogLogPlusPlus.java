@@ -22,18 +22,20 @@ package org.elasticsearch.search.aggregations.metrics.cardinality;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.common.util.PageCacheRecycler;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -84,6 +86,18 @@ public final class HyperLogLogPlusPlus implements Releasable {
         return 1L << precision;
     }
 
+    /**
+     * Returns the highest precision up to <code>precision</code> with which the registers of <code>numBuckets</code> buckets
+     * fit in <code>budget</code> bytes, but not less than {@link #MIN_PRECISION}.
+     */
+    public static int precisionFromBudget(int precision, long numBuckets, long budget) {
+        int p = precision;
+        while (p > MIN_PRECISION && memoryUsage(p) * numBuckets > budget) {
+            --p;
+        }
+        return p;
+    }
+
     // these static tables come from the appendix of the paper
     private static final double[][] RAW_ESTIMATE_DATA = {
         // precision 4
@@ -155,12 +169,30 @@ public final class HyperLogLogPlusPlus implements Releasable {
         10, 20, 40, 80, 220, 400, 900, 1800, 3100, 6500, 11500, 20000, 50000, 120000, 350000
     };
 
+    /**
+     * Encoding of the registers on the wire as runs of equal registers.
+     */
+    private static final byte REGISTERS_RUNS = 0;
+    /**
+     * Encoding of the registers on the wire as 6 bits per register.
+     */
+    private static final byte REGISTERS_PACKED = 1;
+    private static final int PACKED_REGISTER_BITS = 6;
+
     private final BigArrays bigArrays;
     private final OpenBitSet algorithm;
+    // the registers of the buckets that use hyperloglog, in the order in which the buckets were upgraded
     private ByteArray runLens;
+    // the slot of the registers of each bucket in runLens plus one, or 0 if the bucket uses linear counting
+    private LongArray registerSlots;
+    private long numRegisterSlots;
+    private long numBuckets;
     private final Hashset hashSet;
     private final int p, m;
     private final double alphaMM;
+    // registers are processed in chunks that never cross a page of runLens
+    private final int chunkSize;
+    private byte[] chunkSpare;
 
     public HyperLogLogPlusPlus(int precision, BigArrays bigArrays, long initialBucketCount) {
         if (precision < 4) {
@@ -171,10 +203,20 @@ public final class HyperLogLogPlusPlus implements Releasable {
         }
         p = precision;
         m = 1 << p;
+        chunkSize = Math.min(m, PageCacheRecycler.BYTE_PAGE_SIZE);
         this.bigArrays = bigArrays;
         algorithm = new OpenBitSet();
-        runLens = bigArrays.newByteArray(initialBucketCount << p);
-        hashSet = new Hashset(initialBucketCount);
+        boolean success = false;
+        try {
+            runLens = bigArrays.newByteArray(0);
+            registerSlots = bigArrays.newLongArray(initialBucketCount);
+            hashSet = new Hashset(initialBucketCount);
+            success = true;
+        } finally {
+            if (success == false) {
+                Releasables.close(runLens, registerSlots);
+            }
+        }
         final double alpha;
         switch (p) {
         case 4:
@@ -195,23 +237,42 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     public long maxBucket() {
-        return runLens.size() >>> p;
+        return numBuckets;
     }
 
     private void ensureCapacity(long numBuckets) {
-        runLens = bigArrays.grow(runLens, numBuckets << p);
+        registerSlots = bigArrays.grow(registerSlots, numBuckets);
+        this.numBuckets = Math.max(this.numBuckets, numBuckets);
+    }
+
+    private long registersStart(long bucket) {
+        final long slot = registerSlots.get(bucket) - 1;
+        assert slot >= 0 : "bucket [" + bucket + "] does not use hyperloglog";
+        return slot << p;
     }
 
+    private byte[] chunkSpare() {
+        if (chunkSpare == null) {
+            chunkSpare = new byte[chunkSize];
+        }
+        return chunkSpare;
+    }
+
+    /**
+     * Merges the counts of {@code otherBucket} of {@code other} into {@code thisBucket}. The precision of {@code other} may be
+     * higher than the precision of this counter, its counts are then folded to this precision.
+     */
     public void merge(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
-        if (p != other.p) {
-            throw new IllegalArgumentException();
+        if (p > other.p) {
+            throw new IllegalArgumentException("cannot merge counts with precision [" + other.p + "] into counts with precision ["
+                + p + "]");
         }
         ensureCapacity(thisBucket + 1);
         if (other.algorithm.get(otherBucket) == LINEAR_COUNTING) {
             final IntArray values = other.hashSet.values(otherBucket);
             try {
                 for (long i = 0; i < values.size(); ++i) {
-                    final int encoded = values.get(i);
+                    final int encoded = recodeHash(values.get(i), p);
                     if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
                         collectLcEncoded(thisBucket, encoded);
                     } else {
@@ -225,11 +286,48 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (algorithm.get(thisBucket) != HYPERLOGLOG) {
                 upgradeToHll(thisBucket);
             }
-            final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
-            for (int i = 0; i < m; ++i) {
-                runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
+            if (other.p == p) {
+                mergeRegisters(registersStart(thisBucket), other.runLens, other.registersStart(otherBucket));
+            } else {
+                foldRegisters(thisBucket, other, otherBucket);
+            }
+        }
+    }
+
+    private void mergeRegisters(long thisStart, ByteArray otherRunLens, long otherStart) {
+        final byte[] merged = chunkSpare();
+        final BytesRef thisChunk = new BytesRef();
+        final BytesRef otherChunk = new BytesRef();
+        for (int offset = 0; offset < m; offset += chunkSize) {
+            runLens.get(thisStart + offset, chunkSize, thisChunk);
+            otherRunLens.get(otherStart + offset, chunkSize, otherChunk);
+            // plain loop over arrays so that it can be vectorized
+            final byte[] thisBytes = thisChunk.bytes;
+            final byte[] otherBytes = otherChunk.bytes;
+            final int thisOffset = thisChunk.offset;
+            final int otherOffset = otherChunk.offset;
+            for (int i = 0; i < chunkSize; ++i) {
+                merged[i] = (byte) Math.max(thisBytes[thisOffset + i], otherBytes[otherOffset + i]);
+            }
+            runLens.set(thisStart + offset, merged, 0, chunkSize);
+        }
+    }
+
+    /**
+     * Merges the registers of a counter with a higher precision. The bits of the index of a register that exceed this
+     * precision are the first bits of the run length at this precision.
+     */
+    private void foldRegisters(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
+        final int shift = other.p - p;
+        final long otherStart = other.registersStart(otherBucket);
+        for (int i = 0; i < other.m; ++i) {
+            final int otherRunLen = other.runLens.get(otherStart + i);
+            if (otherRunLen == 0) {
+                continue;
             }
+            final int extraBits = i & (int) mask(shift);
+            final int runLen = extraBits == 0 ? shift + otherRunLen : Integer.numberOfLeadingZeros(extraBits) - (32 - shift) + 1;
+            collectHll(thisBucket, i >>> shift, runLen);
         }
     }
 
@@ -267,7 +365,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     private void collectHll(long bucket, long index, int runLen) {
-        final long bucketIndex = (bucket << p) + index;
+        final long bucketIndex = registersStart(bucket) + index;
         runLens.set(bucketIndex, (byte) Math.max(runLen, runLens.get(bucketIndex)));
     }
 
@@ -288,11 +386,16 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private long cardinalityHll(long bucket) {
         double inverseSum = 0;
         int zeros = 0;
-        for (long i = bucket << p, end = i + m; i < end; ++i) {
-            final int runLen = runLens.get(i);
-            inverseSum += 1. / (1L << runLen);
-            if (runLen == 0) {
-                ++zeros;
+        final long start = registersStart(bucket);
+        final BytesRef chunk = new BytesRef();
+        for (int offset = 0; offset < m; offset += chunkSize) {
+            runLens.get(start + offset, chunkSize, chunk);
+            for (int i = chunk.offset, end = i + chunkSize; i < end; ++i) {
+                final int runLen = chunk.bytes[i];
+                inverseSum += 1. / (1L << runLen);
+                if (runLen == 0) {
+                    ++zeros;
+                }
             }
         }
         double e1 = alphaMM / inverseSum;
@@ -310,16 +413,27 @@ public final class HyperLogLogPlusPlus implements Releasable {
         }
     }
 
+    /**
+     * Switches the bucket to hyperloglog. Registers are only allocated for the buckets that are upgraded, buckets with few
+     * distinct values only hold their hash table.
+     */
     void upgradeToHll(long bucket) {
         ensureCapacity(bucket + 1);
         final IntArray values = hashSet.values(bucket);
         try {
-            runLens.fill(bucket << p, (bucket << p) + m, (byte) 0);
+            if (registerSlots.get(bucket) == 0) {
+                final long slot = numRegisterSlots++;
+                runLens = bigArrays.grow(runLens, (slot + 1) << p);
+                registerSlots.set(bucket, slot + 1);
+            }
+            final long start = registersStart(bucket);
+            runLens.fill(start, start + m, (byte) 0);
             for (long i = 0; i < values.size(); ++i) {
                 final int encoded = values.get(i);
                 collectHllEncoded(bucket, encoded);
             }
             algorithm.set(bucket);
+            hashSet.clear(bucket);
         } finally {
             Releasables.close(values);
         }
@@ -350,6 +464,20 @@ public final class HyperLogLogPlusPlus implements Releasable {
         return (int) encoded;
     }
 
+    /**
+     * Converts a hash that was encoded with a precision higher than or equal to <code>p</code> to the encoding of the same
+     * hash with precision <code>p</code>.
+     */
+    static int recodeHash(int encoded, int p) {
+        if ((encoded & 1) == 1) {
+            final long e = encoded >>> 7;
+            if ((e & mask(P2 - p)) != 0) {
+                return (int) (e << 1);
+            }
+        }
+        return encoded;
+    }
+
     static int decodeRunLen(int encoded, int p) {
         if ((encoded & 1) == 1) {
             return (((encoded >>> 1) & 0x3F) + (P2 - p));
@@ -422,7 +550,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
 
     @Override
     public void close() {
-        Releasables.close(runLens, hashSet.sizes);
+        Releasables.close(runLens, registerSlots, hashSet);
     }
 
     private Object getComparableData(long bucket) {
@@ -436,8 +564,9 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         } else {
             Map<Byte, Integer> values = new HashMap<>();
-            for (long i = 0; i < runLens.size(); i++) {
-                byte runLength = runLens.get((bucket << p) + i);
+            final long start = registersStart(bucket);
+            for (long i = 0; i < m; i++) {
+                byte runLength = runLens.get(start + i);
                 Integer numOccurances = values.get(runLength);
                 if (numOccurances == null) {
                     values.put(runLength, 1);
@@ -460,47 +589,47 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     /**
-     * We are actually using HyperLogLog's runLens array but interpreting it as a hash set
-     * for linear counting.
+     * Hash sets of the encoded hashes of the buckets that use linear counting. Each bucket has its own table that starts small
+     * and doubles as values are added until it reaches the capacity the registers of the bucket would have.
      */
-    private class Hashset {
+    private class Hashset implements Releasable {
+
+        private static final int INITIAL_CAPACITY = 16;
 
-        private final int capacity;
+        private final int initialCapacity;
+        private final int maxCapacity;
         private final int threshold;
-        private final int mask;
+        private ObjectArray<IntArray> tables;
         private IntArray sizes;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
 
         Hashset(long initialBucketCount) {
-            capacity = m / 4; // because ints take 4 bytes
-            threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
-            sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-        }
-
-        private long index (long bucket, int index) {
-            return (bucket << p) + (index << 2);
-        }
-
-        private int get(long bucket, int index) {
-            runLens.get(index(bucket, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
+            maxCapacity = m / 4; // because ints take 4 bytes
+            initialCapacity = Math.min(INITIAL_CAPACITY, maxCapacity);
+            threshold = (int) (maxCapacity * MAX_LOAD_FACTOR);
+            boolean success = false;
+            try {
+                tables = bigArrays.newObjectArray(initialBucketCount);
+                sizes = bigArrays.newIntArray(initialBucketCount);
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(tables);
+                }
+            }
         }
 
-        private void set(long bucket, int index, int value) {
-            writeSpare.putInt(0, value);
-            runLens.set(index(bucket, index), writeSpare.array(), 0, 4);
+        private IntArray table(long bucket) {
+            return bucket < tables.size() ? tables.get(bucket) : null;
         }
 
         private int recomputedSize(long bucket) {
+            final IntArray table = table(bucket);
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucket, i);
-                if (v != 0) {
-                    ++size;
+            if (table != null) {
+                for (long i = 0; i < table.size(); ++i) {
+                    if (table.get(i) != 0) {
+                        ++size;
+                    }
                 }
             }
             return size;
@@ -520,19 +649,48 @@ public final class HyperLogLogPlusPlus implements Releasable {
          * Return {@code -1} if the value was already in the set or the new set size if it was added.
          */
         public int add(long bucket, int k) {
-            sizes = bigArrays.grow(sizes, bucket + 1);
             assert k != 0;
+            sizes = bigArrays.grow(sizes, bucket + 1);
+            tables = bigArrays.grow(tables, bucket + 1);
+            IntArray table = tables.get(bucket);
+            if (table == null) {
+                table = bigArrays.newIntArray(initialCapacity);
+                tables.set(bucket, table);
+            } else if (table.size() < maxCapacity && sizes.get(bucket) + 1 > table.size() * MAX_LOAD_FACTOR) {
+                table = grow(bucket, table);
+            }
+            if (insert(table, k)) {
+                return sizes.increment(bucket, 1);
+            }
+            return -1;
+        }
+
+        private boolean insert(IntArray table, int k) {
+            final int mask = (int) table.size() - 1;
             for (int i = (k & mask); ; i = (i + 1) & mask) {
-                final int v = get(bucket, i);
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucket, i, k);
-                    return sizes.increment(bucket, 1);
+                    table.set(i, k);
+                    return true;
                 } else if (v == k) {
                     // k is already in the set
-                    return -1;
+                    return false;
+                }
+            }
+        }
+
+        private IntArray grow(long bucket, IntArray table) {
+            final IntArray newTable = bigArrays.newIntArray(Math.min(table.size() << 1, maxCapacity));
+            for (long i = 0; i < table.size(); ++i) {
+                final int k = table.get(i);
+                if (k != 0) {
+                    insert(newTable, k);
                 }
             }
+            tables.set(bucket, newTable);
+            Releasables.close(table);
+            return newTable;
         }
 
         public IntArray values(final long bucket) {
@@ -541,9 +699,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (size == 0) {
                 return values;
             }
+            final IntArray table = tables.get(bucket);
             int i = 0;
-            for (int j = 0; j < capacity; ++j) {
-                final int k = get(bucket, j);
+            for (long j = 0; j < table.size(); ++j) {
+                final int k = table.get(j);
                 if (k != 0) {
                     values.set(i++, k);
                 }
@@ -552,6 +711,27 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         }
 
+        /**
+         * Releases the hash table of a bucket that was upgraded to hyperloglog.
+         */
+        void clear(long bucket) {
+            final IntArray table = table(bucket);
+            if (table != null) {
+                tables.set(bucket, null);
+                sizes.set(bucket, 0);
+                Releasables.close(table);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (tables != null) {
+                for (long i = 0; i < tables.size(); ++i) {
+                    Releasables.close(tables.get(i));
+                }
+            }
+            Releasables.close(tables, sizes);
+        }
     }
 
     public void writeTo(long bucket, StreamOutput out) throws IOException {
@@ -560,38 +740,154 @@ public final class HyperLogLogPlusPlus implements Releasable {
             out.writeBoolean(LINEAR_COUNTING);
             try (IntArray hashes = hashSet.values(bucket)) {
                 out.writeVLong(hashes.size());
-                for (long i = 0; i < hashes.size(); ++i) {
-                    out.writeInt(hashes.get(i));
+                if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+                    writeSortedHashes(hashes, out);
+                } else {
+                    for (long i = 0; i < hashes.size(); ++i) {
+                        out.writeInt(hashes.get(i));
+                    }
                 }
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
-            for (long i = bucket << p, end = i + m; i < end; ++i) {
-                out.writeByte(runLens.get(i));
+            final long start = registersStart(bucket);
+            if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+                writeRegisters(start, out);
+            } else {
+                for (long i = start, end = i + m; i < end; ++i) {
+                    out.writeByte(runLens.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the hashes in unsigned order as deltas to the previous hash, which takes less than 4 bytes per hash unless there
+     * are only a few.
+     */
+    private static void writeSortedHashes(IntArray hashes, StreamOutput out) throws IOException {
+        final long[] sorted = new long[(int) hashes.size()];
+        for (int i = 0; i < sorted.length; ++i) {
+            sorted[i] = Integer.toUnsignedLong(hashes.get(i));
+        }
+        Arrays.sort(sorted);
+        long previous = 0;
+        for (long hash : sorted) {
+            out.writeVLong(hash - previous);
+            previous = hash;
+        }
+    }
+
+    /**
+     * Writes the registers either as runs of equal registers or packed on 6 bits each, whichever is smaller. Registers of
+     * buckets that recently left linear counting are mostly zeros and compress well as runs.
+     */
+    private void writeRegisters(long start, StreamOutput out) throws IOException {
+        long runsSize = 0;
+        for (long i = start, end = start + m; i < end; ) {
+            final byte value = runLens.get(i);
+            long runEnd = i + 1;
+            while (runEnd < end && runLens.get(runEnd) == value) {
+                ++runEnd;
+            }
+            runsSize += 1 + vIntSize((int) (runEnd - i));
+            i = runEnd;
+        }
+        final int packedSize = m / 8 * PACKED_REGISTER_BITS;
+        if (runsSize < packedSize) {
+            out.writeByte(REGISTERS_RUNS);
+            for (long i = start, end = start + m; i < end; ) {
+                final byte value = runLens.get(i);
+                long runEnd = i + 1;
+                while (runEnd < end && runLens.get(runEnd) == value) {
+                    ++runEnd;
+                }
+                out.writeByte(value);
+                out.writeVInt((int) (runEnd - i));
+                i = runEnd;
             }
+        } else {
+            out.writeByte(REGISTERS_PACKED);
+            final byte[] packed = new byte[packedSize];
+            // four registers of 6 bits are packed into three bytes
+            for (int i = 0, j = 0; i < m; i += 4, j += 3) {
+                final int bits = runLens.get(start + i) << 18 | runLens.get(start + i + 1) << 12
+                    | runLens.get(start + i + 2) << 6 | runLens.get(start + i + 3);
+                packed[j] = (byte) (bits >>> 16);
+                packed[j + 1] = (byte) (bits >>> 8);
+                packed[j + 2] = (byte) bits;
+            }
+            out.writeBytes(packed);
+        }
+    }
+
+    private static int vIntSize(int value) {
+        return (32 - Integer.numberOfLeadingZeros(value) + 6) / 7;
+    }
+
+    private void readRegisters(long start, StreamInput in) throws IOException {
+        final byte encoding = in.readByte();
+        if (encoding == REGISTERS_RUNS) {
+            for (long i = start, end = start + m; i < end; ) {
+                final byte value = in.readByte();
+                final int runLength = in.readVInt();
+                if (runLength <= 0 || i + runLength > end) {
+                    throw new IllegalStateException("invalid run of registers of length [" + runLength + "]");
+                }
+                runLens.fill(i, i + runLength, value);
+                i += runLength;
+            }
+        } else if (encoding == REGISTERS_PACKED) {
+            final byte[] packed = new byte[m / 8 * PACKED_REGISTER_BITS];
+            in.readBytes(packed, 0, packed.length);
+            final byte[] registers = new byte[m];
+            for (int i = 0, j = 0; i < m; i += 4, j += 3) {
+                final int bits = (packed[j] & 0xFF) << 16 | (packed[j + 1] & 0xFF) << 8 | (packed[j + 2] & 0xFF);
+                registers[i] = (byte) (bits >>> 18);
+                registers[i + 1] = (byte) ((bits >>> 12) & 0x3F);
+                registers[i + 2] = (byte) ((bits >>> 6) & 0x3F);
+                registers[i + 3] = (byte) (bits & 0x3F);
+            }
+            runLens.set(start, registers, 0, m);
+        } else {
+            throw new IllegalStateException("unknown encoding of registers [" + encoding + "]");
         }
     }
 
     public static HyperLogLogPlusPlus readFrom(StreamInput in, BigArrays bigArrays) throws IOException {
         final int precision = in.readVInt();
         HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
+        counts.ensureCapacity(1);
         final boolean algorithm = in.readBoolean();
         if (algorithm == LINEAR_COUNTING) {
             counts.algorithm.clear(0);
             final long size = in.readVLong();
-            for (long i = 0; i < size; ++i) {
-                final int encoded = in.readInt();
-                counts.hashSet.add(0, encoded);
+            if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+                long hash = 0;
+                for (long i = 0; i < size; ++i) {
+                    hash += in.readVLong();
+                    counts.collectLcEncoded(0, (int) hash);
+                }
+            } else {
+                for (long i = 0; i < size; ++i) {
+                    final int encoded = in.readInt();
+                    counts.collectLcEncoded(0, encoded);
+                }
             }
         } else {
-            counts.algorithm.set(0);
-            for (int i = 0; i < counts.m; ++i) {
-                counts.runLens.set(i, in.readByte());
+            counts.upgradeToHll(0);
+            final long start = counts.registersStart(0);
+            if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+                counts.readRegisters(start, in);
+            } else {
+                for (int i = 0; i < counts.m; ++i) {
+                    counts.runLens.set(start + i, in.readByte());
+                }
             }
         }
         return counts;
     }
-    
+
     /** looks and smells like the old openbitset. */
     static class OpenBitSet {
         LongBitSet impl = new LongBitSet(64);
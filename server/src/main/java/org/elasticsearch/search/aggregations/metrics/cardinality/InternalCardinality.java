@@ -82,12 +82,20 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
 
     @Override
     public InternalAggregation doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        // shards may have picked different precisions, higher precisions are folded into the lowest one
+        int precision = Integer.MAX_VALUE;
+        for (InternalAggregation aggregation : aggregations) {
+            final InternalCardinality cardinality = (InternalCardinality) aggregation;
+            if (cardinality.counts != null) {
+                precision = Math.min(precision, cardinality.counts.precision());
+            }
+        }
         InternalCardinality reduced = null;
         for (InternalAggregation aggregation : aggregations) {
             final InternalCardinality cardinality = (InternalCardinality) aggregation;
             if (cardinality.counts != null) {
                 if (reduced == null) {
-                    reduced = new InternalCardinality(name, new HyperLogLogPlusPlus(cardinality.counts.precision(),
+                    reduced = new InternalCardinality(name, new HyperLogLogPlusPlus(precision,
                             BigArrays.NON_RECYCLING_INSTANCE, 1), pipelineAggregators(), getMetaData());
                 }
                 reduced.merge(cardinality);
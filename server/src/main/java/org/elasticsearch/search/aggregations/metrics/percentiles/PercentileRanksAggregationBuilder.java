@@ -233,6 +233,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
         if (method == null) {
             throw new IllegalArgumentException("[method] must not be null: [" + name + "]");
         }
+        if (method == PercentilesMethod.DDSKETCH) {
+            throw new IllegalArgumentException("[" + method + "] is not supported by [" + NAME + "]: [" + name + "]");
+        }
         this.method = method;
         return this;
     }
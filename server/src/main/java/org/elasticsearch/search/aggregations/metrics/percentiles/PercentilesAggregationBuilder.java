@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics.percentiles;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -28,6 +29,8 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch.DDSketch;
+import org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch.DDSketchPercentilesAggregatorFactory;
 import org.elasticsearch.search.aggregations.metrics.percentiles.hdr.HDRPercentilesAggregatorFactory;
 import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestPercentilesAggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValueType;
@@ -55,6 +58,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
     public static final ParseField METHOD_FIELD = new ParseField("method");
     public static final ParseField COMPRESSION_FIELD = new ParseField("compression");
     public static final ParseField NUMBER_SIGNIFICANT_DIGITS_FIELD = new ParseField("number_of_significant_value_digits");
+    public static final ParseField RELATIVE_ACCURACY_FIELD = new ParseField("relative_accuracy");
+    public static final ParseField MAX_BINS_FIELD = new ParseField("max_bins");
 
     private static class TDigestOptions {
         Double compression;
@@ -78,6 +83,19 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
                 NUMBER_SIGNIFICANT_DIGITS_FIELD);
     }
 
+    private static class DDSketchOptions {
+        Double relativeAccuracy;
+        Integer maxBins;
+    }
+
+    private static final ObjectParser<DDSketchOptions, Void> DDSKETCH_OPTIONS_PARSER =
+            new ObjectParser<>(PercentilesMethod.DDSKETCH.getParseField().getPreferredName(), DDSketchOptions::new);
+    static {
+        DDSKETCH_OPTIONS_PARSER.declareDouble((opts, relativeAccuracy) -> opts.relativeAccuracy = relativeAccuracy,
+                RELATIVE_ACCURACY_FIELD);
+        DDSKETCH_OPTIONS_PARSER.declareInt((opts, maxBins) -> opts.maxBins = maxBins, MAX_BINS_FIELD);
+    }
+
     private static final ObjectParser<InternalBuilder, Void> PARSER;
     static {
         PARSER = new ObjectParser<>(PercentilesAggregationBuilder.NAME);
@@ -102,6 +120,16 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
                 b.numberOfSignificantValueDigits(v.numberOfSigDigits);
             }
         }, HDR_OPTIONS_PARSER::parse, PercentilesMethod.HDR.getParseField(), ObjectParser.ValueType.OBJECT);
+
+        PARSER.declareField((b, v) -> {
+            b.method(PercentilesMethod.DDSKETCH);
+            if (v.relativeAccuracy != null) {
+                b.relativeAccuracy(v.relativeAccuracy);
+            }
+            if (v.maxBins != null) {
+                b.maxBins(v.maxBins);
+            }
+        }, DDSKETCH_OPTIONS_PARSER::parse, PercentilesMethod.DDSKETCH.getParseField(), ObjectParser.ValueType.OBJECT);
     }
 
     public static AggregationBuilder parse(String aggregationName, XContentParser parser) throws IOException {
@@ -118,6 +146,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         returnedAgg.keyed(internal.keyed());
         returnedAgg.compression(internal.compression());
         returnedAgg.numberOfSignificantValueDigits(internal.numberOfSignificantValueDigits());
+        returnedAgg.relativeAccuracy(internal.relativeAccuracy());
+        returnedAgg.maxBins(internal.maxBins());
         return returnedAgg;
     }
 
@@ -131,6 +161,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
     private PercentilesMethod method = PercentilesMethod.TDIGEST;
     private int numberOfSignificantValueDigits = 3;
     private double compression = 100.0;
+    private double relativeAccuracy = DDSketch.DEFAULT_RELATIVE_ACCURACY;
+    private int maxBins = DDSketch.DEFAULT_MAX_BINS;
     private boolean keyed = true;
 
     public PercentilesAggregationBuilder(String name) {
@@ -144,6 +176,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         this.method = clone.method;
         this.numberOfSignificantValueDigits = clone.numberOfSignificantValueDigits;
         this.compression = clone.compression;
+        this.relativeAccuracy = clone.relativeAccuracy;
+        this.maxBins = clone.maxBins;
         this.keyed = clone.keyed;
     }
 
@@ -162,6 +196,10 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         numberOfSignificantValueDigits = in.readVInt();
         compression = in.readDouble();
         method = PercentilesMethod.readFromStream(in);
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            relativeAccuracy = in.readDouble();
+            maxBins = in.readVInt();
+        }
     }
 
     @Override
@@ -170,7 +208,15 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         out.writeBoolean(keyed);
         out.writeVInt(numberOfSignificantValueDigits);
         out.writeDouble(compression);
+        if (method == PercentilesMethod.DDSKETCH && out.getVersion().before(Version.V_6_7_2_6515)) {
+            throw new IllegalArgumentException("[" + method + "] percentiles are only supported on version ["
+                    + Version.V_6_7_2_6515 + "] or higher: [" + name + "]");
+        }
         method.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            out.writeDouble(relativeAccuracy);
+            out.writeVInt(maxBins);
+        }
     }
 
     /**
@@ -252,6 +298,49 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         return compression;
     }
 
+    /**
+     * Expert: set the maximum relative error of the percentiles. Lower values need more bins
+     * to cover the same range of values. Only relevant when using {@link PercentilesMethod#DDSKETCH}.
+     */
+    public PercentilesAggregationBuilder relativeAccuracy(double relativeAccuracy) {
+        if (relativeAccuracy <= 0.0 || relativeAccuracy >= 1.0) {
+            throw new IllegalArgumentException(
+                    "[relativeAccuracy] must be greater than 0 and less than 1. Found [" + relativeAccuracy + "] in [" + name + "]");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        return this;
+    }
+
+    /**
+     * Expert: get the maximum relative error of the percentiles. Only relevant when using
+     * {@link PercentilesMethod#DDSKETCH}.
+     */
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Expert: set the maximum number of bins per bucket and sign of the values, which bounds
+     * the memory usage. If the values span more bins, the lowest percentiles lose accuracy.
+     * Only relevant when using {@link PercentilesMethod#DDSKETCH}.
+     */
+    public PercentilesAggregationBuilder maxBins(int maxBins) {
+        if (maxBins < DDSketch.MIN_BINS || maxBins > DDSketch.MAX_BINS) {
+            throw new IllegalArgumentException("[maxBins] must be between " + DDSketch.MIN_BINS + " and " + DDSketch.MAX_BINS
+                    + ". Found [" + maxBins + "] in [" + name + "]");
+        }
+        this.maxBins = maxBins;
+        return this;
+    }
+
+    /**
+     * Expert: get the maximum number of bins per bucket and sign of the values. Only relevant
+     * when using {@link PercentilesMethod#DDSKETCH}.
+     */
+    public int maxBins() {
+        return maxBins;
+    }
+
     public PercentilesAggregationBuilder method(PercentilesMethod method) {
         if (method == null) {
             throw new IllegalArgumentException("[method] must not be null: [" + name + "]");
@@ -274,6 +363,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         case HDR:
             return new HDRPercentilesAggregatorFactory(name, config, percents, numberOfSignificantValueDigits, keyed, context, parent,
                     subFactoriesBuilder, metaData);
+        case DDSKETCH:
+            return new DDSketchPercentilesAggregatorFactory(name, config, percents, relativeAccuracy, maxBins, keyed, context, parent,
+                    subFactoriesBuilder, metaData);
         default:
             throw new IllegalStateException("Illegal method [" + method + "]");
         }
@@ -286,6 +378,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         builder.startObject(method.toString());
         if (method == PercentilesMethod.TDIGEST) {
             builder.field(COMPRESSION_FIELD.getPreferredName(), compression);
+        } else if (method == PercentilesMethod.DDSKETCH) {
+            builder.field(RELATIVE_ACCURACY_FIELD.getPreferredName(), relativeAccuracy);
+            builder.field(MAX_BINS_FIELD.getPreferredName(), maxBins);
         } else {
             builder.field(NUMBER_SIGNIFICANT_DIGITS_FIELD.getPreferredName(), numberOfSignificantValueDigits);
         }
@@ -307,6 +402,10 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         case TDIGEST:
             equalSettings = Objects.equals(compression, other.compression);
             break;
+        case DDSKETCH:
+            equalSettings = Objects.equals(relativeAccuracy, other.relativeAccuracy)
+                    && Objects.equals(maxBins, other.maxBins);
+            break;
         default:
             throw new IllegalStateException("Illegal method [" + method.toString() + "]");
         }
@@ -323,6 +422,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
             return Objects.hash(Arrays.hashCode(percents), keyed, numberOfSignificantValueDigits, method);
         case TDIGEST:
             return Objects.hash(Arrays.hashCode(percents), keyed, compression, method);
+        case DDSKETCH:
+            return Objects.hash(Arrays.hashCode(percents), keyed, relativeAccuracy, maxBins, method);
         default:
             throw new IllegalStateException("Illegal method [" + method.toString() + "]");
         }
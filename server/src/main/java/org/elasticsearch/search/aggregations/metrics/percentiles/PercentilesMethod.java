@@ -37,7 +37,11 @@ public enum PercentilesMethod implements Writeable {
     /**
      * The HDRHistogram method of calculating percentiles
      */
-    HDR("hdr", "HDR");
+    HDR("hdr", "HDR"),
+    /**
+     * The DDSketch method of calculating percentiles, which uses a bounded amount of memory per bucket
+     */
+    DDSKETCH("ddsketch");
 
     private final ParseField parseField;
 
@@ -0,0 +1,605 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+
+import java.io.IOException;
+
+/**
+ * Per-bucket quantile sketches as described in "DDSketch: A Fast and Fully-Mergeable Quantile Sketch with Relative-Error
+ * Guarantees" by Charles Masson, Jee E. Rim and Homin K. Lee. Values are counted in bins whose bounds grow exponentially so
+ * that every quantile is estimated with a relative error of at most the configured relative accuracy, and merging sketches
+ * does not lose any accuracy.
+ * <p>
+ * The memory used by a bucket is bounded: positive and negative values each use at most <code>maxBins</code> bins. The bins of
+ * a sign are only allocated once the bucket collects a value of that sign and grow with the range of its values. If the values
+ * of a bucket span more bins, the bins of the values closest to zero are collapsed into one, which degrades the accuracy of the
+ * quantiles of the smallest positive values and of the negative values closest to zero. The bins of all buckets are stored in
+ * flat big arrays so that they are accounted for by the request circuit breaker.
+ */
+public final class DDSketch implements Releasable {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_MAX_BINS = 1024;
+    public static final int MIN_BINS = 16;
+    public static final int MAX_BINS = 1 << 16;
+
+    // values closer to zero are counted as zeros
+    private static final double MIN_INDEXABLE_VALUE = Double.MIN_NORMAL;
+    // keys are bounded so that computing the bin of a key can not overflow
+    private static final int MIN_KEY = Integer.MIN_VALUE / 4;
+    private static final int MAX_KEY = Integer.MAX_VALUE / 4;
+    // number of bins of a slot when a bucket gets its first value of a sign
+    private static final int INITIAL_SLOT_BINS = 16;
+
+    private final BigArrays bigArrays;
+    private final double relativeAccuracy;
+    private final int maxBins;
+    private final double gamma;
+    private final double logGamma;
+    private LongArray counts;
+    private LongArray zeroCounts;
+    private DoubleArray mins;
+    private DoubleArray maxes;
+    private Store positives;
+    private Store negatives;
+    private long numBuckets;
+
+    public DDSketch(double relativeAccuracy, int maxBins, BigArrays bigArrays, long initialBucketCount) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException(
+                "[relative_accuracy] must be greater than 0 and less than 1, got [" + relativeAccuracy + "]");
+        }
+        if (maxBins < MIN_BINS || maxBins > MAX_BINS) {
+            throw new IllegalArgumentException("[max_bins] must be between " + MIN_BINS + " and " + MAX_BINS + ", got [" + maxBins + "]");
+        }
+        this.bigArrays = bigArrays;
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        boolean success = false;
+        try {
+            counts = bigArrays.newLongArray(initialBucketCount);
+            zeroCounts = bigArrays.newLongArray(initialBucketCount);
+            mins = bigArrays.newDoubleArray(initialBucketCount);
+            maxes = bigArrays.newDoubleArray(initialBucketCount);
+            positives = new Store(initialBucketCount);
+            negatives = new Store(initialBucketCount);
+            success = true;
+        } finally {
+            if (success == false) {
+                close();
+            }
+        }
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public int maxBins() {
+        return maxBins;
+    }
+
+    public long maxBucket() {
+        return numBuckets;
+    }
+
+    private void ensureCapacity(long numBuckets) {
+        if (numBuckets > this.numBuckets) {
+            counts = bigArrays.grow(counts, numBuckets);
+            zeroCounts = bigArrays.grow(zeroCounts, numBuckets);
+            mins = bigArrays.grow(mins, numBuckets);
+            maxes = bigArrays.grow(maxes, numBuckets);
+            positives.ensureCapacity(numBuckets);
+            negatives.ensureCapacity(numBuckets);
+            this.numBuckets = numBuckets;
+        }
+    }
+
+    private int key(double value) {
+        final double key = Math.ceil(Math.log(value) / logGamma);
+        return (int) Math.max(MIN_KEY, Math.min(MAX_KEY, key));
+    }
+
+    /**
+     * Returns the value that represents the bin of the given key, which has a relative error of at most the relative accuracy
+     * to every value of the bin.
+     */
+    private double value(int key) {
+        return 2 * Math.exp(key * logGamma) / (1 + gamma);
+    }
+
+    /**
+     * Adds a value to the sketch of a bucket. <code>NaN</code> values are ignored.
+     */
+    public void add(long bucket, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        ensureCapacity(bucket + 1);
+        if (value >= MIN_INDEXABLE_VALUE) {
+            positives.add(bucket, key(value), 1);
+        } else if (value <= -MIN_INDEXABLE_VALUE) {
+            negatives.add(bucket, key(-value), 1);
+        } else {
+            zeroCounts.increment(bucket, 1);
+        }
+        addCount(bucket, 1, value, value);
+    }
+
+    private void addCount(long bucket, long count, double min, double max) {
+        if (counts.increment(bucket, count) == count) {
+            mins.set(bucket, min);
+            maxes.set(bucket, max);
+        } else {
+            mins.set(bucket, Math.min(mins.get(bucket), min));
+            maxes.set(bucket, Math.max(maxes.get(bucket), max));
+        }
+    }
+
+    /**
+     * Merges the sketch of <code>otherBucket</code> into the sketch of <code>thisBucket</code>. Both sketches must have been
+     * created with the same relative accuracy and number of bins.
+     */
+    public void merge(long thisBucket, DDSketch other, long otherBucket) {
+        if (relativeAccuracy != other.relativeAccuracy || maxBins != other.maxBins) {
+            throw new IllegalArgumentException("Cannot merge a sketch with relative accuracy [" + other.relativeAccuracy
+                + "] and [" + other.maxBins + "] bins into a sketch with relative accuracy [" + relativeAccuracy + "] and ["
+                + maxBins + "] bins");
+        }
+        ensureCapacity(thisBucket + 1);
+        final long count = other.count(otherBucket);
+        if (count == 0) {
+            return;
+        }
+        positives.merge(thisBucket, other.positives, otherBucket);
+        negatives.merge(thisBucket, other.negatives, otherBucket);
+        zeroCounts.increment(thisBucket, other.zeroCounts.get(otherBucket));
+        addCount(thisBucket, count, other.mins.get(otherBucket), other.maxes.get(otherBucket));
+    }
+
+    /**
+     * Returns the number of values that were added to the sketch of a bucket.
+     */
+    public long count(long bucket) {
+        return bucket < numBuckets ? counts.get(bucket) : 0;
+    }
+
+    /**
+     * Returns the estimated value of the given quantile, between 0 and 1, of the values of a bucket or <code>NaN</code> if
+     * the bucket has no values.
+     */
+    public double quantile(long bucket, double q) {
+        final long count = count(bucket);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final double min = mins.get(bucket);
+        final double max = maxes.get(bucket);
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        double rank = q * (count - 1);
+        final double value;
+        final long negativeCount = negatives.count(bucket);
+        final long zeroCount = zeroCounts.get(bucket);
+        if (rank < negativeCount) {
+            // the more negative the value, the higher its key
+            value = -value(negatives.keyAtRank(bucket, negativeCount - 1 - rank));
+        } else if (rank < negativeCount + zeroCount) {
+            value = 0;
+        } else {
+            value = value(positives.keyAtRank(bucket, rank - negativeCount - zeroCount));
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(counts, zeroCounts, mins, maxes, positives, negatives);
+    }
+
+    public int hashCode(long bucket) {
+        int hash = Double.hashCode(relativeAccuracy);
+        hash = 31 * hash + maxBins;
+        final long count = count(bucket);
+        hash = 31 * hash + Long.hashCode(count);
+        if (count > 0) {
+            hash = 31 * hash + Double.hashCode(mins.get(bucket));
+            hash = 31 * hash + Double.hashCode(maxes.get(bucket));
+            hash = 31 * hash + Long.hashCode(zeroCounts.get(bucket));
+            hash = 31 * hash + positives.hashCode(bucket);
+            hash = 31 * hash + negatives.hashCode(bucket);
+        }
+        return hash;
+    }
+
+    public boolean equals(long bucket, DDSketch other, long otherBucket) {
+        final long count = count(bucket);
+        if (relativeAccuracy != other.relativeAccuracy || maxBins != other.maxBins || count != other.count(otherBucket)) {
+            return false;
+        }
+        if (count == 0) {
+            return true;
+        }
+        return Double.compare(mins.get(bucket), other.mins.get(otherBucket)) == 0
+            && Double.compare(maxes.get(bucket), other.maxes.get(otherBucket)) == 0
+            && zeroCounts.get(bucket) == other.zeroCounts.get(otherBucket)
+            && positives.equals(bucket, other.positives, otherBucket)
+            && negatives.equals(bucket, other.negatives, otherBucket);
+    }
+
+    /**
+     * Writes the sketch of a bucket. Only the non-empty range of bins of each sign is written.
+     */
+    public void writeTo(long bucket, StreamOutput out) throws IOException {
+        out.writeDouble(relativeAccuracy);
+        out.writeVInt(maxBins);
+        final long count = count(bucket);
+        out.writeVLong(count);
+        if (count > 0) {
+            out.writeDouble(mins.get(bucket));
+            out.writeDouble(maxes.get(bucket));
+            out.writeVLong(zeroCounts.get(bucket));
+            positives.writeTo(bucket, out);
+            negatives.writeTo(bucket, out);
+        }
+    }
+
+    public static DDSketch readFrom(StreamInput in, BigArrays bigArrays) throws IOException {
+        final double relativeAccuracy = in.readDouble();
+        final int maxBins = in.readVInt();
+        final DDSketch sketch = new DDSketch(relativeAccuracy, maxBins, bigArrays, 1);
+        sketch.ensureCapacity(1);
+        final long count = in.readVLong();
+        if (count > 0) {
+            final double min = in.readDouble();
+            final double max = in.readDouble();
+            sketch.zeroCounts.set(0, in.readVLong());
+            sketch.positives.readFrom(0, in);
+            sketch.negatives.readFrom(0, in);
+            sketch.addCount(0, count, min, max);
+        }
+        return sketch;
+    }
+
+    /**
+     * The bins of the values of one sign. Each bucket that has values of this sign gets a slot that holds the counts of
+     * consecutive keys starting at the offset of the slot. Slots start small and double in size, up to <code>maxBins</code> bins,
+     * when they need to hold more keys. A slot that grows moves to the end of the bins unless it already is the last slot.
+     */
+    private final class Store implements Releasable {
+
+        private LongArray slots; // slot + 1 of each bucket, 0 if the bucket has no value of this sign
+        private LongArray starts; // index of the first bin of each slot
+        private IntArray capacities; // number of bins of each slot
+        private IntArray offsets; // key of the first bin of each slot
+        private IntArray bounds; // lowest and highest non-empty bin of each slot
+        private LongArray bins;
+        private long numSlots;
+        private long usedBins;
+
+        Store(long initialBucketCount) {
+            boolean success = false;
+            try {
+                slots = bigArrays.newLongArray(initialBucketCount);
+                starts = bigArrays.newLongArray(0);
+                capacities = bigArrays.newIntArray(0);
+                offsets = bigArrays.newIntArray(0);
+                bounds = bigArrays.newIntArray(0);
+                bins = bigArrays.newLongArray(0);
+                success = true;
+            } finally {
+                if (success == false) {
+                    close();
+                }
+            }
+        }
+
+        void ensureCapacity(long numBuckets) {
+            slots = bigArrays.grow(slots, numBuckets);
+        }
+
+        private long slot(long bucket) {
+            return bucket < slots.size() ? slots.get(bucket) - 1 : -1;
+        }
+
+        private int low(long slot) {
+            return bounds.get(slot << 1);
+        }
+
+        private int high(long slot) {
+            return bounds.get((slot << 1) + 1);
+        }
+
+        void add(long bucket, int key, long count) {
+            final long slot = reserve(bucket, key, key);
+            int index = key - offsets.get(slot);
+            if (index < 0 || index >= capacities.get(slot)) {
+                // the slot has maxBins bins and can not grow anymore
+                index = moveBins(slot, index);
+            }
+            bins.increment(starts.get(slot) + index, count);
+            bounds.set(slot << 1, Math.min(low(slot), index));
+            bounds.set((slot << 1) + 1, Math.max(high(slot), index));
+        }
+
+        /**
+         * Returns the slot of a bucket after creating or growing it so that it can hold the keys between <code>lowKey</code>
+         * and <code>highKey</code> next to its non-empty bins, as far as <code>maxBins</code> bins allow.
+         */
+        private long reserve(long bucket, int lowKey, int highKey) {
+            long slot = slots.get(bucket) - 1;
+            if (slot < 0) {
+                slot = numSlots++;
+                slots.set(bucket, slot + 1);
+                starts = bigArrays.grow(starts, numSlots);
+                capacities = bigArrays.grow(capacities, numSlots);
+                offsets = bigArrays.grow(offsets, numSlots);
+                bounds = bigArrays.grow(bounds, numSlots << 1);
+                final int numKeys = highKey - lowKey + 1;
+                final int capacity = Math.min(maxBins, Math.max(INITIAL_SLOT_BINS, numKeys));
+                allocate(slot, capacity);
+                // the keys go to the middle so that the bins can extend in both directions before the slot needs to grow
+                offsets.set(slot, lowKey - Math.max(0, capacity - numKeys) / 2);
+                // the slot is empty until a bin is added
+                bounds.set(slot << 1, capacity);
+                bounds.set((slot << 1) + 1, -1);
+            } else {
+                final int capacity = capacities.get(slot);
+                final int offset = offsets.get(slot);
+                if (capacity < maxBins && (lowKey < offset || highKey >= offset + capacity)) {
+                    grow(slot, Math.min(lowKey, offset + low(slot)), Math.max(highKey, offset + high(slot)));
+                }
+            }
+            return slot;
+        }
+
+        /**
+         * Sets the start of a slot to the end of the bins, or keeps it if the slot is the last one, and makes room for the
+         * given number of bins.
+         */
+        private void allocate(long slot, int capacity) {
+            final long start;
+            if (starts.get(slot) + capacities.get(slot) == usedBins) {
+                start = starts.get(slot);
+            } else {
+                start = usedBins;
+            }
+            starts.set(slot, start);
+            capacities.set(slot, capacity);
+            usedBins = start + capacity;
+            bins = bigArrays.grow(bins, usedBins);
+        }
+
+        /**
+         * Doubles the number of bins of a slot until it can hold the keys between <code>lowKey</code> and <code>highKey</code>,
+         * up to <code>maxBins</code> bins, and moves its non-empty bins so that the keys are in the middle of the slot.
+         */
+        private void grow(long slot, int lowKey, int highKey) {
+            final int numKeys = highKey - lowKey + 1;
+            int capacity = capacities.get(slot);
+            do {
+                capacity <<= 1;
+            } while (capacity < numKeys && capacity < maxBins);
+            capacity = Math.min(maxBins, capacity);
+            final long start = starts.get(slot);
+            final int offset = offsets.get(slot);
+            final int low = low(slot);
+            final int high = high(slot);
+            assert low <= high : "slot " + slot + " is empty";
+            final long[] counts = new long[high - low + 1];
+            for (int i = low; i <= high; ++i) {
+                counts[i - low] = bins.set(start + i, 0);
+            }
+            allocate(slot, capacity);
+            final int newOffset;
+            if (numKeys <= capacity) {
+                newOffset = lowKey - (capacity - numKeys) / 2;
+            } else {
+                // the keys do not fit, adding them will collapse the lowest bins
+                newOffset = offset + low - (capacity - counts.length) / 2;
+            }
+            final long newStart = starts.get(slot);
+            final int newLow = offset + low - newOffset;
+            for (int i = 0; i < counts.length; ++i) {
+                bins.set(newStart + newLow + i, counts[i]);
+            }
+            offsets.set(slot, newOffset);
+            bounds.set(slot << 1, newLow);
+            bounds.set((slot << 1) + 1, newLow + counts.length - 1);
+        }
+
+        /**
+         * Moves the bins of a full slot so that the given bin, which is out of the slot, falls within it and returns its new
+         * index. Bins are moved down to make room for a higher bin, collapsing the lowest bins into the first one if needed. They
+         * are moved up for a lower bin, but never past the end of the slot, in which case the lower bin is collapsed into the
+         * first one.
+         */
+        private int moveBins(long slot, int index) {
+            assert capacities.get(slot) == maxBins : "slot " + slot + " can still grow";
+            final long start = starts.get(slot);
+            final int low = low(slot);
+            final int high = high(slot);
+            final int shift = index >= maxBins ? index - maxBins + 1 : Math.max(index, high - maxBins + 1);
+            if (shift > 0) {
+                long collapsed = 0;
+                for (int i = low; i < Math.min(shift, high + 1); ++i) {
+                    collapsed += bins.set(start + i, 0);
+                }
+                for (int i = Math.max(low, shift); i <= high; ++i) {
+                    bins.set(start + i - shift, bins.set(start + i, 0));
+                }
+                bins.increment(start, collapsed);
+                bounds.set(slot << 1, Math.max(0, low - shift));
+                bounds.set((slot << 1) + 1, Math.max(0, high - shift));
+            } else if (shift < 0) {
+                for (int i = high; i >= low; --i) {
+                    bins.set(start + i - shift, bins.set(start + i, 0));
+                }
+                bounds.set(slot << 1, low - shift);
+                bounds.set((slot << 1) + 1, high - shift);
+            }
+            offsets.increment(slot, shift);
+            return Math.max(0, index - shift);
+        }
+
+        void merge(long bucket, Store other, long otherBucket) {
+            final long otherSlot = other.slot(otherBucket);
+            if (otherSlot < 0) {
+                return;
+            }
+            final long otherStart = other.starts.get(otherSlot);
+            final int otherOffset = other.offsets.get(otherSlot);
+            final int otherLow = other.low(otherSlot);
+            final int otherHigh = other.high(otherSlot);
+            // reserving the keys up front grows the slot at most once, adding the highest bins first moves its bins at most once
+            reserve(bucket, otherOffset + otherLow, otherOffset + otherHigh);
+            for (int i = otherHigh; i >= otherLow; --i) {
+                final long count = other.bins.get(otherStart + i);
+                if (count > 0) {
+                    add(bucket, otherOffset + i, count);
+                }
+            }
+        }
+
+        long count(long bucket) {
+            final long slot = slot(bucket);
+            if (slot < 0) {
+                return 0;
+            }
+            final long start = starts.get(slot);
+            long count = 0;
+            for (int i = low(slot), high = high(slot); i <= high; ++i) {
+                count += bins.get(start + i);
+            }
+            return count;
+        }
+
+        /**
+         * Returns the key of the lowest bin whose cumulative count is greater than the given rank.
+         */
+        int keyAtRank(long bucket, double rank) {
+            final long slot = slot(bucket);
+            assert slot >= 0;
+            final long start = starts.get(slot);
+            final int high = high(slot);
+            long cumulativeCount = 0;
+            for (int i = low(slot); i <= high; ++i) {
+                cumulativeCount += bins.get(start + i);
+                if (cumulativeCount > rank) {
+                    return offsets.get(slot) + i;
+                }
+            }
+            return offsets.get(slot) + high;
+        }
+
+        int hashCode(long bucket) {
+            final long slot = slot(bucket);
+            if (slot < 0) {
+                return 0;
+            }
+            final long start = starts.get(slot);
+            int hash = offsets.get(slot) + low(slot);
+            for (int i = low(slot), high = high(slot); i <= high; ++i) {
+                hash = 31 * hash + Long.hashCode(bins.get(start + i));
+            }
+            return hash;
+        }
+
+        boolean equals(long bucket, Store other, long otherBucket) {
+            final long slot = slot(bucket);
+            final long otherSlot = other.slot(otherBucket);
+            if (slot < 0 || otherSlot < 0) {
+                return slot < 0 && otherSlot < 0;
+            }
+            final long start = starts.get(slot);
+            final long otherStart = other.starts.get(otherSlot);
+            final int low = low(slot);
+            final int numBins = high(slot) - low + 1;
+            final int otherLow = other.low(otherSlot);
+            if (offsets.get(slot) + low != other.offsets.get(otherSlot) + otherLow
+                    || numBins != other.high(otherSlot) - otherLow + 1) {
+                return false;
+            }
+            for (int i = 0; i < numBins; ++i) {
+                if (bins.get(start + low + i) != other.bins.get(otherStart + otherLow + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void writeTo(long bucket, StreamOutput out) throws IOException {
+            final long slot = slot(bucket);
+            if (slot < 0) {
+                out.writeVInt(0);
+                return;
+            }
+            final long start = starts.get(slot);
+            final int low = low(slot);
+            final int high = high(slot);
+            out.writeVInt(high - low + 1);
+            out.writeZLong(offsets.get(slot) + low);
+            for (int i = low; i <= high; ++i) {
+                out.writeVLong(bins.get(start + i));
+            }
+        }
+
+        void readFrom(long bucket, StreamInput in) throws IOException {
+            final int numBins = in.readVInt();
+            if (numBins == 0) {
+                return;
+            }
+            if (numBins > maxBins) {
+                throw new IllegalStateException("Expected at most [" + maxBins + "] bins but got [" + numBins + "]");
+            }
+            final int lowKey = Math.toIntExact(in.readZLong());
+            final long[] counts = new long[numBins];
+            for (int i = 0; i < numBins; ++i) {
+                counts[i] = in.readVLong();
+            }
+            reserve(bucket, lowKey, lowKey + numBins - 1);
+            for (int i = numBins - 1; i >= 0; --i) {
+                if (counts[i] > 0) {
+                    add(bucket, lowKey + i, counts[i]);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(slots, starts, capacities, offsets, bounds, bins);
+        }
+    }
+}
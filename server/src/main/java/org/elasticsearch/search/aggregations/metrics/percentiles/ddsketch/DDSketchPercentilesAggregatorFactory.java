@@ -0,0 +1,68 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch;
+
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class DDSketchPercentilesAggregatorFactory
+        extends ValuesSourceAggregatorFactory<ValuesSource.Numeric, DDSketchPercentilesAggregatorFactory> {
+
+    private final double[] percents;
+    private final double relativeAccuracy;
+    private final int maxBins;
+    private final boolean keyed;
+
+    public DDSketchPercentilesAggregatorFactory(String name, ValuesSourceConfig<Numeric> config, double[] percents,
+            double relativeAccuracy, int maxBins, boolean keyed, SearchContext context, AggregatorFactory<?> parent,
+            AggregatorFactories.Builder subFactoriesBuilder, Map<String, Object> metaData) throws IOException {
+        super(name, config, context, parent, subFactoriesBuilder, metaData);
+        this.percents = percents;
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.keyed = keyed;
+    }
+
+    @Override
+    protected Aggregator createUnmapped(Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+            throws IOException {
+        return new DDSketchPercentilesAggregator(name, null, context, parent, percents, relativeAccuracy, maxBins, keyed,
+                config.format(), pipelineAggregators, metaData);
+    }
+
+    @Override
+    protected Aggregator doCreateInternal(Numeric valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        return new DDSketchPercentilesAggregator(name, valuesSource, context, parent, percents, relativeAccuracy, maxBins, keyed,
+                config.format(), pipelineAggregators, metaData);
+    }
+
+}
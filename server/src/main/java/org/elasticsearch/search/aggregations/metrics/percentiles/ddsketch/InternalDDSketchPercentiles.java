@@ -0,0 +1,190 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.metrics.InternalNumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.metrics.percentiles.Percentile;
+import org.elasticsearch.search.aggregations.metrics.percentiles.Percentiles;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class InternalDDSketchPercentiles extends InternalNumericMetricsAggregation.MultiValue implements Percentiles {
+    public static final String NAME = "ddsketch_percentiles";
+
+    final double[] keys;
+    final DDSketch sketch;
+    final boolean keyed;
+
+    public InternalDDSketchPercentiles(String name, double[] percents, DDSketch sketch, boolean keyed, DocValueFormat formatter,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
+        super(name, pipelineAggregators, metaData);
+        this.keys = percents;
+        this.sketch = sketch;
+        this.keyed = keyed;
+        this.format = formatter;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public InternalDDSketchPercentiles(StreamInput in) throws IOException {
+        super(in);
+        format = in.readNamedWriteable(DocValueFormat.class);
+        keys = in.readDoubleArray();
+        sketch = DDSketch.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+        keyed = in.readBoolean();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeNamedWriteable(format);
+        out.writeDoubleArray(keys);
+        sketch.writeTo(0, out);
+        out.writeBoolean(keyed);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    DocValueFormat formatter() {
+        return format;
+    }
+
+    @Override
+    public Iterator<Percentile> iterator() {
+        return new Iter(keys, sketch);
+    }
+
+    @Override
+    public double percentile(double percent) {
+        return sketch.quantile(0, percent / 100);
+    }
+
+    @Override
+    public String percentileAsString(double percent) {
+        return valueAsString(String.valueOf(percent));
+    }
+
+    @Override
+    public double value(String name) {
+        return percentile(Double.parseDouble(name));
+    }
+
+    @Override
+    public InternalDDSketchPercentiles doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        DDSketch merged = null;
+        for (InternalAggregation aggregation : aggregations) {
+            final InternalDDSketchPercentiles percentiles = (InternalDDSketchPercentiles) aggregation;
+            if (merged == null) {
+                merged = new DDSketch(percentiles.sketch.relativeAccuracy(), percentiles.sketch.maxBins(),
+                        BigArrays.NON_RECYCLING_INSTANCE, 1);
+            }
+            merged.merge(0, percentiles.sketch, 0);
+        }
+        return new InternalDDSketchPercentiles(getName(), keys, merged, keyed, format, pipelineAggregators(), getMetaData());
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        if (keyed) {
+            builder.startObject(CommonFields.VALUES.getPreferredName());
+            for(int i = 0; i < keys.length; ++i) {
+                String key = String.valueOf(keys[i]);
+                double value = percentile(keys[i]);
+                builder.field(key, value);
+                if (format != DocValueFormat.RAW) {
+                    builder.field(key + "_as_string", format.format(value));
+                }
+            }
+            builder.endObject();
+        } else {
+            builder.startArray(CommonFields.VALUES.getPreferredName());
+            for (int i = 0; i < keys.length; i++) {
+                double value = percentile(keys[i]);
+                builder.startObject();
+                builder.field(CommonFields.KEY.getPreferredName(), keys[i]);
+                builder.field(CommonFields.VALUE.getPreferredName(), value);
+                if (format != DocValueFormat.RAW) {
+                    builder.field(CommonFields.VALUE_AS_STRING.getPreferredName(), format.format(value).toString());
+                }
+                builder.endObject();
+            }
+            builder.endArray();
+        }
+        return builder;
+    }
+
+    @Override
+    protected boolean doEquals(Object obj) {
+        InternalDDSketchPercentiles that = (InternalDDSketchPercentiles) obj;
+        return keyed == that.keyed
+                && Arrays.equals(keys, that.keys)
+                && sketch.equals(0, that.sketch, 0);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(keyed, Arrays.hashCode(keys), sketch.hashCode(0));
+    }
+
+    public static class Iter implements Iterator<Percentile> {
+
+        private final double[] percents;
+        private final DDSketch sketch;
+        private int i;
+
+        public Iter(double[] percents, DDSketch sketch) {
+            this.percents = percents;
+            this.sketch = sketch;
+            i = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return i < percents.length;
+        }
+
+        @Override
+        public Percentile next() {
+            final Percentile next = new Percentile(percents[i], sketch.quantile(0, percents[i] / 100));
+            ++i;
+            return next;
+        }
+
+        @Override
+        public final void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
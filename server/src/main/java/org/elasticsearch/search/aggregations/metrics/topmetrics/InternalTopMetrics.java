@@ -0,0 +1,264 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.metrics.InternalNumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The top documents of a bucket by their sort value, with the values of the requested metrics.
+ * Documents are serialized as their sort value followed by their metric values, there is no
+ * per document overhead on the wire.
+ */
+public class InternalTopMetrics extends InternalNumericMetricsAggregation.MultiValue implements TopMetrics {
+    static final ParseField TOP_FIELD = new ParseField("top");
+    static final ParseField SORT_FIELD = new ParseField("sort");
+    static final ParseField SORT_AS_STRING_FIELD = new ParseField("sort_as_string");
+    static final ParseField METRICS_FIELD = new ParseField("metrics");
+
+    private final SortOrder sortOrder;
+    private final List<String> metricNames;
+    private final int size;
+    private final List<TopMetric> topMetrics;
+
+    public InternalTopMetrics(String name, DocValueFormat sortFormat, SortOrder sortOrder, List<String> metricNames, int size,
+                              List<TopMetric> topMetrics, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
+        super(name, pipelineAggregators, metaData);
+        this.format = sortFormat;
+        this.sortOrder = sortOrder;
+        this.metricNames = metricNames;
+        this.size = size;
+        this.topMetrics = topMetrics;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public InternalTopMetrics(StreamInput in) throws IOException {
+        super(in);
+        format = in.readNamedWriteable(DocValueFormat.class);
+        sortOrder = SortOrder.readFromStream(in);
+        metricNames = in.readStringList();
+        size = in.readVInt();
+        final int numTopMetrics = in.readVInt();
+        topMetrics = new ArrayList<>(numTopMetrics);
+        for (int i = 0; i < numTopMetrics; i++) {
+            final double sortValue = in.readDouble();
+            final double[] metricValues = new double[metricNames.size()];
+            for (int j = 0; j < metricValues.length; j++) {
+                metricValues[j] = in.readDouble();
+            }
+            topMetrics.add(new TopMetric(format, metricNames, sortValue, metricValues));
+        }
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeNamedWriteable(format);
+        sortOrder.writeTo(out);
+        out.writeStringCollection(metricNames);
+        out.writeVInt(size);
+        out.writeVInt(topMetrics.size());
+        for (TopMetric topMetric : topMetrics) {
+            out.writeDouble(topMetric.sortValue);
+            for (double metricValue : topMetric.metricValues) {
+                out.writeDouble(metricValue);
+            }
+        }
+    }
+
+    @Override
+    public String getWriteableName() {
+        return TopMetricsAggregationBuilder.NAME;
+    }
+
+    @Override
+    public List<TopMetric> getTop() {
+        return topMetrics;
+    }
+
+    DocValueFormat getSortFormat() {
+        return format;
+    }
+
+    SortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    List<String> getMetricNames() {
+        return metricNames;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * The value of <code>name</code> in the most competitive document, {@link Double#NaN} if the bucket has no document.
+     */
+    @Override
+    public double value(String name) {
+        final int index = metricNames.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("unknown metric [" + name + "] in [" + getName() + "]");
+        }
+        return topMetrics.isEmpty() ? Double.NaN : topMetrics.get(0).metricValues[index];
+    }
+
+    @Override
+    public InternalTopMetrics doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        final List<TopMetric> merged = new ArrayList<>();
+        DocValueFormat sortFormat = format;
+        for (InternalAggregation aggregation : aggregations) {
+            final InternalTopMetrics topMetrics = (InternalTopMetrics) aggregation;
+            if (topMetrics.topMetrics.isEmpty() == false) {
+                // shards where the sort field is unmapped use the raw format
+                sortFormat = topMetrics.format;
+                merged.addAll(topMetrics.topMetrics);
+            }
+        }
+        merged.sort(comparator(sortOrder));
+        final List<TopMetric> reduced = new ArrayList<>(merged.subList(0, Math.min(size, merged.size())));
+        return new InternalTopMetrics(getName(), sortFormat, sortOrder, metricNames, size, reduced, pipelineAggregators(), getMetaData());
+    }
+
+    /**
+     * A comparator that sorts the most competitive documents first.
+     */
+    static Comparator<TopMetric> comparator(SortOrder sortOrder) {
+        final Comparator<TopMetric> comparator = Comparator.comparingDouble(TopMetric::getSortValue);
+        return sortOrder == SortOrder.ASC ? comparator : comparator.reversed();
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        builder.startArray(TOP_FIELD.getPreferredName());
+        for (TopMetric topMetric : topMetrics) {
+            topMetric.toXContent(builder);
+        }
+        builder.endArray();
+        return builder;
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(format.getWriteableName(), sortOrder, metricNames, size, topMetrics);
+    }
+
+    @Override
+    protected boolean doEquals(Object obj) {
+        InternalTopMetrics other = (InternalTopMetrics) obj;
+        return Objects.equals(format.getWriteableName(), other.format.getWriteableName())
+            && sortOrder == other.sortOrder
+            && metricNames.equals(other.metricNames)
+            && size == other.size
+            && topMetrics.equals(other.topMetrics);
+    }
+
+    /**
+     * The sort value and the metric values of one of the top documents.
+     */
+    public static class TopMetric implements Top {
+        private final DocValueFormat sortFormat;
+        private final List<String> metricNames;
+        private final double sortValue;
+        private final double[] metricValues;
+
+        public TopMetric(DocValueFormat sortFormat, List<String> metricNames, double sortValue, double[] metricValues) {
+            assert metricNames.size() == metricValues.length;
+            this.sortFormat = sortFormat;
+            this.metricNames = metricNames;
+            this.sortValue = sortValue;
+            this.metricValues = metricValues;
+        }
+
+        @Override
+        public double getSortValue() {
+            return sortValue;
+        }
+
+        @Override
+        public String getSortValueAsString() {
+            return sortFormat.format(sortValue).toString();
+        }
+
+        @Override
+        public double getMetric(String metric) {
+            final int index = metricNames.indexOf(metric);
+            if (index < 0) {
+                throw new IllegalArgumentException("unknown metric [" + metric + "]");
+            }
+            return metricValues[index];
+        }
+
+        void toXContent(XContentBuilder builder) throws IOException {
+            builder.startObject();
+            builder.startArray(SORT_FIELD.getPreferredName()).value(sortValue).endArray();
+            if (sortFormat != DocValueFormat.RAW) {
+                builder.startArray(SORT_AS_STRING_FIELD.getPreferredName()).value(getSortValueAsString()).endArray();
+            }
+            builder.startObject(METRICS_FIELD.getPreferredName());
+            for (int i = 0; i < metricValues.length; i++) {
+                builder.field(metricNames.get(i), Double.isNaN(metricValues[i]) ? null : metricValues[i]);
+            }
+            builder.endObject();
+            builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            TopMetric other = (TopMetric) obj;
+            return Double.compare(sortValue, other.sortValue) == 0
+                && metricNames.equals(other.metricNames)
+                && Arrays.equals(metricValues, other.metricValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(metricNames, sortValue, Arrays.hashCode(metricValues));
+        }
+
+        @Override
+        public String toString() {
+            return "TopMetric[" + sortValue + ", " + Arrays.toString(metricValues) + "]";
+        }
+    }
+}
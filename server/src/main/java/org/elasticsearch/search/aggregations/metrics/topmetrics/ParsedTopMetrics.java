@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.elasticsearch.common.xcontent.ObjectParser;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.aggregations.ParsedAggregation;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ParsedTopMetrics extends ParsedAggregation implements TopMetrics {
+
+    private List<ParsedTop> top = Collections.emptyList();
+
+    @Override
+    public String getType() {
+        return TopMetricsAggregationBuilder.NAME;
+    }
+
+    @Override
+    public List<ParsedTop> getTop() {
+        return top;
+    }
+
+    @Override
+    protected XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        builder.startArray(InternalTopMetrics.TOP_FIELD.getPreferredName());
+        for (ParsedTop parsedTop : top) {
+            parsedTop.toXContent(builder);
+        }
+        builder.endArray();
+        return builder;
+    }
+
+    private static final ObjectParser<ParsedTopMetrics, Void> PARSER =
+            new ObjectParser<>(ParsedTopMetrics.class.getSimpleName(), true, ParsedTopMetrics::new);
+    static {
+        declareAggregationFields(PARSER);
+        PARSER.declareObjectArray((topMetrics, top) -> topMetrics.top = top, (p, c) -> ParsedTop.PARSER.parse(p, null),
+                InternalTopMetrics.TOP_FIELD);
+    }
+
+    public static ParsedTopMetrics fromXContent(XContentParser parser, String name) throws IOException {
+        ParsedTopMetrics aggregation = PARSER.parse(parser, null);
+        aggregation.setName(name);
+        return aggregation;
+    }
+
+    public static class ParsedTop implements Top {
+        private double sortValue;
+        private String sortValueAsString;
+        private Map<String, Double> metrics = Collections.emptyMap();
+
+        @Override
+        public double getSortValue() {
+            return sortValue;
+        }
+
+        @Override
+        public String getSortValueAsString() {
+            return sortValueAsString != null ? sortValueAsString : Double.toString(sortValue);
+        }
+
+        @Override
+        public double getMetric(String metric) {
+            if (metrics.containsKey(metric) == false) {
+                throw new IllegalArgumentException("unknown metric [" + metric + "]");
+            }
+            final Double value = metrics.get(metric);
+            return value == null ? Double.NaN : value;
+        }
+
+        void toXContent(XContentBuilder builder) throws IOException {
+            builder.startObject();
+            builder.startArray(InternalTopMetrics.SORT_FIELD.getPreferredName()).value(sortValue).endArray();
+            if (sortValueAsString != null) {
+                builder.startArray(InternalTopMetrics.SORT_AS_STRING_FIELD.getPreferredName()).value(sortValueAsString).endArray();
+            }
+            builder.field(InternalTopMetrics.METRICS_FIELD.getPreferredName(), metrics);
+            builder.endObject();
+        }
+
+        private static final ObjectParser<ParsedTop, Void> PARSER =
+                new ObjectParser<>(ParsedTop.class.getSimpleName(), true, ParsedTop::new);
+        static {
+            PARSER.declareDoubleArray((top, values) -> top.sortValue = values.get(0), InternalTopMetrics.SORT_FIELD);
+            PARSER.declareStringArray((top, values) -> top.sortValueAsString = values.get(0), InternalTopMetrics.SORT_AS_STRING_FIELD);
+            PARSER.declareObject((top, metrics) -> top.metrics = metrics, (p, c) -> parseMetrics(p), InternalTopMetrics.METRICS_FIELD);
+        }
+
+        private static Map<String, Double> parseMetrics(XContentParser parser) throws IOException {
+            final Map<String, Double> metrics = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : parser.mapOrdered().entrySet()) {
+                final Object value = entry.getValue();
+                metrics.put(entry.getKey(), value == null ? null : ((Number) value).doubleValue());
+            }
+            return metrics;
+        }
+    }
+}
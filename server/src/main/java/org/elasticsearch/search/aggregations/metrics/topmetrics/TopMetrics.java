@@ -0,0 +1,50 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+
+import java.util.List;
+
+/**
+ * The values of a few numeric fields of the top documents of a bucket, by the value of a numeric sort field.
+ */
+public interface TopMetrics extends NumericMetricsAggregation.MultiValue {
+
+    /**
+     * @return The top documents of the bucket, most competitive first
+     */
+    List<? extends Top> getTop();
+
+    /**
+     * The sort value and the metric values of one of the top documents.
+     */
+    interface Top {
+
+        double getSortValue();
+
+        String getSortValueAsString();
+
+        /**
+         * @return The value of <code>metric</code> in this document, {@link Double#NaN} if the document has no value
+         */
+        double getMetric(String metric);
+    }
+}
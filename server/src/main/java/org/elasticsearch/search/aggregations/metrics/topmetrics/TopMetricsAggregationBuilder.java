@@ -0,0 +1,245 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.ObjectParser;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationInitializationException;
+import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+
+/**
+ * Builds the <code>top_metrics</code> aggregation that returns the values of a few numeric fields of the top documents
+ * of each bucket. Unlike <code>top_hits</code> it only reads doc values, it neither loads stored fields nor runs a fetch
+ * phase per bucket.
+ */
+public class TopMetricsAggregationBuilder extends AbstractAggregationBuilder<TopMetricsAggregationBuilder> {
+    public static final String NAME = "top_metrics";
+
+    private static final ParseField SORT_FIELD = new ParseField("sort");
+    private static final ParseField METRICS_FIELD = new ParseField("metrics");
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+    private static final ParseField SIZE_FIELD = new ParseField("size");
+
+    private static final ConstructingObjectParser<String, Void> METRIC_PARSER =
+        new ConstructingObjectParser<>("metric", args -> (String) args[0]);
+    private static final ObjectParser<TopMetricsAggregationBuilder, Void> PARSER;
+    static {
+        METRIC_PARSER.declareString(constructorArg(), FIELD_FIELD);
+        PARSER = new ObjectParser<>(NAME);
+        PARSER.declareField(TopMetricsAggregationBuilder::sorts, (p, c) -> SortBuilder.fromXContent(p), SORT_FIELD,
+            ObjectParser.ValueType.OBJECT_ARRAY_OR_STRING);
+        PARSER.declareField(TopMetricsAggregationBuilder::metrics, (p, c) -> parseMetrics(p), METRICS_FIELD,
+            ObjectParser.ValueType.OBJECT_ARRAY);
+        PARSER.declareInt(TopMetricsAggregationBuilder::size, SIZE_FIELD);
+    }
+
+    public static AggregationBuilder parse(String aggregationName, XContentParser parser) throws IOException {
+        TopMetricsAggregationBuilder builder = PARSER.parse(parser, new TopMetricsAggregationBuilder(aggregationName), null);
+        if (builder.sort == null) {
+            throw new IllegalArgumentException("[" + SORT_FIELD.getPreferredName() + "] is required for [" + NAME + "] aggregation ["
+                + aggregationName + "]");
+        }
+        if (builder.metrics.isEmpty()) {
+            throw new IllegalArgumentException("[" + METRICS_FIELD.getPreferredName() + "] is required for [" + NAME
+                + "] aggregation [" + aggregationName + "]");
+        }
+        return builder;
+    }
+
+    private static List<String> parseMetrics(XContentParser parser) throws IOException {
+        if (parser.currentToken() == XContentParser.Token.START_OBJECT) {
+            return Collections.singletonList(METRIC_PARSER.parse(parser, null));
+        }
+        List<String> metrics = new ArrayList<>();
+        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+            metrics.add(METRIC_PARSER.parse(parser, null));
+        }
+        return metrics;
+    }
+
+    private FieldSortBuilder sort;
+    private List<String> metrics = Collections.emptyList();
+    private int size = 1;
+
+    public TopMetricsAggregationBuilder(String name) {
+        super(name);
+    }
+
+    protected TopMetricsAggregationBuilder(TopMetricsAggregationBuilder clone, Builder factoriesBuilder, Map<String, Object> metaData) {
+        super(clone, factoriesBuilder, metaData);
+        this.sort = clone.sort;
+        this.metrics = clone.metrics;
+        this.size = clone.size;
+    }
+
+    @Override
+    protected AggregationBuilder shallowCopy(Builder factoriesBuilder, Map<String, Object> metaData) {
+        return new TopMetricsAggregationBuilder(this, factoriesBuilder, metaData);
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public TopMetricsAggregationBuilder(StreamInput in) throws IOException {
+        super(in);
+        sort = new FieldSortBuilder(in);
+        metrics = in.readStringList();
+        size = in.readVInt();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        sort.writeTo(out);
+        out.writeStringCollection(metrics);
+        out.writeVInt(size);
+    }
+
+    /**
+     * Sets the numeric field that ranks the documents of a bucket. Only the field, the order and the mode of the sort are
+     * supported.
+     */
+    public TopMetricsAggregationBuilder sort(FieldSortBuilder sort) {
+        if (sort == null) {
+            throw new IllegalArgumentException("[sort] must not be null: [" + name + "]");
+        }
+        if (sort.missing() != null || sort.unmappedType() != null || sort.getNestedSort() != null
+                || sort.getNestedPath() != null || sort.getNestedFilter() != null) {
+            throw new IllegalArgumentException("[" + NAME + "] only supports the [order] and [mode] options of the sort: [" + name + "]");
+        }
+        this.sort = sort;
+        return this;
+    }
+
+    private TopMetricsAggregationBuilder sorts(List<SortBuilder<?>> sorts) {
+        if (sorts.size() != 1 || sorts.get(0) instanceof FieldSortBuilder == false) {
+            throw new IllegalArgumentException("[" + NAME + "] only supports sorting on a single field: [" + name + "]");
+        }
+        return sort((FieldSortBuilder) sorts.get(0));
+    }
+
+    public FieldSortBuilder sort() {
+        return sort;
+    }
+
+    /**
+     * Sets the numeric fields whose values are returned for the top documents.
+     */
+    public TopMetricsAggregationBuilder metrics(List<String> metrics) {
+        if (metrics == null || metrics.isEmpty()) {
+            throw new IllegalArgumentException("[metrics] must not be empty: [" + name + "]");
+        }
+        this.metrics = Collections.unmodifiableList(new ArrayList<>(metrics));
+        return this;
+    }
+
+    public List<String> metrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the number of top documents to return per bucket. Defaults to {@code 1}.
+     */
+    public TopMetricsAggregationBuilder size(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("[size] must be greater than 0. Found [" + size + "] in [" + name + "]");
+        }
+        this.size = size;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TopMetricsAggregationBuilder subAggregations(Builder subFactories) {
+        throw new AggregationInitializationException("Aggregator [" + name + "] of type ["
+                + getType() + "] cannot accept sub-aggregations");
+    }
+
+    @Override
+    protected TopMetricsAggregatorFactory doBuild(SearchContext context, AggregatorFactory<?> parent, Builder subFactoriesBuilder)
+            throws IOException {
+        int maxInnerResultWindow = context.mapperService().getIndexSettings().getMaxInnerResultWindow();
+        if (size > maxInnerResultWindow) {
+            throw new IllegalArgumentException(
+                "Top metrics size is too large, the top metrics aggregator [" + name + "]'s size must be less " +
+                    "than or equal to: [" + maxInnerResultWindow + "] but was [" + size +
+                    "]. This limit can be set by changing the [" + IndexSettings.MAX_INNER_RESULT_WINDOW_SETTING.getKey() +
+                    "] index level setting."
+            );
+        }
+        return new TopMetricsAggregatorFactory(name, sort, metrics, size, context, parent, subFactoriesBuilder, metaData);
+    }
+
+    @Override
+    protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(SORT_FIELD.getPreferredName());
+        sort.toXContent(builder, params);
+        builder.startArray(METRICS_FIELD.getPreferredName());
+        for (String metric : metrics) {
+            builder.startObject().field(FIELD_FIELD.getPreferredName(), metric).endObject();
+        }
+        builder.endArray();
+        builder.field(SIZE_FIELD.getPreferredName(), size);
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(sort, metrics, size);
+    }
+
+    @Override
+    protected boolean doEquals(Object obj) {
+        TopMetricsAggregationBuilder other = (TopMetricsAggregationBuilder) obj;
+        return Objects.equals(sort, other.sort)
+            && Objects.equals(metrics, other.metrics)
+            && size == other.size;
+    }
+
+    @Override
+    public String getType() {
+        return NAME;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.MultiValueMode;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregator;
+import org.elasticsearch.search.aggregations.metrics.topmetrics.InternalTopMetrics.TopMetric;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the sort value and the metric values of the top documents of all the buckets in flat arrays.
+ * The documents of a bucket are kept in a bounded heap of <code>size</code> slots that starts at
+ * <code>bucket * size</code>, with the least competitive document at the root. Metric values are only
+ * read for the documents that enter a heap.
+ */
+class TopMetricsAggregator extends NumericMetricsAggregator.MultiValue {
+
+    private final ValuesSource.Numeric sortValuesSource;
+    private final DocValueFormat sortFormat;
+    private final SortOrder sortOrder;
+    private final MultiValueMode sortMode;
+    private final List<String> metricNames;
+    private final ValuesSource.Numeric[] metricValuesSources;
+    private final int size;
+
+    private IntArray counts;
+    private DoubleArray sortValues;
+    private DoubleArray metricValues;
+
+    TopMetricsAggregator(String name, ValuesSource.Numeric sortValuesSource, DocValueFormat sortFormat, SortOrder sortOrder,
+                         MultiValueMode sortMode, List<String> metricNames, ValuesSource.Numeric[] metricValuesSources, int size,
+                         SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+                         Map<String, Object> metaData) throws IOException {
+        super(name, context, parent, pipelineAggregators, metaData);
+        this.sortValuesSource = sortValuesSource;
+        this.sortFormat = sortFormat;
+        this.sortOrder = sortOrder;
+        this.sortMode = sortMode;
+        this.metricNames = metricNames;
+        this.metricValuesSources = metricValuesSources;
+        this.size = size;
+        if (sortValuesSource != null) {
+            final BigArrays bigArrays = context.bigArrays();
+            counts = bigArrays.newIntArray(1, true);
+            sortValues = bigArrays.newDoubleArray(size, false);
+            metricValues = bigArrays.newDoubleArray((long) size * metricNames.size(), false);
+        }
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
+        if (sortValuesSource == null) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
+        final NumericDoubleValues sorts = sortMode.select(sortValuesSource.doubleValues(ctx));
+        final NumericDoubleValues[] metrics = new NumericDoubleValues[metricValuesSources.length];
+        for (int i = 0; i < metrics.length; i++) {
+            if (metricValuesSources[i] != null) {
+                metrics[i] = MultiValueMode.MIN.select(metricValuesSources[i].doubleValues(ctx));
+            }
+        }
+        return new LeafBucketCollectorBase(sub, null) {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                if (sorts.advanceExact(doc) == false) {
+                    // documents without a sort value never compete
+                    return;
+                }
+                final double sortValue = sorts.doubleValue();
+                grow(bucket);
+                final long start = bucket * size;
+                final int count = counts.get(bucket);
+                final int slot;
+                if (count < size) {
+                    counts.set(bucket, count + 1);
+                    slot = count;
+                } else if (isMoreCompetitive(sortValue, sortValues.get(start))) {
+                    // replaces the least competitive document
+                    slot = 0;
+                } else {
+                    return;
+                }
+                sortValues.set(start + slot, sortValue);
+                final long metricsStart = (start + slot) * metrics.length;
+                for (int i = 0; i < metrics.length; i++) {
+                    final double value;
+                    if (metrics[i] != null && metrics[i].advanceExact(doc)) {
+                        value = metrics[i].doubleValue();
+                    } else {
+                        value = Double.NaN;
+                    }
+                    metricValues.set(metricsStart + i, value);
+                }
+                if (slot == count) {
+                    siftUp(start, slot);
+                } else {
+                    siftDown(start, slot, count);
+                }
+            }
+        };
+    }
+
+    private void grow(long bucket) {
+        if (bucket >= counts.size()) {
+            final BigArrays bigArrays = context.bigArrays();
+            counts = bigArrays.grow(counts, bucket + 1);
+            sortValues = bigArrays.grow(sortValues, counts.size() * size);
+            metricValues = bigArrays.grow(metricValues, counts.size() * size * metricNames.size());
+        }
+    }
+
+    private boolean isMoreCompetitive(double value, double other) {
+        return sortOrder == SortOrder.ASC ? value < other : value > other;
+    }
+
+    private void siftUp(long start, int slot) {
+        while (slot > 0) {
+            final int parent = (slot - 1) >>> 1;
+            if (isMoreCompetitive(sortValues.get(start + parent), sortValues.get(start + slot)) == false) {
+                break;
+            }
+            swap(start, parent, slot);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(long start, int slot, int count) {
+        while (true) {
+            final int left = (slot << 1) + 1;
+            if (left >= count) {
+                break;
+            }
+            int leastCompetitive = left;
+            final int right = left + 1;
+            if (right < count && isMoreCompetitive(sortValues.get(start + left), sortValues.get(start + right))) {
+                leastCompetitive = right;
+            }
+            if (isMoreCompetitive(sortValues.get(start + slot), sortValues.get(start + leastCompetitive)) == false) {
+                break;
+            }
+            swap(start, slot, leastCompetitive);
+            slot = leastCompetitive;
+        }
+    }
+
+    private void swap(long start, int a, int b) {
+        final double sortValue = sortValues.get(start + a);
+        sortValues.set(start + a, sortValues.get(start + b));
+        sortValues.set(start + b, sortValue);
+        final int numMetrics = metricNames.size();
+        final long metricsA = (start + a) * numMetrics;
+        final long metricsB = (start + b) * numMetrics;
+        for (int i = 0; i < numMetrics; i++) {
+            final double value = metricValues.get(metricsA + i);
+            metricValues.set(metricsA + i, metricValues.get(metricsB + i));
+            metricValues.set(metricsB + i, value);
+        }
+    }
+
+    @Override
+    public boolean hasMetric(String name) {
+        return metricNames.contains(name);
+    }
+
+    @Override
+    public double metric(String name, long owningBucketOrd) {
+        final int index = metricNames.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("unknown metric [" + name + "] in [" + name() + "]");
+        }
+        if (sortValuesSource == null || owningBucketOrd >= counts.size() || counts.get(owningBucketOrd) == 0) {
+            return Double.NaN;
+        }
+        final long start = owningBucketOrd * size;
+        final int count = counts.get(owningBucketOrd);
+        int best = 0;
+        for (int slot = 1; slot < count; slot++) {
+            if (isMoreCompetitive(sortValues.get(start + slot), sortValues.get(start + best))) {
+                best = slot;
+            }
+        }
+        return metricValues.get((start + best) * metricNames.size() + index);
+    }
+
+    @Override
+    public InternalAggregation buildAggregation(long bucket) {
+        if (sortValuesSource == null || bucket >= counts.size()) {
+            return buildEmptyAggregation();
+        }
+        final long start = bucket * size;
+        final int count = counts.get(bucket);
+        final int numMetrics = metricNames.size();
+        final List<TopMetric> topMetrics = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            final double[] values = new double[numMetrics];
+            final long metricsStart = (start + slot) * numMetrics;
+            for (int i = 0; i < numMetrics; i++) {
+                values[i] = metricValues.get(metricsStart + i);
+            }
+            topMetrics.add(new TopMetric(sortFormat, metricNames, sortValues.get(start + slot), values));
+        }
+        topMetrics.sort(InternalTopMetrics.comparator(sortOrder));
+        return new InternalTopMetrics(name, sortFormat, sortOrder, metricNames, size, topMetrics, pipelineAggregators(), metaData());
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalTopMetrics(name, sortFormat, sortOrder, metricNames, size, Collections.emptyList(), pipelineAggregators(),
+            metaData());
+    }
+
+    @Override
+    public void doClose() {
+        Releasables.close(counts, sortValues, metricValues);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.elasticsearch.search.MultiValueMode;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.aggregations.support.ValuesSourceType;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class TopMetricsAggregatorFactory extends AggregatorFactory<TopMetricsAggregatorFactory> {
+
+    private final ValuesSourceConfig<ValuesSource.Numeric> sortConfig;
+    private final SortOrder sortOrder;
+    private final MultiValueMode sortMode;
+    private final List<String> metrics;
+    private final ValuesSourceConfig<ValuesSource.Numeric>[] metricConfigs;
+    private final int size;
+
+    @SuppressWarnings("unchecked")
+    TopMetricsAggregatorFactory(String name, FieldSortBuilder sort, List<String> metrics, int size, SearchContext context,
+                                AggregatorFactory<?> parent, AggregatorFactories.Builder subFactoriesBuilder,
+                                Map<String, Object> metaData) throws IOException {
+        super(name, context, parent, subFactoriesBuilder, metaData);
+        this.sortConfig = resolve(sort.getFieldName());
+        this.sortOrder = sort.order();
+        if (sort.sortMode() != null) {
+            this.sortMode = MultiValueMode.fromString(sort.sortMode().toString());
+        } else {
+            this.sortMode = sortOrder == SortOrder.ASC ? MultiValueMode.MIN : MultiValueMode.MAX;
+        }
+        this.metrics = metrics;
+        this.metricConfigs = new ValuesSourceConfig[metrics.size()];
+        for (int i = 0; i < metricConfigs.length; i++) {
+            metricConfigs[i] = resolve(metrics.get(i));
+        }
+        this.size = size;
+    }
+
+    private ValuesSourceConfig<ValuesSource.Numeric> resolve(String field) {
+        ValuesSourceConfig<ValuesSource.Numeric> config =
+            ValuesSourceConfig.resolve(context.getQueryShardContext(), null, field, null, null, null, null);
+        if (config.unmapped() == false && config.valueSourceType() != ValuesSourceType.NUMERIC) {
+            throw new IllegalArgumentException("[" + TopMetricsAggregationBuilder.NAME + "] only supports numeric fields but ["
+                + field + "] of aggregation [" + name + "] is of type [" + config.fieldContext().fieldType().typeName() + "]");
+        }
+        return config;
+    }
+
+    @Override
+    protected Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
+        final ValuesSource.Numeric[] metricValuesSources = new ValuesSource.Numeric[metricConfigs.length];
+        for (int i = 0; i < metricConfigs.length; i++) {
+            metricValuesSources[i] = metricConfigs[i].toValuesSource(context.getQueryShardContext());
+        }
+        // top documents are tracked for all the buckets in the same aggregator, see TopMetricsAggregator
+        return new TopMetricsAggregator(name, sortConfig.toValuesSource(context.getQueryShardContext()), sortConfig.format(),
+            sortOrder, sortMode, metrics, metricValuesSources, size, context, parent, pipelineAggregators, metaData);
+    }
+}
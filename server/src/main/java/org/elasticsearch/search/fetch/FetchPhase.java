@@ -47,6 +47,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ObjectMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.SearchPhase;
@@ -139,6 +140,8 @@ public class FetchPhase implements SearchPhase {
             }
         }
 
+        // the stored fields loaded for every hit, used to key the fetch cache
+        final Set<String> storedFields = Collections.unmodifiableSet(new HashSet<>(storedToRequestedFields.keySet()));
         try {
             SearchHit[] hits = new SearchHit[context.docIdsToLoadSize()];
             FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
@@ -155,10 +158,10 @@ public class FetchPhase implements SearchPhase {
                 int rootDocId = findRootDocumentIfNested(context, subReaderContext, subDocId);
                 if (rootDocId != -1) {
                     searchHit = createNestedSearchHit(context, docId, subDocId, rootDocId,
-                        storedToRequestedFields, subReaderContext);
+                        storedToRequestedFields, storedFields, subReaderContext);
                 } else {
                     searchHit = createSearchHit(context, fieldsVisitor, docId, subDocId,
-                        storedToRequestedFields, subReaderContext);
+                        storedToRequestedFields, storedFields, subReaderContext);
                 }
 
                 hits[index] = searchHit;
@@ -201,13 +204,14 @@ public class FetchPhase implements SearchPhase {
                                       int docId,
                                       int subDocId,
                                       Map<String, Set<String>> storedToRequestedFields,
+                                      Set<String> storedFields,
                                       LeafReaderContext subReaderContext) {
         if (fieldsVisitor == null) {
             return new SearchHit(docId);
         }
 
         Map<String, DocumentField> searchFields = getSearchFields(context, fieldsVisitor, subDocId,
-            storedToRequestedFields, subReaderContext);
+            storedToRequestedFields, context.sourceRequested(), storedFields, subReaderContext);
 
         DocumentMapper documentMapper = context.mapperService().documentMapper(fieldsVisitor.uid().type());
         Text typeText;
@@ -230,8 +234,10 @@ public class FetchPhase implements SearchPhase {
                                                        FieldsVisitor fieldsVisitor,
                                                        int subDocId,
                                                        Map<String, Set<String>> storedToRequestedFields,
+                                                       boolean loadSource,
+                                                       Set<String> storedFields,
                                                        LeafReaderContext subReaderContext) {
-        loadStoredFields(context, subReaderContext, fieldsVisitor, subDocId);
+        loadStoredFields(context, subReaderContext, fieldsVisitor, subDocId, loadSource, storedFields);
         fieldsVisitor.postProcess(context.mapperService());
 
         if (fieldsVisitor.fields().isEmpty()) {
@@ -259,6 +265,7 @@ public class FetchPhase implements SearchPhase {
                                             int nestedSubDocId,
                                             int rootSubDocId,
                                             Map<String, Set<String>> storedToRequestedFields,
+                                            Set<String> storedFields,
                                             LeafReaderContext subReaderContext) throws IOException {
         // Also if highlighting is requested on nested documents we need to fetch the _source from the root document,
         // otherwise highlighting will attempt to fetch the _source from the nested doc, which will fail,
@@ -268,7 +275,7 @@ public class FetchPhase implements SearchPhase {
         final boolean needSource = context.sourceRequested() || context.highlight() != null;
         if (needSource || (context instanceof InnerHitsContext.InnerHitSubContext == false)) {
             FieldsVisitor rootFieldsVisitor = new FieldsVisitor(needSource);
-            loadStoredFields(context, subReaderContext, rootFieldsVisitor, rootSubDocId);
+            loadStoredFields(context, subReaderContext, rootFieldsVisitor, rootSubDocId, needSource, Collections.emptySet());
             rootFieldsVisitor.postProcess(context.mapperService());
             uid = rootFieldsVisitor.uid();
             source = rootFieldsVisitor.source();
@@ -282,7 +289,7 @@ public class FetchPhase implements SearchPhase {
         if (context.hasStoredFields() && !context.storedFieldsContext().fieldNames().isEmpty()) {
             FieldsVisitor nestedFieldsVisitor = new CustomFieldsVisitor(storedToRequestedFields.keySet(), false);
             searchFields = getSearchFields(context, nestedFieldsVisitor, nestedSubDocId,
-                storedToRequestedFields, subReaderContext);
+                storedToRequestedFields, false, storedFields, subReaderContext);
         }
 
         final String typeText;
@@ -429,10 +436,16 @@ public class FetchPhase implements SearchPhase {
         return nestedIdentity;
     }
 
-    private void loadStoredFields(SearchContext searchContext, LeafReaderContext readerContext, FieldsVisitor fieldVisitor, int docId) {
+    private void loadStoredFields(SearchContext searchContext, LeafReaderContext readerContext, FieldsVisitor fieldVisitor, int docId,
+                                  boolean loadSource, Set<String> storedFields) {
         fieldVisitor.reset();
         try {
-            readerContext.reader().document(docId, fieldVisitor);
+            IndicesFetchCache fetchCache = searchContext.fetchCache();
+            if (fetchCache == null) {
+                readerContext.reader().document(docId, fieldVisitor);
+            } else {
+                fetchCache.loadStoredFields(readerContext.reader(), docId, fieldVisitor, loadSource, storedFields);
+            }
         } catch (IOException e) {
             throw new FetchPhaseExecutionException(searchContext, "Failed to fetch doc id [" + docId + "]", e);
         }
@@ -28,6 +28,7 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.frequency.BackgroundFrequencyCache;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
@@ -36,6 +37,7 @@ import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.search.SearchExtBuilder;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
@@ -231,6 +233,16 @@ public abstract class FilteredSearchContext extends SearchContext {
         return in.fetchSourceContext(fetchSourceContext);
     }
 
+    @Override
+    public IndicesFetchCache fetchCache() {
+        return in.fetchCache();
+    }
+
+    @Override
+    public SearchContext fetchCache(IndicesFetchCache fetchCache) {
+        return in.fetchCache(fetchCache);
+    }
+
     @Override
     public ContextIndexSearcher searcher() {
         return in.searcher();
@@ -261,6 +273,11 @@ public abstract class FilteredSearchContext extends SearchContext {
         return in.bitsetFilterCache();
     }
 
+    @Override
+    public BackgroundFrequencyCache backgroundFrequencyCache() {
+        return in.backgroundFrequencyCache();
+    }
+
     @Override
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return in.getForField(fieldType);
@@ -34,6 +34,7 @@ import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.util.concurrent.RefCounted;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.frequency.BackgroundFrequencyCache;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
@@ -42,6 +43,7 @@ import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.search.SearchExtBuilder;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
@@ -194,6 +196,13 @@ public abstract class SearchContext extends AbstractRefCounted implements Releas
 
     public abstract SearchContext fetchSourceContext(FetchSourceContext fetchSourceContext);
 
+    /**
+     * Returns the cache that the fetch phase loads stored fields through, or <code>null</code> if they must be read from the index.
+     */
+    public abstract IndicesFetchCache fetchCache();
+
+    public abstract SearchContext fetchCache(IndicesFetchCache fetchCache);
+
     public abstract DocValueFieldsContext docValueFieldsContext();
 
     public abstract SearchContext docValueFieldsContext(DocValueFieldsContext docValueFieldsContext);
@@ -210,6 +219,9 @@ public abstract class SearchContext extends AbstractRefCounted implements Releas
 
     public abstract BitsetFilterCache bitsetFilterCache();
 
+    @Nullable
+    public abstract BackgroundFrequencyCache backgroundFrequencyCache();
+
     public abstract <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType);
 
     public abstract TimeValue timeout();
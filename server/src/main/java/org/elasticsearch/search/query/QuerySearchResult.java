@@ -51,6 +51,7 @@ public final class QuerySearchResult extends SearchPhaseResult {
     private DocValueFormat[] sortValueFormats;
     private InternalAggregations aggregations;
     private boolean hasAggs;
+    private long aggregationsSizeInBytes;
     private List<SiblingPipelineAggregator> pipelineAggregators = Collections.emptyList();
     private Suggest suggest;
     private boolean searchTimedOut;
@@ -171,6 +172,14 @@ public final class QuerySearchResult extends SearchPhaseResult {
         hasAggs = aggregations != null;
     }
 
+    /**
+     * Returns the serialized size of the aggregations of this result if it was received from a remote node, otherwise <code>0</code>.
+     * This is used as an estimate of the memory the aggregations hold until they are reduced.
+     */
+    public long aggregationsSizeInBytes() {
+        return aggregationsSizeInBytes;
+    }
+
     /**
      * Returns and nulls out the profiled results for this search, or potentially null if result was empty.
      * This allows to free up memory once the profiled result is consumed.
@@ -292,7 +301,15 @@ public final class QuerySearchResult extends SearchPhaseResult {
         }
         setTopDocs(readTopDocs(in));
         if (hasAggs = in.readBoolean()) {
-            aggregations = InternalAggregations.readAggregations(in);
+            if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+                // the aggregations are followed by their serialized size, which can't be derived from streams that decompress
+                aggregations = InternalAggregations.readAggregations(in);
+                aggregationsSizeInBytes = in.readVLong();
+            } else {
+                final int available = in.available();
+                aggregations = InternalAggregations.readAggregations(in);
+                aggregationsSizeInBytes = Math.max(0, available - in.available());
+            }
         }
         pipelineAggregators = in.readNamedWriteableList(PipelineAggregator.class).stream().map(a -> (SiblingPipelineAggregator) a)
                 .collect(Collectors.toList());
@@ -335,7 +352,13 @@ public final class QuerySearchResult extends SearchPhaseResult {
             out.writeBoolean(false);
         } else {
             out.writeBoolean(true);
-            aggregations.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+                final CountingStreamOutput countingOut = new CountingStreamOutput(out);
+                aggregations.writeTo(countingOut);
+                out.writeVLong(countingOut.size);
+            } else {
+                aggregations.writeTo(out);
+            }
         }
         out.writeNamedWriteableList(pipelineAggregators);
         if (suggest == null) {
@@ -360,4 +383,45 @@ public final class QuerySearchResult extends SearchPhaseResult {
     public float getMaxScore() {
         return maxScore;
     }
+
+    /**
+     * Counts the bytes that are written to the wrapped stream, so that the size of the aggregations can be sent without serializing
+     * them twice.
+     */
+    private static final class CountingStreamOutput extends StreamOutput {
+        private final StreamOutput delegate;
+        private long size;
+
+        CountingStreamOutput(StreamOutput delegate) {
+            this.delegate = delegate;
+            setVersion(delegate.getVersion());
+        }
+
+        @Override
+        public void writeByte(byte b) throws IOException {
+            delegate.writeByte(b);
+            size++;
+        }
+
+        @Override
+        public void writeBytes(byte[] b, int offset, int length) throws IOException {
+            delegate.writeBytes(b, offset, length);
+            size += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() {
+            // the wrapped stream is still written to after the aggregations
+        }
+
+        @Override
+        public void reset() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
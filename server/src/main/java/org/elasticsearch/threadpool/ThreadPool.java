@@ -74,6 +74,7 @@ public class ThreadPool implements Scheduler, Closeable {
         public static final String ANALYZE = "analyze";
         public static final String INDEX = "index";
         public static final String WRITE = "write";
+        public static final String INGEST = "ingest";
         public static final String SEARCH = "search";
         public static final String SEARCH_THROTTLED = "search_throttled";
         public static final String MANAGEMENT = "management";
@@ -132,6 +133,7 @@ public class ThreadPool implements Scheduler, Closeable {
         map.put(Names.ANALYZE, ThreadPoolType.FIXED);
         map.put(Names.INDEX, ThreadPoolType.FIXED);
         map.put(Names.WRITE, ThreadPoolType.FIXED);
+        map.put(Names.INGEST, ThreadPoolType.FIXED);
         map.put(Names.SEARCH, ThreadPoolType.FIXED_AUTO_QUEUE_SIZE);
         map.put(Names.MANAGEMENT, ThreadPoolType.SCALING);
         map.put(Names.FLUSH, ThreadPoolType.SCALING);
@@ -175,6 +177,7 @@ public class ThreadPool implements Scheduler, Closeable {
         builders.put(Names.GENERIC, new ScalingExecutorBuilder(Names.GENERIC, 4, genericThreadPoolMax, TimeValue.timeValueSeconds(30)));
         builders.put(Names.INDEX, new FixedExecutorBuilder(settings, Names.INDEX, availableProcessors, 200, true));
         builders.put(Names.WRITE, new FixedExecutorBuilder(settings, Names.WRITE, "bulk", availableProcessors, 200));
+        builders.put(Names.INGEST, new FixedExecutorBuilder(settings, Names.INGEST, availableProcessors, 200));
         builders.put(Names.GET, new FixedExecutorBuilder(settings, Names.GET, availableProcessors, 1000));
         builders.put(Names.ANALYZE, new FixedExecutorBuilder(settings, Names.ANALYZE, 1, 16));
         builders.put(Names.SEARCH, new AutoQueueAdjustingExecutorBuilder(settings,
@@ -21,6 +21,7 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
@@ -32,7 +33,7 @@ import java.io.IOException;
  */
 public class BytesTransportRequest extends TransportRequest {
 
-    BytesReference bytes;
+    ReleasableBytesReference bytes;
     Version version;
 
     public BytesTransportRequest() {
@@ -40,7 +41,7 @@ public class BytesTransportRequest extends TransportRequest {
     }
 
     public BytesTransportRequest(BytesReference bytes, Version version) {
-        this.bytes = bytes;
+        this.bytes = ReleasableBytesReference.wrap(bytes);
         this.version = version;
     }
 
@@ -52,10 +53,25 @@ public class BytesTransportRequest extends TransportRequest {
         return this.bytes;
     }
 
+    @Override
+    public void incRef() {
+        bytes.incRef();
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return bytes.tryIncRef();
+    }
+
+    @Override
+    public void decRef() {
+        bytes.decRef();
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        bytes = in.readBytesReference();
+        bytes = in.readReleasableBytesReference();
         version = in.getVersion();
     }
 
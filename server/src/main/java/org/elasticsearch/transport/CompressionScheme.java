@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+
+import java.util.Locale;
+
+/**
+ * The codecs that can be used to compress transport messages. Inbound messages are decompressed with whatever codec their header
+ * identifies, so the choice of codec is up to the sender: it uses the configured scheme if the version negotiated during the
+ * handshake with the receiving node can read it, and falls back to {@link #DEFLATE} otherwise.
+ */
+public enum CompressionScheme {
+
+    DEFLATE(CompressorFactory.COMPRESSOR, Version.V_EMPTY),
+    LZ4(CompressorFactory.LZ4, Version.V_6_7_2_6515);
+
+    private final Compressor compressor;
+    private final Version minimumVersion;
+
+    CompressionScheme(Compressor compressor, Version minimumVersion) {
+        this.compressor = compressor;
+        this.minimumVersion = minimumVersion;
+    }
+
+    public Compressor compressor() {
+        return compressor;
+    }
+
+    /**
+     * Returns the scheme to use to compress messages for a node of the given version: this scheme if the node is able to read it,
+     * {@link #DEFLATE} otherwise.
+     */
+    public CompressionScheme forVersion(Version version) {
+        return version.onOrAfter(minimumVersion) ? this : DEFLATE;
+    }
+
+    public static CompressionScheme parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown transport compression scheme [" + value + "], must be one of [deflate, lz4]");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -19,13 +19,19 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.compress.NotCompressedException;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.internal.io.IOUtils;
 
@@ -39,26 +45,46 @@ import java.util.TreeSet;
 public abstract class InboundMessage extends NetworkMessage implements Closeable {
 
     private final StreamInput streamInput;
+    @Nullable
+    private final ReleasableBytesReference buffer;
+    private final Releasable releasable;
 
-    InboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput) {
+    InboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput,
+                   @Nullable ReleasableBytesReference buffer, Releasable releasable) {
         super(threadContext, version, status, requestId);
         this.streamInput = streamInput;
+        this.buffer = buffer;
+        this.releasable = releasable;
     }
 
     StreamInput getStreamInput() {
         return streamInput;
     }
 
+    /**
+     * Returns <code>true</code> if what was read from this message so far holds on to slices of the pooled buffer the message is
+     * read from rather than copies. The buffer is only referenced once by whoever handed it over until slices of it are retained.
+     */
+    boolean isBufferRetained() {
+        return buffer != null && buffer.refCount() > 1;
+    }
+
     static class Reader {
 
         private final Version version;
         private final NamedWriteableRegistry namedWriteableRegistry;
         private final ThreadContext threadContext;
+        private final BigArrays bigArrays;
 
         Reader(Version version, NamedWriteableRegistry namedWriteableRegistry, ThreadContext threadContext) {
+            this(version, namedWriteableRegistry, threadContext, BigArrays.NON_RECYCLING_INSTANCE);
+        }
+
+        Reader(Version version, NamedWriteableRegistry namedWriteableRegistry, ThreadContext threadContext, BigArrays bigArrays) {
             this.version = version;
             this.namedWriteableRegistry = namedWriteableRegistry;
             this.threadContext = threadContext;
+            this.bigArrays = bigArrays;
         }
 
         InboundMessage deserialize(BytesReference reference) throws IOException {
@@ -67,6 +93,7 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
             // we have additional bytes to read, outside of the header
             boolean hasMessageBytesToRead = (totalMessageSize - TcpHeader.HEADER_SIZE) > 0;
             StreamInput streamInput = reference.streamInput();
+            ReleasableBytesReference decompressed = null;
             boolean success = false;
             try (ThreadContext.StoredContext existing = threadContext.stashContext()) {
                 long requestId = streamInput.readLong();
@@ -90,7 +117,16 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
                         sb.append("]");
                         throw new IllegalStateException(sb.toString());
                     }
-                    streamInput = compressor.streamInput(streamInput);
+                    // decompress into recycled pages rather than streaming so that the message can be deserialized from a pooled
+                    // buffer the same way as an uncompressed one
+                    decompressed = decompress(compressor.streamInput(streamInput));
+                    streamInput = decompressed.streamInput();
+                }
+                final ReleasableBytesReference buffer;
+                if (decompressed != null) {
+                    buffer = decompressed;
+                } else {
+                    buffer = reference instanceof ReleasableBytesReference ? (ReleasableBytesReference) reference : null;
                 }
                 streamInput = new NamedWriteableAwareStreamInput(streamInput, namedWriteableRegistry);
                 streamInput.setVersion(remoteVersion);
@@ -106,23 +142,50 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
                         features = Collections.emptySet();
                     }
                     final String action = streamInput.readString();
-                    message = new RequestMessage(threadContext, remoteVersion, status, requestId, action, features, streamInput);
+                    message = new RequestMessage(threadContext, remoteVersion, status, requestId, action, features, streamInput,
+                        buffer, decompressed);
                 } else {
-                    message = new ResponseMessage(threadContext, remoteVersion, status, requestId, streamInput);
+                    message = new ResponseMessage(threadContext, remoteVersion, status, requestId, streamInput, buffer, decompressed);
                 }
                 success = true;
                 return message;
             } finally {
                 if (success == false) {
                     IOUtils.closeWhileHandlingException(streamInput);
+                    Releasables.closeWhileHandlingException(decompressed);
+                }
+            }
+        }
+
+        private ReleasableBytesReference decompress(StreamInput compressed) throws IOException {
+            final ReleasableBytesStreamOutput output = new ReleasableBytesStreamOutput(bigArrays);
+            boolean success = false;
+            try (StreamInput input = compressed) {
+                final byte[] buffer = new byte[DECOMPRESSION_BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+                final ReleasableBytesReference bytes = new ReleasableBytesReference(output.bytes(), output);
+                success = true;
+                return bytes;
+            } finally {
+                if (success == false) {
+                    output.close();
                 }
             }
         }
     }
 
+    private static final int DECOMPRESSION_BUFFER_SIZE = 8192;
+
     @Override
     public void close() throws IOException {
-        streamInput.close();
+        try {
+            streamInput.close();
+        } finally {
+            Releasables.close(releasable);
+        }
     }
 
     private static void ensureVersionCompatibility(Version version, Version currentVersion, boolean isHandshake) {
@@ -144,8 +207,8 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
         private final Set<String> features;
 
         RequestMessage(ThreadContext threadContext, Version version, byte status, long requestId, String actionName, Set<String> features,
-                       StreamInput streamInput) {
-            super(threadContext, version, status, requestId, streamInput);
+                       StreamInput streamInput, @Nullable ReleasableBytesReference buffer, Releasable releasable) {
+            super(threadContext, version, status, requestId, streamInput, buffer, releasable);
             this.actionName = actionName;
             this.features = features;
         }
@@ -161,8 +224,9 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
 
     public static class ResponseMessage extends InboundMessage {
 
-        ResponseMessage(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput) {
-            super(threadContext, version, status, requestId, streamInput);
+        ResponseMessage(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput,
+                        @Nullable ReleasableBytesReference buffer, Releasable releasable) {
+            super(threadContext, version, status, requestId, streamInput, buffer, releasable);
         }
     }
 }
@@ -33,10 +33,13 @@ import java.util.Set;
 abstract class OutboundMessage extends NetworkMessage implements Writeable {
 
     private final Writeable message;
+    private final CompressionScheme compressionScheme;
 
-    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message) {
+    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message,
+                    CompressionScheme compressionScheme) {
         super(threadContext, version, status, requestId);
         this.message = message;
+        this.compressionScheme = compressionScheme;
     }
 
     BytesReference serialize(BytesStreamOutput bytesStream) throws IOException {
@@ -46,7 +49,8 @@ abstract class OutboundMessage extends NetworkMessage implements Writeable {
 
         // The compressible bytes stream will not close the underlying bytes stream
         BytesReference reference;
-        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status),
+                compressionScheme.compressor())) {
             stream.setVersion(version);
             threadContext.writeTo(stream);
             writeTo(stream);
@@ -90,7 +94,12 @@ abstract class OutboundMessage extends NetworkMessage implements Writeable {
 
         Request(ThreadContext threadContext, String[] features, Writeable message, Version version, String action, long requestId,
                 boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+            this(threadContext, features, message, version, action, requestId, isHandshake, compress, CompressionScheme.DEFLATE);
+        }
+
+        Request(ThreadContext threadContext, String[] features, Writeable message, Version version, String action, long requestId,
+                boolean isHandshake, boolean compress, CompressionScheme compressionScheme) {
+            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message, compressionScheme);
             this.features = features;
             this.action = action;
         }
@@ -123,7 +132,12 @@ abstract class OutboundMessage extends NetworkMessage implements Writeable {
 
         Response(ThreadContext threadContext, Set<String> features, Writeable message, Version version, long requestId,
                  boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+            this(threadContext, features, message, version, requestId, isHandshake, compress, CompressionScheme.DEFLATE);
+        }
+
+        Response(ThreadContext threadContext, Set<String> features, Writeable message, Version version, long requestId,
+                 boolean isHandshake, boolean compress, CompressionScheme compressionScheme) {
+            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message, compressionScheme);
             this.features = features;
         }
 
@@ -38,11 +38,13 @@ import org.elasticsearch.common.component.Lifecycle;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.network.NetworkUtils;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
@@ -132,6 +134,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     private final String transportName;
 
     private final MeanMetric readBytesMetric = new MeanMetric();
+    private final CounterMetric pooledReadBytes = new CounterMetric();
+    private final CounterMetric unpooledReadBytes = new CounterMetric();
     private volatile Map<String, RequestHandlerRegistry<? extends TransportRequest>> requestHandlers = Collections.emptyMap();
     private final ResponseHandlers responseHandlers = new ResponseHandlers();
     private final TransportLogger transportLogger;
@@ -140,6 +144,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     private final InboundMessage.Reader reader;
     private final OutboundHandler outboundHandler;
     private final String nodeName;
+    private final CompressionScheme compressionScheme;
+    private final String[] compressActions;
 
     public TcpTransport(String transportName, Settings settings, Version version, ThreadPool threadPool,
                         PageCacheRecycler pageCacheRecycler, CircuitBreakerService circuitBreakerService,
@@ -162,8 +168,10 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             (v, features, channel, response, requestId) -> sendResponse(v, features, channel, response, requestId,
                 TransportHandshaker.HANDSHAKE_ACTION_NAME, false, true));
         this.keepAlive = new TransportKeepAlive(threadPool, this.outboundHandler::sendBytes);
-        this.reader = new InboundMessage.Reader(version, namedWriteableRegistry, threadPool.getThreadContext());
+        this.reader = new InboundMessage.Reader(version, namedWriteableRegistry, threadPool.getThreadContext(), bigArrays);
         this.nodeName = Node.NODE_NAME_SETTING.get(settings);
+        this.compressionScheme = TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(settings);
+        this.compressActions = TransportSettings.TRANSPORT_COMPRESS_ACTIONS.get(settings).toArray(Strings.EMPTY_ARRAY);
 
         final Settings defaultFeatures = TransportSettings.DEFAULT_FEATURES_SETTING.get(settings);
         if (defaultFeatures == null) {
@@ -269,10 +277,19 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 throw new NodeNotConnectedException(node, "connection already closed");
             }
             TcpChannel channel = channel(options.type());
-            sendRequestToChannel(this.node, channel, requestId, action, request, options, getVersion(), compress);
+            sendRequestToChannel(this.node, channel, requestId, action, request, options, getVersion(),
+                compress || shouldCompressAction(action));
         }
     }
 
+    /**
+     * Returns whether requests and responses of the given action are compressed even if compression is disabled for the connection,
+     * see {@link TransportSettings#TRANSPORT_COMPRESS_ACTIONS}.
+     */
+    boolean shouldCompressAction(String action) {
+        return compressActions.length > 0 && Regex.simpleMatch(compressActions, action);
+    }
+
     // This allows transport implementations to potentially override specific connection profiles. This
     // primarily exists for the test implementations.
     protected ConnectionProfile maybeOverrideConnectionProfile(ConnectionProfile connectionProfile) {
@@ -684,7 +701,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                                       boolean compressRequest, boolean isHandshake) throws IOException, TransportException {
         Version version = Version.min(this.version, channelVersion);
         OutboundMessage.Request message = new OutboundMessage.Request(threadPool.getThreadContext(), features, request, version, action,
-            requestId, isHandshake, compressRequest);
+            requestId, isHandshake, compressRequest, compressionScheme.forVersion(version));
         ActionListener<Void> listener = ActionListener.wrap(() ->
             messageListener.onRequestSent(node, requestId, action, request, options));
         outboundHandler.sendMessage(channel, message, listener);
@@ -743,7 +760,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         boolean isHandshake) throws IOException {
         Version version = Version.min(this.version, nodeVersion);
         OutboundMessage.Response message = new OutboundMessage.Response(threadPool.getThreadContext(), features, response, version,
-            requestId, isHandshake, compress);
+            requestId, isHandshake, compress, compressionScheme.forVersion(version));
         ActionListener<Void> listener = ActionListener.wrap(() -> messageListener.onResponseSent(requestId, action, response));
         outboundHandler.sendMessage(channel, message, listener);
     }
@@ -931,6 +948,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             if (message.isRequest()) {
                 handleRequest(channel, (InboundMessage.RequestMessage) message, reference.length());
             } else {
+                // responses are always copied out of the buffer they are read from
+                unpooledReadBytes.inc(reference.length() + TcpHeader.MARKER_BYTES_SIZE + TcpHeader.MESSAGE_LENGTH_SIZE);
                 final TransportResponseHandler<?> handler;
                 long requestId = message.getRequestId();
                 if (message.isHandshake()) {
@@ -1023,7 +1042,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         final StreamInput stream = message.getStreamInput();
         final Version version = message.getVersion();
         messageListener.onRequestReceived(requestId, action);
-        TransportChannel transportChannel = null;
+        TcpTransportChannel transportChannel = null;
+        boolean bufferRetained = false;
         try {
             if (message.isHandshake()) {
                 handshaker.handleHandshake(version, features, channel, requestId, stream);
@@ -1038,8 +1058,12 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                     getInFlightRequestBreaker().addWithoutBreaking(messageLengthBytes);
                 }
                 transportChannel = new TcpTransportChannel(this, channel, transportName, action, requestId, version, features, profileName,
-                    messageLengthBytes, message.isCompress());
+                    messageLengthBytes, message.isCompress() || shouldCompressAction(action));
                 final TransportRequest request = reg.newRequest(stream);
+                // checked before the request is handed over, since the handler may release the request right away
+                bufferRetained = message.isBufferRetained();
+                // the channel releases the request once it responds, handlers may fork and respond from another thread
+                transportChannel.retainRequest(request);
                 request.remoteAddress(new TransportAddress(channel.getRemoteAddress()));
                 // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
                 validateRequest(stream, requestId, action);
@@ -1057,6 +1081,13 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 inner.addSuppressed(e);
                 logger.warn(() -> new ParameterizedMessage("Failed to send error message back to client for action [{}]", action), inner);
             }
+        } finally {
+            final int messageBytes = messageLengthBytes + TcpHeader.MARKER_BYTES_SIZE + TcpHeader.MESSAGE_LENGTH_SIZE;
+            if (bufferRetained) {
+                pooledReadBytes.inc(messageBytes);
+            } else {
+                unpooledReadBytes.inc(messageBytes);
+            }
         }
     }
 
@@ -1079,6 +1110,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             this.reg = reg;
             this.request = request;
             this.transportChannel = transportChannel;
+            // the handler may respond before it returns, so it keeps the request alive until it has run as well
+            request.incRef();
         }
 
         @SuppressWarnings({"unchecked"})
@@ -1092,6 +1125,11 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             return reg.isForceExecution();
         }
 
+        @Override
+        public void onAfter() {
+            request.decRef();
+        }
+
         @Override
         public void onFailure(Exception e) {
             if (lifecycleState() == Lifecycle.State.STARTED) {
@@ -1138,7 +1176,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     public final TransportStats getStats() {
         MeanMetric transmittedBytes = outboundHandler.getTransmittedBytes();
         return new TransportStats(acceptedChannels.size(), readBytesMetric.count(), readBytesMetric.sum(), transmittedBytes.count(),
-            transmittedBytes.sum());
+            transmittedBytes.sum(), pooledReadBytes.count(), unpooledReadBytes.count());
     }
 
     /**
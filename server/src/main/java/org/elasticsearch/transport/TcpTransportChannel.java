@@ -38,6 +38,7 @@ public final class TcpTransportChannel implements TransportChannel {
     private final String channelType;
     private final TcpChannel channel;
     private final boolean compressResponse;
+    private volatile TransportRequest request;
 
     TcpTransportChannel(TcpTransport transport, TcpChannel channel, String channelType, String action, long requestId, Version version,
                         Set<String> features, String profileName, long reservedBytes, boolean compressResponse) {
@@ -76,12 +77,29 @@ public final class TcpTransportChannel implements TransportChannel {
         }
     }
 
+    /**
+     * Hands the reference on the request that is handled through this channel over to the channel, which releases it together
+     * with the reserved bytes once a response is sent. Handlers that fork or respond asynchronously can therefore read the
+     * request, including the network buffers it holds on to, until they respond.
+     */
+    void retainRequest(TransportRequest request) {
+        assert this.request == null : "request is already retained";
+        assert released.get() == false : "channel is already released";
+        this.request = request;
+    }
+
     private Exception releaseBy;
 
     private void release(boolean isExceptionResponse) {
         if (released.compareAndSet(false, true)) {
             assert (releaseBy = new Exception()) != null; // easier to debug if it's already closed
-            transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            try {
+                transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            } finally {
+                if (request != null) {
+                    request.decRef();
+                }
+            }
         } else if (isExceptionResponse == false) {
             // only fail if we are not sending an error - we might send the error triggered by the previous
             // sendResponse call
@@ -24,10 +24,18 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.util.concurrent.RefCounted;
 
 import java.io.IOException;
 
-public abstract class TransportMessage implements Streamable, Writeable {
+/**
+ * Base class for messages sent over the transport layer. Messages are {@link RefCounted} so that those that hold on to buffers of the
+ * inbound network message, see {@link StreamInput#readReleasableBytesReference()}, can keep them alive while they are being handled:
+ * the transport releases its reference on a request once a response is sent on its channel and the request handler has run, so code
+ * that holds on to a request beyond its response must take its own reference with {@link #incRef()}. Messages that do not hold such
+ * buffers ignore reference counting.
+ */
+public abstract class TransportMessage implements Streamable, Writeable, RefCounted {
 
     private TransportAddress remoteAddress;
 
@@ -52,6 +60,19 @@ public abstract class TransportMessage implements Streamable, Writeable {
     public TransportMessage(StreamInput in) throws IOException {
     }
 
+    @Override
+    public void incRef() {
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return true;
+    }
+
+    @Override
+    public void decRef() {
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
 
@@ -68,6 +68,12 @@ public final class TransportSettings {
         boolSetting("transport.tcp.compress", false, Setting.Property.NodeScope);
     public static final Setting<Boolean> TRANSPORT_COMPRESS =
         boolSetting("transport.compress", OLD_TRANSPORT_COMPRESS, Setting.Property.NodeScope);
+    public static final Setting<CompressionScheme> TRANSPORT_COMPRESSION_SCHEME =
+        new Setting<>("transport.compression_scheme", CompressionScheme.DEFLATE.toString(), CompressionScheme::parse,
+            Setting.Property.NodeScope);
+    // requests and responses of these actions are compressed even if transport.compress is disabled
+    public static final Setting<List<String>> TRANSPORT_COMPRESS_ACTIONS =
+        listSetting("transport.compress_actions", emptyList(), Function.identity(), Setting.Property.NodeScope);
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE =
         timeSetting("transport.ping_schedule", TimeValue.timeValueSeconds(-1), Setting.Property.NodeScope);
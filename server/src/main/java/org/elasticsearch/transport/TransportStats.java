@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -36,13 +37,17 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final long rxPooledSize;
+    private final long rxUnpooledSize;
 
-    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long rxPooledSize, long rxUnpooledSize) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.rxPooledSize = rxPooledSize;
+        this.rxUnpooledSize = rxUnpooledSize;
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -51,6 +56,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            rxPooledSize = in.readVLong();
+            rxUnpooledSize = in.readVLong();
+        } else {
+            rxPooledSize = 0;
+            rxUnpooledSize = 0;
+        }
     }
 
     @Override
@@ -60,6 +72,10 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_6_7_2_6515)) {
+            out.writeVLong(rxPooledSize);
+            out.writeVLong(rxUnpooledSize);
+        }
     }
 
     public long serverOpen() {
@@ -102,6 +118,28 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * The size of the received requests that hold on to slices of pooled, reference counted network buffers rather than copies.
+     */
+    public ByteSizeValue rxPooledSize() {
+        return new ByteSizeValue(rxPooledSize);
+    }
+
+    public ByteSizeValue getRxPooledSize() {
+        return rxPooledSize();
+    }
+
+    /**
+     * The size of the received messages that were copied out of the buffers they were received in.
+     */
+    public ByteSizeValue rxUnpooledSize() {
+        return new ByteSizeValue(rxUnpooledSize);
+    }
+
+    public ByteSizeValue getRxUnpooledSize() {
+        return rxUnpooledSize();
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -110,6 +148,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, new ByteSizeValue(rxSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+        builder.humanReadableField(Fields.RX_POOLED_SIZE_IN_BYTES, Fields.RX_POOLED_SIZE, new ByteSizeValue(rxPooledSize));
+        builder.humanReadableField(Fields.RX_UNPOOLED_SIZE_IN_BYTES, Fields.RX_UNPOOLED_SIZE, new ByteSizeValue(rxUnpooledSize));
         builder.endObject();
         return builder;
     }
@@ -123,5 +163,9 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String RX_POOLED_SIZE = "rx_pooled_size";
+        static final String RX_POOLED_SIZE_IN_BYTES = "rx_pooled_size_in_bytes";
+        static final String RX_UNPOOLED_SIZE = "rx_unpooled_size";
+        static final String RX_UNPOOLED_SIZE_IN_BYTES = "rx_unpooled_size_in_bytes";
     }
 }
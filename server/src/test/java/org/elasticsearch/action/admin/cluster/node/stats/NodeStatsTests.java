@@ -19,7 +19,10 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.action.search.SearchReduceStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciderStats;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.discovery.DiscoveryStats;
@@ -34,6 +37,7 @@ import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.os.OsStats;
 import org.elasticsearch.monitor.process.ProcessStats;
 import org.elasticsearch.node.AdaptiveSelectionStats;
+import org.elasticsearch.node.SearchHedgingStats;
 import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.script.ScriptStats;
 import org.elasticsearch.test.ESTestCase;
@@ -219,6 +223,8 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(nodeStats.getTransport().getServerOpen(), deserializedNodeStats.getTransport().getServerOpen());
                     assertEquals(nodeStats.getTransport().getTxCount(), deserializedNodeStats.getTransport().getTxCount());
                     assertEquals(nodeStats.getTransport().getTxSize(), deserializedNodeStats.getTransport().getTxSize());
+                    assertEquals(nodeStats.getTransport().getRxPooledSize(), deserializedNodeStats.getTransport().getRxPooledSize());
+                    assertEquals(nodeStats.getTransport().getRxUnpooledSize(), deserializedNodeStats.getTransport().getRxUnpooledSize());
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
@@ -260,6 +266,21 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(queueStats.getTotal(), deserializedDiscoveryStats.getQueueStats().getTotal());
                         assertEquals(queueStats.getPending(), deserializedDiscoveryStats.getQueueStats().getPending());
                     }
+                    ClusterApplierStats applierStats = discoveryStats.getApplierStats();
+                    if (applierStats == null) {
+                        assertNull(deserializedDiscoveryStats.getApplierStats());
+                    } else {
+                        ClusterApplierStats deserializedApplierStats = deserializedDiscoveryStats.getApplierStats();
+                        assertEquals(applierStats.getAppliers().size(), deserializedApplierStats.getAppliers().size());
+                        for (int i = 0; i < applierStats.getAppliers().size(); i++) {
+                            ClusterApplierStats.Recording recording = applierStats.getAppliers().get(i);
+                            ClusterApplierStats.Recording deserializedRecording = deserializedApplierStats.getAppliers().get(i);
+                            assertEquals(recording.getName(), deserializedRecording.getName());
+                            assertEquals(recording.getCount(), deserializedRecording.getCount());
+                            assertEquals(recording.getTotalTimeMillis(), deserializedRecording.getTotalTimeMillis());
+                        }
+                        assertEquals(applierStats.getListeners().size(), deserializedApplierStats.getListeners().size());
+                    }
                 }
                 IngestStats ingestStats = nodeStats.getIngestStats();
                 IngestStats deserializedIngestStats = deserializedNodeStats.getIngestStats();
@@ -303,6 +324,7 @@ public class NodeStatsTests extends ESTestCase {
                 } else {
                     assertEquals(adaptiveStats.getOutgoingConnections(), deserializedAdaptiveStats.getOutgoingConnections());
                     assertEquals(adaptiveStats.getRanks(), deserializedAdaptiveStats.getRanks());
+                    assertEquals(adaptiveStats.getHedgingStats(), deserializedAdaptiveStats.getHedgingStats());
                     adaptiveStats.getComputedStats().forEach((k, v) -> {
                         ResponseCollectorService.ComputedNodeStats aStats = adaptiveStats.getComputedStats().get(k);
                         ResponseCollectorService.ComputedNodeStats bStats = deserializedAdaptiveStats.getComputedStats().get(k);
@@ -312,6 +334,21 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
                     });
                 }
+                assertEquals(nodeStats.getSearchReduceStats(), deserializedNodeStats.getSearchReduceStats());
+                AllocationDeciderStats deciderStats = nodeStats.getAllocationDeciderStats();
+                AllocationDeciderStats deserializedDeciderStats = deserializedNodeStats.getAllocationDeciderStats();
+                if (deciderStats == null) {
+                    assertNull(deserializedDeciderStats);
+                } else {
+                    assertEquals(deciderStats.getDeciders().size(), deserializedDeciderStats.getDeciders().size());
+                    for (int i = 0; i < deciderStats.getDeciders().size(); i++) {
+                        AllocationDeciderStats.DeciderStats decider = deciderStats.getDeciders().get(i);
+                        AllocationDeciderStats.DeciderStats deserializedDecider = deserializedDeciderStats.getDeciders().get(i);
+                        assertEquals(decider.getName(), deserializedDecider.getName());
+                        assertEquals(decider.getCount(), deserializedDecider.getCount());
+                        assertEquals(decider.getTimeInNanos(), deserializedDecider.getTimeInNanos());
+                    }
+                }
             }
         }
     }
@@ -414,7 +451,8 @@ public class NodeStatsTests extends ESTestCase {
             fsInfo = new FsInfo(randomNonNegativeLong(), ioStats, paths);
         }
         TransportStats transportStats = frequently() ? new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(),
-                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong()) : null;
         HttpStats httpStats = frequently() ? new HttpStats(randomNonNegativeLong(), randomNonNegativeLong()) : null;
         AllCircuitBreakerStats allCircuitBreakerStats = null;
         if (frequently()) {
@@ -437,6 +475,9 @@ public class NodeStatsTests extends ESTestCase {
                     randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong())
+                : null,
+                randomBoolean()
+                ? new ClusterApplierStats(randomRecordings(), randomRecordings())
                 : null)
             : null;
         IngestStats ingestStats = null;
@@ -482,12 +523,36 @@ public class NodeStatsTests extends ESTestCase {
                     nodeStats.put(nodeId, stats);
                 }
             }
-            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
+            SearchHedgingStats hedgingStats = randomBoolean() ? null : new SearchHedgingStats(randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats, hedgingStats);
+        }
+        SearchReduceStats searchReduceStats = frequently() ? new SearchReduceStats(randomNonNegativeLong(), randomNonNegativeLong(),
+            randomNonNegativeLong(), randomNonNegativeLong()) : null;
+        AllocationDeciderStats allocationDeciderStats = null;
+        if (frequently()) {
+            List<AllocationDeciderStats.DeciderStats> deciders = new ArrayList<>();
+            int numDeciders = randomIntBetween(0, 5);
+            for (int i = 0; i < numDeciders; i++) {
+                deciders.add(new AllocationDeciderStats.DeciderStats(randomAlphaOfLengthBetween(3, 10), randomNonNegativeLong(),
+                    randomNonNegativeLong()));
+            }
+            allocationDeciderStats = new AllocationDeciderStats(deciders);
         }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats,
                 fsInfo, transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats,
-                ingestStats, adaptiveSelectionStats);
+                ingestStats, adaptiveSelectionStats, searchReduceStats, allocationDeciderStats);
+    }
+
+    private static List<ClusterApplierStats.Recording> randomRecordings() {
+        List<ClusterApplierStats.Recording> recordings = new ArrayList<>();
+        int numRecordings = randomIntBetween(0, 5);
+        for (int i = 0; i < numRecordings; i++) {
+            recordings.add(new ClusterApplierStats.Recording(randomAlphaOfLengthBetween(3, 10), randomNonNegativeLong(),
+                randomNonNegativeLong()));
+        }
+        return recordings;
     }
 
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
@@ -52,7 +52,10 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.rest.RestStatus;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -257,6 +260,42 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testReplicateInChunks() throws Exception {
+        IndexShard shard = newStartedShard(true);
+
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 20)];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest writeRequest = new IndexRequest("index", "_doc", "id_" + i)
+                .source(Requests.INDEX_CONTENT_TYPE, "foo", randomAlphaOfLengthBetween(1, 100));
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        List<BulkShardRequest> chunks = new ArrayList<>();
+        WritePrimaryResult<BulkShardRequest, BulkShardResponse> result = TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis, new NoopMappingUpdatePerformer(), () -> {},
+            randomLongBetween(1, 1000), chunk -> {
+                // chunks are only sent once all their items were executed on the primary
+                for (BulkItemRequest item : chunk.items()) {
+                    assertThat(item.getPrimaryResponse(), notNullValue());
+                }
+                chunks.add(chunk);
+            });
+        chunks.add(result.replicaRequest());
+
+        // every item is replicated exactly once and in order
+        List<BulkItemRequest> replicatedItems = new ArrayList<>();
+        for (BulkShardRequest chunk : chunks) {
+            assertThat(chunk.shardId(), equalTo(shardId));
+            assertThat(chunk.items().length, not(equalTo(0)));
+            replicatedItems.addAll(Arrays.asList(chunk.items()));
+        }
+        assertThat(replicatedItems, equalTo(Arrays.asList(items)));
+        assertThat(result.finalResponseIfSuccessful.getResponses(), arrayWithSize(items.length));
+        assertDocCount(shard, items.length);
+        closeShards(shard);
+    }
+
     public void testExecuteBulkIndexRequestWithMappingUpdates() throws Exception {
 
         BulkItemRequest[] items = new BulkItemRequest[1];
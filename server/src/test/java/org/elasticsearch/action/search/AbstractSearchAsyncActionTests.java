@@ -92,7 +92,7 @@ public class AbstractSearchAsyncActionTests extends ESTestCase {
                     )
                 ), timeProvider, 0, null,
                 results, request.getMaxConcurrentShardRequests(),
-                SearchResponse.Clusters.EMPTY) {
+                SearchResponse.Clusters.EMPTY, null) {
             @Override
             protected SearchPhase getNextPhase(final SearchPhaseResults<SearchPhaseResult> results, final SearchPhaseContext context) {
                 return null;
@@ -215,6 +215,40 @@ public class AbstractSearchAsyncActionTests extends ESTestCase {
         assertEquals(requestIds, releasedContexts);
     }
 
+    public void testDisallowPartialFailuresOfRetriedShardCopies() {
+        SearchRequest searchRequest = new SearchRequest().allowPartialSearchResults(false);
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        ActionListener<SearchResponse> listener = ActionListener.wrap(response -> fail("onResponse should not be called"), exception::set);
+        Set<Long> requestIds = new HashSet<>();
+        List<Tuple<String, String>> nodeLookups = new ArrayList<>();
+        InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> phaseResults = phaseResults(requestIds, nodeLookups, 1);
+        AbstractSearchAsyncAction<SearchPhaseResult> action = createAction(searchRequest, phaseResults, listener, false, new AtomicLong());
+        // the first copy of the last shard fails and the second copy succeeds
+        int shardIndex = phaseResults.getNumShards() - 1;
+        ShardId shardId = new ShardId("index", "index-uuid", shardIndex);
+        action.onShardFailure(shardIndex, new SearchShardTarget("node_1", shardId, null, OriginalIndices.NONE),
+            new IllegalArgumentException());
+        PhaseResult result = new PhaseResult(randomLong());
+        requestIds.add(result.getRequestId());
+        nodeLookups.add(Tuple.tuple(null, "node_2"));
+        result.setSearchShardTarget(new SearchShardTarget("node_2", shardId, null, OriginalIndices.NONE));
+        result.setShardIndex(shardIndex);
+        action.onShardSuccess(result);
+        SearchPhase phase = new SearchPhase("test") {
+            @Override
+            public void run() {
+                fail("the next phase should not be executed");
+            }
+        };
+        // without hedging or load shedding any failed shard copy fails the search
+        action.executeNextPhase(phase, phase);
+        assertThat(exception.get(), instanceOf(SearchPhaseExecutionException.class));
+        SearchPhaseExecutionException searchPhaseExecutionException = (SearchPhaseExecutionException)exception.get();
+        assertEquals("Partial shards failure", searchPhaseExecutionException.getMessage());
+        assertEquals(nodeLookups, resolvedNodes);
+        assertEquals(requestIds, releasedContexts);
+    }
+
     public void testOnPhaseFailure() {
         SearchRequest searchRequest = new SearchRequest().allowPartialSearchResults(false);
         AtomicReference<Exception> exception = new AtomicReference<>();
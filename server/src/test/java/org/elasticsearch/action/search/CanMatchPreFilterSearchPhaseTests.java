@@ -225,7 +225,7 @@ public class CanMatchPreFilterSearchPhaseTests extends ESTestCase {
                 0,
                 null,
                 (iter) -> new InitialSearchPhase<SearchPhaseResult>("test", searchRequest,
-                        iter, logger, randomIntBetween(1, 32), executor) {
+                        iter, logger, randomIntBetween(1, 32), executor, null) {
                     @Override
                     void onPhaseDone() {
                         latch.countDown();
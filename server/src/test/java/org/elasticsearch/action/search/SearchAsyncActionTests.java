@@ -26,14 +26,21 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.node.SearchHedgingStats;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -44,6 +51,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -56,6 +64,8 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newConcurrentMap;
 import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newConcurrentSet;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class SearchAsyncActionTests extends ESTestCase {
 
@@ -118,7 +128,7 @@ public class SearchAsyncActionTests extends ESTestCase {
                 null,
                 new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
                 request.getMaxConcurrentShardRequests(),
-                SearchResponse.Clusters.EMPTY) {
+                SearchResponse.Clusters.EMPTY, null) {
 
                 @Override
                 protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
@@ -211,7 +221,7 @@ public class SearchAsyncActionTests extends ESTestCase {
                 null,
                 new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
                 request.getMaxConcurrentShardRequests(),
-                SearchResponse.Clusters.EMPTY) {
+                SearchResponse.Clusters.EMPTY, null) {
 
                 @Override
                 protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
@@ -318,7 +328,7 @@ public class SearchAsyncActionTests extends ESTestCase {
                         null,
                         new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
                         request.getMaxConcurrentShardRequests(),
-                        SearchResponse.Clusters.EMPTY) {
+                        SearchResponse.Clusters.EMPTY, null) {
             TestSearchResponse response = new TestSearchResponse();
 
             @Override
@@ -370,6 +380,154 @@ public class SearchAsyncActionTests extends ESTestCase {
         executor.shutdown();
     }
 
+    public void testHedgedShardRequests() throws Exception {
+        final DiscoveryNode slowNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode fastNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, Runtime.getRuntime().availableProcessors()));
+        try {
+            final ResponseCollectorService collector = new ResponseCollectorService(new ClusterService(Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool, Collections.emptyMap()));
+            final GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+                new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+                randomIntBetween(1, 10), true, slowNode, fastNode);
+            int numSlowFirst = 0;
+            for (SearchShardIterator iterator : shardsIter) {
+                if (iterator.nextOrNull().currentNodeId().equals(slowNode.getId())) {
+                    numSlowFirst++;
+                }
+                iterator.reset();
+            }
+            final Map<Long, DiscoveryNode> openContexts = newConcurrentMap();
+            final List<Runnable> slowResponses = Collections.synchronizedList(new ArrayList<>());
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = newHedgingAsyncAction(shardsIter, slowNode, fastNode,
+                executor, new ShardRequestHedging(collector, threadPool, 0, -1), openContexts, slowResponses, latch);
+            asyncAction.start();
+            latch.await();
+            // shards whose slow copy was queried first are hedged to the fast copy, the other shards may be hedged to the slow copy
+            assertBusy(() -> assertEquals(collector.getHedgingStats().getHedgedRequests(), slowResponses.size()));
+            // the slow copies respond once the search moved on, their search contexts must be released
+            slowResponses.forEach(Runnable::run);
+            assertBusy(() -> assertTrue(openContexts.toString(), openContexts.isEmpty()));
+            final SearchHedgingStats stats = collector.getHedgingStats();
+            assertEquals(shardsIter.size(), stats.getShardRequests());
+            assertEquals(numSlowFirst, stats.getHedgeWins());
+            assertEquals(slowResponses.size(), stats.getDiscardedResponses());
+            assertThat(stats.getHedgedRequests(), greaterThanOrEqualTo((long) numSlowFirst));
+            assertThat(stats.getHedgedRequests(), lessThanOrEqualTo((long) shardsIter.size()));
+        } finally {
+            executor.shutdown();
+            terminate(threadPool);
+        }
+    }
+
+    public void testShedShardRequests() throws Exception {
+        final DiscoveryNode busyNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode idleNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, Runtime.getRuntime().availableProcessors()));
+        try {
+            final ResponseCollectorService collector = new ResponseCollectorService(new ClusterService(Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool, Collections.emptyMap()));
+            collector.addNodeStatistics(busyNode.getId(), 100, 1000, 1000);
+            collector.addNodeStatistics(idleNode.getId(), 1, 1000, 1000);
+            final GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+                new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+                randomIntBetween(1, 10), true, busyNode, idleNode);
+            int numShed = 0;
+            for (SearchShardIterator iterator : shardsIter) {
+                if (iterator.nextOrNull().currentNodeId().equals(busyNode.getId())) {
+                    numShed++;
+                }
+                iterator.reset();
+            }
+            final Map<Long, DiscoveryNode> openContexts = newConcurrentMap();
+            final List<Runnable> busyResponses = Collections.synchronizedList(new ArrayList<>());
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = newHedgingAsyncAction(shardsIter, busyNode, idleNode,
+                executor, new ShardRequestHedging(collector, threadPool, -1, 10), openContexts, busyResponses, latch);
+            asyncAction.start();
+            latch.await();
+            assertTrue(busyResponses.isEmpty());
+            assertEquals(numShed, collector.getHedgingStats().getShedRequests());
+            assertEquals(0, collector.getHedgingStats().getHedgedRequests());
+        } finally {
+            executor.shutdown();
+            terminate(threadPool);
+        }
+    }
+
+    /**
+     * Creates an async action whose requests to the slow node only respond once the returned runnables are run, while requests to
+     * the fast node respond right away. Search contexts are tracked in the given map until they are released.
+     */
+    private AbstractSearchAsyncAction<TestSearchPhaseResult> newHedgingAsyncAction(GroupShardsIterator<SearchShardIterator> shardsIter,
+                                                                                   DiscoveryNode slowNode, DiscoveryNode fastNode,
+                                                                                   ExecutorService executor, ShardRequestHedging hedging,
+                                                                                   Map<Long, DiscoveryNode> openContexts,
+                                                                                   List<Runnable> slowResponses, CountDownLatch latch) {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(false);
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        SearchTransportService transportService = new SearchTransportService(null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, long contextId, OriginalIndices originalIndices) {
+                assertEquals(connection.getNode(), openContexts.remove(contextId));
+            }
+        };
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        lookup.put(slowNode.getId(), new MockConnection(slowNode));
+        lookup.put(fastNode.getId(), new MockConnection(fastNode));
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+        ActionListener<SearchResponse> responseListener = new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.warn("test failed", e);
+                fail(e.getMessage());
+            }
+        };
+        return new AbstractSearchAsyncAction<TestSearchPhaseResult>("test", logger, transportService,
+                (cluster, node) -> lookup.get(node), aliasFilters, Collections.emptyMap(), Collections.emptyMap(), executor, request,
+                responseListener, shardsIter, new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0), 0, null,
+                new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()), request.getMaxConcurrentShardRequests(),
+                SearchResponse.Clusters.EMPTY, hedging) {
+
+            @Override
+            protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
+                                               SearchActionListener<TestSearchPhaseResult> listener) {
+                DiscoveryNode node = getConnection(null, shard.currentNodeId()).getNode();
+                TestSearchPhaseResult result = new TestSearchPhaseResult(contextIdGenerator.incrementAndGet(), node);
+                openContexts.put(result.getRequestId(), node);
+                if (node.equals(slowNode)) {
+                    slowResponses.add(() -> listener.onResponse(result));
+                } else {
+                    new Thread(() -> listener.onResponse(result)).start();
+                }
+            }
+
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < results.getNumShards(); i++) {
+                            TestSearchPhaseResult result = results.getAtomicArray().get(i);
+                            assertEquals(fastNode, result.node);
+                            sendReleaseSearchContext(result.getRequestId(), new MockConnection(result.node), OriginalIndices.NONE);
+                        }
+                        responseListener.onResponse(new SearchResponse());
+                    }
+                };
+            }
+        };
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(String index, OriginalIndices originalIndices, int numShards,
                                                      boolean doReplicas, DiscoveryNode primaryNode, DiscoveryNode replicaNode) {
         ArrayList<SearchShardIterator> list = new ArrayList<>();
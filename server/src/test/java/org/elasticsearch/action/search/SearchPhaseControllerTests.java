@@ -28,15 +28,26 @@ import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
@@ -52,6 +63,7 @@ import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -64,6 +76,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -357,6 +370,8 @@ public class SearchPhaseControllerTests extends ESTestCase {
         SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
         assertEquals(numTotalReducePhases, reduce.numReducePhases);
         assertEquals(numTotalReducePhases, reductions.size());
+        assertEquals(numTotalReducePhases - 1, searchPhaseController.reduceStats().getPartialReduces());
+        assertEquals(0, searchPhaseController.reduceStats().getBreakerTriggeredReduces());
         assertFinalReduction(request);
         InternalMax max = (InternalMax) reduce.aggregations.asList().get(0);
         assertEquals(3.0D, max.getValue(), 0.0D);
@@ -366,6 +381,82 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs.collapseValues);
     }
 
+    public void testConsumerReducesWithinBreakerBudget() throws IOException {
+        // a request breaker that leaves room for a few bytes only forces a partial reduce as soon as two results are buffered
+        CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(
+            Settings.builder().put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "100b").build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        SearchPhaseController controller = new SearchPhaseController(
+            finalReduce -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, finalReduce), breakerService);
+        NamedWriteableRegistry registry = new NamedWriteableRegistry(
+            new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+        int expectedNumResults = randomIntBetween(4, 20);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")).size(0));
+        request.setBatchedReduceSize(expectedNumResults - 1);
+        InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> consumer =
+            controller.newSearchPhaseResults(request, expectedNumResults);
+        assertThat(consumer, instanceOf(SearchPhaseController.QueryPhaseResultConsumer.class));
+        int max = 0;
+        for (int i = 0; i < expectedNumResults; i++) {
+            int number = randomIntBetween(1, 1000);
+            max = Math.max(max, number);
+            QuerySearchResult result = new QuerySearchResult(i, new SearchShardTarget("node", new Index("a", "b"), i, null));
+            result.topDocs(new TopDocs(1, new ScoreDoc[0], number), new DocValueFormat[0]);
+            result.aggregations(new InternalAggregations(Collections.singletonList(new InternalMax("test", (double) number,
+                DocValueFormat.RAW, Collections.emptyList(), Collections.emptyMap()))));
+            // only results received from other nodes are accounted for
+            QuerySearchResult received = copyWriteable(result, registry, QuerySearchResult::new);
+            assertThat(received.aggregationsSizeInBytes(), greaterThan(0L));
+            received.setSearchShardTarget(result.getSearchShardTarget());
+            received.setShardIndex(i);
+            consumer.consumeResult(received);
+        }
+        SearchPhaseController.QueryPhaseResultConsumer resultConsumer = (SearchPhaseController.QueryPhaseResultConsumer) consumer;
+        assertEquals(expectedNumResults - 2, resultConsumer.getNumReducePhases());
+        assertEquals(2, resultConsumer.getNumBuffered());
+        assertThat(resultConsumer.getBufferedAggsBytes(), greaterThan(0L));
+
+        SearchReduceStats stats = controller.reduceStats();
+        assertEquals(expectedNumResults - 2, stats.getPartialReduces());
+        assertEquals(expectedNumResults - 2, stats.getBreakerTriggeredReduces());
+        assertThat(stats.getBufferedAggregations().getBytes(), greaterThan(0L));
+        assertThat(stats.getPeakBufferedAggregations().getBytes(), lessThanOrEqualTo(stats.getBufferedAggregations().getBytes()));
+
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        assertEquals(expectedNumResults - 1, reduce.numReducePhases);
+        InternalMax internalMax = (InternalMax) reduce.aggregations.asList().get(0);
+        assertEquals(max, internalMax.getValue(), 0.0D);
+        assertEquals(expectedNumResults, reduce.totalHits);
+    }
+
+    public void testAggregationsSizeOfCompressedResult() throws IOException {
+        NamedWriteableRegistry registry = new NamedWriteableRegistry(
+            new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+        InternalAggregations aggregations = new InternalAggregations(Collections.singletonList(new InternalMax("test", randomDouble(),
+            DocValueFormat.RAW, Collections.emptyList(), Collections.emptyMap())));
+        QuerySearchResult result = new QuerySearchResult(0, new SearchShardTarget("node", new Index("a", "b"), 0, null));
+        result.topDocs(new TopDocs(1, new ScoreDoc[0], 1), new DocValueFormat[0]);
+        result.aggregations(aggregations);
+        final long expectedSize;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            aggregations.writeTo(out);
+            expectedSize = out.size();
+        }
+
+        // decompressing streams don't know how many bytes are left, so the size must not be derived from what the stream has available
+        BytesStreamOutput compressed = new BytesStreamOutput();
+        try (StreamOutput out = CompressorFactory.COMPRESSOR.streamOutput(compressed)) {
+            result.writeTo(out);
+        }
+        try (StreamInput in = new NamedWriteableAwareStreamInput(
+                CompressorFactory.COMPRESSOR.streamInput(compressed.bytes().streamInput()), registry)) {
+            QuerySearchResult received = new QuerySearchResult(in);
+            assertEquals(expectedSize, received.aggregationsSizeInBytes());
+            assertEquals(aggregations.asList().size(), received.consumeAggs().asList().size());
+        }
+    }
+
     public void testConsumerConcurrently() throws InterruptedException {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
@@ -477,6 +568,31 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs.collapseValues);
     }
 
+    public void testConsumerOnlyHitsCountsReducePhases() {
+        int expectedNumResults = randomIntBetween(3, 20);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().size(randomIntBetween(1, 10)));
+        request.setBatchedReduceSize(2);
+        InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> consumer =
+            searchPhaseController.newSearchPhaseResults(request, expectedNumResults);
+        assertThat(consumer, instanceOf(SearchPhaseController.QueryPhaseResultConsumer.class));
+        for (int i = 0; i < expectedNumResults; i++) {
+            QuerySearchResult result = new QuerySearchResult(i, new SearchShardTarget("node", new Index("a", "b"), i, null));
+            result.topDocs(new TopDocs(1, new ScoreDoc[] {new ScoreDoc(0, i)}, i), new DocValueFormat[0]);
+            result.setShardIndex(i);
+            result.size(1);
+            consumer.consumeResult(result);
+        }
+        // top docs are merged as they arrive, but every full buffer still counts as a reduce phase
+        SearchPhaseController.QueryPhaseResultConsumer resultConsumer = (SearchPhaseController.QueryPhaseResultConsumer) consumer;
+        assertEquals(expectedNumResults - 2, resultConsumer.getNumReducePhases());
+        assertEquals(2, resultConsumer.getNumBuffered());
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        assertEquals(expectedNumResults - 1, reduce.numReducePhases);
+        assertEquals(expectedNumResults, reduce.totalHits);
+        assertEquals(expectedNumResults - 1, reduce.sortedTopDocs.scoreDocs[0].score, 0.0f);
+    }
+
     private void assertFinalReduction(SearchRequest searchRequest) {
         assertThat(reductions.size(), greaterThanOrEqualTo(1));
         assertEquals(searchRequest.isFinalReduce(), reductions.get(reductions.size() - 1));
@@ -56,6 +56,7 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.action.support.replication.ClusterStateCreationUtils.state;
@@ -140,6 +141,81 @@ public class ReplicationOperationTests extends ESTestCase {
         assertThat(primary.knownGlobalCheckpoints, equalTo(replicasProxy.generatedGlobalCheckpoints));
     }
 
+    public void testReplicationInParts() throws Exception {
+        final String index = "test";
+        final ShardId shardId = new ShardId(index, "_na_", 0);
+
+        final ClusterState state = stateWithActivePrimary(index, true, randomInt(5));
+        final IndexMetaData indexMetaData = state.getMetaData().index(index);
+        final long primaryTerm = indexMetaData.primaryTerm(0);
+        final IndexShardRoutingTable indexShardRoutingTable = state.getRoutingTable().shardRoutingTable(shardId);
+        final ShardRouting primaryShard = indexShardRoutingTable.primaryShard();
+        final Set<String> staleAllocationIds = Sets.newHashSet(generateRandomStringArray(4, 10, false));
+        final Set<String> inSyncAllocationIds = Sets.union(indexMetaData.inSyncAllocationIds(0), staleAllocationIds);
+        final Set<String> trackedShards = new HashSet<>();
+        final Set<String> untrackedShards = new HashSet<>();
+        addTrackingInfo(indexShardRoutingTable, primaryShard, trackedShards, untrackedShards);
+        trackedShards.addAll(staleAllocationIds);
+        final ReplicationGroup replicationGroup = new ReplicationGroup(indexShardRoutingTable, inSyncAllocationIds, trackedShards);
+        final Set<ShardRouting> expectedReplicas = getExpectedReplicas(shardId, state, trackedShards);
+
+        final Request request = new Request(shardId);
+        final List<Request> parts = new ArrayList<>();
+        for (int i = randomIntBetween(1, 5); i > 0; i--) {
+            parts.add(new Request(shardId));
+        }
+        final List<Request> allParts = new ArrayList<>(parts);
+        allParts.add(request);
+
+        // replicas may fail any number of parts, but must only be failed and reported once
+        final Map<ShardRouting, Exception> simulatedFailures = new HashMap<>();
+        final Map<ShardRouting, List<Request>> failedParts = new HashMap<>();
+        for (ShardRouting replica : expectedReplicas) {
+            if (randomBoolean()) {
+                simulatedFailures.put(replica, new CorruptIndexException("simulated", (String) null));
+                failedParts.put(replica, randomSubsetOf(randomIntBetween(1, allParts.size()), allParts));
+            }
+        }
+        final TestReplicaProxy replicasProxy = new TestReplicaProxy(primaryTerm, simulatedFailures) {
+            @Override
+            public void performOn(ShardRouting replica, Request request, long globalCheckpoint, long maxSeqNoOfUpdatesOrDeletes,
+                                  ActionListener<ReplicationOperation.ReplicaResponse> listener) {
+                assertTrue("replica request processed twice on [" + replica + "]", request.processedOnReplicas.add(replica));
+                if (failedParts.getOrDefault(replica, Collections.emptyList()).contains(request)) {
+                    listener.onFailure(opFailures.get(replica));
+                } else {
+                    listener.onResponse(new ReplicaResponse(random().nextLong(), random().nextLong()));
+                }
+            }
+        };
+        final TestPrimary primary = new TestPrimary(primaryShard, () -> replicationGroup) {
+            @Override
+            public Result perform(Request request, Consumer<Request> partReplicator) throws Exception {
+                final Result result = perform(request);
+                parts.forEach(partReplicator);
+                return result;
+            }
+        };
+
+        final PlainActionFuture<TestPrimary.Result> listener = new PlainActionFuture<>();
+        final TestReplicationOperation op = new TestReplicationOperation(request, primary, listener, replicasProxy);
+        op.execute();
+        assertThat("request was not processed on primary", request.processedOnPrimary.get(), equalTo(true));
+        for (Request part : allParts) {
+            assertThat(part.processedOnReplicas, equalTo(expectedReplicas));
+        }
+        assertThat(replicasProxy.failedReplicas, equalTo(simulatedFailures.keySet()));
+        assertThat(replicasProxy.markedAsStaleCopies, equalTo(staleAllocationIds));
+        assertTrue("listener is not marked as done", listener.isDone());
+        final ShardInfo shardInfo = listener.actionGet().getShardInfo();
+        assertThat(shardInfo.getFailed(), equalTo(simulatedFailures.size()));
+        assertThat(shardInfo.getFailures(), arrayWithSize(simulatedFailures.size()));
+        assertThat(shardInfo.getSuccessful(), equalTo(1 + expectedReplicas.size() - simulatedFailures.size()));
+        final List<ShardRouting> unassignedShards = indexShardRoutingTable.shardsWithState(ShardRoutingState.UNASSIGNED);
+        final int totalShards = 1 + expectedReplicas.size() + unassignedShards.size() + untrackedShards.size();
+        assertThat(replicationGroup.toString(), shardInfo.getTotal(), equalTo(totalShards));
+    }
+
     private void addTrackingInfo(IndexShardRoutingTable indexShardRoutingTable, ShardRouting primaryShard, Set<String> trackedShards,
                                  Set<String> untrackedShards) {
         for (ShardRouting shr : indexShardRoutingTable.shards()) {
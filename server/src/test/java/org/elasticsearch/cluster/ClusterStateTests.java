@@ -19,11 +19,18 @@
 package org.elasticsearch.cluster;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.action.support.replication.ClusterStateCreationUtils;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.HashSet;
+
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
@@ -57,4 +64,33 @@ public class ClusterStateTests extends ESTestCase {
         assertThat(withMaster1a.supersedes(withMaster1b), equalTo(withMaster1a.version() > withMaster1b.version()));
 
     }
+
+    public void testLocalRoutingNode() {
+        for (int i = 0; i < 10; i++) {
+            ClusterState state = ClusterStateCreationUtils.state("test", randomBoolean(),
+                randomFrom(ShardRoutingState.STARTED, ShardRoutingState.RELOCATING),
+                randomFrom(ShardRoutingState.values()), randomFrom(ShardRoutingState.values()));
+            RoutingNode expected = new RoutingNodes(state).node(state.nodes().getLocalNodeId());
+            RoutingNode localRoutingNode = state.getLocalRoutingNode();
+            if (expected == null) {
+                assertNull(localRoutingNode);
+            } else {
+                assertThat(localRoutingNode.nodeId(), equalTo(expected.nodeId()));
+                assertThat(localRoutingNode.node(), equalTo(expected.node()));
+                assertThat(new HashSet<>(localRoutingNode.copyShards()), equalTo(new HashSet<>(expected.copyShards())));
+            }
+            assertSame(localRoutingNode, state.getLocalRoutingNode());
+
+            // the shards of unchanged indices are not collected again
+            ClusterState nextState = ClusterState.builder(state).incrementVersion().build();
+            IndexRoutingTable indexRoutingTable = nextState.routingTable().index("test");
+            assertSame(indexRoutingTable.shardsOnNode(state.nodes().getLocalNodeId()),
+                state.routingTable().index("test").shardsOnNode(state.nodes().getLocalNodeId()));
+        }
+    }
+
+    public void testNoLocalRoutingNodeWithoutLocalNode() {
+        ClusterState state = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY)).build();
+        assertNull(state.getLocalRoutingNode());
+    }
 }
@@ -25,6 +25,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
@@ -39,12 +40,19 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.gateway.TestGatewayAllocator;
 import org.hamcrest.Matchers;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
@@ -417,4 +425,41 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         }
     }
 
+    public void testRebalanceDecisionsAreReusedAcrossTargetNodes() {
+        MetaData metaData = MetaData.builder()
+            .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(6).numberOfReplicas(0))
+            .build();
+        RoutingTable routingTable = RoutingTable.builder().addAsNew(metaData.index("test")).build();
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING
+            .getDefault(Settings.EMPTY)).nodes(DiscoveryNodes.builder().add(newNode("node0"))).metaData(metaData)
+            .routingTable(routingTable).build();
+        AllocationService strategy = createAllocationService(Settings.EMPTY);
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        clusterState = ClusterState.builder(clusterState).nodes(DiscoveryNodes.builder(clusterState.nodes())
+            .add(newNode("node1")).add(newNode("node2")).add(newNode("node3"))).build();
+
+        Map<ShardId, Integer> rebalanceCalls = new HashMap<>();
+        AllocationDeciders deciders = new AllocationDeciders(Collections.singleton(new AllocationDecider() {
+            @Override
+            public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
+                rebalanceCalls.merge(shardRouting.shardId(), 1, Integer::sum);
+                return Decision.YES;
+            }
+
+            @Override
+            public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                // keeps all shards on node0 so that each of them is tried against all of the new nodes
+                return Decision.NO;
+            }
+        }));
+        RoutingAllocation allocation = new RoutingAllocation(deciders, new RoutingNodes(clusterState, false), clusterState,
+            ClusterInfo.EMPTY, System.nanoTime());
+        new BalancedShardsAllocator(Settings.EMPTY).allocate(allocation);
+
+        assertThat(rebalanceCalls.size(), Matchers.equalTo(6));
+        for (int calls : rebalanceCalls.values()) {
+            assertThat(calls, Matchers.equalTo(1));
+        }
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AllocationDecidersTests extends ESAllocationTestCase {
+
+    public void testCachesDecisionsUntilRoutingNodesChange() {
+        CountingDecider countingDecider = new CountingDecider();
+        AllocationDeciders deciders = new AllocationDeciders(Arrays.asList(new SameShardAllocationDecider(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)), countingDecider));
+        RoutingAllocation allocation = newRoutingAllocation(deciders);
+        RoutingNodes routingNodes = allocation.routingNodes();
+        ShardRouting first = allocation.routingTable().shardRoutingTable("test", 0).primaryShard();
+        ShardRouting second = allocation.routingTable().shardRoutingTable("test", 1).primaryShard();
+        RoutingNode node = routingNodes.node("node1");
+
+        assertThat(deciders.canAllocate(first, node, allocation).type(), equalTo(Decision.Type.YES));
+        assertThat(deciders.canAllocate(first, node, allocation).type(), equalTo(Decision.Type.YES));
+        assertThat(countingDecider.canAllocate.get(), equalTo(1));
+        assertThat(deciders.canRemain(first, node, allocation).type(), equalTo(Decision.Type.YES));
+        assertThat(deciders.canRemain(first, node, allocation).type(), equalTo(Decision.Type.YES));
+        assertThat(countingDecider.canRemain.get(), equalTo(1));
+
+        for (RoutingNodes.UnassignedShards.UnassignedIterator it = routingNodes.unassigned().iterator(); it.hasNext(); ) {
+            if (it.next().equals(second)) {
+                it.initialize("node2", null, 0L, allocation.changes());
+            }
+        }
+        assertThat(deciders.canAllocate(first, node, allocation).type(), equalTo(Decision.Type.YES));
+        assertThat(countingDecider.canAllocate.get(), equalTo(2));
+        assertThat(deciders.canRemain(first, node, allocation).type(), equalTo(Decision.Type.YES));
+        assertThat(countingDecider.canRemain.get(), equalTo(2));
+
+        allocation.debugDecision(true);
+        deciders.canAllocate(first, node, allocation);
+        deciders.canAllocate(first, node, allocation);
+        assertThat(countingDecider.canAllocate.get(), equalTo(4));
+    }
+
+    public void testRecordsStatsPerDecider() {
+        CountingDecider countingDecider = new CountingDecider();
+        AllocationDeciders deciders = new AllocationDeciders(Arrays.asList(new SameShardAllocationDecider(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)), countingDecider));
+        RoutingAllocation allocation = newRoutingAllocation(deciders);
+        assertThat(allocation.deciderStats(), nullValue());
+        deciders.canAllocate(allocation.routingNodes().node("node1"), allocation);
+
+        allocation.recordDeciderStats();
+        ShardRouting shard = allocation.routingTable().shardRoutingTable("test", 0).primaryShard();
+        deciders.canAllocate(shard, allocation.routingNodes().node("node1"), allocation);
+        deciders.canAllocate(shard, allocation.routingNodes().node("node2"), allocation);
+
+        AllocationDeciderStats allocationStats = allocation.deciderStats();
+        assertThat(allocationStats.getDeciders().size(), equalTo(2));
+        assertThat(allocationStats.getDeciders().get(0).getName(), equalTo("SameShardAllocationDecider"));
+        assertThat(allocationStats.getDeciders().get(0).getCount(), equalTo(2L));
+        assertThat(allocationStats.getDeciders().get(1).getName(), equalTo("CountingDecider"));
+        assertThat(allocationStats.getDeciders().get(1).getCount(), equalTo(2L));
+
+        AllocationDeciderStats nodeStats = deciders.stats();
+        assertThat(nodeStats.getDeciders().get(1).getCount(), equalTo(3L));
+        assertThat(nodeStats.getDeciders().get(1).getTimeInNanos(), greaterThanOrEqualTo(allocationStats.getDeciders().get(1)
+            .getTimeInNanos()));
+    }
+
+    private static RoutingAllocation newRoutingAllocation(AllocationDeciders deciders) {
+        MetaData metaData = MetaData.builder()
+            .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(2).numberOfReplicas(0))
+            .build();
+        RoutingTable routingTable = RoutingTable.builder().addAsNew(metaData.index("test")).build();
+        ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaData)
+            .routingTable(routingTable)
+            .nodes(DiscoveryNodes.builder().add(newNode("node1")).add(newNode("node2")))
+            .build();
+        return new RoutingAllocation(deciders, new RoutingNodes(clusterState, false), clusterState, null, System.nanoTime());
+    }
+
+    private static final class CountingDecider extends AllocationDecider {
+
+        final AtomicInteger canAllocate = new AtomicInteger();
+        final AtomicInteger canRemain = new AtomicInteger();
+
+        @Override
+        public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+            canAllocate.incrementAndGet();
+            return Decision.YES;
+        }
+
+        @Override
+        public Decision canAllocate(RoutingNode node, RoutingAllocation allocation) {
+            return Decision.YES;
+        }
+
+        @Override
+        public Decision canRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+            canRemain.incrementAndGet();
+            return Decision.YES;
+        }
+    }
+}
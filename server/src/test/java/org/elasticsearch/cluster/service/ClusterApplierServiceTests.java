@@ -405,6 +405,47 @@ public class ClusterApplierServiceTests extends ESTestCase {
         assertTrue(applierCalled.get());
     }
 
+    public void testRecordsApplierAndListenerTimings() throws InterruptedException {
+        clusterApplierService.currentTimeOverride = System.nanoTime();
+        // fractions of a millisecond add up across calls
+        clusterApplierService.addStateApplier(event ->
+            clusterApplierService.currentTimeOverride += TimeValue.timeValueMillis(100).nanos() + TimeValue.timeValueMillis(1).nanos() / 2);
+        clusterApplierService.addListener(event ->
+            clusterApplierService.currentTimeOverride += TimeValue.timeValueMillis(30).nanos());
+
+        for (int i = 0; i < 2; i++) {
+            CountDownLatch latch = new CountDownLatch(1);
+            clusterApplierService.onNewClusterState("test", () -> ClusterState.builder(clusterApplierService.state()).build(),
+                new ClusterApplyListener() {
+                    @Override
+                    public void onSuccess(String source) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        fail();
+                    }
+                });
+            latch.await();
+        }
+
+        ClusterApplierStats stats = clusterApplierService.getStats();
+        assertThat(stats.getAppliers().size(), is(1));
+        assertRecording(stats.getAppliers().get(0), 2, 201);
+        ClusterApplierStats.Recording listenerRecording = stats.getListeners().stream()
+            .filter(recording -> recording.getName().equals(ClusterApplierServiceTests.class.getName()))
+            .findFirst().get();
+        assertRecording(listenerRecording, 2, 60);
+        assertThat(stats.getListeners().get(0), is(listenerRecording));
+    }
+
+    private static void assertRecording(ClusterApplierStats.Recording recording, long count, long totalTimeMillis) {
+        assertThat(recording.getName(), is(ClusterApplierServiceTests.class.getName()));
+        assertThat(recording.getCount(), is(count));
+        assertThat(recording.getTotalTimeMillis(), is(totalTimeMillis));
+    }
+
     static class TimedClusterApplierService extends ClusterApplierService {
 
         public volatile Long currentTimeOverride = null;
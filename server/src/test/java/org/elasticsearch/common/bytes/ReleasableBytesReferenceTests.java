@@ -0,0 +1,110 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReleasableBytesReferenceTests extends AbstractBytesReferenceTestCase {
+
+    @Override
+    protected BytesReference newBytesReference(int length) throws IOException {
+        return newBytesReferenceWithOffsetOfZero(length);
+    }
+
+    @Override
+    protected BytesReference newBytesReferenceWithOffsetOfZero(int length) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput(length);
+        for (int i = 0; i < length; i++) {
+            out.writeByte((byte) random().nextInt(1 << 8));
+        }
+        return ReleasableBytesReference.wrap(out.bytes());
+    }
+
+    public void testReleasedOnceAllReferencesAreClosed() {
+        final AtomicInteger released = new AtomicInteger();
+        final ReleasableBytesReference reference = new ReleasableBytesReference(new BytesArray(randomByteArrayOfLength(16)),
+            released::incrementAndGet);
+        final ReleasableBytesReference slice = reference.retainedSlice(randomIntBetween(1, 8), 8);
+        final ReleasableBytesReference retained = reference.retain();
+        assertSame(reference, retained);
+        assertEquals(3, reference.refCount());
+
+        reference.close();
+        retained.close();
+        assertEquals(0, released.get());
+        assertEquals(1, slice.refCount());
+        slice.close();
+        assertEquals(1, released.get());
+        assertEquals(0, reference.refCount());
+        expectThrows(AlreadyClosedException.class, reference::retain);
+    }
+
+    public void testReadReleasableBytesReferenceReturnsRetainedSlices() throws IOException {
+        final byte[] first = randomByteArrayOfLength(randomIntBetween(1, 100));
+        final byte[] second = randomByteArrayOfLength(randomIntBetween(1, 100));
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.writeString("header");
+        out.writeByteArray(first);
+        out.writeByteArray(new byte[0]);
+        out.writeByteArray(second);
+        out.writeVInt(42);
+
+        final AtomicInteger released = new AtomicInteger();
+        final ReleasableBytesReference reference = new ReleasableBytesReference(out.bytes(), released::incrementAndGet);
+        final ReleasableBytesReference firstSlice;
+        final ReleasableBytesReference emptySlice;
+        final ReleasableBytesReference secondSlice;
+        try (StreamInput in = reference.streamInput()) {
+            assertEquals("header", in.readString());
+            firstSlice = in.readReleasableBytesReference();
+            emptySlice = in.readReleasableBytesReference();
+            secondSlice = in.readReleasableBytesReference();
+            assertEquals(42, in.readVInt());
+            assertEquals(-1, in.read());
+        }
+        assertEquals(new BytesArray(first), firstSlice);
+        assertEquals(0, emptySlice.length());
+        assertEquals(new BytesArray(second), secondSlice);
+        assertEquals(3, reference.refCount());
+
+        reference.close();
+        firstSlice.close();
+        assertEquals(0, released.get());
+        secondSlice.close();
+        assertEquals(1, released.get());
+    }
+
+    public void testReadReleasableBytesReferenceCopiesFromOtherStreams() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 100));
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.writeByteArray(bytes);
+        try (StreamInput in = out.bytes().streamInput()) {
+            final ReleasableBytesReference copy = in.readReleasableBytesReference();
+            assertEquals(new BytesArray(bytes), copy);
+            assertEquals(1, copy.refCount());
+            copy.close();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TinyLfuCacheTests extends ESTestCase {
+
+    private static <K, V> CacheBuilder<K, V> builder() {
+        return CacheBuilder.<K, V>builder().setEvictionPolicy(EvictionPolicy.TINY_LFU);
+    }
+
+    public void testBuilder() {
+        assertThat(builder().build(), instanceOf(TinyLfuCache.class));
+        assertEquals(EvictionPolicy.TINY_LFU, EvictionPolicy.parse("tiny_lfu"));
+        assertEquals(EvictionPolicy.LRU, EvictionPolicy.parse("LRU"));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> EvictionPolicy.parse("fifo"));
+        assertEquals("unknown eviction policy [fifo], must be one of [lru, tiny_lfu]", e.getMessage());
+    }
+
+    public void testPutAndGet() {
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().build();
+        int numberOfEntries = randomIntBetween(1, 1000);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        assertEquals(numberOfEntries, cache.count());
+        assertEquals(numberOfEntries, cache.weight());
+        for (int i = 0; i < numberOfEntries; i++) {
+            assertEquals(Integer.toString(i), cache.get(i));
+        }
+        assertNull(cache.get(-1));
+        assertEquals(numberOfEntries, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    public void testWeightIsBounded() {
+        int maximumWeight = randomIntBetween(10, 1000);
+        AtomicLong evictions = new AtomicLong();
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder()
+            .setMaximumWeight(maximumWeight)
+            .weigher((k, v) -> v.length())
+            .removalListener(notification -> {
+                assertEquals(RemovalNotification.RemovalReason.EVICTED, notification.getRemovalReason());
+                evictions.incrementAndGet();
+            })
+            .build();
+        int numberOfEntries = randomIntBetween(maximumWeight, 10 * maximumWeight);
+        long totalWeight = 0;
+        for (int i = 0; i < numberOfEntries; i++) {
+            String value = randomAlphaOfLengthBetween(1, 5);
+            totalWeight += value.length();
+            cache.put(i, value);
+            if (randomBoolean()) {
+                cache.get(randomIntBetween(0, i));
+            }
+            assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+        }
+        long remainingWeight = 0;
+        for (String value : cache.values()) {
+            remainingWeight += value.length();
+        }
+        assertEquals(cache.weight(), remainingWeight);
+        assertEquals(numberOfEntries - evictions.get(), cache.count());
+        assertThat(totalWeight - remainingWeight, greaterThan(0L));
+    }
+
+    // an entry that is heavier than the whole cache is evicted right away
+    public void testOversizedEntry() {
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder()
+            .setMaximumWeight(10)
+            .weigher((k, v) -> v.length())
+            .build();
+        cache.put(1, "a");
+        cache.put(2, randomAlphaOfLength(11));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.count());
+        assertEquals(1, cache.weight());
+    }
+
+    // populate the cache with frequently used entries, then scan through many keys that are each used once; the frequently used
+    // entries must survive the scan, which is what distinguishes the policy from plain LRU
+    public void testScanResistance() {
+        int maximumWeight = 100;
+        Cache<Integer, Integer> cache = TinyLfuCacheTests.<Integer, Integer>builder().setMaximumWeight(maximumWeight).build();
+        int hotEntries = maximumWeight / 2;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < hotEntries; i++) {
+                if (cache.get(i) == null) {
+                    cache.put(i, i);
+                }
+            }
+        }
+        cache.refresh();
+        for (int i = maximumWeight; i < 100 * maximumWeight; i++) {
+            cache.put(i, i);
+        }
+        int survivors = 0;
+        for (int i = 0; i < hotEntries; i++) {
+            if (cache.get(i) != null) {
+                survivors++;
+            }
+        }
+        assertThat(survivors, greaterThan(hotEntries * 9 / 10));
+        assertEquals(maximumWeight, cache.count());
+    }
+
+    public void testComputeIfAbsentLoadsOnce() throws Exception {
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().build();
+        AtomicInteger loads = new AtomicInteger();
+        int numberOfThreads = randomIntBetween(2, 8);
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        List<Thread> threads = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    String value = cache.computeIfAbsent(1, k -> {
+                        loads.incrementAndGet();
+                        return "1";
+                    });
+                    synchronized (results) {
+                        results.add(value);
+                    }
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        barrier.await();
+        barrier.await();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(numberOfThreads, results.size());
+        assertTrue(results.stream().allMatch("1"::equals));
+        assertEquals(1, cache.count());
+    }
+
+    public void testComputeIfAbsentThrows() {
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().build();
+        ExecutionException e = expectThrows(ExecutionException.class, () -> cache.computeIfAbsent(1, k -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        e = expectThrows(ExecutionException.class, () -> cache.computeIfAbsent(1, k -> null));
+        assertThat(e.getCause(), instanceOf(NullPointerException.class));
+        assertEquals(0, cache.count());
+        assertNull(cache.get(1));
+    }
+
+    public void testNotifications() {
+        List<RemovalNotification<Integer, String>> notifications = new ArrayList<>();
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().removalListener(notifications::add).build();
+        cache.put(1, "1");
+        cache.put(1, "one");
+        assertEquals(1, notifications.size());
+        assertEquals("1", notifications.get(0).getValue());
+        assertEquals(RemovalNotification.RemovalReason.REPLACED, notifications.get(0).getRemovalReason());
+        assertEquals(1, cache.count());
+
+        cache.invalidate(1, "1");
+        assertEquals(1, notifications.size());
+        cache.invalidate(1, "one");
+        assertEquals(2, notifications.size());
+        assertEquals(RemovalNotification.RemovalReason.INVALIDATED, notifications.get(1).getRemovalReason());
+        assertEquals(0, cache.count());
+
+        cache.put(2, "2");
+        cache.invalidate(2);
+        assertEquals(3, notifications.size());
+        assertEquals(Integer.valueOf(2), notifications.get(2).getKey());
+
+        int numberOfEntries = randomIntBetween(1, 100);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        notifications.clear();
+        cache.invalidateAll();
+        assertEquals(numberOfEntries, notifications.size());
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.weight());
+        assertFalse(cache.keys().iterator().hasNext());
+    }
+
+    public void testIteratorRemove() {
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().build();
+        int numberOfEntries = randomIntBetween(1, 100);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        Set<Integer> removed = new HashSet<>();
+        for (Iterator<Integer> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+            Integer key = iterator.next();
+            if (randomBoolean()) {
+                iterator.remove();
+                removed.add(key);
+            }
+        }
+        assertEquals(numberOfEntries - removed.size(), cache.count());
+        for (int i = 0; i < numberOfEntries; i++) {
+            assertEquals(removed.contains(i), cache.get(i) == null);
+        }
+    }
+
+    public void testExpireAfterAccess() throws ExecutionException {
+        AtomicLong now = new AtomicLong();
+        Cache<Integer, String> cache = new TinyLfuCache<Integer, String>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterAccessNanos(1);
+        List<Integer> evicted = new ArrayList<>();
+        cache.setRemovalListener(notification -> evicted.add(notification.getKey()));
+        cache.put(1, "1");
+        cache.put(2, "2");
+        now.set(1);
+        assertEquals("1", cache.get(1));
+        now.set(2);
+        assertNull(cache.get(2));
+        assertEquals("1", cache.get(1));
+        cache.refresh();
+        assertEquals(1, evicted.size());
+        assertEquals(Integer.valueOf(2), evicted.get(0));
+        assertEquals(1, cache.count());
+        now.set(10);
+        assertEquals("one", cache.computeIfAbsent(1, k -> "one"));
+        assertEquals(2, evicted.size());
+    }
+
+    public void testExpireAfterWriteViaBuilder() {
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder()
+            .setExpireAfterWrite(TimeValue.timeValueHours(1))
+            .build();
+        cache.put(1, "1");
+        assertEquals("1", cache.get(1));
+        assertEquals(TimeValue.timeValueHours(1).nanos(), cache.getExpireAfterWriteNanos());
+    }
+
+    // hammer the cache with concurrent reads and writes and check that the accounting is consistent afterwards
+    public void testConcurrentReadsAndWrites() throws Exception {
+        int maximumWeight = randomIntBetween(16, 512);
+        Cache<Integer, Integer> cache = TinyLfuCacheTests.<Integer, Integer>builder().setMaximumWeight(maximumWeight).build();
+        int numberOfThreads = randomIntBetween(2, 8);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    latch.await();
+                    for (int j = 0; j < 10_000; j++) {
+                        int key = randomIntBetween(0, 4 * maximumWeight);
+                        switch (randomIntBetween(0, 9)) {
+                            case 0:
+                                cache.put(key, key);
+                                break;
+                            case 1:
+                                cache.invalidate(key);
+                                break;
+                            case 2:
+                                assertEquals(Integer.valueOf(key), cache.computeIfAbsent(key, k -> k));
+                                break;
+                            default:
+                                Integer value = cache.get(key);
+                                assertTrue(value == null || value == key);
+                                break;
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        cache.refresh();
+        int entries = 0;
+        for (Integer ignored : cache.keys()) {
+            entries++;
+        }
+        assertEquals(entries, cache.count());
+        assertEquals(entries, cache.weight());
+        assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+    }
+
+    public void testFrequencySketch() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(512);
+        assertEquals(512, sketch.capacity());
+        int hashCode = randomInt();
+        assertEquals(0, sketch.frequency(hashCode));
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(hashCode);
+        }
+        // counters saturate at 15
+        assertEquals(15, sketch.frequency(hashCode));
+        sketch.reset();
+        assertEquals(7, sketch.frequency(hashCode));
+        // growing the sketch discards all frequencies
+        sketch.ensureCapacity(1000);
+        assertEquals(1024, sketch.capacity());
+        assertEquals(0, sketch.frequency(hashCode));
+    }
+}
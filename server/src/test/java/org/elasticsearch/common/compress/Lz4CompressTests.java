@@ -0,0 +1,68 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * Runs the streaming compression tests against {@link Lz4Compressor}.
+ */
+public class Lz4CompressTests extends DeflateCompressTests {
+
+    @Override
+    protected Compressor newCompressor() {
+        return new Lz4Compressor();
+    }
+
+    public void testDetectedByCompressorFactory() throws IOException {
+        byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 3 * Lz4Compressor.BLOCK_SIZE));
+        BytesStreamOutput bytesStreamOutput = new BytesStreamOutput();
+        try (StreamOutput out = CompressorFactory.LZ4.streamOutput(bytesStreamOutput)) {
+            out.writeBytes(bytes);
+        }
+        BytesReference compressed = bytesStreamOutput.bytes();
+        assertSame(CompressorFactory.LZ4, CompressorFactory.compressor(compressed));
+        assertFalse(CompressorFactory.COMPRESSOR.isCompressed(compressed));
+        assertEquals(new BytesArray(bytes), CompressorFactory.uncompress(compressed));
+    }
+
+    public void testReadsUpToTheEndOfTheStream() throws IOException {
+        BytesStreamOutput bytesStreamOutput = new BytesStreamOutput();
+        try (StreamOutput out = CompressorFactory.LZ4.streamOutput(bytesStreamOutput)) {
+            out.writeString("first");
+            out.flush();
+            out.writeVInt(42);
+        }
+        // trailing bytes after the compressed stream must not be consumed
+        bytesStreamOutput.writeByte((byte) 7);
+        StreamInput rawIn = bytesStreamOutput.bytes().streamInput();
+        StreamInput in = CompressorFactory.LZ4.streamInput(rawIn);
+        assertEquals("first", in.readString());
+        assertEquals(42, in.readVInt());
+        assertEquals(-1, in.read());
+        assertEquals(7, rawIn.readByte());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.frequency;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class BackgroundFrequencyCacheTests extends ESTestCase {
+
+    private static long frequency(BackgroundFrequencyCache cache, DirectoryReader reader, Query filter, Term term,
+                                  AtomicInteger loads) throws IOException {
+        long freq = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+            freq += cache.getOrCompute(ctx, filter, term, () -> {
+                loads.incrementAndGet();
+                return (long) ctx.reader().docFreq(term);
+            });
+        }
+        return freq;
+    }
+
+    private static IndexWriter newWriter() throws IOException {
+        IndexWriter writer = new IndexWriter(
+            new RAMDirectory(),
+            new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(new LogByteSizeMergePolicy())
+        );
+        for (int i = 0; i < 3; i++) {
+            Document document = new Document();
+            document.add(new StringField("field", "value", Field.Store.NO));
+            writer.addDocument(document);
+            writer.commit();
+        }
+        return writer;
+    }
+
+    public void testInvalidateEntries() throws Exception {
+        IndexWriter writer = newWriter();
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+        BackgroundFrequencyCache cache = new BackgroundFrequencyCache(IndexSettingsModule.newIndexSettings("test", Settings.EMPTY));
+        Term term = new Term("field", "value");
+        Query filter = new TermQuery(new Term("other", "value"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(frequency(cache, reader, null, term, loads), equalTo(3L));
+        assertThat(loads.get(), equalTo(3));
+        // now cached
+        assertThat(frequency(cache, reader, null, term, loads), equalTo(3L));
+        assertThat(loads.get(), equalTo(3));
+        // the background filter is part of the key
+        assertThat(frequency(cache, reader, filter, term, loads), equalTo(3L));
+        assertThat(loads.get(), equalTo(6));
+        // There are 3 segments and 2 filters
+        assertThat(cache.count(), equalTo(6));
+
+        writer.forceMerge(1);
+        reader.close();
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+
+        assertThat(frequency(cache, reader, null, term, loads), equalTo(3L));
+        assertThat(loads.get(), equalTo(7));
+        // Only one segment now, the entries of the closed segments are dropped
+        assertThat(cache.count(), equalTo(1));
+
+        cache.clear("test");
+        assertThat(cache.count(), equalTo(0));
+
+        reader.close();
+        writer.close();
+    }
+
+    public void testClosingAReaderOnlyDropsItsEntries() throws Exception {
+        IndexWriter writer = newWriter();
+        IndexWriter otherWriter = newWriter();
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+        DirectoryReader otherReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(otherWriter),
+            new ShardId("test", "_na_", 1));
+        BackgroundFrequencyCache cache = new BackgroundFrequencyCache(IndexSettingsModule.newIndexSettings("test", Settings.EMPTY));
+        Term term = new Term("field", "value");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(frequency(cache, reader, null, term, loads), equalTo(3L));
+        assertThat(frequency(cache, otherReader, null, term, loads), equalTo(3L));
+        assertThat(cache.count(), equalTo(6));
+
+        reader.close();
+        assertThat(cache.count(), equalTo(3));
+        // the entries of the other reader are still cached
+        assertThat(frequency(cache, otherReader, null, term, loads), equalTo(3L));
+        assertThat(loads.get(), equalTo(6));
+
+        otherReader.close();
+        assertThat(cache.count(), equalTo(0));
+        writer.close();
+        otherWriter.close();
+    }
+
+    public void testDisabled() throws Exception {
+        IndexWriter writer = newWriter();
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 0));
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("test", Settings.builder()
+            .put(BackgroundFrequencyCache.INDEX_BACKGROUND_FREQUENCY_CACHE_SIZE_SETTING.getKey(), "0b").build());
+        BackgroundFrequencyCache cache = new BackgroundFrequencyCache(indexSettings);
+        Term term = new Term("field", "value");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(frequency(cache, reader, null, term, loads), equalTo(3L));
+        assertThat(frequency(cache, reader, null, term, loads), equalTo(3L));
+        assertThat(loads.get(), equalTo(6));
+        assertThat(cache.count(), equalTo(0));
+
+        reader.close();
+        writer.close();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PagedVersionMapTests extends ESTestCase {
+
+    private PagedVersionMap newMap() {
+        final BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        return new PagedVersionMap(bigArrays);
+    }
+
+    public void testBasics() {
+        try (PagedVersionMap map = newMap()) {
+            assertTrue(map.isEmpty());
+            final IndexVersionValue value = new IndexVersionValue(new Translog.Location(1, 2, 3), 4, 5, 6);
+            assertThat(map.put(new BytesRef("foo"), value), nullValue());
+            assertThat(map.get(new BytesRef("foo")), equalTo(value));
+            assertThat(map.get(new BytesRef("bar")), nullValue());
+            assertThat(map.size(), equalTo(1));
+
+            final IndexVersionValue update = new IndexVersionValue(null, 7, 8, 9);
+            assertThat(map.put(new BytesRef("foo"), update), equalTo(value));
+            assertThat(map.get(new BytesRef("foo")), equalTo(update));
+            assertThat(map.size(), equalTo(1));
+
+            assertThat(map.remove(new BytesRef("foo")), equalTo(update));
+            assertThat(map.get(new BytesRef("foo")), nullValue());
+            assertThat(map.remove(new BytesRef("foo")), nullValue());
+            assertTrue(map.isEmpty());
+
+            // a removed uid can be added again
+            assertThat(map.put(new BytesRef("foo"), value), nullValue());
+            assertThat(map.get(new BytesRef("foo")), equalTo(value));
+            assertThat(map.size(), equalTo(1));
+        }
+    }
+
+    public void testRandomOperations() {
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        try (PagedVersionMap map = newMap()) {
+            final int numOps = scaledRandomIntBetween(100, 10000);
+            for (int i = 0; i < numOps; i++) {
+                final BytesRef uid = new BytesRef(Integer.toString(randomInt(numOps / 4)));
+                if (randomBoolean()) {
+                    final IndexVersionValue value = randomIndexVersionValue();
+                    assertThat(map.put(uid, value), equalTo(expected.put(uid, value)));
+                } else if (randomBoolean()) {
+                    assertThat(map.remove(uid), equalTo(expected.remove(uid)));
+                } else {
+                    assertThat(map.get(uid), equalTo(expected.get(uid)));
+                }
+                assertThat(map.size(), equalTo(expected.size()));
+            }
+            assertThat(map.snapshot(), equalTo(expected));
+        }
+    }
+
+    public void testRamBytesUsed() {
+        try (PagedVersionMap map = newMap()) {
+            final long emptyRamBytesUsed = map.ramBytesUsed();
+            assertThat(emptyRamBytesUsed, greaterThan(0L));
+            for (int i = 0; i < 10000; i++) {
+                map.put(new BytesRef(Integer.toString(i)), randomIndexVersionValue());
+            }
+            assertThat(map.ramBytesUsed(), greaterThan(emptyRamBytesUsed));
+        }
+    }
+
+    private IndexVersionValue randomIndexVersionValue() {
+        final Translog.Location location =
+            randomBoolean() ? null : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
+}
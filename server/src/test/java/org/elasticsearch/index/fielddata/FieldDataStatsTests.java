@@ -25,13 +25,25 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class FieldDataStatsTests extends ESTestCase {
 
     public void testSerialize() throws IOException {
         FieldMemoryStats map = randomBoolean() ? null : FieldMemoryStatsTests.randomFieldMemoryStats();
+        Map<String, GlobalOrdinalsStats.FieldStats> globalOrdinalsFields = null;
+        if (randomBoolean()) {
+            globalOrdinalsFields = new HashMap<>();
+            for (int i = randomInt(5); i > 0; i--) {
+                globalOrdinalsFields.put(randomAlphaOfLength(8), new GlobalOrdinalsStats.FieldStats(randomNonNegativeLong(),
+                    randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()));
+            }
+        }
+        GlobalOrdinalsStats globalOrdinals = new GlobalOrdinalsStats(randomNonNegativeLong(), randomNonNegativeLong(),
+            randomNonNegativeLong(), globalOrdinalsFields);
         FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map == null ? null :
-            map);
+            map, globalOrdinals);
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
         FieldDataStats read = new FieldDataStats();
@@ -41,5 +53,6 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(stats.evictions, read.evictions);
         assertEquals(stats.memorySize, read.memorySize);
         assertEquals(stats.getFields(), read.getFields());
+        assertEquals(stats.getGlobalOrdinals(), read.getGlobalOrdinals());
     }
 }
@@ -22,17 +22,24 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.SortedNumericDVIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.SortedSetDVOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.BooleanFieldMapper;
@@ -57,6 +64,7 @@ import java.util.Collection;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class IndexFieldDataServiceTests extends ESSingleNodeTestCase {
 
@@ -160,6 +168,84 @@ public class IndexFieldDataServiceTests extends ESSingleNodeTestCase {
         ifdService.clear();
     }
 
+    public void testRetainedGlobalOrdinalsAreAccounted() throws Exception {
+        final IndexService indexService = createIndex("test", Settings.builder()
+            .put(IndexFieldDataService.INDEX_GLOBAL_ORDINALS_INCREMENTAL.getKey(), true).build());
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexFieldDataService ifdService = new IndexFieldDataService(indexService.getIndexSettings(),
+            indicesService.getIndicesFieldDataCache(), indicesService.getCircuitBreakerService(), indexService.mapperService());
+        final CircuitBreaker breaker = indicesService.getCircuitBreakerService().getBreaker(CircuitBreaker.FIELDDATA);
+        final BuilderContext ctx = new BuilderContext(indexService.getIndexSettings().getSettings(), new ContentPath(1));
+        final MappedFieldType mapper = new KeywordFieldMapper.Builder("s").build(ctx).fieldType();
+        final ShardId shardId = new ShardId("test", "_na_", 1);
+        try (IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new KeywordAnalyzer()))) {
+            // two segments, global ordinals are only built for readers with several segments
+            for (int i = 0; i < 2; i++) {
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField("s", new BytesRef("value" + i)));
+                writer.addDocument(doc);
+                writer.commit();
+            }
+            final long usedBefore = breaker.getUsed();
+            final DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId);
+            final IndexOrdinalsFieldData ifd = ifdService.getForField(mapper);
+            ifd.loadGlobal(reader);
+            final long usedWithGlobalOrdinals = breaker.getUsed();
+            assertThat(usedWithGlobalOrdinals, greaterThan(usedBefore));
+
+            // the map is kept to build the global ordinals of the next reader and stays accounted for once its reader is closed
+            reader.close();
+            assertEquals(usedWithGlobalOrdinals, breaker.getUsed());
+
+            ifdService.clearShard(shardId);
+            assertEquals(usedBefore, breaker.getUsed());
+        }
+    }
+
+    public void testLazilyBuiltOrdinalMapIsAccounted() throws Exception {
+        final IndexService indexService = createIndex("test", Settings.builder()
+            .put(IndexFieldDataService.INDEX_GLOBAL_ORDINALS_INCREMENTAL.getKey(), true).build());
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexFieldDataService ifdService = new IndexFieldDataService(indexService.getIndexSettings(),
+            indicesService.getIndicesFieldDataCache(), indicesService.getCircuitBreakerService(), indexService.mapperService());
+        final CircuitBreaker breaker = indicesService.getCircuitBreakerService().getBreaker(CircuitBreaker.FIELDDATA);
+        final BuilderContext ctx = new BuilderContext(indexService.getIndexSettings().getSettings(), new ContentPath(1));
+        final MappedFieldType mapper = new KeywordFieldMapper.Builder("s").build(ctx).fieldType();
+        final ShardId shardId = new ShardId("test", "_na_", 1);
+        final IndexWriterConfig config = new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter writer = new IndexWriter(new RAMDirectory(), config)) {
+            for (int i = 0; i < 2; i++) {
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField("s", new BytesRef("value" + i)));
+                writer.addDocument(doc);
+                writer.commit();
+            }
+            final long usedBefore = breaker.getUsed();
+            final IndexOrdinalsFieldData ifd = ifdService.getForField(mapper);
+            final DirectoryReader first = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId);
+            ifd.loadGlobal(first);
+
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("s", new BytesRef("value2")));
+            writer.addDocument(doc);
+            writer.commit();
+            final DirectoryReader second = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId);
+            final GlobalOrdinalsIndexFieldData globalOrdinals = (GlobalOrdinalsIndexFieldData) ifd.loadGlobal(second);
+            assertTrue(globalOrdinals.isIncrementalBuild());
+            final long usedWithGlobalOrdinals = breaker.getUsed();
+
+            // global ordinals that were built incrementally build a Lucene ordinal map on demand, which is accounted for as well
+            final OrdinalMap ordinalMap = globalOrdinals.getOrdinalMap();
+            assertEquals(usedWithGlobalOrdinals + ordinalMap.ramBytesUsed(), breaker.getUsed());
+            assertSame(ordinalMap, globalOrdinals.getOrdinalMap());
+            assertEquals(usedWithGlobalOrdinals + ordinalMap.ramBytesUsed(), breaker.getUsed());
+
+            IOUtils.close(first, second);
+            ifdService.clearShard(shardId);
+            assertEquals(usedBefore, breaker.getUsed());
+        }
+    }
+
     public void testFieldDataCacheListener() throws Exception {
         final IndexService indexService = createIndex("test");
         final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
@@ -0,0 +1,176 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+public class GlobalOrdinalsBuilderTests extends ESTestCase {
+
+    public void testIncrementalBuildMatchesFullBuild() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            int id = 0;
+            indexDocs(writer, id, id += randomIntBetween(1, 200));
+            DirectoryReader reader = DirectoryReader.open(writer);
+            GlobalOrdinalMap previous = fullBuild(reader);
+            final int iters = randomIntBetween(3, 10);
+            for (int i = 0; i < iters; i++) {
+                final int action = randomInt(3);
+                if (action == 0 || action == 1) {
+                    indexDocs(writer, id, id += randomIntBetween(1, 200));
+                }
+                if (action == 1 || action == 2) {
+                    for (int j = randomIntBetween(1, 50); j > 0; j--) {
+                        writer.deleteDocuments(new Term("id", Integer.toString(randomInt(id))));
+                    }
+                }
+                if (action == 3 || randomInt(5) == 0) {
+                    writer.forceMerge(randomIntBetween(1, 3));
+                }
+                final DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+                if (newReader != null) {
+                    reader.close();
+                    reader = newReader;
+                }
+                final GlobalOrdinalMap incremental = incrementalBuild(previous, reader);
+                if (incremental == null) {
+                    previous = fullBuild(reader);
+                } else {
+                    assertSameOrdinals(reader, incremental);
+                    previous = incremental;
+                }
+            }
+            reader.close();
+        }
+    }
+
+    public void testOnlyRemovedSegments() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            int numSegments = randomIntBetween(2, 5);
+            for (int i = 0; i < numSegments; i++) {
+                indexDocs(writer, i * 100, (i + 1) * 100);
+                writer.flush();
+            }
+            DirectoryReader reader = DirectoryReader.open(writer);
+            final GlobalOrdinalMap previous = fullBuild(reader);
+            // drop all the documents of one segment, which removes it from the next reader
+            final int segment = randomInt(reader.leaves().size() - 1);
+            for (int doc = 0; doc < reader.leaves().get(segment).reader().maxDoc(); doc++) {
+                writer.deleteDocuments(new Term("id", reader.leaves().get(segment).reader().document(doc).get("id")));
+            }
+            final DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+            assertNotNull(newReader);
+            reader.close();
+            reader = newReader;
+            final GlobalOrdinalMap incremental = incrementalBuild(previous, reader);
+            if (reader.leaves().size() > 0) {
+                assertNotNull(incremental);
+                assertSameOrdinals(reader, incremental);
+                assertNull(incremental.getOrdinalMap());
+            }
+            reader.close();
+        }
+    }
+
+    private static void indexDocs(IndexWriter writer, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            final Document doc = new Document();
+            doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            for (int j = randomInt(3); j > 0; j--) {
+                doc.add(new SortedSetDocValuesField("field", new BytesRef(randomAlphaOfLengthBetween(1, 3))));
+            }
+            writer.addDocument(doc);
+        }
+    }
+
+    private static SortedSetDocValues[] subs(IndexReader reader) throws IOException {
+        final SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (int i = 0; i < subs.length; i++) {
+            subs[i] = DocValues.getSortedSet(reader.leaves().get(i).reader(), "field");
+        }
+        return subs;
+    }
+
+    private static IndexReader.CacheKey[] segmentKeys(IndexReader reader) {
+        final IndexReader.CacheKey[] keys = new IndexReader.CacheKey[reader.leaves().size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = reader.leaves().get(i).reader().getCoreCacheHelper().getKey();
+        }
+        return keys;
+    }
+
+    private static long[] valueCounts(SortedSetDocValues[] subs) {
+        final long[] valueCounts = new long[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            valueCounts[i] = subs[i].getValueCount();
+        }
+        return valueCounts;
+    }
+
+    private static GlobalOrdinalMap fullBuild(IndexReader reader) throws IOException {
+        final SortedSetDocValues[] subs = subs(reader);
+        return GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs, PackedInts.DEFAULT), segmentKeys(reader), valueCounts(subs));
+    }
+
+    private static GlobalOrdinalMap incrementalBuild(GlobalOrdinalMap previous, IndexReader reader) throws IOException {
+        final SortedSetDocValues[] subs = subs(reader);
+        return GlobalOrdinalsBuilder.buildIncremental(previous, subs, segmentKeys(reader), valueCounts(subs));
+    }
+
+    private static void assertSameOrdinals(IndexReader reader, GlobalOrdinalMap actual) throws IOException {
+        final SortedSetDocValues[] subs = subs(reader);
+        final OrdinalMap expected = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        assertEquals(expected.getValueCount(), actual.getValueCount());
+        assertEquals(subs.length, actual.getSegmentCount());
+        for (int i = 0; i < subs.length; i++) {
+            final LongValues expectedGlobalOrds = expected.getGlobalOrds(i);
+            final LongValues actualGlobalOrds = actual.getGlobalOrds(i);
+            for (long ord = 0; ord < subs[i].getValueCount(); ord++) {
+                assertEquals(expectedGlobalOrds.get(ord), actualGlobalOrds.get(ord));
+            }
+        }
+        final SortedSetDocValues[] lookups = subs(reader);
+        for (long globalOrd = 0; globalOrd < expected.getValueCount(); globalOrd++) {
+            final BytesRef expectedTerm = BytesRef.deepCopyOf(
+                lookups[expected.getFirstSegmentNumber(globalOrd)].lookupOrd(expected.getFirstSegmentOrd(globalOrd)));
+            final BytesRef actualTerm =
+                lookups[actual.getFirstSegmentNumber(globalOrd)].lookupOrd(actual.getFirstSegmentOrd(globalOrd));
+            assertEquals(expectedTerm, actualTerm);
+        }
+    }
+}
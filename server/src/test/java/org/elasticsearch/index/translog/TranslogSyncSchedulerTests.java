@@ -0,0 +1,262 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TranslogSyncSchedulerTests extends ESTestCase {
+
+    private static TranslogSyncScheduler newScheduler(String maxWait) {
+        final Settings settings = Settings.builder().put(TranslogSyncScheduler.MAX_WAIT_SETTING.getKey(), maxWait).build();
+        return new TranslogSyncScheduler(settings, new ThreadContext(settings));
+    }
+
+    public void testDisabledByDefault() {
+        try (TranslogSyncScheduler scheduler = new TranslogSyncScheduler(Settings.EMPTY, new ThreadContext(Settings.EMPTY))) {
+            assertFalse(scheduler.isEnabled());
+        }
+        try (TranslogSyncScheduler scheduler = newScheduler("0ms")) {
+            assertFalse(scheduler.isEnabled());
+        }
+        try (TranslogSyncScheduler scheduler = newScheduler("5ms")) {
+            assertTrue(scheduler.isEnabled());
+        }
+        expectThrows(IllegalArgumentException.class, () -> newScheduler("-1ms"));
+        expectThrows(IllegalArgumentException.class, () -> newScheduler("2s"));
+    }
+
+    public void testCoalescesSyncsOfTheSameTarget() throws Exception {
+        try (TranslogSyncScheduler scheduler = newScheduler("1ms")) {
+            final Path dataPath = createTempDir();
+            final CountDownLatch firstRoundStarted = new CountDownLatch(1);
+            final CountDownLatch releaseFirstRound = new CountDownLatch(1);
+            final List<List<Translog.Location>> rounds = new CopyOnWriteArrayList<>();
+            final List<Thread> roundThreads = new CopyOnWriteArrayList<>();
+            final TranslogSyncScheduler.Target target = locations -> {
+                rounds.add(locations.collect(Collectors.toList()));
+                roundThreads.add(Thread.currentThread());
+                firstRoundStarted.countDown();
+                try {
+                    releaseFirstRound.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            };
+            final Translog.Location first = new Translog.Location(1, 0, 10);
+            final int numSyncs = randomIntBetween(2, 10);
+            final CountDownLatch notified = new CountDownLatch(numSyncs + 1);
+            final Thread leader = new Thread(() -> scheduler.sync(dataPath, target, first, e -> {
+                assertThat(e, nullValue());
+                notified.countDown();
+            }));
+            leader.start();
+            assertTrue(firstRoundStarted.await(10, TimeUnit.SECONDS));
+
+            // the leader is busy syncing the first round, these syncs are queued and returned immediately
+            final List<Translog.Location> queued = new ArrayList<>();
+            for (int i = 0; i < numSyncs; i++) {
+                final Translog.Location location = new Translog.Location(1, 10 * (i + 1), 10);
+                queued.add(location);
+                scheduler.sync(dataPath, target, location, e -> {
+                    assertThat(e, nullValue());
+                    notified.countDown();
+                });
+            }
+            assertThat(notified.getCount(), equalTo((long) numSyncs + 1));
+            releaseFirstRound.countDown();
+            assertTrue(notified.await(10, TimeUnit.SECONDS));
+            leader.join();
+
+            assertThat(rounds.size(), equalTo(2));
+            assertThat(rounds.get(0), containsInAnyOrder(first));
+            assertThat(rounds.get(1), equalTo(queued));
+            // the leader only syncs a single round, the next one is handed over to the executor
+            assertThat(roundThreads.get(0), sameInstance(leader));
+            assertThat(roundThreads.get(1), not(sameInstance(leader)));
+        }
+    }
+
+    public void testSyncsTargetsOfARoundInParallel() throws Exception {
+        // the next round runs on an executor thread that needs another one to sync the second target concurrently
+        final Settings settings = Settings.builder()
+            .put(TranslogSyncScheduler.MAX_WAIT_SETTING.getKey(), "1ms")
+            .put(EsExecutors.PROCESSORS_SETTING.getKey(), randomIntBetween(2, 8))
+            .build();
+        try (TranslogSyncScheduler scheduler = new TranslogSyncScheduler(settings, new ThreadContext(settings))) {
+            final Path dataPath = createTempDir();
+            final CountDownLatch leaderBlocked = new CountDownLatch(1);
+            final CountDownLatch releaseLeader = new CountDownLatch(1);
+            final TranslogSyncScheduler.Target blocking = locations -> {
+                leaderBlocked.countDown();
+                try {
+                    releaseLeader.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            };
+            final Thread leader = new Thread(() -> scheduler.sync(dataPath, blocking, new Translog.Location(1, 0, 10), e -> {}));
+            leader.start();
+            assertTrue(leaderBlocked.await(10, TimeUnit.SECONDS));
+
+            // both targets join the next round, which can only complete if they are synced concurrently
+            final CyclicBarrier bothSyncing = new CyclicBarrier(2);
+            final TranslogSyncScheduler.Target waiting = locations -> {
+                try {
+                    bothSyncing.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            };
+            final TranslogSyncScheduler.Target otherWaiting = locations -> {
+                try {
+                    bothSyncing.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            };
+            final CountDownLatch done = new CountDownLatch(2);
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            for (TranslogSyncScheduler.Target target : Arrays.asList(waiting, otherWaiting)) {
+                scheduler.sync(dataPath, target, new Translog.Location(1, 0, 10), e -> {
+                    if (e != null) {
+                        failure.set(e);
+                    }
+                    done.countDown();
+                });
+            }
+            releaseLeader.countDown();
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertThat(failure.get(), nullValue());
+            leader.join();
+        }
+    }
+
+    public void testFailureIsOnlyPropagatedToTheFailingTarget() throws Exception {
+        try (TranslogSyncScheduler scheduler = newScheduler("1ms")) {
+            final Path dataPath = createTempDir();
+            final IOException failure = new IOException("boom");
+            final CountDownLatch firstRoundStarted = new CountDownLatch(1);
+            final CountDownLatch releaseFirstRound = new CountDownLatch(1);
+            final TranslogSyncScheduler.Target blocking = locations -> {
+                firstRoundStarted.countDown();
+                try {
+                    releaseFirstRound.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            };
+            final TranslogSyncScheduler.Target failing = locations -> {
+                throw failure;
+            };
+            final TranslogSyncScheduler.Target succeeding = locations -> {};
+
+            final Thread leader = new Thread(() -> scheduler.sync(dataPath, blocking, new Translog.Location(1, 0, 10), e -> {}));
+            leader.start();
+            assertTrue(firstRoundStarted.await(10, TimeUnit.SECONDS));
+
+            final AtomicReference<Exception> failingResult = new AtomicReference<>();
+            final AtomicReference<Exception> succeedingResult = new AtomicReference<>();
+            final CountDownLatch done = new CountDownLatch(2);
+            scheduler.sync(dataPath, failing, new Translog.Location(1, 0, 10), e -> {
+                failingResult.set(e);
+                done.countDown();
+            });
+            scheduler.sync(dataPath, succeeding, new Translog.Location(1, 0, 10), e -> {
+                succeedingResult.set(e);
+                done.countDown();
+            });
+            releaseFirstRound.countDown();
+            leader.join();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertThat(failingResult.get(), sameInstance(failure));
+            assertThat(succeedingResult.get(), nullValue());
+        }
+    }
+
+    public void testConcurrentSyncs() throws Exception {
+        try (TranslogSyncScheduler scheduler = newScheduler(randomFrom("1ms", "5ms"))) {
+            final Path[] dataPaths = new Path[randomIntBetween(1, 3)];
+            for (int i = 0; i < dataPaths.length; i++) {
+                dataPaths[i] = createTempDir();
+            }
+            final int numTargets = randomIntBetween(1, 5);
+            final AtomicInteger[] synced = new AtomicInteger[numTargets];
+            final TranslogSyncScheduler.Target[] targets = new TranslogSyncScheduler.Target[numTargets];
+            for (int i = 0; i < numTargets; i++) {
+                final AtomicInteger counter = synced[i] = new AtomicInteger();
+                targets[i] = locations -> counter.addAndGet((int) locations.count());
+            }
+            final int numThreads = randomIntBetween(2, 8);
+            final int syncsPerThread = scaledRandomIntBetween(10, 200);
+            final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+            final CountDownLatch notified = new CountDownLatch(numThreads * syncsPerThread);
+            final Thread[] threads = new Thread[numThreads];
+            for (int t = 0; t < numThreads; t++) {
+                final int targetIndex = t % numTargets;
+                final Path dataPath = dataPaths[targetIndex % dataPaths.length];
+                threads[t] = new Thread(() -> {
+                    try {
+                        barrier.await();
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                    for (int i = 0; i < syncsPerThread; i++) {
+                        scheduler.sync(dataPath, targets[targetIndex], new Translog.Location(1, i, 1), e -> {
+                            assertThat(e, nullValue());
+                            notified.countDown();
+                        });
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(notified.await(10, TimeUnit.SECONDS));
+            int total = 0;
+            for (AtomicInteger counter : synced) {
+                total += counter.get();
+            }
+            assertThat(total, equalTo(numThreads * syncsPerThread));
+        }
+    }
+}
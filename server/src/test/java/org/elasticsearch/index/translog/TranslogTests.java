@@ -426,6 +426,8 @@ public class TranslogTests extends ESTestCase {
             assertThat(stats.getUncommittedOperations(), equalTo(1));
             assertThat(stats.getUncommittedSizeInBytes(), equalTo(164L));
             assertThat(stats.getEarliestLastModifiedAge(), greaterThan(1L));
+            assertThat(stats.getSyncStats().getCount(), greaterThan(0L));
+            assertThat(Arrays.stream(stats.getSyncStats().getBuckets()).sum(), equalTo(stats.getSyncStats().getCount()));
         }
 
         translog.add(new Translog.Delete("test", "2", 1, primaryTerm.get(), newUid("2")));
@@ -479,13 +481,23 @@ public class TranslogTests extends ESTestCase {
             assertThat(copy.estimatedNumberOfOperations(), equalTo(4));
             assertThat(copy.getTranslogSizeInBytes(), equalTo(expectedSizeInBytes));
 
+            assertThat(copy.getSyncStats(), equalTo(stats.getSyncStats()));
+
+            final String syncStats;
+            try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+                builder.startObject();
+                copy.getSyncStats().toXContent(builder, ToXContent.EMPTY_PARAMS);
+                builder.endObject();
+                final String json = Strings.toString(builder);
+                syncStats = json.substring(1, json.length() - 1);
+            }
             try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
                 builder.startObject();
                 copy.toXContent(builder, ToXContent.EMPTY_PARAMS);
                 builder.endObject();
                 assertThat(Strings.toString(builder), equalTo("{\"translog\":{\"operations\":4,\"size_in_bytes\":" + expectedSizeInBytes
                     + ",\"uncommitted_operations\":4,\"uncommitted_size_in_bytes\":" + expectedSizeInBytes
-                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge() + "}}"));
+                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge() + "," + syncStats + "}}"));
             }
         }
 
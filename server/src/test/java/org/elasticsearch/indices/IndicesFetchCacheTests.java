@@ -0,0 +1,174 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+public class IndicesFetchCacheTests extends ESTestCase {
+
+    public void testBasicOperationsCache() throws Exception {
+        CircuitBreakerService breakerService = newBreakerService(Settings.EMPTY);
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FETCH_CACHE);
+        IndicesFetchCache cache = new IndicesFetchCache(Settings.EMPTY, breakerService);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc("{\"foo\":\"bar\"}", "bar"));
+        writer.addDocument(newDoc("{\"foo\":\"baz\"}", "baz"));
+        writer.forceMerge(1);
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        LeafReader leaf = getOnlyLeafReader(reader);
+
+        // initial load
+        FieldsVisitor visitor = new FieldsVisitor(true);
+        cache.loadStoredFields(leaf, 0, visitor, true, Collections.emptySet());
+        assertEquals(source(leaf, 0), visitor.source());
+        assertEquals(1, cache.count());
+        assertEquals(1, cache.numRegisteredCloseListeners());
+        long used = breaker.getUsed();
+        assertTrue(used > 0);
+
+        // another document, the visitor needs to be reset like the fetch phase does
+        visitor.reset();
+        cache.loadStoredFields(leaf, 1, visitor, true, Collections.emptySet());
+        assertEquals(source(leaf, 1), visitor.source());
+        assertEquals(2, cache.count());
+        assertTrue(breaker.getUsed() > used);
+
+        // cache hit
+        visitor.reset();
+        cache.loadStoredFields(leaf, 0, visitor, true, Collections.emptySet());
+        assertEquals(source(leaf, 0), visitor.source());
+        assertEquals(2, cache.count());
+        assertEquals(1, cache.numRegisteredCloseListeners());
+
+        // loading other fields of the same document is a different entry
+        Set<String> storedFields = Collections.singleton("field");
+        CustomFieldsVisitor customVisitor = new CustomFieldsVisitor(storedFields, false);
+        cache.loadStoredFields(leaf, 0, customVisitor, false, storedFields);
+        assertNull(customVisitor.source());
+        assertEquals(Collections.singletonList(leaf.document(0).get("field")), customVisitor.fields().get("field"));
+        assertEquals(3, cache.count());
+        customVisitor = new CustomFieldsVisitor(storedFields, false);
+        cache.loadStoredFields(leaf, 0, customVisitor, false, storedFields);
+        assertEquals(Collections.singletonList(leaf.document(0).get("field")), customVisitor.fields().get("field"));
+        assertEquals(3, cache.count());
+
+        // closing the segments cleans their entries, the writer holds on to the segments of its near real-time readers too
+        IOUtils.close(reader, writer);
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.numRegisteredCloseListeners());
+        assertEquals(0, breaker.getUsed());
+
+        IOUtils.close(dir, cache);
+    }
+
+    public void testCloseReleasesBreaker() throws Exception {
+        CircuitBreakerService breakerService = newBreakerService(Settings.EMPTY);
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FETCH_CACHE);
+        IndicesFetchCache cache = new IndicesFetchCache(Settings.EMPTY, breakerService);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        int numDocs = randomIntBetween(1, 20);
+        for (int i = 0; i < numDocs; i++) {
+            writer.addDocument(newDoc("{\"foo\":" + i + "}", Integer.toString(i)));
+        }
+        writer.forceMerge(1);
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        LeafReader leaf = getOnlyLeafReader(reader);
+        for (int i = 0; i < numDocs; i++) {
+            cache.loadStoredFields(leaf, i, new FieldsVisitor(true), true, Collections.emptySet());
+        }
+        assertEquals(numDocs, cache.count());
+        assertTrue(breaker.getUsed() > 0);
+
+        cache.close();
+        assertEquals(0, cache.count());
+        assertEquals(0, breaker.getUsed());
+        IOUtils.close(reader, writer, dir);
+    }
+
+    public void testBreakerPreventsCaching() throws Exception {
+        Settings settings = Settings.builder()
+            .put(HierarchyCircuitBreakerService.FETCH_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "10b")
+            .build();
+        CircuitBreakerService breakerService = newBreakerService(settings);
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FETCH_CACHE);
+        IndicesFetchCache cache = new IndicesFetchCache(Settings.EMPTY, breakerService);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc("{\"foo\":\"bar\"}", "bar"));
+        writer.forceMerge(1);
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        LeafReader leaf = getOnlyLeafReader(reader);
+
+        // the document is still loaded, it's just not cached
+        FieldsVisitor visitor = new FieldsVisitor(true);
+        cache.loadStoredFields(leaf, 0, visitor, true, Collections.emptySet());
+        assertEquals(source(leaf, 0), visitor.source());
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.numRegisteredCloseListeners());
+        assertEquals(0, breaker.getUsed());
+        assertEquals(1, breaker.getTrippedCount());
+
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    private static CircuitBreakerService newBreakerService(Settings settings) {
+        return new HierarchyCircuitBreakerService(settings,
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+    }
+
+    private static BytesArray source(LeafReader reader, int docId) throws IOException {
+        return new BytesArray(reader.document(docId).getBinaryValue(SourceFieldMapper.NAME));
+    }
+
+    private static Document newDoc(String source, String value) {
+        Document document = new Document();
+        document.add(new StoredField(SourceFieldMapper.NAME, new BytesRef(source)));
+        document.add(new StringField("field", value, Field.Store.YES));
+        return document;
+    }
+}
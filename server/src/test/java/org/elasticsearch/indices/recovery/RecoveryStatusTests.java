@@ -20,10 +20,14 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
@@ -38,7 +42,8 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
 
         IndexShard indexShard = service.getShardOrNull(0);
         MultiFileWriter multiFileWriter = new MultiFileWriter(indexShard.store(),
-            indexShard.recoveryState().getIndex(), "recovery.test.", logger, () -> {});
+            indexShard.recoveryState().getIndex(), "recovery.test.", logger, () -> {},
+            new NoopCircuitBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS));
         try (IndexOutput indexOutput = multiFileWriter.openAndPutIndexOutput("foo.bar",
             new StoreFileMetaData("foo.bar", 8 + CodecUtil.footerLength(), "9z51nw", MIN_SUPPORTED_LUCENE_VERSION), indexShard.store())) {
             indexOutput.writeInt(1);
@@ -73,4 +78,21 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
         assertFalse(strings.toString(), strings.contains(expectedFile));
         multiFileWriter.close();
     }
+
+    public void testPendingChunksAreAccountedInTheInFlightBreaker() throws IOException {
+        IndexService service = createIndex("foo");
+
+        IndexShard indexShard = service.getShardOrNull(0);
+        CircuitBreaker breaker = getInstanceFromNode(CircuitBreakerService.class).getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS);
+        final long usedBefore = breaker.getUsed();
+        MultiFileWriter multiFileWriter = new MultiFileWriter(indexShard.store(),
+            indexShard.recoveryState().getIndex(), "recovery.test.", logger, () -> {}, breaker);
+        StoreFileMetaData md = new StoreFileMetaData("foo.bar", 64, "9z51nw", MIN_SUPPORTED_LUCENE_VERSION);
+        int length = between(1, 32);
+        // the chunk at position 0 is missing, so this one is buffered until the writer is closed
+        multiFileWriter.writeFileChunk(md, 32, new BytesArray(new byte[length]), true);
+        assertEquals(usedBefore + length, breaker.getUsed());
+        multiFileWriter.close();
+        assertEquals(usedBefore, breaker.getUsed());
+    }
 }
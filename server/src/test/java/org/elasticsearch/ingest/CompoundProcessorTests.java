@@ -23,16 +23,20 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.LongSupplier;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -278,6 +282,87 @@ public class CompoundProcessorTests extends ESTestCase {
         assertStats(pipeline, 1, 1, 0);
     }
 
+    public void testBatchExecution() throws Exception {
+        TestProcessor firstProcessor = new TestProcessor("id1", "first", ingestDocument -> {
+            if (ingestDocument.hasField("fail")) {
+                throw new RuntimeException("error");
+            }
+        });
+        Processor secondProcessor = new AbstractProcessor("id2") {
+            @Override
+            public IngestDocument execute(IngestDocument ingestDocument) {
+                return ingestDocument.hasField("drop") ? null : ingestDocument;
+            }
+
+            @Override
+            public String getType() {
+                return "second";
+            }
+        };
+        TestProcessor onFailureProcessor = new TestProcessor(ingestDocument -> ingestDocument.setFieldValue("handled", true));
+        LongSupplier relativeTimeProvider = mock(LongSupplier.class);
+        when(relativeTimeProvider.getAsLong()).thenReturn(0L);
+        CompoundProcessor compoundProcessor = new CompoundProcessor(false, Arrays.asList(firstProcessor, secondProcessor),
+            Collections.singletonList(onFailureProcessor), relativeTimeProvider);
+        assertThat(compoundProcessor.supportsBatchExecution(), is(true));
+
+        List<IngestDocument> documents = new ArrayList<>();
+        for (String field : Arrays.asList("keep", "fail", "drop", "keep")) {
+            Map<String, Object> source = new HashMap<>();
+            source.put(field, true);
+            documents.add(new IngestDocument(source, new HashMap<>()));
+        }
+        List<IngestDocument> results = new ArrayList<>();
+        compoundProcessor.execute(documents, (result, e) -> {
+            assertThat(e, nullValue());
+            results.add(result);
+        });
+
+        assertThat(results, hasSize(4));
+        assertThat(results.get(0), sameInstance(documents.get(0)));
+        assertThat(results.get(1), sameInstance(documents.get(1)));
+        assertThat(results.get(1).getFieldValue("handled", Boolean.class), is(true));
+        assertThat(results.get(2), nullValue());
+        assertThat(results.get(3), sameInstance(documents.get(3)));
+        assertThat(firstProcessor.getInvokedCounter(), equalTo(4));
+        assertThat(onFailureProcessor.getInvokedCounter(), equalTo(1));
+        // the document handled by the on failure processor does not go through the second processor
+        assertStats(0, compoundProcessor, 0, 4, 1, 0);
+        assertStats(1, compoundProcessor, 0, 3, 0, 0);
+    }
+
+    public void testBatchExecutionFailsOnlyFailedDocuments() throws Exception {
+        TestProcessor processor = new TestProcessor("id", "first", ingestDocument -> {
+            if (ingestDocument.hasField("fail")) {
+                throw new RuntimeException("error");
+            }
+        });
+        LongSupplier relativeTimeProvider = mock(LongSupplier.class);
+        when(relativeTimeProvider.getAsLong()).thenReturn(0L);
+        CompoundProcessor compoundProcessor = new CompoundProcessor(relativeTimeProvider, processor);
+
+        List<IngestDocument> documents = new ArrayList<>();
+        for (String field : Arrays.asList("fail", "keep")) {
+            Map<String, Object> source = new HashMap<>();
+            source.put(field, true);
+            documents.add(new IngestDocument(source, new HashMap<>()));
+        }
+        List<IngestDocument> results = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        compoundProcessor.execute(documents, (result, e) -> {
+            results.add(result);
+            failures.add(e);
+        });
+
+        assertThat(results.get(0), nullValue());
+        assertThat(failures.get(0), instanceOf(ElasticsearchException.class));
+        assertThat(((ElasticsearchException) failures.get(0)).getRootCause().getMessage(), equalTo("error"));
+        assertThat(((ElasticsearchException) failures.get(0)).getHeader("processor_type"), equalTo(Collections.singletonList("first")));
+        assertThat(results.get(1), sameInstance(documents.get(1)));
+        assertThat(failures.get(1), nullValue());
+        assertStats(compoundProcessor, 2, 1, 0);
+    }
+
     private void assertStats(CompoundProcessor compoundProcessor, long count,  long failed, long time) {
         assertStats(0, compoundProcessor, 0L, count, failed, time);
     }
@@ -386,7 +386,7 @@ public class IngestDocumentTests extends ESTestCase {
 
     public void testSetFieldValueNullName() {
         try {
-            ingestDocument.setFieldValue(null, "bar");
+            ingestDocument.setFieldValue((String) null, "bar");
             fail("add field should have failed");
         } catch (IllegalArgumentException e) {
             assertThat(e.getMessage(), equalTo("path cannot be null nor empty"));
@@ -1003,6 +1003,53 @@ public class IngestDocumentTests extends ESTestCase {
             equalTo(original.getSourceAndMetadata().get("afterClockChange")));
     }
 
+    public void testCompiledFieldPath() {
+        IngestDocument.FieldPath listItem = new IngestDocument.FieldPath("fizz.list.0.0");
+        assertThat(listItem.getPath(), equalTo("fizz.list.0.0"));
+        assertThat(ingestDocument.getFieldValue(listItem, String.class), equalTo("item1"));
+        assertTrue(ingestDocument.hasField(listItem));
+        assertThat(ingestDocument.getFieldValue(new IngestDocument.FieldPath("_source.fizz.1"), String.class), equalTo("bar"));
+
+        IngestDocument.FieldPath newField = new IngestDocument.FieldPath("fizz.new.field");
+        assertFalse(ingestDocument.hasField(newField));
+        assertThat(ingestDocument.getFieldValue(newField, String.class, true), nullValue());
+        ingestDocument.setFieldValue(newField, "value");
+        ingestDocument.appendFieldValue(newField, "other");
+        assertThat(ingestDocument.getFieldValue(newField, List.class), equalTo(Arrays.asList("value", "other")));
+        ingestDocument.removeField(newField);
+        assertFalse(ingestDocument.hasField(newField));
+
+        IngestDocument.FieldPath ingestField = new IngestDocument.FieldPath("_ingest.new_field");
+        ingestDocument.setFieldValue(ingestField, "value");
+        assertThat(ingestDocument.getIngestMetadata().get("new_field"), equalTo("value"));
+
+        // the same compiled path resolves against any document
+        IngestDocument other = new IngestDocument("index", "type", "id", null, null, null, null, Collections.emptyMap());
+        assertFalse(other.hasField(listItem));
+        other.setFieldValue(newField, "other");
+        assertThat(other.getFieldValue(newField, String.class), equalTo("other"));
+    }
+
+    public void testCompiledFieldPathErrors() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new IngestDocument.FieldPath(""));
+        assertThat(e.getMessage(), equalTo("path cannot be null nor empty"));
+        e = expectThrows(IllegalArgumentException.class, () -> new IngestDocument.FieldPath("_source."));
+        assertThat(e.getMessage(), equalTo("path [_source.] is not valid"));
+
+        IngestDocument.FieldPath notAnIndex = new IngestDocument.FieldPath("list.foo");
+        assertFalse(ingestDocument.hasField(notAnIndex));
+        e = expectThrows(IllegalArgumentException.class, () -> ingestDocument.getFieldValue(notAnIndex, Object.class));
+        assertThat(e.getMessage(), equalTo("[foo] is not an integer, cannot be used as an index as part of path [list.foo]"));
+        assertThat(e.getCause(), instanceOf(NumberFormatException.class));
+
+        IngestDocument.FieldPath outOfBounds = new IngestDocument.FieldPath("list.10");
+        assertFalse(ingestDocument.hasField(outOfBounds));
+        e = expectThrows(IllegalArgumentException.class, () -> ingestDocument.hasField(outOfBounds, true));
+        assertThat(e.getMessage(), equalTo("[10] is out of bounds for array with length [2] as part of path [list.10]"));
+        e = expectThrows(IllegalArgumentException.class, () -> ingestDocument.removeField(outOfBounds));
+        assertThat(e.getMessage(), equalTo("[10] is out of bounds for array with length [2] as part of path [list.10]"));
+    }
+
     public void testSetInvalidSourceField() throws Exception {
         Map<String, Object> document = new HashMap<>();
         Object randomObject = randomFrom(new ArrayList<>(), new HashMap<>(), 12, 12.34);
@@ -0,0 +1,80 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class LazySourceMapTests extends ESTestCase {
+
+    private static final String SOURCE = "{\"message\":\"hello\",\"count\":3,\"flag\":true,\"missing\":null," +
+        "\"obj\":{\"a\":{\"b\":1}},\"list\":[1,{\"c\":\"d\"}]}";
+
+    public void testMatchesEagerlyParsedSource() {
+        BytesReference source = new BytesArray(SOURCE);
+        LazySourceMap lazySourceMap = LazySourceMap.parse(source, XContentType.JSON);
+        assertThat(lazySourceMap.rawValueCount(), equalTo(2));
+        Map<String, Object> expected = XContentHelper.convertToMap(source, false, XContentType.JSON).v2();
+        assertThat(lazySourceMap, equalTo(expected));
+        assertThat(lazySourceMap.rawValueCount(), equalTo(0));
+    }
+
+    public void testMaterializesOnAccess() {
+        LazySourceMap lazySourceMap = LazySourceMap.parse(new BytesArray(SOURCE), XContentType.JSON);
+        assertThat(lazySourceMap.get("message"), equalTo("hello"));
+        assertTrue(lazySourceMap.containsKey("obj"));
+        assertThat(lazySourceMap.rawValueCount(), equalTo(2));
+        assertThat(lazySourceMap.get("obj"), equalTo(Collections.singletonMap("a", Collections.singletonMap("b", 1))));
+        assertThat(lazySourceMap.rawValueCount(), equalTo(1));
+        assertThat(lazySourceMap.remove("list"), equalTo(Arrays.asList(1, Collections.singletonMap("c", "d"))));
+        assertThat(lazySourceMap.size(), equalTo(5));
+    }
+
+    public void testWritesUntouchedValuesVerbatim() throws IOException {
+        IngestDocument ingestDocument = new IngestDocument("index", "type", "id", null, null, null, null,
+            LazySourceMap.parse(new BytesArray(SOURCE), XContentType.JSON));
+        ingestDocument.setFieldValue("obj.a.e", 2);
+        ingestDocument.setFieldValue("message", "bye");
+        ingestDocument.extractMetadata();
+
+        LazySourceMap lazySourceMap = (LazySourceMap) ingestDocument.getSourceAndMetadata();
+        assertThat(lazySourceMap.rawValueCount(), equalTo(1));
+        XContentBuilder builder = XContentBuilder.builder(XContentType.JSON.xContent());
+        lazySourceMap.toXContent(builder);
+        assertThat(BytesReference.bytes(builder).utf8ToString(), equalTo("{\"message\":\"bye\",\"count\":3,\"flag\":true," +
+            "\"missing\":null,\"obj\":{\"a\":{\"b\":1,\"e\":2}},\"list\":[1,{\"c\":\"d\"}]}"));
+    }
+
+    public void testRejectsNonObjectSource() {
+        expectThrows(ElasticsearchParseException.class, () -> LazySourceMap.parse(new BytesArray("[1]"), XContentType.JSON));
+    }
+}
@@ -72,6 +72,41 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertThat(nodeStats.get("node1").serviceTime, equalTo(10.0));
     }
 
+    public void testResponseTimePercentile() {
+        assertThat(collector.getResponseTimePercentile(95), equalTo(-1L));
+        for (int i = 1; i <= 100; i++) {
+            collector.addNodeStatistics("node1", 1, i, 10);
+        }
+        assertThat(collector.getResponseTimePercentile(95), equalTo(95L));
+        assertThat(collector.getResponseTimePercentile(50), equalTo(50L));
+        assertThat(collector.getResponseTimePercentile(100), equalTo(100L));
+        // only the most recent response times are taken into account
+        for (int i = 0; i < 2048; i++) {
+            collector.addNodeStatistics("node1", 1, 1000, 10);
+        }
+        assertThat(collector.getResponseTimePercentile(50), equalTo(1000L));
+    }
+
+    public void testHedgingStats() {
+        collector.onHedgingShardRequest();
+        collector.onHedgingShardRequest();
+        collector.onHedgingShardRequest();
+        collector.onHedgingShardRequest();
+        collector.onHedgedRequest();
+        collector.onHedgeWin();
+        collector.onDiscardedResponse();
+        collector.onShedRequest();
+        collector.onShedRequest();
+        SearchHedgingStats stats = collector.getHedgingStats();
+        assertThat(stats.getShardRequests(), equalTo(4L));
+        assertThat(stats.getHedgedRequests(), equalTo(1L));
+        assertThat(stats.getHedgeWins(), equalTo(1L));
+        assertThat(stats.getDiscardedResponses(), equalTo(1L));
+        assertThat(stats.getShedRequests(), equalTo(2L));
+        assertThat(stats.getHedgeRate(), equalTo(0.25));
+        assertEquals(stats, collector.getAdaptiveStats(Collections.emptyMap()).getHedgingStats());
+    }
+
     /*
      * Test that concurrently adding values and removing nodes does not cause exceptions
      */
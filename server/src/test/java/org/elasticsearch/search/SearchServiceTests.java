@@ -52,9 +52,11 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.shard.IndexSearcherWrapper;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.settings.InternalOrPrivateSettingsPlugin;
 import org.elasticsearch.plugins.Plugin;
@@ -79,6 +81,7 @@ import org.elasticsearch.search.suggest.SuggestBuilder;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -119,6 +122,7 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
     public static class CustomScriptPlugin extends MockScriptPlugin {
 
         static final String DUMMY_SCRIPT = "dummyScript";
+        static final String WRAPPED_INDEX = "wrapped_index";
 
         @Override
         protected Map<String, Function<Map<String, Object>, Object>> pluginScripts() {
@@ -127,6 +131,9 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
 
         @Override
         public void onIndexModule(IndexModule indexModule) {
+            if (WRAPPED_INDEX.equals(indexModule.getIndex().getName())) {
+                indexModule.setSearcherWrapper(indexService -> new IndexSearcherWrapper());
+            }
             indexModule.addSearchOperationListener(new SearchOperationListener() {
                 @Override
                 public void onNewContext(SearchContext context) {
@@ -674,4 +681,39 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertSame(searchShardTarget, searchContext.queryResult().getSearchShardTarget());
         assertSame(searchShardTarget, searchContext.fetchResult().getSearchShardTarget());
     }
+
+    public void testFetchCacheIsNotUsedWithSearcherWrapper() throws IOException {
+        final Settings settings = Settings.builder().put(IndicesFetchCache.INDEX_FETCH_CACHE_ENABLED_SETTING.getKey(), true).build();
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        for (String index : Arrays.asList("index", CustomScriptPlugin.WRAPPED_INDEX)) {
+            IndexService indexService = createIndex(index, settings);
+            ShardSearchTransportRequest request = new ShardSearchTransportRequest(OriginalIndices.NONE, new SearchRequest(),
+                new ShardId(indexService.index(), 0), indexService.numberOfShards(), AliasFilter.EMPTY, 1f, System.currentTimeMillis(),
+                null, Strings.EMPTY_ARRAY);
+            try (DefaultSearchContext searchContext = service.createSearchContext(request, new TimeValue(System.currentTimeMillis()))) {
+                if (index.equals(CustomScriptPlugin.WRAPPED_INDEX)) {
+                    assertNull(searchContext.fetchCache());
+                } else {
+                    assertNotNull(searchContext.fetchCache());
+                }
+            }
+        }
+    }
+
+    public void testBackgroundFrequencyCacheIsNotUsedWithSearcherWrapper() throws IOException {
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        for (String index : Arrays.asList("index", CustomScriptPlugin.WRAPPED_INDEX)) {
+            IndexService indexService = createIndex(index);
+            ShardSearchTransportRequest request = new ShardSearchTransportRequest(OriginalIndices.NONE, new SearchRequest(),
+                new ShardId(indexService.index(), 0), indexService.numberOfShards(), AliasFilter.EMPTY, 1f, System.currentTimeMillis(),
+                null, Strings.EMPTY_ARRAY);
+            try (DefaultSearchContext searchContext = service.createSearchContext(request, new TimeValue(System.currentTimeMillis()))) {
+                if (index.equals(CustomScriptPlugin.WRAPPED_INDEX)) {
+                    assertNull(searchContext.backgroundFrequencyCache());
+                } else {
+                    assertSame(indexService.cache().backgroundFrequencyCache(), searchContext.backgroundFrequencyCache());
+                }
+            }
+        }
+    }
 }
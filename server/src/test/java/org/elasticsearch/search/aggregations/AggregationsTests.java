@@ -70,6 +70,7 @@ import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.Interna
 import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.InternalTDigestPercentilesTests;
 import org.elasticsearch.search.aggregations.metrics.scripted.InternalScriptedMetricTests;
 import org.elasticsearch.search.aggregations.metrics.tophits.InternalTopHitsTests;
+import org.elasticsearch.search.aggregations.metrics.topmetrics.InternalTopMetricsTests;
 import org.elasticsearch.search.aggregations.metrics.valuecount.InternalValueCountTests;
 import org.elasticsearch.search.aggregations.metrics.weighted_avg.InternalWeightedAvgTests;
 import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValueTests;
@@ -150,6 +151,7 @@ public class AggregationsTests extends ESTestCase {
         aggsTests.add(new InternalScriptedMetricTests());
         aggsTests.add(new InternalBinaryRangeTests());
         aggsTests.add(new InternalTopHitsTests());
+        aggsTests.add(new InternalTopMetricsTests());
         aggsTests.add(new InternalCompositeTests());
         aggsTests.add(new InternalMedianAbsoluteDeviationTests());
         return Collections.unmodifiableList(aggsTests);
@@ -228,13 +230,15 @@ public class AggregationsTests extends ESTestCase {
              * - we cannot insert into ExtendedMatrixStats "covariance" or "correlation" fields, their syntax is strict
              *
              * - exclude "key", it can be an array of objects and we need strict values
+             *
+             * - we cannot insert into TopMetrics "metrics" objects, the keys need to be metric names
              */
             Predicate<String> excludes = path -> (path.isEmpty() || path.endsWith("aggregations")
                     || path.endsWith(Aggregation.CommonFields.META.getPreferredName())
                     || path.endsWith(Aggregation.CommonFields.BUCKETS.getPreferredName())
                     || path.endsWith(CommonFields.VALUES.getPreferredName()) || path.endsWith("covariance") || path.endsWith("correlation")
                     || path.contains(CommonFields.VALUE.getPreferredName())
-                    || path.endsWith(CommonFields.KEY.getPreferredName()));
+                    || path.endsWith(CommonFields.KEY.getPreferredName()) || path.endsWith("metrics"));
             mutated = insertRandomFields(xContentType, originalBytes, excludes, random());
         } else {
             mutated = originalBytes;
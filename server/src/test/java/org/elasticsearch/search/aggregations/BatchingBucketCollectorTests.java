@@ -0,0 +1,197 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+public class BatchingBucketCollectorTests extends ESTestCase {
+
+    /**
+     * Records the docs it collects and checks that batches are only collected for the current segment.
+     */
+    private static class RecordingBucketCollector extends BucketCollector {
+        private final boolean needsScores;
+        private final FixedBitSet collected;
+        private LeafReaderContext current;
+        private int numBatches;
+        private int numDocsInBatches;
+        private boolean postCollection;
+
+        RecordingBucketCollector(int maxDoc, boolean needsScores) {
+            this.needsScores = needsScores;
+            this.collected = new FixedBitSet(maxDoc);
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) {
+            final LeafReaderContext leaf = ctx;
+            current = leaf;
+            return new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long bucket) {
+                    assertSame(leaf, current);
+                    assertEquals(0, bucket);
+                    assertFalse(collected.getAndSet(leaf.docBase + doc));
+                }
+
+                @Override
+                public void collect(int[] docs, int count, long bucket) throws IOException {
+                    assertFalse(needsScores);
+                    assertFalse(postCollection);
+                    assertTrue(count > 0);
+                    assertTrue(count <= BatchingBucketCollector.BATCH_SIZE);
+                    for (int i = 1; i < count; i++) {
+                        assertTrue(docs[i - 1] < docs[i]);
+                    }
+                    numBatches++;
+                    numDocsInBatches += count;
+                    super.collect(docs, count, bucket);
+                }
+            };
+        }
+
+        @Override
+        public boolean needsScores() {
+            return needsScores;
+        }
+
+        @Override
+        public void preCollection() {}
+
+        @Override
+        public void postCollection() {
+            postCollection = true;
+        }
+    }
+
+    public void testBatches() throws IOException {
+        try (Directory dir = newDirectory()) {
+            RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+            final int numDocs = randomIntBetween(1, 10000);
+            final Document doc = new Document();
+            for (int i = 0; i < numDocs; ++i) {
+                w.addDocument(doc);
+            }
+            try (IndexReader reader = w.getReader()) {
+                w.close();
+                final IndexSearcher searcher = newSearcher(reader, true, false);
+                RecordingBucketCollector recording = new RecordingBucketCollector(reader.maxDoc(), false);
+                BatchingBucketCollector collector = new BatchingBucketCollector(recording);
+                collector.preCollection();
+                searcher.search(new MatchAllDocsQuery(), collector);
+                collector.postCollection();
+                assertTrue(recording.postCollection);
+                assertEquals(numDocs, recording.collected.cardinality());
+                assertEquals(numDocs, recording.numDocsInBatches);
+                assertTrue(recording.numBatches >= (numDocs + BatchingBucketCollector.BATCH_SIZE - 1) / BatchingBucketCollector.BATCH_SIZE);
+                assertTrue(recording.numBatches <= reader.leaves().size() + numDocs / BatchingBucketCollector.BATCH_SIZE);
+            }
+        }
+    }
+
+    public void testNoBatchingWhenScoresAreNeeded() throws IOException {
+        try (Directory dir = newDirectory()) {
+            RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+            final int numDocs = randomIntBetween(1, 100);
+            final Document doc = new Document();
+            for (int i = 0; i < numDocs; ++i) {
+                w.addDocument(doc);
+            }
+            try (IndexReader reader = w.getReader()) {
+                w.close();
+                final IndexSearcher searcher = newSearcher(reader, true, false);
+                RecordingBucketCollector recording = new RecordingBucketCollector(reader.maxDoc(), true);
+                BatchingBucketCollector collector = new BatchingBucketCollector(recording);
+                assertTrue(collector.needsScores());
+                collector.preCollection();
+                searcher.search(new MatchAllDocsQuery(), collector);
+                collector.postCollection();
+                assertEquals(numDocs, recording.collected.cardinality());
+                assertEquals(0, recording.numBatches);
+            }
+        }
+    }
+
+    public void testCollectionTerminatedException() throws IOException {
+        try (Directory dir = newDirectory()) {
+            RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+            final int numDocs = randomIntBetween(1, 10000);
+            final Document doc = new Document();
+            for (int i = 0; i < numDocs; ++i) {
+                w.addDocument(doc);
+            }
+            try (IndexReader reader = w.getReader()) {
+                w.close();
+                final IndexSearcher searcher = newSearcher(reader, true, false);
+                final int[] numBatches = new int[1];
+                BatchingBucketCollector collector = new BatchingBucketCollector(new BucketCollector() {
+                    @Override
+                    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) {
+                        return new LeafBucketCollector() {
+                            @Override
+                            public void collect(int doc, long bucket) {
+                                fail("docs should be collected in batches");
+                            }
+
+                            @Override
+                            public void collect(int[] docs, int count, long bucket) {
+                                numBatches[0]++;
+                                // the batches of a segment aren't collected anymore once a batch terminated it
+                                throw new CollectionTerminatedException();
+                            }
+                        };
+                    }
+
+                    @Override
+                    public boolean needsScores() {
+                        return false;
+                    }
+
+                    @Override
+                    public void preCollection() {}
+
+                    @Override
+                    public void postCollection() {}
+                });
+                collector.preCollection();
+                searcher.search(new MatchAllDocsQuery(), collector);
+                collector.postCollection();
+                int numNonEmptyLeaves = 0;
+                for (LeafReaderContext leaf : reader.leaves()) {
+                    if (leaf.reader().numDocs() > 0) {
+                        numNonEmptyLeaves++;
+                    }
+                }
+                assertEquals(numNonEmptyLeaves, numBatches[0]);
+            }
+        }
+    }
+}
@@ -30,12 +30,17 @@ import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
@@ -1715,6 +1720,75 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         assertEquals(expected, seen);
     }
 
+    public void testIndexSortWithAfterKey() throws Exception {
+        final Sort indexSort = new Sort(
+            new SortedSetSortField("keyword", false),
+            new SortedNumericSortField("long", SortField.Type.LONG)
+        );
+        final SortOrder longOrder = randomFrom(SortOrder.values());
+        final List<Map<String, List<Object>>> dataset = new ArrayList<>();
+        final Map<List<Object>, Long> expectedDocCounts = new HashMap<>();
+        final int numDocs = randomIntBetween(50, 200);
+        for (int i = 0; i < numDocs; i++) {
+            String keyword = randomFrom("a", "b", "c", "d", "e");
+            long value = randomLongBetween(0, 20);
+            if (randomBoolean()) {
+                dataset.add(createDocument("keyword", keyword, "long", value));
+            } else {
+                int price = randomIntBetween(0, 5);
+                dataset.add(createDocument("keyword", keyword, "long", value, "price", price));
+                expectedDocCounts.merge(Arrays.asList(keyword, value, (long) price), 1L, Long::sum);
+            }
+        }
+        final List<List<Object>> expectedKeys = new ArrayList<>(expectedDocCounts.keySet());
+        expectedKeys.sort((a, b) -> {
+            int cmp = ((String) a.get(0)).compareTo((String) b.get(0));
+            if (cmp == 0) {
+                cmp = Long.compare((long) a.get(1), (long) b.get(1)) * (longOrder == SortOrder.ASC ? 1 : -1);
+            }
+            if (cmp == 0) {
+                cmp = Long.compare((long) a.get(2), (long) b.get(2));
+            }
+            return cmp;
+        });
+
+        for (Query query : Arrays.asList(new MatchAllDocsQuery(), new DocValuesFieldExistsQuery("price"))) {
+            final int size = randomIntBetween(1, 5);
+            final List<List<Object>> seenKeys = new ArrayList<>();
+            final AtomicBoolean finish = new AtomicBoolean(false);
+            while (finish.get() == false) {
+                final Map<String, Object> afterKey;
+                if (seenKeys.isEmpty()) {
+                    afterKey = null;
+                } else {
+                    List<Object> last = seenKeys.get(seenKeys.size() - 1);
+                    afterKey = createAfterKey("keyword", last.get(0), "long", last.get(1), "price", last.get(2));
+                }
+                executeTestCase(randomBoolean(), indexSort, query, dataset,
+                    () -> new CompositeAggregationBuilder("name",
+                        Arrays.asList(
+                            new TermsValuesSourceBuilder("keyword").field("keyword"),
+                            new TermsValuesSourceBuilder("long").field("long").order(longOrder),
+                            new TermsValuesSourceBuilder("price").field("price")
+                        ))
+                        .aggregateAfter(afterKey)
+                        .size(size),
+                    (result) -> {
+                        if (result.getBuckets().size() == 0) {
+                            finish.set(true);
+                        }
+                        for (InternalComposite.InternalBucket bucket : result.getBuckets()) {
+                            List<Object> key = Arrays.asList(bucket.getKey().get("keyword"),
+                                bucket.getKey().get("long"), bucket.getKey().get("price"));
+                            assertThat(bucket.getDocCount(), equalTo(expectedDocCounts.get(key)));
+                            seenKeys.add(key);
+                        }
+                    });
+            }
+            assertEquals(expectedKeys, seenKeys);
+        }
+    }
+
     public void testWithIP() throws Exception {
         final List<Map<String, List<Object>>> dataset = new ArrayList<>();
         dataset.addAll(
@@ -1775,8 +1849,21 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
                                  List<Map<String, List<Object>>> dataset,
                                  Supplier<CompositeAggregationBuilder> create,
                                  Consumer<InternalComposite> verify) throws IOException {
+        executeTestCase(reduced, null, query, dataset, create, verify);
+    }
+
+    private void executeTestCase(boolean reduced,
+                                 Sort indexSort,
+                                 Query query,
+                                 List<Map<String, List<Object>>> dataset,
+                                 Supplier<CompositeAggregationBuilder> create,
+                                 Consumer<InternalComposite> verify) throws IOException {
         try (Directory directory = newDirectory()) {
-            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+            IndexWriterConfig config = newIndexWriterConfig();
+            if (indexSort != null) {
+                config.setIndexSort(indexSort);
+            }
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory, config)) {
                 Document document = new Document();
                 for (Map<String, List<Object>> fields : dataset) {
                     addToDocument(document, fields);
@@ -19,8 +19,13 @@
 
 package org.elasticsearch.search.aggregations.bucket.composite;
 
+import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
@@ -28,6 +33,7 @@ import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.mapper.IpFieldMapper;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
@@ -36,6 +42,8 @@ import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -302,6 +310,84 @@ public class SingleDimensionValuesSourceTests extends ESTestCase {
         }
     }
 
+    public void testNumericCompetitiveLeaf() throws IOException {
+        MappedFieldType number = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        number.setName("number");
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter indexWriter = new IndexWriter(directory, new IndexWriterConfig())) {
+                for (long value = 10; value <= 20; value++) {
+                    Document document = new Document();
+                    document.add(new LongPoint("number", value));
+                    indexWriter.addDocument(document);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertEquals(1, reader.leaves().size());
+                LeafReaderContext context = reader.leaves().get(0);
+                LongValuesSource source = new LongValuesSource(
+                    BigArrays.NON_RECYCLING_INSTANCE,
+                    number,
+                    ctx -> null,
+                    value -> value,
+                    DocValueFormat.RAW,
+                    false,
+                    null,
+                    1,
+                    1
+                );
+                assertTrue(source.isCompetitive(context, null, null));
+                assertTrue(source.isCompetitive(context, 20L, null));
+                assertFalse(source.isCompetitive(context, 21L, null));
+                assertTrue(source.isCompetitive(context, null, 10L));
+                assertFalse(source.isCompetitive(context, null, 9L));
+                assertTrue(source.isCompetitive(context, 5L, 25L));
+
+                LongValuesSource sourceRev = new LongValuesSource(
+                    BigArrays.NON_RECYCLING_INSTANCE,
+                    number,
+                    ctx -> null,
+                    value -> value,
+                    DocValueFormat.RAW,
+                    false,
+                    null,
+                    1,
+                    -1
+                );
+                assertTrue(sourceRev.isCompetitive(context, 10L, null));
+                assertFalse(sourceRev.isCompetitive(context, 9L, null));
+                assertTrue(sourceRev.isCompetitive(context, null, 20L));
+                assertFalse(sourceRev.isCompetitive(context, null, 21L));
+
+                LongValuesSource sourceRounded = new LongValuesSource(
+                    BigArrays.NON_RECYCLING_INSTANCE,
+                    number,
+                    ctx -> null,
+                    value -> value - (value % 100),
+                    DocValueFormat.RAW,
+                    false,
+                    null,
+                    1,
+                    1
+                );
+                assertTrue(sourceRounded.isCompetitive(context, 0L, 0L));
+                assertFalse(sourceRounded.isCompetitive(context, 100L, null));
+
+                LongValuesSource sourceWithMissing = new LongValuesSource(
+                    BigArrays.NON_RECYCLING_INSTANCE,
+                    number,
+                    ctx -> null,
+                    value -> value,
+                    DocValueFormat.RAW,
+                    true,
+                    null,
+                    1,
+                    1
+                );
+                assertTrue(sourceWithMissing.isCompetitive(context, 21L, null));
+            }
+        }
+    }
+
     private static IndexReader mockIndexReader(int maxDoc, int numDocs) {
         IndexReader reader = mock(IndexReader.class);
         when(reader.hasDeletions()).thenReturn(maxDoc - numDocs > 0);
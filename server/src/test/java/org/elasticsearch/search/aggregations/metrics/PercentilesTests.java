@@ -25,6 +25,8 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
 import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesMethod;
+import org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch.DDSketch;
 
 import java.io.IOException;
 
@@ -52,6 +54,15 @@ public class PercentilesTests extends BaseAggregationTestCase<PercentilesAggrega
         if (randomBoolean()) {
             factory.compression(randomIntBetween(1, 50000));
         }
+        if (randomBoolean()) {
+            factory.relativeAccuracy(randomDoubleBetween(0.0001, 0.5, true));
+        }
+        if (randomBoolean()) {
+            factory.maxBins(randomIntBetween(DDSketch.MIN_BINS, DDSketch.MAX_BINS));
+        }
+        if (randomBoolean()) {
+            factory.method(randomFrom(PercentilesMethod.values()));
+        }
         String field = randomNumericField();
         randomFieldOrScript(factory, field);
         if (randomBoolean()) {
@@ -72,6 +83,15 @@ public class PercentilesTests extends BaseAggregationTestCase<PercentilesAggrega
         assertEquals("[percents] must not be empty: [testAgg]", ex.getMessage());
     }
 
+    public void testInvalidDDSketchSettingsThrows() {
+        PercentilesAggregationBuilder builder = new PercentilesAggregationBuilder("testAgg");
+        IllegalArgumentException ex = expectThrows(IllegalArgumentException.class, () -> builder.relativeAccuracy(1.0));
+        assertEquals("[relativeAccuracy] must be greater than 0 and less than 1. Found [1.0] in [testAgg]", ex.getMessage());
+
+        ex = expectThrows(IllegalArgumentException.class, () -> builder.maxBins(DDSketch.MIN_BINS - 1));
+        assertThat(ex.getMessage(), containsString("[maxBins] must be between"));
+    }
+
     public void testExceptionMultipleMethods() throws IOException {
         final String illegalAgg = "{\n" +
             "       \"percentiles\": {\n" +
@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
+import org.elasticsearch.search.aggregations.metrics.topmetrics.TopMetricsAggregationBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortMode;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class TopMetricsTests extends BaseAggregationTestCase<TopMetricsAggregationBuilder> {
+
+    @Override
+    protected TopMetricsAggregationBuilder createTestAggregatorBuilder() {
+        TopMetricsAggregationBuilder builder = new TopMetricsAggregationBuilder(randomAlphaOfLengthBetween(3, 10));
+        FieldSortBuilder sort = new FieldSortBuilder(randomAlphaOfLengthBetween(3, 10)).order(randomFrom(SortOrder.values()));
+        if (randomBoolean()) {
+            sort.sortMode(randomFrom(SortMode.MIN, SortMode.MAX, SortMode.AVG));
+        }
+        builder.sort(sort);
+        int numMetrics = randomIntBetween(1, 5);
+        List<String> metrics = new ArrayList<>(numMetrics);
+        for (int i = 0; i < numMetrics; i++) {
+            metrics.add(randomAlphaOfLengthBetween(3, 10));
+        }
+        builder.metrics(metrics);
+        if (randomBoolean()) {
+            builder.size(randomIntBetween(1, 100));
+        }
+        return builder;
+    }
+
+    public void testSingleMetricObject() throws Exception {
+        String source = "{\"top\": {\"top_metrics\": {\"sort\": {\"time\": \"desc\"}, \"metrics\": {\"field\": \"cpu\"}}}}";
+        XContentParser parser = createParser(JsonXContent.jsonXContent, source);
+        assertSame(XContentParser.Token.START_OBJECT, parser.nextToken());
+        AggregatorFactories.Builder factories = AggregatorFactories.parseAggregators(parser);
+        TopMetricsAggregationBuilder builder = (TopMetricsAggregationBuilder) factories.getAggregatorFactories().iterator().next();
+        assertEquals("time", builder.sort().getFieldName());
+        assertEquals(SortOrder.DESC, builder.sort().order());
+        assertEquals(1, builder.size());
+        assertEquals("cpu", builder.metrics().get(0));
+    }
+
+    public void testRequiresSort() throws Exception {
+        String source = "{\"top\": {\"top_metrics\": {\"metrics\": [{\"field\": \"cpu\"}]}}}";
+        XContentParser parser = createParser(JsonXContent.jsonXContent, source);
+        assertSame(XContentParser.Token.START_OBJECT, parser.nextToken());
+        Exception e = expectThrows(Exception.class, () -> AggregatorFactories.parseAggregators(parser));
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        assertThat(cause.getMessage(), containsString("[sort] is required for [top_metrics] aggregation [top]"));
+    }
+
+    public void testRejectsScoreSort() throws Exception {
+        String source = "{\"top\": {\"top_metrics\": {\"sort\": \"_score\", \"metrics\": [{\"field\": \"cpu\"}]}}}";
+        XContentParser parser = createParser(JsonXContent.jsonXContent, source);
+        assertSame(XContentParser.Token.START_OBJECT, parser.nextToken());
+        Exception e = expectThrows(Exception.class, () -> AggregatorFactories.parseAggregators(parser));
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        assertThat(cause.getMessage(), containsString("only supports sorting on a single field"));
+    }
+}
@@ -21,12 +21,19 @@ package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.carrotsearch.hppc.BitMixer;
 import com.carrotsearch.hppc.IntHashSet;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class HyperLogLogPlusPlusTests extends ESTestCase {
     public void testEncodeDecode() {
@@ -126,4 +133,91 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
         assertEquals(18, HyperLogLogPlusPlus.precisionFromThreshold(100000));
         assertEquals(18, HyperLogLogPlusPlus.precisionFromThreshold(1000000));
     }
+
+    public void testMergeIntoLowerPrecision() {
+        final int p = randomIntBetween(MIN_PRECISION + 1, MAX_PRECISION);
+        final int lowerP = randomIntBetween(MIN_PRECISION, p - 1);
+        final HyperLogLogPlusPlus high = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final HyperLogLogPlusPlus low = new HyperLogLogPlusPlus(lowerP, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final int numValues = randomIntBetween(1, 100000);
+        final int maxValue = randomIntBetween(1, randomBoolean() ? 1000: 1000000);
+        for (int i = 0; i < numValues; ++i) {
+            final long hash = BitMixer.mix64(randomInt(maxValue));
+            high.collect(0, hash);
+            low.collect(0, hash);
+        }
+        // folding the registers of the higher precision sketch must give the same result as collecting at the lower precision
+        final HyperLogLogPlusPlus folded = new HyperLogLogPlusPlus(lowerP, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        folded.merge(0, high, 0);
+        assertEquals(low.cardinality(0), folded.cardinality(0));
+        assertTrue(folded.equals(0, low));
+        expectThrows(IllegalArgumentException.class, () -> high.merge(0, low, 0));
+    }
+
+    public void testSerialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final long bucket = randomInt(20);
+        final int numValues = randomIntBetween(1, 100000);
+        final int maxValue = randomIntBetween(1, randomBoolean() ? 1000: 1000000);
+        for (int i = 0; i < numValues; ++i) {
+            counts.collect(bucket, BitMixer.mix64(randomInt(maxValue)));
+        }
+        for (Version version : new Version[] { Version.V_6_7_0, Version.V_6_7_1_6515, Version.V_6_7_2_6515 }) {
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.setVersion(version);
+                counts.writeTo(bucket, out);
+                try (StreamInput in = out.bytes().streamInput()) {
+                    in.setVersion(version);
+                    HyperLogLogPlusPlus read = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+                    assertEquals(counts.cardinality(bucket), read.cardinality(0));
+                    assertTrue(read.equals(0, copyOf(counts, bucket)));
+                }
+            }
+        }
+    }
+
+    public void testCompactRegisters() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final int numValues = randomIntBetween(1, 100000);
+        for (int i = 0; i < numValues; ++i) {
+            counts.collect(0, BitMixer.mix64(i));
+        }
+        counts.upgradeToHll(0);
+        // registers are either written as runs or packed on 6 bits, which is always smaller than one byte per register
+        final long legacySize = serializedSize(counts, Version.V_6_7_0);
+        assertThat(serializedSize(counts, Version.V_6_7_1_6515), equalTo(legacySize));
+        assertThat(serializedSize(counts, Version.V_6_7_2_6515), lessThan(legacySize));
+    }
+
+    public void testPrecisionFromBudget() {
+        assertEquals(14, HyperLogLogPlusPlus.precisionFromBudget(14, 1, Long.MAX_VALUE));
+        assertEquals(14, HyperLogLogPlusPlus.precisionFromBudget(14, 10, 10 * HyperLogLogPlusPlus.memoryUsage(14)));
+        assertEquals(13, HyperLogLogPlusPlus.precisionFromBudget(14, 10, 10 * HyperLogLogPlusPlus.memoryUsage(14) - 1));
+        assertEquals(MIN_PRECISION, HyperLogLogPlusPlus.precisionFromBudget(14, 1000, 0));
+    }
+
+    public void testFactoryPrecision() {
+        final long threshold = randomLongBetween(0, 100000);
+        assertEquals(HyperLogLogPlusPlus.precisionFromThreshold(threshold), CardinalityAggregatorFactory.precision(threshold, true));
+        assertEquals(HyperLogLogPlusPlus.precisionFromThreshold(threshold), CardinalityAggregatorFactory.precision(threshold, false));
+        assertEquals(HyperLogLogPlusPlus.DEFAULT_PRECISION, CardinalityAggregatorFactory.precision(null, true));
+        // the registers of 1024 buckets fit in 4mb
+        assertEquals(12, CardinalityAggregatorFactory.precision(null, false));
+    }
+
+    private static HyperLogLogPlusPlus copyOf(HyperLogLogPlusPlus counts, long bucket) {
+        HyperLogLogPlusPlus copy = new HyperLogLogPlusPlus(counts.precision(), BigArrays.NON_RECYCLING_INSTANCE, 1);
+        copy.merge(0, counts, bucket);
+        return copy;
+    }
+
+    private static long serializedSize(HyperLogLogPlusPlus counts, Version version) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            counts.writeTo(0, out);
+            return out.size();
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesMethod;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+
+public class DDSketchPercentilesAggregatorTests extends AggregatorTestCase {
+
+    public void testNoDocs() throws IOException {
+        testCase(new MatchAllDocsQuery(), iw -> {
+            // Intentionally not writing any docs
+        }, ddsketch -> {
+            assertEquals(0L, ddsketch.sketch.count(0));
+            assertTrue(Double.isNaN(ddsketch.percentile(50)));
+        });
+    }
+
+    public void testNoMatchingField() throws IOException {
+        testCase(new MatchAllDocsQuery(), iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 7)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 1)));
+        }, ddsketch -> {
+            assertEquals(0L, ddsketch.sketch.count(0));
+        });
+    }
+
+    public void testSomeMatchesSortedNumericDocValues() throws IOException {
+        testCase(new DocValuesFieldExistsQuery("number"), iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 8)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 5)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 3)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 2)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 0)));
+        }, ddsketch -> {
+            assertEquals(7L, ddsketch.sketch.count(0));
+            assertEquals(8.0d, ddsketch.percentile(100), 0.0d);
+            assertEquals(3.0d, ddsketch.percentile(75), 3.0d * DDSketch.DEFAULT_RELATIVE_ACCURACY);
+            assertEquals(2.0d, ddsketch.percentile(50), 2.0d * DDSketch.DEFAULT_RELATIVE_ACCURACY);
+            assertEquals(1.0d, ddsketch.percentile(22), 1.0d * DDSketch.DEFAULT_RELATIVE_ACCURACY);
+            assertEquals(0.0d, ddsketch.percentile(1), 0.0d);
+        });
+    }
+
+    public void testSomeMatchesNumericDocValues() throws IOException {
+        testCase(new DocValuesFieldExistsQuery("number"), iw -> {
+            iw.addDocument(singleton(new NumericDocValuesField("number", -8)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", -5)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 0)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 3)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 1000)));
+        }, ddsketch -> {
+            assertEquals(5L, ddsketch.sketch.count(0));
+            assertEquals(-8.0d, ddsketch.percentile(0), 0.0d);
+            assertEquals(-5.0d, ddsketch.percentile(25), 5.0d * DDSketch.DEFAULT_RELATIVE_ACCURACY);
+            assertEquals(0.0d, ddsketch.percentile(50), 0.0d);
+            assertEquals(3.0d, ddsketch.percentile(75), 3.0d * DDSketch.DEFAULT_RELATIVE_ACCURACY);
+            assertEquals(1000.0d, ddsketch.percentile(100), 0.0d);
+        });
+    }
+
+    public void testQueryFiltering() throws IOException {
+        final CheckedConsumer<RandomIndexWriter, IOException> docs = iw -> {
+            iw.addDocument(asList(new LongPoint("row", 7), new SortedNumericDocValuesField("number", 8)));
+            iw.addDocument(asList(new LongPoint("row", 6), new SortedNumericDocValuesField("number", 5)));
+            iw.addDocument(asList(new LongPoint("row", 5), new SortedNumericDocValuesField("number", 3)));
+            iw.addDocument(asList(new LongPoint("row", 4), new SortedNumericDocValuesField("number", 2)));
+            iw.addDocument(asList(new LongPoint("row", 3), new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(asList(new LongPoint("row", 2), new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(asList(new LongPoint("row", 1), new SortedNumericDocValuesField("number", 0)));
+        };
+
+        testCase(LongPoint.newRangeQuery("row", 1, 4), docs, ddsketch -> {
+            assertEquals(4L, ddsketch.sketch.count(0));
+            assertEquals(2.0d, ddsketch.percentile(100), 0.0d);
+            assertEquals(1.0d, ddsketch.percentile(50), 1.0d * DDSketch.DEFAULT_RELATIVE_ACCURACY);
+        });
+
+        testCase(LongPoint.newRangeQuery("row", 100, 110), docs, ddsketch -> {
+            assertEquals(0L, ddsketch.sketch.count(0));
+        });
+    }
+
+    private void testCase(Query query, CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+                          Consumer<InternalDDSketchPercentiles> verify) throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                buildIndex.accept(indexWriter);
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+
+                PercentilesAggregationBuilder builder =
+                        new PercentilesAggregationBuilder("test").field("number").method(PercentilesMethod.DDSKETCH);
+
+                MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                fieldType.setName("number");
+                DDSketchPercentilesAggregator aggregator = createAggregator(builder, indexSearcher, fieldType);
+                aggregator.preCollection();
+                indexSearcher.search(query, aggregator);
+                aggregator.postCollection();
+                verify.accept((InternalDDSketchPercentiles) aggregator.buildAggregation(0L));
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.lessThan;
+
+public class DDSketchTests extends ESTestCase {
+
+    public void testRelativeAccuracy() {
+        final double relativeAccuracy = randomFrom(0.001, 0.01, 0.05);
+        final DDSketch sketch = new DDSketch(relativeAccuracy, DDSketch.MAX_BINS, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final long bucket = randomInt(20);
+        final double[] values = new double[randomIntBetween(1, 10000)];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = randomBoolean() ? randomDouble() * 1000 : -Math.exp(randomGaussian() * 5);
+            sketch.add(bucket, values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, sketch.count(bucket));
+        assertEquals(values[0], sketch.quantile(bucket, 0), 0d);
+        assertEquals(values[values.length - 1], sketch.quantile(bucket, 1), 0d);
+        for (double q : new double[] { 0.01, 0.25, 0.5, 0.75, 0.99 }) {
+            final double rank = q * (values.length - 1);
+            final double low = values[(int) Math.floor(rank)];
+            final double high = values[(int) Math.ceil(rank)];
+            final double estimate = sketch.quantile(bucket, q);
+            assertTrue("estimate " + estimate + " of quantile " + q + " is out of [" + low + ", " + high + "]",
+                estimate >= low - Math.abs(low) * relativeAccuracy * 1.000001
+                    && estimate <= high + Math.abs(high) * relativeAccuracy * 1.000001);
+        }
+    }
+
+    public void testCollapsesLowestBins() {
+        final int maxBins = randomIntBetween(DDSketch.MIN_BINS, 100);
+        final DDSketch sketch = new DDSketch(DDSketch.DEFAULT_RELATIVE_ACCURACY, maxBins, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        // values over twenty orders of magnitude need way more bins than available
+        for (int i = 0; i < 1000; ++i) {
+            sketch.add(0, Math.pow(10, randomDouble() * 20));
+        }
+        sketch.add(0, 1e21);
+        sketch.add(0, 0.99e21);
+        final double estimate = sketch.quantile(0, 0.9995);
+        assertEquals(0.99e21, estimate, 0.99e21 * DDSketch.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public void testBinsGrowWithTheRangeOfValues() {
+        final HierarchyCircuitBreakerService breakerService = new HierarchyCircuitBreakerService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final BigArrays bigArrays = new BigArrays(null, breakerService, CircuitBreaker.REQUEST).withCircuitBreaking();
+        final int numBuckets = randomIntBetween(100, 1000);
+        final DDSketch sketch = new DDSketch(DDSketch.DEFAULT_RELATIVE_ACCURACY, DDSketch.DEFAULT_MAX_BINS, bigArrays, 1);
+        for (int bucket = 0; bucket < numBuckets; ++bucket) {
+            sketch.add(bucket, randomDoubleBetween(1, 10, true));
+            sketch.add(bucket, -randomDoubleBetween(1, 10, true));
+        }
+        // a few bins for each sign of each bucket rather than max_bins
+        final long used = breakerService.getBreaker(CircuitBreaker.REQUEST).getUsed();
+        assertThat(used, lessThan((long) numBuckets * DDSketch.DEFAULT_MAX_BINS * Long.BYTES / 8));
+        // the bins of a bucket grow until they can hold all of its values, six orders of magnitude fit in max_bins
+        for (int i = 0; i <= 10000; ++i) {
+            sketch.add(numBuckets, Math.pow(10, -3 + 6.0 * i / 10000));
+        }
+        assertEquals(10001, sketch.count(numBuckets));
+        for (double q : new double[] { 0.01, 0.5, 0.99 }) {
+            final double expected = Math.pow(10, -3 + 6 * q);
+            assertEquals(expected, sketch.quantile(numBuckets, q), expected * DDSketch.DEFAULT_RELATIVE_ACCURACY * 1.000001);
+        }
+        sketch.close();
+        assertEquals(0, breakerService.getBreaker(CircuitBreaker.REQUEST).getUsed());
+    }
+
+    public void testMerge() {
+        final DDSketch single = new DDSketch(DDSketch.DEFAULT_RELATIVE_ACCURACY, DDSketch.DEFAULT_MAX_BINS,
+            BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final DDSketch[] multi = new DDSketch[randomIntBetween(2, 10)];
+        final long[] bucketOrds = new long[multi.length];
+        for (int i = 0; i < multi.length; ++i) {
+            bucketOrds[i] = randomInt(20);
+            multi[i] = new DDSketch(DDSketch.DEFAULT_RELATIVE_ACCURACY, DDSketch.DEFAULT_MAX_BINS, BigArrays.NON_RECYCLING_INSTANCE, 5);
+        }
+        final int numValues = randomIntBetween(1, 10000);
+        for (int i = 0; i < numValues; ++i) {
+            final double value = randomIntBetween(-100, 1000) / 10.0;
+            single.add(0, value);
+            final int index = randomInt(multi.length - 1);
+            multi[index].add(bucketOrds[index], value);
+        }
+        final DDSketch merged = new DDSketch(DDSketch.DEFAULT_RELATIVE_ACCURACY, DDSketch.DEFAULT_MAX_BINS,
+            BigArrays.NON_RECYCLING_INSTANCE, 0);
+        for (int i = 0; i < multi.length; ++i) {
+            merged.merge(0, multi[i], bucketOrds[i]);
+        }
+        assertTrue(merged.equals(0, single, 0));
+        assertEquals(single.hashCode(0), merged.hashCode(0));
+
+        final DDSketch other = new DDSketch(0.05, DDSketch.DEFAULT_MAX_BINS, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        expectThrows(IllegalArgumentException.class, () -> merged.merge(0, other, 0));
+    }
+
+    public void testSerialization() throws IOException {
+        final DDSketch sketch = new DDSketch(randomDoubleBetween(0.001, 0.1, true), randomIntBetween(DDSketch.MIN_BINS, 2048),
+            BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final long bucket = randomInt(20);
+        final int numValues = randomIntBetween(0, 10000);
+        for (int i = 0; i < numValues; ++i) {
+            sketch.add(bucket, randomBoolean() ? 0 : randomGaussian() * 1000);
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            sketch.writeTo(bucket, out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                DDSketch read = DDSketch.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+                assertTrue(read.equals(0, sketch, bucket));
+                assertEquals(sketch.hashCode(bucket), read.hashCode(0));
+                assertEquals(sketch.quantile(bucket, 0.5), read.quantile(0, 0.5), 0d);
+            }
+        }
+    }
+
+    public void testInvalidSettings() {
+        expectThrows(IllegalArgumentException.class, () -> new DDSketch(0, DDSketch.DEFAULT_MAX_BINS, BigArrays.NON_RECYCLING_INSTANCE, 1));
+        expectThrows(IllegalArgumentException.class, () -> new DDSketch(1, DDSketch.DEFAULT_MAX_BINS, BigArrays.NON_RECYCLING_INSTANCE, 1));
+        expectThrows(IllegalArgumentException.class,
+            () -> new DDSketch(DDSketch.DEFAULT_RELATIVE_ACCURACY, DDSketch.MIN_BINS - 1, BigArrays.NON_RECYCLING_INSTANCE, 1));
+    }
+}
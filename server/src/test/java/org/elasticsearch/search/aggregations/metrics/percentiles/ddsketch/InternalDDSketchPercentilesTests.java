@@ -0,0 +1,121 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.ddsketch;
+
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.metrics.percentiles.InternalPercentilesTestCase;
+import org.elasticsearch.search.aggregations.metrics.percentiles.ParsedPercentiles;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InternalDDSketchPercentilesTests extends InternalPercentilesTestCase<InternalDDSketchPercentiles> {
+
+    @Override
+    protected InternalDDSketchPercentiles createTestInstance(String name,
+                                                             List<PipelineAggregator> pipelineAggregators,
+                                                             Map<String, Object> metaData,
+                                                             boolean keyed, DocValueFormat format, double[] percents, double[] values) {
+        final DDSketch sketch = new DDSketch(DDSketch.DEFAULT_RELATIVE_ACCURACY, DDSketch.DEFAULT_MAX_BINS,
+            BigArrays.NON_RECYCLING_INSTANCE, 1);
+        Arrays.stream(values).forEach(value -> sketch.add(0, value));
+
+        assertEquals(sketch.count(0), values.length);
+        return new InternalDDSketchPercentiles(name, percents, sketch, keyed, format, pipelineAggregators, metaData);
+    }
+
+    @Override
+    protected void assertReduced(InternalDDSketchPercentiles reduced, List<InternalDDSketchPercentiles> inputs) {
+        final DDSketch expected = new DDSketch(reduced.sketch.relativeAccuracy(), reduced.sketch.maxBins(),
+            BigArrays.NON_RECYCLING_INSTANCE, 1);
+
+        long totalCount = 0;
+        for (InternalDDSketchPercentiles input : inputs) {
+            assertArrayEquals(reduced.keys, input.keys, 0d);
+            expected.merge(0, input.sketch, 0);
+            totalCount += input.sketch.count(0);
+        }
+
+        assertEquals(totalCount, reduced.sketch.count(0));
+        if (totalCount > 0) {
+            assertEquals(expected.quantile(0, 0), reduced.sketch.quantile(0, 0), 0d);
+            assertEquals(expected.quantile(0, 0.5), reduced.sketch.quantile(0, 0.5), 0d);
+            assertEquals(expected.quantile(0, 1), reduced.sketch.quantile(0, 1), 0d);
+        }
+    }
+
+    @Override
+    protected Writeable.Reader<InternalDDSketchPercentiles> instanceReader() {
+        return InternalDDSketchPercentiles::new;
+    }
+
+    @Override
+    protected Class<? extends ParsedPercentiles> implementationClass() {
+        return ParsedDDSketchPercentiles.class;
+    }
+
+    @Override
+    protected InternalDDSketchPercentiles mutateInstance(InternalDDSketchPercentiles instance) {
+        String name = instance.getName();
+        double[] percents = instance.keys;
+        DDSketch sketch = instance.sketch;
+        boolean keyed = instance.keyed;
+        DocValueFormat formatter = instance.formatter();
+        List<PipelineAggregator> pipelineAggregators = instance.pipelineAggregators();
+        Map<String, Object> metaData = instance.getMetaData();
+        switch (between(0, 4)) {
+        case 0:
+            name += randomAlphaOfLength(5);
+            break;
+        case 1:
+            percents = Arrays.copyOf(percents, percents.length + 1);
+            percents[percents.length - 1] = randomDouble() * 100;
+            Arrays.sort(percents);
+            break;
+        case 2:
+            DDSketch newSketch = new DDSketch(sketch.relativeAccuracy(), sketch.maxBins(), BigArrays.NON_RECYCLING_INSTANCE, 1);
+            newSketch.merge(0, sketch, 0);
+            for (int i = 0; i < between(10, 100); i++) {
+                newSketch.add(0, randomDouble());
+            }
+            sketch = newSketch;
+            break;
+        case 3:
+            keyed = keyed == false;
+            break;
+        case 4:
+            if (metaData == null) {
+                metaData = new HashMap<>(1);
+            } else {
+                metaData = new HashMap<>(instance.getMetaData());
+            }
+            metaData.put(randomAlphaOfLength(15), randomInt());
+            break;
+        default:
+            throw new AssertionError("Illegal randomisation branch");
+        }
+        return new InternalDDSketchPercentiles(name, percents, sketch, keyed, formatter, pipelineAggregators, metaData);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.elasticsearch.common.io.stream.Writeable.Reader;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.ParsedAggregation;
+import org.elasticsearch.search.aggregations.metrics.topmetrics.InternalTopMetrics.TopMetric;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.InternalAggregationTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class InternalTopMetricsTests extends InternalAggregationTestCase<InternalTopMetrics> {
+
+    private SortOrder sortOrder;
+    private List<String> metricNames;
+    private int size;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        sortOrder = randomFrom(SortOrder.values());
+        metricNames = new ArrayList<>();
+        int numMetrics = randomIntBetween(1, 3);
+        for (int i = 0; i < numMetrics; i++) {
+            metricNames.add("metric_" + i);
+        }
+        size = randomIntBetween(1, 10);
+    }
+
+    @Override
+    protected InternalTopMetrics createTestInstance(String name, List<PipelineAggregator> pipelineAggregators,
+                                                    Map<String, Object> metaData) {
+        DocValueFormat sortFormat = randomNumericDocValueFormat();
+        List<TopMetric> topMetrics = new ArrayList<>();
+        int numTopMetrics = randomIntBetween(0, size);
+        for (int i = 0; i < numTopMetrics; i++) {
+            double[] metricValues = new double[metricNames.size()];
+            for (int j = 0; j < metricValues.length; j++) {
+                metricValues[j] = randomBoolean() ? Double.NaN : randomDouble();
+            }
+            // sort values are integers so that they survive formatting and parsing
+            topMetrics.add(new TopMetric(sortFormat, metricNames, randomIntBetween(0, 10000), metricValues));
+        }
+        topMetrics.sort(InternalTopMetrics.comparator(sortOrder));
+        return new InternalTopMetrics(name, sortFormat, sortOrder, metricNames, size, topMetrics, pipelineAggregators, metaData);
+    }
+
+    @Override
+    protected Reader<InternalTopMetrics> instanceReader() {
+        return InternalTopMetrics::new;
+    }
+
+    @Override
+    protected void assertReduced(InternalTopMetrics reduced, List<InternalTopMetrics> inputs) {
+        List<TopMetric> expected = new ArrayList<>();
+        for (InternalTopMetrics input : inputs) {
+            expected.addAll(input.getTop());
+        }
+        expected.sort(InternalTopMetrics.comparator(sortOrder));
+        expected = expected.subList(0, Math.min(size, expected.size()));
+        assertThat(reduced.getTop().size(), equalTo(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(reduced.getTop().get(i).getSortValue(), equalTo(expected.get(i).getSortValue()));
+        }
+        if (expected.isEmpty() == false) {
+            String metric = metricNames.get(0);
+            assertEquals(reduced.getTop().get(0).getMetric(metric), reduced.value(metric), 0d);
+        }
+    }
+
+    @Override
+    protected void assertFromXContent(InternalTopMetrics aggregation, ParsedAggregation parsedAggregation) {
+        ParsedTopMetrics parsed = (ParsedTopMetrics) parsedAggregation;
+        assertThat(parsed.getTop().size(), equalTo(aggregation.getTop().size()));
+        for (int i = 0; i < parsed.getTop().size(); i++) {
+            TopMetric expected = aggregation.getTop().get(i);
+            ParsedTopMetrics.ParsedTop actual = parsed.getTop().get(i);
+            assertEquals(expected.getSortValue(), actual.getSortValue(), 0d);
+            assertEquals(expected.getSortValueAsString(), actual.getSortValueAsString());
+            for (String metric : metricNames) {
+                assertEquals(expected.getMetric(metric), actual.getMetric(metric), 0d);
+            }
+        }
+    }
+
+    @Override
+    protected Predicate<String> excludePathsFromXContentInsertion() {
+        // metrics are keyed by field name
+        return path -> path.endsWith(InternalTopMetrics.METRICS_FIELD.getPreferredName());
+    }
+
+    @Override
+    protected InternalTopMetrics mutateInstance(InternalTopMetrics instance) {
+        String name = instance.getName();
+        List<TopMetric> topMetrics = instance.getTop();
+        int size = instance.getSize();
+        Map<String, Object> metaData = instance.getMetaData();
+        switch (between(0, 3)) {
+        case 0:
+            name += randomAlphaOfLength(5);
+            break;
+        case 1:
+            topMetrics = new ArrayList<>(topMetrics);
+            double[] metricValues = new double[instance.getMetricNames().size()];
+            Arrays.fill(metricValues, 1d);
+            topMetrics.add(new TopMetric(instance.getSortFormat(), instance.getMetricNames(), randomIntBetween(0, 10000), metricValues));
+            topMetrics.sort(InternalTopMetrics.comparator(instance.getSortOrder()));
+            break;
+        case 2:
+            size += between(1, 10);
+            break;
+        case 3:
+            if (metaData == null) {
+                metaData = new HashMap<>(1);
+            } else {
+                metaData = new HashMap<>(instance.getMetaData());
+            }
+            metaData.put(randomAlphaOfLength(15), randomInt());
+            break;
+        default:
+            throw new AssertionError("Illegal randomisation branch");
+        }
+        return new InternalTopMetrics(name, instance.getSortFormat(), instance.getSortOrder(), instance.getMetricNames(), size, topMetrics,
+            instance.pipelineAggregators(), metaData);
+    }
+}
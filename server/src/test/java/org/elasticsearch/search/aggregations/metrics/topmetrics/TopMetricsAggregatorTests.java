@@ -0,0 +1,177 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.topmetrics;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class TopMetricsAggregatorTests extends AggregatorTestCase {
+
+    private static final MappedFieldType[] FIELD_TYPES;
+    static {
+        MappedFieldType host = new KeywordFieldMapper.KeywordFieldType();
+        host.setName("host");
+        host.setHasDocValues(true);
+        MappedFieldType time = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        time.setName("time");
+        MappedFieldType cpu = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        cpu.setName("cpu");
+        FIELD_TYPES = new MappedFieldType[] { host, time, cpu };
+    }
+
+    public void testNoDocs() throws IOException {
+        InternalTopMetrics result = search(topMetrics(SortOrder.DESC, 1), iw -> {});
+        assertTrue(result.getTop().isEmpty());
+        assertTrue(Double.isNaN(result.value("cpu")));
+    }
+
+    public void testTopDocuments() throws IOException {
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex = iw -> {
+            iw.addDocument(doc("a", 1, 10));
+            iw.addDocument(doc("a", 5, 50));
+            iw.addDocument(doc("b", 3, 30));
+            iw.addDocument(doc("b", 4, 40));
+            iw.addDocument(doc("b", 2, 20));
+        };
+
+        InternalTopMetrics latest = search(topMetrics(SortOrder.DESC, 1), buildIndex);
+        assertThat(latest.getTop().size(), equalTo(1));
+        assertEquals(5, latest.getTop().get(0).getSortValue(), 0d);
+        assertEquals(50, latest.value("cpu"), 0d);
+
+        InternalTopMetrics earliest = search(topMetrics(SortOrder.ASC, 3), buildIndex);
+        assertThat(earliest.getTop().size(), equalTo(3));
+        assertEquals(10, earliest.getTop().get(0).getMetric("cpu"), 0d);
+        assertEquals(20, earliest.getTop().get(1).getMetric("cpu"), 0d);
+        assertEquals(30, earliest.getTop().get(2).getMetric("cpu"), 0d);
+    }
+
+    public void testMissingValues() throws IOException {
+        InternalTopMetrics result = search(topMetrics(SortOrder.DESC, 2), iw -> {
+            Document noSort = new Document();
+            noSort.add(new SortedNumericDocValuesField("cpu", 100));
+            iw.addDocument(noSort);
+            Document noMetric = new Document();
+            noMetric.add(new SortedNumericDocValuesField("time", 2));
+            iw.addDocument(noMetric);
+            iw.addDocument(doc("a", 1, 10));
+        });
+        // documents without a sort value are ignored
+        assertThat(result.getTop().size(), equalTo(2));
+        assertEquals(2, result.getTop().get(0).getSortValue(), 0d);
+        assertTrue(Double.isNaN(result.getTop().get(0).getMetric("cpu")));
+        assertEquals(10, result.getTop().get(1).getMetric("cpu"), 0d);
+    }
+
+    public void testUnmappedSort() throws IOException {
+        TopMetricsAggregationBuilder builder = new TopMetricsAggregationBuilder("_name")
+            .sort(new FieldSortBuilder("unmapped").order(SortOrder.DESC))
+            .metrics(Collections.singletonList("cpu"));
+        InternalTopMetrics result = search(builder, iw -> iw.addDocument(doc("a", 1, 10)));
+        assertTrue(result.getTop().isEmpty());
+    }
+
+    public void testNonNumericField() {
+        TopMetricsAggregationBuilder builder = new TopMetricsAggregationBuilder("_name")
+            .sort(new FieldSortBuilder("time").order(SortOrder.DESC))
+            .metrics(Collections.singletonList("host"));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> search(builder, iw -> iw.addDocument(doc("a", 1, 10))));
+        assertThat(e.getMessage(), equalTo("[top_metrics] only supports numeric fields but [host] of aggregation [_name] "
+            + "is of type [keyword]"));
+    }
+
+    public void testManyBuckets() throws IOException {
+        TermsAggregationBuilder terms = new TermsAggregationBuilder("hosts", null).field("host").size(100)
+            .subAggregation(topMetrics(SortOrder.DESC, randomIntBetween(1, 3)));
+        int numHosts = randomIntBetween(1, 50);
+        long[] latest = new long[numHosts];
+        StringTerms result = search(terms, iw -> {
+            for (int host = 0; host < numHosts; host++) {
+                int numDocs = randomIntBetween(1, 20);
+                for (int i = 0; i < numDocs; i++) {
+                    long time = randomLongBetween(0, 1000);
+                    latest[host] = Math.max(latest[host], time);
+                    iw.addDocument(doc("host_" + host, time, time * 10));
+                }
+            }
+        });
+        assertThat(result.getBuckets().size(), equalTo(numHosts));
+        for (StringTerms.Bucket bucket : result.getBuckets()) {
+            int host = Integer.parseInt(bucket.getKeyAsString().substring("host_".length()));
+            InternalTopMetrics topMetrics = bucket.getAggregations().get("_name");
+            assertEquals(latest[host], topMetrics.getTop().get(0).getSortValue(), 0d);
+            assertEquals(latest[host] * 10, topMetrics.value("cpu"), 0d);
+        }
+    }
+
+    private static TopMetricsAggregationBuilder topMetrics(SortOrder order, int size) {
+        return new TopMetricsAggregationBuilder("_name")
+            .sort(new FieldSortBuilder("time").order(order))
+            .metrics(Collections.singletonList("cpu"))
+            .size(size);
+    }
+
+    private static Document doc(String host, long time, long cpu) {
+        Document document = new Document();
+        document.add(new SortedSetDocValuesField("host", new BytesRef(host)));
+        document.add(new SortedNumericDocValuesField("time", time));
+        document.add(new SortedNumericDocValuesField("cpu", cpu));
+        return document;
+    }
+
+    private <A extends InternalAggregation> A search(AggregationBuilder builder,
+                                                     CheckedConsumer<RandomIndexWriter, IOException> buildIndex) throws IOException {
+        try (Directory directory = newDirectory()) {
+            RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+            buildIndex.accept(indexWriter);
+            indexWriter.close();
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                return searchAndReduce(indexSearcher, new MatchAllDocsQuery(), builder, FIELD_TYPES);
+            }
+        }
+    }
+}
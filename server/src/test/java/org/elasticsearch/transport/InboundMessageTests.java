@@ -19,13 +19,20 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
 
@@ -156,6 +163,92 @@ public class InboundMessageTests extends ESTestCase {
         assertEquals("[error]", inboundMessage.getStreamInput().readException().getMessage());
     }
 
+    public void testReadLz4CompressedRequest() throws IOException {
+        String value = randomRealisticUnicodeOfLengthBetween(10, 10000);
+        Message message = new Message(value);
+        String action = randomAlphaOfLength(10);
+        long requestId = randomLong();
+        Version version = Version.CURRENT;
+        OutboundMessage.Request request = new OutboundMessage.Request(threadContext, new String[0], message, version, action,
+            requestId, false, true, CompressionScheme.LZ4);
+        BytesReference reference;
+        try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
+            reference = request.serialize(streamOutput);
+        }
+
+        assertSame(CompressorFactory.LZ4,
+            CompressorFactory.compressor(reference.slice(TcpHeader.HEADER_SIZE, reference.length() - TcpHeader.HEADER_SIZE)));
+        BytesReference sliced = reference.slice(6, reference.length() - 6);
+        InboundMessage.Reader reader = new InboundMessage.Reader(version, registry, threadContext);
+        InboundMessage.RequestMessage inboundMessage = (InboundMessage.RequestMessage) reader.deserialize(sliced);
+        assertTrue(inboundMessage.isCompress());
+        assertEquals(action, inboundMessage.getActionName());
+        assertEquals(value, new Message(inboundMessage.getStreamInput()).value);
+    }
+
+    public void testCompressedMessageIsDecompressedIntoRecycledPages() throws IOException {
+        String value = randomRealisticUnicodeOfLengthBetween(10, 10000);
+        Message message = new Message(value);
+        String action = randomAlphaOfLength(10);
+        OutboundMessage.Request request = new OutboundMessage.Request(threadContext, new String[0], message, Version.CURRENT, action,
+            randomLong(), false, true, randomFrom(CompressionScheme.values()));
+        BytesReference reference;
+        try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
+            reference = request.serialize(streamOutput);
+        }
+
+        // MockBigArrays verifies that all pages were released at the end of the test
+        BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, registry, threadContext, bigArrays);
+        try (InboundMessage inboundMessage = reader.deserialize(reference.slice(6, reference.length() - 6))) {
+            assertTrue(inboundMessage.isCompress());
+            assertEquals(value, new Message(inboundMessage.getStreamInput()).value);
+        }
+    }
+
+    public void testBufferIsOnlyRetainedByRequestsThatKeepSlices() throws IOException {
+        final boolean compress = randomBoolean();
+        final BytesTransportRequest bytesRequest = new BytesTransportRequest(new BytesArray(randomByteArrayOfLength(between(1, 1024))),
+            Version.CURRENT);
+        final TransportMessage request = randomBoolean() ? bytesRequest : new Message(randomAlphaOfLength(10));
+        OutboundMessage.Request outbound = new OutboundMessage.Request(threadContext, new String[0], request, Version.CURRENT,
+            randomAlphaOfLength(10), randomLong(), false, compress, randomFrom(CompressionScheme.values()));
+        BytesReference reference;
+        try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
+            reference = outbound.serialize(streamOutput);
+        }
+
+        BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, registry, threadContext, bigArrays);
+        try (ReleasableBytesReference pooled = new ReleasableBytesReference(reference.slice(6, reference.length() - 6), () -> {});
+             InboundMessage inboundMessage = reader.deserialize(pooled)) {
+            assertFalse(inboundMessage.isBufferRetained());
+            if (request == bytesRequest) {
+                BytesTransportRequest received = new BytesTransportRequest();
+                received.readFrom(inboundMessage.getStreamInput());
+                assertTrue(inboundMessage.isBufferRetained());
+                assertEquals(bytesRequest.bytes(), received.bytes());
+                received.decRef();
+            } else {
+                new Message(inboundMessage.getStreamInput());
+            }
+            assertFalse(inboundMessage.isBufferRetained());
+        }
+    }
+
+    public void testCompressionSchemeForVersion() {
+        Version oldVersion = VersionUtils.getPreviousVersion(Version.V_6_7_2_6515);
+        assertEquals(CompressionScheme.DEFLATE, CompressionScheme.LZ4.forVersion(oldVersion));
+        // neither stock 6.7.1 nor the previous build of this fork, which shares its version id with nodes without lz4, can read it
+        assertEquals(CompressionScheme.DEFLATE, CompressionScheme.LZ4.forVersion(Version.V_6_7_1));
+        assertEquals(CompressionScheme.DEFLATE, CompressionScheme.LZ4.forVersion(Version.V_6_7_1_6515));
+        assertEquals(CompressionScheme.LZ4, CompressionScheme.LZ4.forVersion(Version.CURRENT));
+        assertEquals(CompressionScheme.DEFLATE, CompressionScheme.DEFLATE.forVersion(Version.CURRENT));
+        assertEquals(CompressionScheme.LZ4, CompressionScheme.parse("lz4"));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> CompressionScheme.parse("snappy"));
+        assertEquals("unknown transport compression scheme [snappy], must be one of [deflate, lz4]", e.getMessage());
+    }
+
     public void testEnsureVersionCompatibility() throws IOException {
         testVersionIncompatibility(VersionUtils.randomVersionBetween(random(), Version.CURRENT.minimumCompatibilityVersion(),
             Version.CURRENT), Version.CURRENT, randomBoolean());
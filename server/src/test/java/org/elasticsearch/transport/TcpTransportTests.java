@@ -243,6 +243,39 @@ public class TcpTransportTests extends ESTestCase {
         }
     }
 
+    public void testShouldCompressAction() {
+        Settings settings = Settings.builder()
+            .putList(TransportSettings.TRANSPORT_COMPRESS_ACTIONS.getKey(), "indices:data/write/bulk*",
+                "internal:index/shard/recovery/file_chunk")
+            .build();
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        try {
+            TcpTransport transport = new TcpTransport("test", settings, Version.CURRENT, threadPool,
+                PageCacheRecycler.NON_RECYCLING_INSTANCE, new NoneCircuitBreakerService(), null, null) {
+
+                @Override
+                protected FakeServerChannel bind(String name, InetSocketAddress address) {
+                    return null;
+                }
+
+                @Override
+                protected FakeTcpChannel initiateChannel(DiscoveryNode node) {
+                    return new FakeTcpChannel(false);
+                }
+
+                @Override
+                protected void stopInternal() {
+                }
+            };
+            assertTrue(transport.shouldCompressAction("indices:data/write/bulk[s]"));
+            assertTrue(transport.shouldCompressAction("indices:data/write/bulk[s][r]"));
+            assertTrue(transport.shouldCompressAction("internal:index/shard/recovery/file_chunk"));
+            assertFalse(transport.shouldCompressAction("indices:data/read/search"));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
     private static final class FakeServerChannel implements TcpServerChannel {
 
         @Override
@@ -322,15 +322,23 @@ public abstract class AggregatorTestCase extends ESTestCase {
                                                                              MappedFieldType... fieldTypes) throws IOException {
         MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(maxBucket);
         C a = createAggregator(query, builder, searcher, bucketConsumer, fieldTypes);
-        a.preCollection();
-        searcher.search(query, a);
-        a.postCollection();
+        BucketCollector collector = wrapCollector(a);
+        collector.preCollection();
+        searcher.search(query, collector);
+        collector.postCollection();
         @SuppressWarnings("unchecked")
         A internalAgg = (A) a.buildAggregation(0L);
         InternalAggregationTestCase.assertMultiBucketConsumer(internalAgg, bucketConsumer);
         return internalAgg;
     }
 
+    /**
+     * Randomly collects the aggregator in batches like the aggregation phase does, or doc by doc.
+     */
+    private static BucketCollector wrapCollector(Aggregator aggregator) {
+        return randomBoolean() ? new BatchingBucketCollector(aggregator) : aggregator;
+    }
+
     protected <A extends InternalAggregation, C extends Aggregator> A searchAndReduce(IndexSearcher searcher,
                                                                                       Query query,
                                                                                       AggregationBuilder builder,
@@ -374,9 +382,10 @@ public abstract class AggregatorTestCase extends ESTestCase {
         for (ShardSearcher subSearcher : subSearchers) {
             MultiBucketConsumer shardBucketConsumer = new MultiBucketConsumer(maxBucket);
             C a = createAggregator(query, builder, subSearcher, shardBucketConsumer, fieldTypes);
-            a.preCollection();
-            subSearcher.search(weight, a);
-            a.postCollection();
+            BucketCollector collector = wrapCollector(a);
+            collector.preCollection();
+            subSearcher.search(weight, collector);
+            collector.postCollection();
             InternalAggregation agg = a.buildAggregation(0L);
             aggs.add(agg);
             InternalAggregationTestCase.assertMultiBucketConsumer(agg, shardBucketConsumer);
@@ -28,6 +28,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.frequency.BackgroundFrequencyCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -37,6 +38,7 @@ import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesFetchCache;
 import org.elasticsearch.search.SearchExtBuilder;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
@@ -254,6 +256,16 @@ public class TestSearchContext extends SearchContext {
         return null;
     }
 
+    @Override
+    public IndicesFetchCache fetchCache() {
+        return null;
+    }
+
+    @Override
+    public SearchContext fetchCache(IndicesFetchCache fetchCache) {
+        return null;
+    }
+
     @Override
     public DocValueFieldsContext docValueFieldsContext() {
         return null;
@@ -301,6 +313,11 @@ public class TestSearchContext extends SearchContext {
         return fixedBitSetFilterCache;
     }
 
+    @Override
+    public BackgroundFrequencyCache backgroundFrequencyCache() {
+        return indexService == null ? null : indexService.cache().backgroundFrequencyCache();
+    }
+
     @Override
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return queryShardContext.getForField(fieldType);
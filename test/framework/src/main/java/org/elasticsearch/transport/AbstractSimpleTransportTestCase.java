@@ -30,6 +30,7 @@ import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.SuppressForbidden;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -2029,6 +2030,56 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
         }
     }
 
+    public void testAsyncInterceptedHandlerReadsRequestBytes() throws Exception {
+        // like the security interceptor, this interceptor forks before it passes the request on to the actual handler, so the
+        // handler runs after the transport is done with the inbound message that the request was read from
+        final TransportInterceptor interceptor = new TransportInterceptor() {
+            @Override
+            public <T extends TransportRequest> TransportRequestHandler<T> interceptHandler(String action, String executor,
+                                                                                        boolean forceExecution,
+                                                                                        TransportRequestHandler<T> actualHandler) {
+                return (request, channel) -> threadPool.schedule(new AbstractRunnable() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        try {
+                            channel.sendResponse(e);
+                        } catch (IOException inner) {
+                            inner.addSuppressed(e);
+                            throw new UncheckedIOException(inner);
+                        }
+                    }
+
+                    @Override
+                    protected void doRun() throws Exception {
+                        actualHandler.messageReceived(request, channel);
+                    }
+                }, TimeValue.timeValueMillis(randomIntBetween(1, 10)), ThreadPool.Names.GENERIC);
+            }
+        };
+        final String action = "internal:async_intercepted";
+        final TransportRequestHandler<BytesTransportRequest> handler =
+            (request, channel) -> channel.sendResponse(new StringMessageResponse(request.bytes().utf8ToString()));
+        serviceA.registerRequestHandler(action, BytesTransportRequest::new, ThreadPool.Names.SAME,
+            interceptor.interceptHandler(action, ThreadPool.Names.SAME, false, handler));
+
+        final List<String> messages = new ArrayList<>();
+        final List<TransportFuture<StringMessageResponse>> futures = new ArrayList<>();
+        for (int i = randomIntBetween(1, 10); i > 0; i--) {
+            final String message = randomRealisticUnicodeOfLengthBetween(1, 1024);
+            messages.add(message);
+            futures.add(serviceB.submitRequest(nodeA, action, new BytesTransportRequest(new BytesArray(message), Version.CURRENT),
+                new FutureTransportResponseHandler<StringMessageResponse>() {
+                    @Override
+                    public StringMessageResponse read(StreamInput in) throws IOException {
+                        return new StringMessageResponse(in);
+                    }
+                }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(messages.get(i), futures.get(i).txGet().message);
+        }
+    }
+
     public void testTcpHandshake() {
         assumeTrue("only tcp transport has a handshake method", serviceA.getOriginalTransport() instanceof TcpTransport);
         TcpTransport originalTransport = (TcpTransport) serviceA.getOriginalTransport();
@@ -2043,7 +2094,7 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
                 byte status = (byte) (request.status & ~(1 << 3));
                 Version version = request.getVersion();
                 InboundMessage.RequestMessage nonHandshakeRequest = new InboundMessage.RequestMessage(request.threadContext, version,
-                    status, request.getRequestId(), request.getActionName(), request.getFeatures(), request.getStreamInput());
+                    status, request.getRequestId(), request.getActionName(), request.getFeatures(), request.getStreamInput(), null, null);
                 super.handleRequest(channel, nonHandshakeRequest, messageLengthBytes);
             }
         };
@@ -9,6 +9,7 @@ import org.apache.lucene.util.automaton.Automaton;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.EvictionPolicy;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -33,12 +34,16 @@ public final class FieldPermissionsCache {
 
     public static final Setting<Long> CACHE_SIZE_SETTING = Setting.longSetting(
             setting("authz.store.roles.field_permissions.cache.max_size_in_bytes"), 100 * 1024 * 1024, -1L, Property.NodeScope);
+    public static final Setting<EvictionPolicy> CACHE_EVICTION_POLICY_SETTING = new Setting<>(
+            setting("authz.store.roles.field_permissions.cache.eviction_policy"), EvictionPolicy.LRU.toString(), EvictionPolicy::parse,
+            Property.NodeScope);
     private final Cache<FieldPermissionsDefinition, FieldPermissions> cache;
 
     public FieldPermissionsCache(Settings settings) {
         this.cache = CacheBuilder.<FieldPermissionsDefinition, FieldPermissions>builder()
                 .setMaximumWeight(CACHE_SIZE_SETTING.get(settings))
                 .weigher((key, fieldPermissions) -> fieldPermissions.ramBytesUsed())
+                .setEvictionPolicy(CACHE_EVICTION_POLICY_SETTING.get(settings))
                 .build();
     }
 
@@ -699,6 +699,7 @@ public class Security extends Plugin implements ActionPlugin, IngestPlugin, Netw
         Automatons.addSettings(settingsList);
         settingsList.addAll(CompositeRolesStore.getSettings());
         settingsList.add(FieldPermissionsCache.CACHE_SIZE_SETTING);
+        settingsList.add(FieldPermissionsCache.CACHE_EVICTION_POLICY_SETTING);
         settingsList.add(TokenService.TOKEN_EXPIRATION);
         settingsList.add(TokenService.TOKEN_PASSPHRASE);
         settingsList.add(TokenService.DELETE_INTERVAL);
@@ -16,6 +16,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.EvictionPolicy;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -83,6 +84,8 @@ public class CompositeRolesStore {
         Setting.intSetting("xpack.security.authz.store.roles.cache.max_size", 10000, Property.NodeScope);
     private static final Setting<Integer> NEGATIVE_LOOKUP_CACHE_SIZE_SETTING =
         Setting.intSetting("xpack.security.authz.store.roles.negative_lookup_cache.max_size", 10000, Property.NodeScope);
+    private static final Setting<EvictionPolicy> CACHE_EVICTION_POLICY_SETTING = new Setting<>(
+        "xpack.security.authz.store.roles.cache.eviction_policy", EvictionPolicy.LRU.toString(), EvictionPolicy::parse, Property.NodeScope);
     private static final Logger logger = LogManager.getLogger(CompositeRolesStore.class);
 
     // the lock is used in an odd manner; when iterating over the cache we cannot have modifiers other than deletes using
@@ -125,14 +128,15 @@ public class CompositeRolesStore {
         this.licenseState = licenseState;
         this.fieldPermissionsCache = fieldPermissionsCache;
         this.apiKeyService = apiKeyService;
-        CacheBuilder<RoleKey, Role> builder = CacheBuilder.builder();
+        final EvictionPolicy evictionPolicy = CACHE_EVICTION_POLICY_SETTING.get(settings);
+        CacheBuilder<RoleKey, Role> builder = CacheBuilder.<RoleKey, Role>builder().setEvictionPolicy(evictionPolicy);
         final int cacheSize = CACHE_SIZE_SETTING.get(settings);
         if (cacheSize >= 0) {
             builder.setMaximumWeight(cacheSize);
         }
         this.roleCache = builder.build();
         this.threadContext = threadContext;
-        CacheBuilder<String, Boolean> nlcBuilder = CacheBuilder.builder();
+        CacheBuilder<String, Boolean> nlcBuilder = CacheBuilder.<String, Boolean>builder().setEvictionPolicy(evictionPolicy);
         final int nlcCacheSize = NEGATIVE_LOOKUP_CACHE_SIZE_SETTING.get(settings);
         if (nlcCacheSize >= 0) {
             nlcBuilder.setMaximumWeight(nlcCacheSize);
@@ -592,6 +596,6 @@ public class CompositeRolesStore {
     }
 
     public static List<Setting<?>> getSettings() {
-        return Arrays.asList(CACHE_SIZE_SETTING, NEGATIVE_LOOKUP_CACHE_SIZE_SETTING);
+        return Arrays.asList(CACHE_SIZE_SETTING, NEGATIVE_LOOKUP_CACHE_SIZE_SETTING, CACHE_EVICTION_POLICY_SETTING);
     }
 }